@@ -27,9 +27,16 @@
 package com.salesforce.omakase;
 
 import com.google.common.collect.ClassToInstanceMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.MutableClassToInstanceMap;
+import com.salesforce.omakase.ast.Statement;
+import com.salesforce.omakase.ast.StatementIterable;
 import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.broadcast.Broadcastable;
 import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.CountingBroadcaster;
 import com.salesforce.omakase.broadcast.EmittingBroadcaster;
 import com.salesforce.omakase.broadcast.VisitingBroadcaster;
 import com.salesforce.omakase.broadcast.annotation.Observe;
@@ -37,7 +44,11 @@ import com.salesforce.omakase.broadcast.annotation.Rework;
 import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.Emitter;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPlan;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionStats;
 import com.salesforce.omakase.error.ErrorManager;
+import com.salesforce.omakase.jfr.Events;
+import com.salesforce.omakase.jfr.PhaseEvent;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.factory.ParserFactory;
 import com.salesforce.omakase.parser.factory.StandardParserFactory;
@@ -48,12 +59,18 @@ import com.salesforce.omakase.plugin.GrammarPlugin;
 import com.salesforce.omakase.plugin.ParserPlugin;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.PostProcessingPlugin;
+import com.salesforce.omakase.plugin.PreParsingPlugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.salesforce.omakase.Message.*;
 
 /**
@@ -69,7 +86,10 @@ import static com.salesforce.omakase.Message.*;
  */
 final class Context implements PluginRegistry {
     /** registry of all plugins */
-    private final ClassToInstanceMap<Plugin> registry = MutableClassToInstanceMap.create();
+    private final ClassToInstanceMap<Plugin> registry;
+
+    /** all plugins, in the order they were registered with the emitter (dependencies before dependents) */
+    private final List<Plugin> plugins;
 
     /** uses an {@link Emitter} to broadcast events */
     private final EmittingBroadcaster emittingBroadcaster = new EmittingBroadcaster();
@@ -86,6 +106,44 @@ final class Context implements PluginRegistry {
     /** parser factory determines which parsers to use */
     private ParserFactory parserFactory;
 
+    /** request stats, only when enabled */
+    private RequestStats stats;
+
+    /** length of the source being parsed */
+    private int sourceLength;
+
+    /** precomputed subscriptions for the expected plugins, used to register them with the emitter all at once */
+    private SubscriptionPlan plan;
+
+    /** whether to process and validate in a single traversal when possible */
+    private boolean singlePass;
+    private boolean byStatement;
+
+    /** pool for validating top-level statements in parallel, or null to validate sequentially */
+    private ForkJoinPool validationPool;
+
+    /** number of plugins checked for {@link PreParsingPlugin} so far */
+    private int notified;
+
+    /** the error manager for the current request */
+    private ErrorManager em;
+
+    /** Creates a new context */
+    public Context() {
+        this(16);
+    }
+
+    /**
+     * Creates a new context sized for the given number of plugins.
+     *
+     * @param expectedPlugins
+     *     The expected number of plugins, including dependencies.
+     */
+    public Context(int expectedPlugins) {
+        this.registry = MutableClassToInstanceMap.create(Maps.newHashMapWithExpectedSize(expectedPlugins));
+        this.plugins = new ArrayList<>(expectedPlugins);
+    }
+
     @Override
     public void register(Iterable<? extends Plugin> plugins) {
         for (Plugin plugin : plugins) {
@@ -126,9 +184,12 @@ final class Context implements PluginRegistry {
 
         // add the plugin to the registry
         registry.put(klass, plugin);
+        plugins.add(plugin);
 
-        // hook up the plugin for subscription events
-        emittingBroadcaster.register(plugin);
+        // hook up the plugin for subscription events (deferred until parsing when there's a plan for all of them)
+        if (plan == null) {
+            emittingBroadcaster.register(plugin);
+        }
     }
 
     @Override
@@ -155,6 +216,83 @@ final class Context implements PluginRegistry {
         return Optional.ofNullable(registry.getInstance(klass));
     }
 
+    @Override
+    public List<SubscriptionStats> subscriptionStats() {
+        return emittingBroadcaster.subscriptionStats();
+    }
+
+    @Override
+    public Optional<RequestStats> stats() {
+        return Optional.ofNullable(stats);
+    }
+
+    @Override
+    public List<Plugin> plugins() {
+        return ImmutableList.copyOf(plugins);
+    }
+
+    /**
+     * Specifies a {@link SubscriptionPlan} for the plugins that will be registered. This must be called before any plugins are
+     * registered. The plugins will then be registered with the emitter all at once right before parsing, using the plan if
+     * they still match it.
+     *
+     * @param plan
+     *     The plan.
+     */
+    public void plan(SubscriptionPlan plan) {
+        checkNotNull(plan, "plan cannot be null");
+        checkState(plugins.isEmpty(), "the plan must be specified before registering plugins");
+        this.plan = plan;
+    }
+
+    /**
+     * Specifies whether the process and validate phases should be delivered together. Without any rework subscriptions this
+     * is a single traversal of the tree, validating each unit right after it has been processed. With only local rework
+     * subscriptions (see {@link Rework#local()}) each top-level statement is processed and then validated before the next
+     * one, which traverses each statement once per phase as usual. Otherwise this has no effect.
+     *
+     * @param singlePass
+     *     Whether to process and validate together when possible.
+     */
+    public void singlePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Specifies a pool to deliver the validate phase on, validating each top-level statement in parallel. Errors are still
+     * reported to the request's {@link ErrorManager} in source order.
+     * <p>
+     * This only has an effect when the validate phase is a separate traversal (see {@link #singlePass(boolean)}), there aren't
+     * any custom broadcasters (see {@link #broadcaster(Broadcaster)}) and neither request stats nor profiling are enabled,
+     * otherwise the statements are validated sequentially.
+     *
+     * @param pool
+     *     Validate on this pool, or null to validate sequentially.
+     */
+    public void parallelValidation(ForkJoinPool pool) {
+        this.validationPool = pool;
+    }
+
+    /**
+     * Specifies the object to record request stats into.
+     *
+     * @param stats
+     *     Record stats into this object.
+     */
+    public void stats(RequestStats stats) {
+        this.stats = checkNotNull(stats, "stats cannot be null");
+    }
+
+    /**
+     * Specifies whether subscription invocations should be recorded.
+     *
+     * @param profile
+     *     Whether to record subscription invocations.
+     */
+    public void profile(boolean profile) {
+        emittingBroadcaster.profile(profile);
+    }
+
     /**
      * Wraps the existing broadcaster inside of the given one.
      *
@@ -179,13 +317,27 @@ final class Context implements PluginRegistry {
     /**
      * Internal method to signify when (high-level) parsing is about to begin.
      */
-    protected Grammar beforeParsing(ErrorManager em) {
+    protected Grammar beforeParsing(ErrorManager em, int sourceLength) {
         checkNotNull(em, "An error manager must be given to the context");
+        this.em = em;
+        this.sourceLength = sourceLength;
+
+        notifyPreParsing();
+
+        if (plan != null) {
+            emittingBroadcaster.register(plan, plugins);
+            plan = null;
+        }
 
         Grammar grammar = new Grammar(
             tokenFactory != null ? tokenFactory : StandardTokenFactory.instance(),
             parserFactory != null ? parserFactory : StandardParserFactory.instance());
 
+        // must be at the top so that units are counted before being emitted
+        if (stats != null) {
+            broadcaster(stats.broadcaster());
+        }
+
         emittingBroadcaster.root(broadcaster);
         emittingBroadcaster.grammar(grammar);
         emittingBroadcaster.errorManager(em);
@@ -194,22 +346,142 @@ final class Context implements PluginRegistry {
         return grammar;
     }
 
+    /**
+     * Notifies each {@link PreParsingPlugin}, including any registered along the way by another {@link PreParsingPlugin}. This
+     * is called automatically right before parsing, but can be called earlier as well (each plugin is only notified once).
+     */
+    void notifyPreParsing() {
+        while (notified < plugins.size()) {
+            Plugin plugin = plugins.get(notified++);
+            if (plugin instanceof PreParsingPlugin) {
+                ((PreParsingPlugin)plugin).beforeParsing(this);
+            }
+        }
+    }
+
+    /**
+     * Updates the length of the source being parsed, for when it isn't known until parsing is done (i.e., when reading from a
+     * stream).
+     */
+    void sourceLength(int sourceLength) {
+        this.sourceLength = sourceLength;
+        if (stats != null) stats.inputLength(sourceLength);
+    }
+
     /**
      * Internal method to signify when (high-level) parsing is completed.
      */
     protected void afterParsing() {
-        // replay broadcasts for observers and reworkers
-        emittingBroadcaster.phase(SubscriptionPhase.PROCESS);
-        visitor.visit(broadcaster, Status.PARSED);
-
-        // replay broadcasts for validators
-        emittingBroadcaster.phase(SubscriptionPhase.VALIDATE);
-        visitor.visit(broadcaster, Status.PROCESSED);
+        if (stats != null) stats.parsed();
+
+        if (singlePass && !emittingBroadcaster.hasReworks()) {
+            // replay broadcasts for observers and validators in one traversal, each unit validated right after being processed
+            emittingBroadcaster.fuse(true);
+            visit(SubscriptionPhase.PROCESS, Status.PARSED);
+            emittingBroadcaster.fuse(false);
+            if (stats != null) {
+                stats.processed();
+                stats.validated();
+            }
+        } else if (singlePass && emittingBroadcaster.onlyLocalProcessing()) {
+            // replay broadcasts for observers, reworkers and validators, each statement validated after being fully processed
+            byStatement = true;
+            visit(SubscriptionPhase.PROCESS, Status.PARSED);
+            byStatement = false;
+            if (stats != null) {
+                stats.processed();
+                stats.validated();
+            }
+        } else {
+            // replay broadcasts for observers and reworkers
+            visit(SubscriptionPhase.PROCESS, Status.PARSED);
+            if (stats != null) stats.processed();
+
+            // replay broadcasts for validators
+            visit(SubscriptionPhase.VALIDATE, Status.PROCESSED);
+            if (stats != null) stats.validated();
+        }
 
         // notify post processors
         for (PostProcessingPlugin plugin : filter(PostProcessingPlugin.class)) {
             plugin.postProcess(this);
         }
+        if (stats != null) stats.postProcessed();
+    }
+
+    /** replays broadcasts of units with the given status in the given phase, recording a flight recorder event if enabled */
+    private void visit(SubscriptionPhase phase, Status status) {
+        emittingBroadcaster.phase(phase);
+
+        PhaseEvent event = Events.active() ? new PhaseEvent() : null;
+        if (event == null || !event.isEnabled()) {
+            replay(phase, status, null);
+            return;
+        }
+
+        LongAdder units = new LongAdder();
+        event.begin();
+        replay(phase, status, units);
+
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.sourceLength = sourceLength;
+            event.units = units.intValue();
+            event.commit();
+        }
+    }
+
+    /** replays broadcasts of units with the given status, adding the number of broadcasted units if counting */
+    private void replay(SubscriptionPhase phase, Status status, LongAdder units) {
+        Optional<Broadcastable> target = visitor.target();
+
+        if (byStatement) {
+            replayByStatement(target, units);
+            return;
+        }
+
+        if (phase == SubscriptionPhase.VALIDATE && validationPool != null && broadcaster == visitor
+            && !emittingBroadcaster.profiling() && target.isPresent() && target.get() instanceof StatementIterable
+            && target.get().status() == status) {
+            // validate each top-level statement in parallel, then the top-level unit itself
+            new ParallelValidation(validationPool, emittingBroadcaster, em, (StatementIterable)target.get(), units).run();
+        }
+
+        if (units == null) {
+            visitor.visit(broadcaster, status);
+        } else {
+            CountingBroadcaster counter = new CountingBroadcaster(broadcaster);
+            visitor.visit(counter, status);
+            units.add(counter.count());
+        }
+    }
+
+    /**
+     * processes and then validates each top-level statement in turn, so that validators only see a statement once all of its
+     * units have been reworked. Anything left over (the top-level unit itself, or units without statements) is then processed
+     * and validated as a whole. Each statement is still traversed once per phase, this only keeps the work on a statement
+     * together.
+     */
+    private void replayByStatement(Optional<Broadcastable> target, LongAdder units) {
+        CountingBroadcaster counter = units == null ? null : new CountingBroadcaster(broadcaster);
+        Broadcaster relay = counter == null ? broadcaster : counter;
+        visitor.lock();
+
+        if (target.isPresent() && target.get() instanceof StatementIterable && target.get().status() == Status.PARSED) {
+            for (Statement statement : Iterables.toArray(((StatementIterable)target.get()).statements(), Statement.class)) {
+                emittingBroadcaster.phase(SubscriptionPhase.PROCESS);
+                statement.propagateBroadcast(relay, Status.PARSED);
+                emittingBroadcaster.phase(SubscriptionPhase.VALIDATE);
+                statement.propagateBroadcast(relay, Status.PROCESSED);
+            }
+        }
+
+        emittingBroadcaster.phase(SubscriptionPhase.PROCESS);
+        visitor.visit(relay, Status.PARSED);
+        emittingBroadcaster.phase(SubscriptionPhase.VALIDATE);
+        visitor.visit(relay, Status.PROCESSED);
+
+        if (counter != null) units.add(counter.count());
     }
 
     /** helper method to get only plugins of a certain type */
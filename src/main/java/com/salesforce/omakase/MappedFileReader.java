@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.salesforce.omakase.parser.StatementReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * A {@link Reader} over a memory-mapped file.
+ * <p>
+ * The file is mapped with {@link FileChannel#map}, and the bytes are decoded as they are read, straight into the array given
+ * to {@link #read(char[], int, int)} (usually the buffer of a {@link StatementReader}). The file contents are never copied to
+ * the heap as a whole, and the pages are read by the operating system on demand, or straight from its page cache when the file
+ * was read recently.
+ * <p>
+ * The channel is closed as soon as the file has been mapped, the mapping itself stays valid until it is garbage collected.
+ * Malformed input is reported as a {@link java.nio.charset.CharacterCodingException}.
+ *
+ * @author nmcwilliams
+ */
+final class MappedFileReader extends Reader {
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+
+    /**
+     * holds a decoded surrogate pair when there was only room for one char. Cleared and flipped through {@link Buffer} so that
+     * the compiled code also runs on java 8, where {@link CharBuffer} doesn't override those methods.
+     */
+    private final CharBuffer spill = CharBuffer.allocate(2);
+
+    private boolean flushing;
+    private boolean done;
+
+    MappedFileReader(ByteBuffer bytes, Charset charset) {
+        this.bytes = bytes;
+        this.decoder = charset.newDecoder();
+        ((Buffer)spill).flip();
+    }
+
+    /**
+     * Maps the given file and creates a new reader for it.
+     * <p>
+     * A single mapping is limited to {@link Integer#MAX_VALUE} bytes, so a larger file is decoded from a regular channel
+     * instead. That reader closes the channel once it has been read to the end.
+     *
+     * @param path
+     *     The file.
+     * @param charset
+     *     The encoding of the file.
+     *
+     * @return The reader.
+     *
+     * @throws IOException
+     *     If the file can't be opened or mapped.
+     */
+    static Reader open(Path path, Charset charset) throws IOException {
+        return open(path, charset, Integer.MAX_VALUE);
+    }
+
+    /** same as {@link #open(Path, Charset)}, but only maps files of up to the given size */
+    static Reader open(Path path, Charset charset, long maxMapped) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > maxMapped) {
+                Reader reader = new ClosingReader(Channels.newReader(channel, charset.newDecoder(), -1));
+                channel = null; // closed by the reader
+                return reader;
+            }
+            return new MappedFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+        } finally {
+            if (channel != null) channel.close();
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        checkPositionIndexes(off, off + len, cbuf.length);
+        if (len == 0) return 0;
+
+        int count = drain(cbuf, off, len);
+        if (count < len) {
+            count += decode(CharBuffer.wrap(cbuf, off + count, len - count));
+
+            if (count == 0 && !done) {
+                // only room for one char, but the next one is a surrogate pair
+                ((Buffer)spill).clear();
+                decode(spill);
+                ((Buffer)spill).flip();
+                count = drain(cbuf, off, len);
+            }
+        }
+
+        return (count == 0 && done) ? -1 : count;
+    }
+
+    /** copies any spilled chars into the given array */
+    private int drain(char[] cbuf, int off, int len) {
+        int count = 0;
+        while (count < len && spill.hasRemaining()) {
+            cbuf[off + count++] = spill.get();
+        }
+        return count;
+    }
+
+    /** decodes as many chars as fit into the given buffer, returning the number of chars decoded */
+    private int decode(CharBuffer out) throws IOException {
+        int start = out.position();
+        while (!done && out.hasRemaining()) {
+            CoderResult result = flushing ? decoder.flush(out) : decoder.decode(bytes, out, true);
+            if (result.isError()) result.throwException();
+            if (result.isOverflow()) break;
+
+            // underflow, all bytes have been decoded (or flushed)
+            if (flushing) {
+                done = true;
+            } else {
+                flushing = true;
+            }
+        }
+        return out.position() - start;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close, the channel was closed once mapped
+    }
+
+    /** closes the wrapped reader as soon as the end has been reached, since requests don't close their readers */
+    private static final class ClosingReader extends Reader {
+        private final Reader in;
+        private boolean closed;
+
+        ClosingReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (closed) return -1;
+
+            int count = in.read(cbuf, off, len);
+            if (count == -1) close();
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            in.close();
+        }
+    }
+}
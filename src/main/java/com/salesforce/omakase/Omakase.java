@@ -27,18 +27,40 @@
 package com.salesforce.omakase;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import com.salesforce.omakase.ast.Stylesheet;
+import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.annotation.Observe;
+import com.salesforce.omakase.broadcast.annotation.Rework;
+import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
 import com.salesforce.omakase.error.DefaultErrorManager;
 import com.salesforce.omakase.error.ErrorManager;
 import com.salesforce.omakase.error.ProblemSummaryException;
 import com.salesforce.omakase.parser.Grammar;
+import com.salesforce.omakase.parser.Parser;
 import com.salesforce.omakase.parser.ParserException;
 import com.salesforce.omakase.parser.Source;
+import com.salesforce.omakase.parser.StatementReader;
+import com.salesforce.omakase.parser.StylesheetParser;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.core.StandardValidation;
 import com.salesforce.omakase.writer.StyleWriter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -102,6 +124,147 @@ public final class Omakase {
         return new Request(source);
     }
 
+    /**
+     * Specifies a stream of CSS source to parse.
+     * <p>
+     * Unlike {@link #source(CharSequence)}, the entire source is never held in memory at once. Instead it's read in chunks of
+     * complete top-level statements, and each chunk is parsed (and its syntax units broadcasted) before the next one is read.
+     * See {@link StatementReader}. This is useful for very large inputs, such as generated bundles or concatenations.
+     * <p>
+     * The reader is read when calling {@link Request#process()}, and it is not closed. Any {@link IOException} from the reader
+     * is rethrown from {@link Request#process()} as an {@link UncheckedIOException}.
+     *
+     * @param source
+     *     The CSS source code.
+     *
+     * @return The processed request (see {@link Request}).
+     */
+    public static Omakase.Request source(Reader source) {
+        checkNotNull(source, "source cannot be null");
+        return new Request(source, new Context());
+    }
+
+    /**
+     * Specifies a stream of UTF-8 encoded CSS source to parse. See {@link #source(Reader)}.
+     *
+     * @param source
+     *     The CSS source code.
+     *
+     * @return The processed request (see {@link Request}).
+     */
+    public static Omakase.Request source(InputStream source) {
+        return source(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Specifies a stream of CSS source to parse, in the given encoding. See {@link #source(Reader)}.
+     *
+     * @param source
+     *     The CSS source code.
+     * @param charset
+     *     The encoding of the source.
+     *
+     * @return The processed request (see {@link Request}).
+     */
+    public static Omakase.Request source(InputStream source, Charset charset) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(charset, "charset cannot be null");
+        return source(new InputStreamReader(source, charset));
+    }
+
+    /**
+     * Specifies a channel of UTF-8 encoded CSS source to parse. See {@link #source(Reader)}.
+     *
+     * @param source
+     *     The CSS source code.
+     *
+     * @return The processed request (see {@link Request}).
+     */
+    public static Omakase.Request source(ReadableByteChannel source) {
+        return source(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Specifies a channel of CSS source to parse, in the given encoding. See {@link #source(Reader)}.
+     *
+     * @param source
+     *     The CSS source code.
+     * @param charset
+     *     The encoding of the source.
+     *
+     * @return The processed request (see {@link Request}).
+     */
+    public static Omakase.Request source(ReadableByteChannel source, Charset charset) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(charset, "charset cannot be null");
+        return source(Channels.newReader(source, charset.newDecoder(), -1));
+    }
+
+    /**
+     * Specifies a UTF-8 encoded CSS file to parse. See {@link #source(Path, Charset)}.
+     *
+     * @param path
+     *     The CSS file.
+     *
+     * @return The processed request (see {@link Request}).
+     *
+     * @throws UncheckedIOException
+     *     If the file can't be opened or mapped.
+     */
+    public static Omakase.Request source(Path path) {
+        return source(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Specifies a CSS file to parse, in the given encoding.
+     * <p>
+     * The file is memory-mapped, and is decoded in chunks straight into the parsing buffer as it is parsed (see {@link
+     * #source(Reader)}). Its contents are never read into the heap as a whole, and the operating system reads the file on
+     * demand, or serves it from the page cache when the file was read recently, e.g., by another request.
+     * <p>
+     * Files larger than {@link Integer#MAX_VALUE} bytes can't be mapped at once. Those are streamed from the file instead, with
+     * the same chunked parsing.
+     *
+     * @param path
+     *     The CSS file.
+     * @param charset
+     *     The encoding of the file.
+     *
+     * @return The processed request (see {@link Request}).
+     *
+     * @throws UncheckedIOException
+     *     If the file can't be opened or mapped.
+     */
+    public static Omakase.Request source(Path path, Charset charset) {
+        checkNotNull(path, "path cannot be null");
+        checkNotNull(charset, "charset cannot be null");
+        try {
+            return source(MappedFileReader.open(path, charset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts building a reusable {@link Pipeline}, for when many sources will be processed with the same plugin configuration.
+     * <p>
+     * Example:
+     * <pre><code>
+     *     Pipeline pipeline = Omakase.pipeline()
+     *         .use(StyleWriter::compressed)
+     *         .use(StandardValidation::new)
+     *         .build();
+     *
+     *     PluginRegistry registry = pipeline.source(input).process();
+     *     String output = registry.retrieve(StyleWriter.class).get().write();
+     * </code></pre>
+     *
+     * @return The {@link Pipeline.Builder}.
+     */
+    public static Pipeline.Builder pipeline() {
+        return new Pipeline.Builder();
+    }
+
     /**
      * Represents a CSS parsing operation.
      * <p>
@@ -113,13 +276,27 @@ public final class Omakase {
      */
     public static final class Request {
         private final Context context;
-        private final Source source;
+        private final CharSequence source;
+        private final Reader reader;
+        private boolean positions = true;
 
         private ErrorManager em;
 
         Request(CharSequence source) {
-            this.context = new Context();
-            this.source = new Source(source.toString());
+            this(source, new Context());
+        }
+
+        Request(CharSequence source, Context context) {
+            this.context = context;
+            this.source = source;
+            this.reader = null;
+            this.em = new DefaultErrorManager();
+        }
+
+        Request(Reader reader, Context context) {
+            this.context = context;
+            this.source = null;
+            this.reader = reader;
             this.em = new DefaultErrorManager();
         }
 
@@ -175,6 +352,99 @@ public final class Omakase {
             return this;
         }
 
+        /**
+         * Enables recording of the invocation count and cumulative time of each plugin subscription method. The results can be
+         * retrieved from the {@link PluginRegistry} returned by {@link #process()}, see {@link PluginRegistry#subscriptionStats()}.
+         * <p>
+         * This is useful for finding out which plugin is responsible for a slow request.
+         *
+         * @return this, for chaining.
+         */
+        public Request profile() {
+            context.profile(true);
+            return this;
+        }
+
+        /**
+         * Delivers the validate ({@link Validate}) subscriptions for each top-level statement in parallel, using the common
+         * {@link ForkJoinPool}. See {@link #parallelValidation(ForkJoinPool)}.
+         *
+         * @return this, for chaining.
+         */
+        public Request parallelValidation() {
+            return parallelValidation(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Delivers the validate ({@link Validate}) subscriptions for each top-level statement in parallel, using the given
+         * {@link ForkJoinPool}.
+         * <p>
+         * Errors are still reported to the {@link ErrorManager} in the same order as they would be when validating
+         * sequentially, but only after all statements have been validated, and never from more than one thread at a time.
+         * <p>
+         * Validators are read-only by contract, but with this enabled they must also be safe to call from multiple threads at
+         * the same time, e.g., they shouldn't keep any mutable state. The top-level unit (e.g., the {@link Stylesheet}) is
+         * validated last, after all statements. This setting is ignored when combined with {@link #singlePass()} (if
+         * applicable), {@link #broadcaster(Broadcaster)}, {@link #stats()} or {@link #profile()}.
+         *
+         * @param pool
+         *     Validate on this pool.
+         *
+         * @return this, for chaining.
+         */
+        public Request parallelValidation(ForkJoinPool pool) {
+            context.parallelValidation(checkNotNull(pool, "pool cannot be null"));
+            return this;
+        }
+
+        /**
+         * Delivers the process ({@link Observe} and {@link Rework}) and validate ({@link Validate}) subscriptions in a single
+         * traversal of the syntax tree instead of two, when possible. The relative order of the subscriptions for a single unit is
+         * unchanged.
+         * <p>
+         * This is meant for pure linting, i.e., only observers and validators. Without any {@link Rework} subscriptions each
+         * unit is validated right after it has been processed, and the tree is traversed only once. When rework subscriptions
+         * are registered and all of them declare that they never modify any unit outside of the one delivered to them (see
+         * {@link Rework#local()}), each top-level statement is instead processed completely and then validated before moving
+         * on to the next one, so validators still see the final state of the statement. That doesn't save a traversal, it only
+         * keeps the work on each statement together. If any rework subscription isn't local then this setting is ignored.
+         * <p>
+         * Note that validators will run before the subscriptions for units later in the tree, so validators shouldn't depend on
+         * anything collected by observers of other units.
+         *
+         * @return this, for chaining.
+         */
+        public Request singlePass() {
+            context.singlePass(true);
+            return this;
+        }
+
+        /**
+         * Enables collection of {@link RequestStats} for this request, including the time spent in each phase, the number of
+         * statements and syntax units, and the number of errors. The stats can be retrieved from the {@link PluginRegistry}
+         * returned by {@link #process()}, see {@link PluginRegistry#stats()}.
+         *
+         * @return this, for chaining.
+         */
+        public Request stats() {
+            context.stats(new RequestStats());
+            return this;
+        }
+
+        /**
+         * Skips tracking line and column numbers while parsing. This is useful when nothing needs to know where each syntax unit
+         * came from, such as when just minifying.
+         * <p>
+         * Syntax units will not have a source position (see {@link Syntax#hasSourcePosition()}) and error messages will not
+         * include one.
+         *
+         * @return this, for chaining.
+         */
+        public Request noPositions() {
+            this.positions = false;
+            return this;
+        }
+
         /**
          * Processes the CSS source code, invoking registered plugins as applicable.
          * <p>
@@ -187,9 +457,22 @@ public final class Omakase {
          * for further processing or information retrieval.
          */
         public PluginRegistry process() {
+            int length = source != null ? source.length() : 0;
+
+            Optional<RequestStats> stats = context.stats();
+            if (stats.isPresent()) {
+                em = stats.get().errorManager(em);
+                stats.get().start(length);
+            }
+
             try {
-                Grammar grammar = context.beforeParsing(this.em);
-                grammar.parser().stylesheetParser().parse(source, grammar, context.broadcaster());
+                Grammar grammar = context.beforeParsing(this.em, length);
+                if (reader == null) {
+                    Source parsing = new Source(source, 1, 1, true, positions);
+                    grammar.parser().stylesheetParser().parse(parsing, grammar, context.broadcaster());
+                } else {
+                    parseStream(grammar);
+                }
                 context.afterParsing();
             } catch (ParserException e) {
                 em.report(e);
@@ -203,5 +486,25 @@ public final class Omakase {
 
             return context;
         }
+
+        /** parses the statements from the reader as they are read, unless a custom stylesheet parser is in use */
+        private void parseStream(Grammar grammar) {
+            Parser parser = grammar.parser().stylesheetParser();
+
+            if (parser instanceof StylesheetParser) {
+                StatementReader statements = new StatementReader(reader, positions);
+                ((StylesheetParser)parser).parse(statements, grammar, context.broadcaster());
+                context.sourceLength(statements.length());
+            } else {
+                String all;
+                try {
+                    all = CharStreams.toString(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                context.sourceLength(all.length());
+                parser.parse(new Source(all, 1, 1, true, positions), grammar, context.broadcaster());
+            }
+        }
     }
 }
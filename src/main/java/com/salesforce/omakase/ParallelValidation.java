@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.google.common.collect.Iterables;
+import com.salesforce.omakase.ast.Statement;
+import com.salesforce.omakase.ast.StatementIterable;
+import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.CountingBroadcaster;
+import com.salesforce.omakase.broadcast.EmittingBroadcaster;
+import com.salesforce.omakase.broadcast.annotation.Validate;
+import com.salesforce.omakase.error.ConcurrentErrorManager;
+import com.salesforce.omakase.error.ErrorManager;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the {@link Validate} subscriptions for each top-level statement (and everything within it) in parallel.
+ * <p>
+ * The statements are split into chunks, each validated on a {@link ForkJoinPool} with its own copy of the {@link
+ * EmittingBroadcaster}. Each statement reports errors to its own section of a {@link ConcurrentErrorManager}, and the sections
+ * are merged in statement order once all of the chunks are done, also when a subscription method throws. The top-level unit
+ * itself is not validated here.
+ *
+ * @author nmcwilliams
+ */
+final class ParallelValidation {
+    private final ForkJoinPool pool;
+    private final EmittingBroadcaster emitting;
+    private final ConcurrentErrorManager em;
+    private final Statement[] statements;
+    private final LongAdder units;
+    private final int chunk;
+
+    /**
+     * Creates a new {@link ParallelValidation}.
+     *
+     * @param pool
+     *     Validate on this pool.
+     * @param emitting
+     *     The {@link EmittingBroadcaster}, already in the validate phase.
+     * @param em
+     *     Merge reported errors into this {@link ErrorManager}.
+     * @param root
+     *     Validate the statements of this unit.
+     * @param units
+     *     Add the number of broadcasted units to this, or null if not counting.
+     */
+    ParallelValidation(ForkJoinPool pool, EmittingBroadcaster emitting, ErrorManager em, StatementIterable root,
+        LongAdder units) {
+        this.pool = pool;
+        this.emitting = emitting;
+        this.em = new ConcurrentErrorManager(em);
+        this.statements = Iterables.toArray(root.statements(), Statement.class);
+        this.units = units;
+        this.chunk = Math.max(1, statements.length / (pool.getParallelism() * 4));
+    }
+
+    /** validates all statements, returning once the errors have been merged (even if a subscription method threw) */
+    void run() {
+        try {
+            pool.invoke(new Chunk(0, statements.length));
+        } finally {
+            em.merge();
+        }
+    }
+
+    private void validate(int from, int to) {
+        EmittingBroadcaster fork = emitting.fork(em);
+        CountingBroadcaster counter = units != null ? new CountingBroadcaster(fork) : null;
+        Broadcaster broadcaster = counter != null ? counter : fork;
+
+        for (int i = from; i < to; i++) {
+            fork.errorManager(em.section(i));
+            statements[i].propagateBroadcast(broadcaster, Status.PROCESSED);
+        }
+
+        if (counter != null) units.add(counter.count());
+    }
+
+    /** a range of statements, split in half until small enough */
+    private final class Chunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                validate(from, to);
+            } else {
+                // always wait for both halves, so that nothing is still reporting errors once they are merged
+                int middle = (from + to) >>> 1;
+                Chunk second = new Chunk(middle, to);
+                second.fork();
+                try {
+                    new Chunk(from, middle).compute();
+                } finally {
+                    second.quietlyJoin();
+                }
+                second.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPlan;
+import com.salesforce.omakase.plugin.DependentPlugin;
+import com.salesforce.omakase.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A reusable plugin configuration, for processing many sources with the same set of plugins.
+ * <p>
+ * Each {@link Omakase#source(CharSequence)} request starts from scratch: every plugin and dependency is registered, every
+ * subscription method is looked up and the subscriptions for each type of syntax unit are worked out again. A pipeline does
+ * this setup once, when it is built, and each request created from it only has to create fresh plugin instances and bind them
+ * to the precomputed subscriptions.
+ * <p>
+ * Plugins are stateful, so a pipeline is given a {@link Supplier} for each plugin instead of an instance. Each supplier must
+ * return a new instance every time it is called. {@link DependentPlugin#dependencies(PluginRegistry)} is still called for each
+ * new instance so that plugins can wire themselves to their dependencies, however any problems with the plugin configuration
+ * (e.g., duplicate plugins) are reported when the pipeline is built.
+ * <p>
+ * Example:
+ * <pre><code>
+ *     Pipeline pipeline = Omakase.pipeline()
+ *         .use(StyleWriter::compressed)
+ *         .use(StandardValidation::new)
+ *         .build();
+ *
+ *     // for each source
+ *     PluginRegistry registry = pipeline.source(input).process();
+ *     String output = registry.retrieve(StyleWriter.class).get().write();
+ * </code></pre>
+ * A pipeline is immutable and can be shared between threads, but the requests created from it cannot.
+ *
+ * @author nmcwilliams
+ * @see Omakase#pipeline()
+ */
+public final class Pipeline {
+    private final List<Supplier<? extends Plugin>> suppliers;
+    private final SubscriptionPlan plan;
+    private final boolean singlePass;
+
+    private Pipeline(List<Supplier<? extends Plugin>> suppliers, boolean singlePass) {
+        this.suppliers = ImmutableList.copyOf(suppliers);
+        this.singlePass = singlePass;
+
+        // resolve the plugin dependencies and subscriptions once, this also surfaces configuration errors right away
+        Context context = new Context();
+        for (Supplier<? extends Plugin> supplier : this.suppliers) {
+            context.register(create(supplier));
+        }
+        context.notifyPreParsing();
+
+        List<Class<?>> classes = new ArrayList<>();
+        for (Plugin plugin : context.plugins()) {
+            classes.add(plugin.getClass());
+        }
+        this.plan = SubscriptionPlan.of(classes);
+    }
+
+    /**
+     * Specifies the CSS source to parse, creating a new request with fresh instances of the plugins in this pipeline.
+     * <p>
+     * The returned {@link Omakase.Request} can be configured further (e.g., a custom error manager, stats, or additional
+     * plugins) before calling {@link Omakase.Request#process()}. Additional plugins are allowed but forgo the precomputed
+     * subscriptions.
+     *
+     * @param source
+     *     The CSS source code.
+     *
+     * @return The request.
+     */
+    public Omakase.Request source(CharSequence source) {
+        checkNotNull(source, "source cannot be null");
+
+        Context context = new Context(plan.subscribers().size());
+        context.plan(plan);
+        context.singlePass(singlePass);
+        for (Supplier<? extends Plugin> supplier : suppliers) {
+            context.register(create(supplier));
+        }
+
+        return new Omakase.Request(source, context);
+    }
+
+    /**
+     * Gets the classes of all plugins in each request, including dependencies, in registration order.
+     *
+     * @return The plugin classes.
+     */
+    public List<Class<?>> plugins() {
+        return plan.subscribers();
+    }
+
+    private static Plugin create(Supplier<? extends Plugin> supplier) {
+        return checkNotNull(supplier.get(), "plugin supplier returned null");
+    }
+
+    /**
+     * Collects the plugin suppliers for a {@link Pipeline}.
+     */
+    public static final class Builder {
+        private final List<Supplier<? extends Plugin>> suppliers = new ArrayList<>();
+        private boolean singlePass;
+
+        Builder() {}
+
+        /**
+         * Adds a plugin to the pipeline. The supplier will be called once for each request and must return a new instance each
+         * time.
+         *
+         * @param supplier
+         *     Creates the plugin instance.
+         *
+         * @return this, for chaining.
+         */
+        public Builder use(Supplier<? extends Plugin> supplier) {
+            suppliers.add(checkNotNull(supplier, "supplier cannot be null"));
+            return this;
+        }
+
+        /**
+         * Processes and validates each request in a single pass when possible, see {@link Omakase.Request#singlePass()}.
+         *
+         * @return this, for chaining.
+         */
+        public Builder singlePass() {
+            this.singlePass = true;
+            return this;
+        }
+
+        /**
+         * Builds the {@link Pipeline}, resolving all plugin dependencies and subscriptions.
+         *
+         * @return The pipeline.
+         */
+        public Pipeline build() {
+            return new Pipeline(suppliers, singlePass);
+        }
+    }
+}
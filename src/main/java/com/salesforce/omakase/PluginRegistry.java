@@ -26,9 +26,14 @@
 
 package com.salesforce.omakase;
 
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionStats;
 import com.salesforce.omakase.plugin.DependentPlugin;
 import com.salesforce.omakase.plugin.Plugin;
+import com.salesforce.omakase.plugin.PreParsingPlugin;
+import com.salesforce.omakase.plugin.core.AutoRefine;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -120,4 +125,45 @@ public interface PluginRegistry {
      * @return The instance, or an empty {@link Optional} if no instance of the {@link Plugin} was registered.
      */
     <T extends Plugin> Optional<T> retrieve(Class<T> klass);
+
+    /**
+     * Gets all registered plugins, in the order they were registered. Dependencies come before the plugins that required them.
+     *
+     * <p>
+     * The default implementation returns an empty list. Implementations that are given to a {@link PreParsingPlugin} should
+     * override it, as plugins such as {@link AutoRefine#onDemand()} decide what to do based on the registered plugins.
+     *
+     * @return The registered plugins.
+     */
+    default List<Plugin> plugins() {
+        return ImmutableList.of();
+    }
+
+    /**
+     * Gets the invocation count and cumulative time of each registered subscription method (e.g., each {@code @Rework} or
+     * {@code @Validate} method of each plugin), in plugin registration order.
+     * <p>
+     * Timings are only recorded when profiling was enabled on the request, see {@link Omakase.Request#profile()}. Otherwise the
+     * values will all be zero.
+     *
+     * <p>
+     * The default implementation returns an empty list.
+     *
+     * @return The stats for each subscription.
+     */
+    default List<SubscriptionStats> subscriptionStats() {
+        return ImmutableList.of();
+    }
+
+    /**
+     * Gets the timing and size statistics for the request, if enabled with {@link Omakase.Request#stats()}.
+     *
+     * <p>
+     * The default implementation returns an empty {@link Optional}.
+     *
+     * @return The {@link RequestStats}, or an empty {@link Optional} if stats were not enabled.
+     */
+    default Optional<RequestStats> stats() {
+        return Optional.empty();
+    }
 }
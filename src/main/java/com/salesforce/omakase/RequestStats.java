@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.salesforce.omakase.ast.Statement;
+import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.broadcast.AbstractBroadcaster;
+import com.salesforce.omakase.broadcast.Broadcastable;
+import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
+import com.salesforce.omakase.error.ErrorLevel;
+import com.salesforce.omakase.error.ErrorManager;
+import com.salesforce.omakase.parser.ParserException;
+import com.salesforce.omakase.plugin.PostProcessingPlugin;
+import com.salesforce.omakase.util.As;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Timing and size statistics for a single {@link Omakase.Request}.
+ * <p>
+ * Stats are only collected when enabled with {@link Omakase.Request#stats()}, in which case they can be retrieved from the
+ * {@link PluginRegistry} returned by {@link Omakase.Request#process()}, using {@link PluginRegistry#stats()}. Collection is cheap
+ * enough to be left on for every request.
+ * <p>
+ * The parse time includes the refinement of any units refined during parsing (e.g., by {@code AutoRefine}). The time for a phase
+ * that did not complete (e.g., due to a fatal parser error) is reported as zero.
+ *
+ * @author nmcwilliams
+ */
+public final class RequestStats {
+    private final Counter counter = new Counter();
+
+    private int inputLength;
+    private long mark;
+    private long parseNanos;
+    private long processNanos;
+    private long validateNanos;
+    private long postProcessNanos;
+    private int errors;
+    private int warnings;
+    private int exceptions;
+
+    /** package-private, see {@link Omakase.Request#stats()} */
+    RequestStats() {}
+
+    /** starts the parse timer */
+    void start(int inputLength) {
+        this.inputLength = inputLength;
+        this.mark = System.nanoTime();
+    }
+
+    /** updates the input length, when it's only known after parsing */
+    void inputLength(int inputLength) {
+        this.inputLength = inputLength;
+    }
+
+    /** marks the end of the top-level parse */
+    void parsed() {
+        parseNanos = lap();
+        counter.counting = false;
+    }
+
+    /** marks the end of the process phase */
+    void processed() {
+        processNanos = lap();
+    }
+
+    /** marks the end of the validate phase */
+    void validated() {
+        validateNanos = lap();
+    }
+
+    /** marks the end of post processing */
+    void postProcessed() {
+        postProcessNanos = lap();
+    }
+
+    private long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        mark = now;
+        return elapsed;
+    }
+
+    /** gets the broadcaster that counts newly created units, should be at the top of the chain */
+    Broadcaster broadcaster() {
+        return counter;
+    }
+
+    /** wraps the given error manager to count reported errors */
+    ErrorManager errorManager(ErrorManager em) {
+        return new CountingErrorManager(em);
+    }
+
+    /**
+     * Gets the length of the CSS source code.
+     *
+     * @return The number of characters in the source.
+     */
+    public int inputLength() {
+        return inputLength;
+    }
+
+    /**
+     * Gets the time spent in the top-level parse, including any refinement performed during parsing.
+     *
+     * @return The parse time in nanoseconds.
+     */
+    public long parseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Gets the time spent replaying the broadcasts for the {@code @Observe} and {@code @Rework} phase.
+     *
+     * @return The process phase time in nanoseconds.
+     */
+    public long processNanos() {
+        return processNanos;
+    }
+
+    /**
+     * Gets the time spent replaying the broadcasts for the {@code @Validate} phase.
+     *
+     * @return The validate phase time in nanoseconds.
+     */
+    public long validateNanos() {
+        return validateNanos;
+    }
+
+    /**
+     * Gets the time spent in {@link PostProcessingPlugin}s.
+     *
+     * @return The post processing time in nanoseconds.
+     */
+    public long postProcessNanos() {
+        return postProcessNanos;
+    }
+
+    /**
+     * Gets the sum of the parse, process, validate and post processing times.
+     *
+     * @return The total time in nanoseconds.
+     */
+    public long totalNanos() {
+        return parseNanos + processNanos + validateNanos + postProcessNanos;
+    }
+
+    /**
+     * Gets the number of {@link Statement}s (rules and at-rules, including nested ones) that were created during parsing.
+     *
+     * @return The number of statements.
+     */
+    public int statements() {
+        return counter.statements;
+    }
+
+    /**
+     * Gets the total number of syntax units that were created during parsing, including units created by refinement during
+     * parsing. Units created by plugins during the process phase are not included.
+     *
+     * @return The number of syntax units.
+     */
+    public int units() {
+        return counter.units;
+    }
+
+    /**
+     * Gets the number of fatal errors, including parser errors.
+     *
+     * @return The number of errors.
+     */
+    public int errors() {
+        return errors;
+    }
+
+    /**
+     * Gets the number of warnings.
+     *
+     * @return The number of warnings.
+     */
+    public int warnings() {
+        return warnings;
+    }
+
+    /**
+     * Gets the number of exceptions thrown from plugin subscription methods.
+     *
+     * @return The number of exceptions.
+     */
+    public int exceptions() {
+        return exceptions;
+    }
+
+    @Override
+    public String toString() {
+        return As.string(this)
+            .add("inputLength", inputLength)
+            .add("statements", counter.statements)
+            .add("units", counter.units)
+            .add("parseMicros", TimeUnit.NANOSECONDS.toMicros(parseNanos))
+            .add("processMicros", TimeUnit.NANOSECONDS.toMicros(processNanos))
+            .add("validateMicros", TimeUnit.NANOSECONDS.toMicros(validateNanos))
+            .add("postProcessMicros", TimeUnit.NANOSECONDS.toMicros(postProcessNanos))
+            .add("errors", errors)
+            .add("warnings", warnings)
+            .add("exceptions", exceptions)
+            .toString();
+    }
+
+    /** counts units broadcasted during parsing, as each unit is only broadcasted once until the replay phases */
+    private static final class Counter extends AbstractBroadcaster {
+        boolean counting = true;
+        int units;
+        int statements;
+
+        @Override
+        public void broadcast(Broadcastable broadcastable) {
+            if (counting) {
+                units++;
+                if (broadcastable instanceof Statement) {
+                    statements++;
+                }
+            }
+            relay(broadcastable);
+        }
+    }
+
+    /** counts errors before delegating */
+    private final class CountingErrorManager implements ErrorManager {
+        private final ErrorManager delegate;
+
+        CountingErrorManager(ErrorManager delegate) {
+            this.delegate = checkNotNull(delegate, "delegate cannot be null");
+        }
+
+        @Override
+        public void report(ErrorLevel level, Syntax cause, String message) {
+            if (level == ErrorLevel.WARNING) {
+                warnings++;
+            } else {
+                errors++;
+            }
+            delegate.report(level, cause, message);
+        }
+
+        @Override
+        public void report(ParserException exception) {
+            errors++;
+            delegate.report(exception);
+        }
+
+        @Override
+        public void report(SubscriptionException exception) {
+            exceptions++;
+            delegate.report(exception);
+        }
+
+        @Override
+        public String getSourceName() {
+            return delegate.getSourceName();
+        }
+
+        @Override
+        public boolean hasErrors() {
+            return delegate.hasErrors();
+        }
+
+        @Override
+        public boolean autoSummarize() {
+            return delegate.autoSummarize();
+        }
+
+        @Override
+        public String summarize() {
+            return delegate.summarize();
+        }
+    }
+}
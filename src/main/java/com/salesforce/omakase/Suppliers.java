@@ -26,7 +26,6 @@
 
 package com.salesforce.omakase;
 
-import com.google.common.collect.ImmutableMap;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.conditionals.Conditionals;
 import com.salesforce.omakase.plugin.conditionals.ConditionalsCollector;
@@ -38,7 +37,6 @@ import com.salesforce.omakase.plugin.syntax.*;
 import com.salesforce.omakase.plugin.validator.PseudoElementValidator;
 import com.salesforce.omakase.plugin.core.StandardValidation;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -48,26 +46,6 @@ import java.util.function.Supplier;
  * @author nmcwilliams
  */
 final class Suppliers {
-    /** map of suppliers for all library-provided plugins. This map isn't type safe... so don't screw it up */
-    private static final Map<Class<?>, Supplier<?>> map = ImmutableMap.<Class<?>, Supplier<?>>builder()
-        .put(SyntaxTree.class, SyntaxTree::new)
-        .put(Prefixer.class, Prefixer::defaultBrowserSupport)
-        .put(PrefixCleaner.class, PrefixCleaner::new)
-        .put(Conditionals.class, Conditionals::new)
-        .put(ConditionalsCollector.class, ConditionalsCollector::new)
-        .put(ConditionalsValidator.class, ConditionalsValidator::new)
-        .put(StandardValidation.class, StandardValidation::new)
-        .put(PseudoElementValidator.class, PseudoElementValidator::new)
-        .put(SelectorPlugin.class, SelectorPlugin::new)
-        .put(DeclarationPlugin.class, DeclarationPlugin::new)
-        .put(UrlPlugin.class, UrlPlugin::new)
-        .put(LinearGradientPlugin.class, LinearGradientPlugin::new)
-        .put(MediaPlugin.class, MediaPlugin::new)
-        .put(KeyframesPlugin.class, KeyframesPlugin::new)
-        .put(FontFacePlugin.class, FontFacePlugin::new)
-        .put(SupportsPlugin.class, SupportsPlugin::new)
-        .build();
-
     /** do not construct */
     private Suppliers() {}
 
@@ -83,7 +61,31 @@ final class Suppliers {
      */
     @SuppressWarnings("unchecked")
     public static <T> Optional<Supplier<T>> get(Class<T> klass) {
-        // cast is safe as long as the internal map is correctly formed
-        return Optional.ofNullable((Supplier<T>)map.get(klass));
+        // cast is safe as long as the chain below is correctly formed
+        return Optional.ofNullable((Supplier<T>)supplier(klass));
+    }
+
+    /**
+     * Suppliers for all library-provided plugins. Deliberately not a static map: each method reference is only bootstrapped
+     * (and each plugin class only initialized) when that plugin is actually requested, which keeps them off the cold-start path.
+     */
+    private static Supplier<?> supplier(Class<?> klass) {
+        if (klass == SyntaxTree.class) return SyntaxTree::new;
+        if (klass == Prefixer.class) return Prefixer::defaultBrowserSupport;
+        if (klass == PrefixCleaner.class) return PrefixCleaner::new;
+        if (klass == Conditionals.class) return Conditionals::new;
+        if (klass == ConditionalsCollector.class) return ConditionalsCollector::new;
+        if (klass == ConditionalsValidator.class) return ConditionalsValidator::new;
+        if (klass == StandardValidation.class) return StandardValidation::new;
+        if (klass == PseudoElementValidator.class) return PseudoElementValidator::new;
+        if (klass == SelectorPlugin.class) return SelectorPlugin::new;
+        if (klass == DeclarationPlugin.class) return DeclarationPlugin::new;
+        if (klass == UrlPlugin.class) return UrlPlugin::new;
+        if (klass == LinearGradientPlugin.class) return LinearGradientPlugin::new;
+        if (klass == MediaPlugin.class) return MediaPlugin::new;
+        if (klass == KeyframesPlugin.class) return KeyframesPlugin::new;
+        if (klass == FontFacePlugin.class) return FontFacePlugin::new;
+        if (klass == SupportsPlugin.class) return SupportsPlugin::new;
+        return null;
     }
 }
@@ -27,6 +27,8 @@
 package com.salesforce.omakase.ast;
 
 import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.ast.collection.SyntaxCollection;
+import com.salesforce.omakase.broadcast.Broadcastable;
 import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
 import com.salesforce.omakase.util.As;
@@ -36,6 +38,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -46,8 +49,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @author nmcwilliams
  */
 public abstract class AbstractSyntax implements Syntax {
+    /** ids are only assigned on demand, so that creating units doesn't contend on this across threads */
     private static final AtomicInteger sequence = new AtomicInteger();
-    private final int id = sequence.incrementAndGet();
+    private static final AtomicIntegerFieldUpdater<AbstractSyntax> ID =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractSyntax.class, "id");
+    private volatile int id;
 
     private final int line;
     private final int column;
@@ -79,7 +85,13 @@ public abstract class AbstractSyntax implements Syntax {
 
     @Override
     public int id() {
-        return id;
+        int current = id;
+        if (current == 0) {
+            // if another thread assigns an id first then that one is kept
+            ID.compareAndSet(this, 0, sequence.incrementAndGet());
+            current = id;
+        }
+        return current;
     }
 
     @Override
@@ -249,9 +261,21 @@ public abstract class AbstractSyntax implements Syntax {
 
     @Override
     public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (this.status == status) {
-            broadcaster.broadcast(this);
-        }
+        Propagation.propagate(this, broadcaster, status);
+    }
+
+    /**
+     * Adds the inner units of this unit to the given {@link Propagation}, in order, using {@link
+     * Propagation#child(Broadcastable)} and {@link Propagation#children(SyntaxCollection)}. This is only called if the status
+     * of this unit matches the status being propagated. This unit itself will be broadcasted after all of the added units.
+     * <p>
+     * Subclasses with inner units should override this method instead of {@link #propagateBroadcast(Broadcaster, Status)}, so
+     * that the propagation doesn't recurse through the tree. The default implementation does nothing.
+     *
+     * @param propagation
+     *     Add the inner units to this propagation.
+     */
+    protected void propagateChildren(Propagation propagation) {
     }
 
     @Override
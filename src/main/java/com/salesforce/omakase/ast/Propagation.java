@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.ast;
+
+import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
+import com.salesforce.omakase.ast.collection.SyntaxCollection;
+import com.salesforce.omakase.broadcast.Broadcastable;
+import com.salesforce.omakase.broadcast.Broadcaster;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Propagates a broadcast through a unit and all of its descendants (see {@link Broadcastable#propagateBroadcast(Broadcaster,
+ * Status)}) using an explicit stack instead of recursion.
+ * <p>
+ * The order is the same as the recursive definition: for each unit with the matching {@link Status}, its children are
+ * propagated first, in order, and then the unit itself is broadcasted (if its status still matches). {@link SyntaxCollection}s
+ * are iterated only once they are reached, so units appended to or destroyed from a collection during the propagation (e.g.,
+ * by a rework method) are handled the same as before.
+ * <p>
+ * Units take part by overriding {@link AbstractSyntax#propagateChildren(Propagation)}, adding each of their child units and
+ * collections with {@link #child(Broadcastable)}, {@link #deferredChild(Supplier)} and {@link #children(SyntaxCollection)}.
+ * Units that don't override it are leaves and are broadcasted directly, without any traversal state. Units that override {@link
+ * Broadcastable#propagateBroadcast(Broadcaster, Status)} themselves (or don't extend {@link AbstractSyntax}) are still
+ * supported, their method is simply called when they are reached. The same goes for collections other than {@link
+ * LinkedSyntaxCollection}, see {@link SyntaxCollection#propagateBroadcast(Broadcaster, Status)}.
+ *
+ * @author nmcwilliams
+ */
+public final class Propagation {
+    /** whether the class uses the standard propagation from {@link AbstractSyntax}, i.e., supports {@link #propagateChildren} */
+    private static final ClassValue<Boolean> STANDARD = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> klass) {
+            try {
+                return klass.getMethod("propagateBroadcast", Broadcaster.class, Status.class).getDeclaringClass() ==
+                    AbstractSyntax.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    /** whether the class has no children to propagate, i.e., doesn't override {@link AbstractSyntax#propagateChildren} */
+    private static final ClassValue<Boolean> LEAF = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> klass) {
+            for (Class<?> c = klass; c != null && c != AbstractSyntax.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("propagateChildren", Propagation.class);
+                    return false;
+                } catch (NoSuchMethodException e) {
+                    // keep looking in the superclass
+                }
+            }
+            return true;
+        }
+    };
+
+    private final Broadcaster broadcaster;
+    private final Status status;
+
+    private Frame[] frames = new Frame[16];
+    private int depth;
+
+    private Propagation(Broadcaster broadcaster, Status status) {
+        this.broadcaster = checkNotNull(broadcaster, "broadcaster cannot be null");
+        this.status = checkNotNull(status, "status cannot be null");
+    }
+
+    /**
+     * Propagates the broadcast through the given unit and all of its descendants.
+     *
+     * @param unit
+     *     The top unit.
+     * @param broadcaster
+     *     Broadcast using this {@link Broadcaster}.
+     * @param status
+     *     Only broadcast units that have this status.
+     */
+    static void propagate(AbstractSyntax unit, Broadcaster broadcaster, Status status) {
+        if (unit.status() != status) return;
+
+        if (LEAF.get(unit.getClass())) {
+            broadcaster.broadcast(unit); // nothing to traverse
+            return;
+        }
+
+        Propagation propagation = new Propagation(broadcaster, status);
+        propagation.open(unit);
+        propagation.run();
+    }
+
+    /**
+     * Propagates the broadcast through each unit in the given collection and all of their descendants.
+     *
+     * @param collection
+     *     The units.
+     * @param broadcaster
+     *     Broadcast using this {@link Broadcaster}.
+     * @param status
+     *     Only broadcast units that have this status.
+     */
+    public static void propagate(SyntaxCollection<?, ?> collection, Broadcaster broadcaster, Status status) {
+        Propagation propagation = new Propagation(broadcaster, status);
+        propagation.push(null).add(collection);
+        propagation.run();
+    }
+
+    /**
+     * Gets whether the given unit has no inner units that would be propagated after it, i.e., it uses the standard propagation
+     * from {@link AbstractSyntax} and doesn't override {@link AbstractSyntax#propagateChildren}.
+     *
+     * @param unit
+     *     The unit.
+     *
+     * @return True if the unit is known to have no inner units.
+     */
+    public static boolean isLeaf(Broadcastable unit) {
+        Class<?> klass = unit.getClass();
+        return unit instanceof AbstractSyntax && STANDARD.get(klass) && LEAF.get(klass);
+    }
+
+    /**
+     * Gets the {@link Broadcaster} being used.
+     *
+     * @return The broadcaster.
+     */
+    public Broadcaster broadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * Gets the {@link Status} of the units being broadcasted.
+     *
+     * @return The status.
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Adds a child unit of the current unit, to be propagated after any previously added children.
+     *
+     * @param unit
+     *     The child unit, or null to ignore.
+     *
+     * @return this, for chaining.
+     */
+    public Propagation child(Broadcastable unit) {
+        if (unit != null) frames[depth - 1].add(unit);
+        return this;
+    }
+
+    /**
+     * Adds a child unit of the current unit that is only looked up once all previously added children have been propagated.
+     * Use this when an earlier child's subscriptions may replace the unit, e.g., the block of an at-rule being set while its
+     * expression is reworked.
+     *
+     * @param unit
+     *     Supplies the child unit, or null to ignore.
+     *
+     * @return this, for chaining.
+     */
+    public Propagation deferredChild(Supplier<? extends Broadcastable> unit) {
+        frames[depth - 1].add(unit);
+        return this;
+    }
+
+    /**
+     * Adds a collection of child units of the current unit, to be propagated after any previously added children.
+     *
+     * @param collection
+     *     The child units.
+     *
+     * @return this, for chaining.
+     */
+    public Propagation children(SyntaxCollection<?, ?> collection) {
+        frames[depth - 1].add(collection);
+        return this;
+    }
+
+    /**
+     * Specifies that the current unit should only be broadcasted after its children if the given collection is not empty by
+     * then.
+     *
+     * @param collection
+     *     Broadcast the current unit only if this collection still has units.
+     *
+     * @return this, for chaining.
+     */
+    public Propagation unlessEmpty(SyntaxCollection<?, ?> collection) {
+        frames[depth - 1].unlessEmpty = collection;
+        return this;
+    }
+
+    private void run() {
+        while (depth > 0) {
+            Frame frame = frames[depth - 1];
+            Broadcastable next = frame.next(broadcaster, status);
+
+            if (next == null) {
+                // all children are done, now the unit itself
+                depth--;
+                Broadcastable unit = frame.unit;
+                SyntaxCollection<?, ?> unlessEmpty = frame.unlessEmpty;
+                frame.clear();
+
+                if (unit != null && unit.status() == status && (unlessEmpty == null || !unlessEmpty.isEmpty())) {
+                    broadcaster.broadcast(unit);
+                }
+            } else if (!(next instanceof AbstractSyntax) || !STANDARD.get(next.getClass())) {
+                next.propagateBroadcast(broadcaster, status); // custom propagation
+            } else if (next.status() == status) {
+                if (LEAF.get(next.getClass())) {
+                    broadcaster.broadcast(next); // nothing to traverse
+                } else {
+                    open((AbstractSyntax)next);
+                }
+            }
+        }
+    }
+
+    private void open(AbstractSyntax unit) {
+        push(unit);
+        unit.propagateChildren(this);
+    }
+
+    private Frame push(Broadcastable unit) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+        }
+
+        Frame frame = frames[depth];
+        if (frame == null) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+
+        depth++;
+        frame.unit = unit;
+        return frame;
+    }
+
+    /** a unit whose children are being propagated, reused between units at the same depth */
+    private static final class Frame {
+        Broadcastable unit;
+        SyntaxCollection<?, ?> unlessEmpty;
+
+        /** child units, suppliers of child units and collections, in order */
+        Object[] children = new Object[4];
+        int count;
+        int index;
+
+        /** the collection currently being iterated */
+        Iterator<? extends Broadcastable> iterator;
+
+        void add(Object child) {
+            if (count == children.length) {
+                children = Arrays.copyOf(children, count * 2);
+            }
+            children[count++] = child;
+        }
+
+        /** gets the next child unit, or null when there are none left */
+        Broadcastable next(Broadcaster broadcaster, Status status) {
+            while (true) {
+                if (iterator != null) {
+                    if (iterator.hasNext()) return iterator.next();
+                    iterator = null;
+                }
+
+                if (index == count) return null;
+
+                Object child = children[index];
+                children[index++] = null;
+
+                if (child instanceof LinkedSyntaxCollection) {
+                    iterator = ((LinkedSyntaxCollection<?, ?>)child).propagatingIterator(broadcaster);
+                } else if (child instanceof SyntaxCollection) {
+                    ((SyntaxCollection<?, ?>)child).propagateBroadcast(broadcaster, status); // custom collection
+                } else if (child instanceof Supplier) {
+                    Broadcastable unit = (Broadcastable)((Supplier<?>)child).get();
+                    if (unit != null) return unit;
+                } else {
+                    return (Broadcastable)child;
+                }
+            }
+        }
+
+        void clear() {
+            unit = null;
+            unlessEmpty = null;
+            iterator = null;
+            count = 0;
+            index = 0;
+        }
+    }
+}
@@ -26,6 +26,8 @@
 
 package com.salesforce.omakase.ast;
 
+import com.salesforce.omakase.parser.CharSlice;
+import com.salesforce.omakase.parser.Source;
 import com.salesforce.omakase.writer.StyleAppendable;
 import com.salesforce.omakase.writer.StyleWriter;
 
@@ -33,11 +35,15 @@ import java.io.IOException;
 
 /**
  * Represents raw, non-validated content. Usually used by {@link Refinable}s.
+ * <p>
+ * Raw content created by the parser is a {@link CharSlice} of the original source, which is only copied into a {@link String}
+ * when {@link #content()} is called. Refining the content with a new {@link Source} shares the original buffer as well.
  *
  * @author nmcwilliams
  */
 public final class RawSyntax extends AbstractSyntax {
-    private final String content;
+    private final CharSequence view;
+    private String content;
 
     /**
      * Creates an instance with the given line and column number and content.
@@ -50,8 +56,28 @@ public final class RawSyntax extends AbstractSyntax {
      *     The raw content.
      */
     public RawSyntax(int line, int column, String content) {
-        super(line, column);
+        this(line, column, (CharSequence)content);
         this.content = content;
+    }
+
+    /**
+     * Creates an instance with the given line and column number and content, without copying the content. The content must not
+     * change afterwards.
+     *
+     * @param line
+     *     The line number.
+     * @param column
+     *     The column number.
+     * @param content
+     *     The raw content, usually a {@link CharSlice} from the {@link Source} being parsed.
+     */
+    public RawSyntax(int line, int column, CharSlice content) {
+        this(line, column, (CharSequence)content);
+    }
+
+    private RawSyntax(int line, int column, CharSequence view) {
+        super(line, column);
+        this.view = view;
         status(Status.NEVER_EMIT);
     }
 
@@ -61,16 +87,31 @@ public final class RawSyntax extends AbstractSyntax {
      * @return The raw content.
      */
     public String content() {
-        return content;
+        String s = content;
+        if (s == null) {
+            s = view.toString();
+            content = s;
+        }
+        return s;
+    }
+
+    /**
+     * Gets the raw content without copying it into a new {@link String}, if it hasn't been already. Prefer {@link #content()}
+     * unless only passing the content through (e.g., to a new {@link Source}).
+     *
+     * @return The raw content.
+     */
+    public CharSequence view() {
+        return view;
     }
 
     @Override
     public void write(StyleWriter writer, StyleAppendable appendable) throws IOException {
-        appendable.append(content);
+        appendable.append(view);
     }
 
     @Override
     public RawSyntax copy() {
-        return new RawSyntax(-1, -1, content).copiedFrom(this);
+        return new RawSyntax(-1, -1, view).copiedFrom(this);
     }
 }
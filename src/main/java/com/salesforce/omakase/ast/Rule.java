@@ -31,7 +31,6 @@ import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
 import com.salesforce.omakase.ast.declaration.Declaration;
 import com.salesforce.omakase.ast.selector.Selector;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.writer.StyleAppendable;
@@ -152,12 +151,8 @@ public final class Rule extends AbstractGroupable<StatementIterable, Statement>
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (this.status() == status) {
-            selectors.propagateBroadcast(broadcaster, status);
-            declarations.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(selectors).children(declarations);
     }
 
     @Override
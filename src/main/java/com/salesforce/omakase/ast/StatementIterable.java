@@ -44,7 +44,8 @@ public interface StatementIterable extends Iterable<Statement>, Syntax {
     SyntaxCollection<StatementIterable, Statement> statements();
 
     /**
-     * Implementations must override this method, ensuring that {@link SyntaxCollection}s are properly handled.
+     * Implementations must ensure that {@link SyntaxCollection}s are properly handled, e.g., by overriding {@link
+     * AbstractSyntax#propagateChildren(Propagation)}.
      */
     @Override
     void propagateBroadcast(Broadcaster broadcaster, Status status);
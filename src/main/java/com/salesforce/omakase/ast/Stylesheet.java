@@ -28,7 +28,6 @@ package com.salesforce.omakase.ast;
 
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.parser.StylesheetParser;
@@ -98,11 +97,8 @@ public final class Stylesheet extends AbstractSyntax implements StatementIterabl
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            statements.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(statements);
     }
 
     @Override
@@ -65,6 +65,10 @@ public interface Syntax extends Writable, Broadcastable {
     /**
      * Gets the unique identifier for this unit. This can be used as a key in maps or in any other case where storing a short
      * identifier is preferable.
+     * <p>
+     * The identifier is assigned the first time this method is called, and stays the same afterwards, even when first called
+     * from multiple threads at once. As a result identifiers don't follow the order in which units were created, so they
+     * shouldn't be used to sort or compare units by their creation order.
      *
      * @return The unique identifier.
      */
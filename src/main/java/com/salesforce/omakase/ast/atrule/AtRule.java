@@ -27,6 +27,7 @@
 package com.salesforce.omakase.ast.atrule;
 
 import com.salesforce.omakase.ast.Named;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.RawSyntax;
 import com.salesforce.omakase.ast.Refinable;
 import com.salesforce.omakase.ast.Statement;
@@ -34,7 +35,6 @@ import com.salesforce.omakase.ast.StatementIterable;
 import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.collection.AbstractGroupable;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
@@ -275,16 +275,9 @@ public final class AtRule extends AbstractGroupable<StatementIterable, Statement
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            if (expression != null) {
-                expression.propagateBroadcast(broadcaster, status);
-            }
-            if (block != null) {
-                block.propagateBroadcast(broadcaster, status);
-            }
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        // the block is looked up after the expression, which may set a new one
+        propagation.child(expression).deferredChild(() -> block);
     }
 
     @Override
@@ -27,6 +27,7 @@
 package com.salesforce.omakase.ast.atrule;
 
 import com.salesforce.omakase.ast.Named;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.collection.AbstractGroupable;
 import com.salesforce.omakase.ast.declaration.Declaration;
@@ -180,12 +181,9 @@ public final class FontDescriptor extends AbstractGroupable<FontFaceBlock, FontD
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            this.propagatingBroadcaster = broadcaster;
-            propertyValue.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        this.propagatingBroadcaster = propagation.broadcaster();
+        propagation.child(propertyValue);
     }
 
     @Override
@@ -26,13 +26,12 @@
 
 package com.salesforce.omakase.ast.atrule;
 
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Statement;
 import com.salesforce.omakase.ast.StatementIterable;
-import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.plugin.syntax.FontFacePlugin;
 import com.salesforce.omakase.writer.StyleAppendable;
 import com.salesforce.omakase.writer.StyleWriter;
@@ -90,11 +89,8 @@ public final class FontFaceBlock extends AbstractAtRuleMember implements AtRuleB
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            fontDescriptors.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(fontDescriptors);
     }
 
     @Override
@@ -26,9 +26,9 @@
 
 package com.salesforce.omakase.ast.atrule;
 
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Statement;
 import com.salesforce.omakase.ast.StatementIterable;
-import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
 import com.salesforce.omakase.broadcast.Broadcaster;
@@ -75,11 +75,8 @@ public final class GenericAtRuleBlock extends AbstractAtRuleMember implements At
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            statements.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(statements);
     }
 
     @Override
@@ -26,11 +26,10 @@
 
 package com.salesforce.omakase.ast.atrule;
 
-import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.collection.AbstractGroupable;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.parser.atrule.MediaQueryParser;
 import com.salesforce.omakase.writer.StyleAppendable;
 import com.salesforce.omakase.writer.StyleWriter;
@@ -140,11 +139,8 @@ public final class MediaQuery extends AbstractGroupable<MediaQueryList, MediaQue
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            expressions().propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(expressions());
     }
 
     @Override
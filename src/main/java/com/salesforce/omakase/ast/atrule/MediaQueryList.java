@@ -26,11 +26,10 @@
 
 package com.salesforce.omakase.ast.atrule;
 
-import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
 import com.salesforce.omakase.broadcast.BroadcastRequirement;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.parser.atrule.MediaQueryListParser;
@@ -85,11 +84,8 @@ public final class MediaQueryList extends AbstractAtRuleMember implements AtRule
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            queries.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(queries);
     }
 
     @Override
@@ -28,6 +28,7 @@ package com.salesforce.omakase.ast.collection;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.selector.Selector;
@@ -36,7 +37,7 @@ import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.util.As;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -123,7 +124,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
     @Override
     public boolean contains(T unit) {
-        return lookup.contains(unit.id());
+        return lookup.contains(unit);
     }
 
     @Override
@@ -138,7 +139,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
     @Override
     public Optional<T> next(T unit) {
-        Node<T> node = lookup.get(unit.id());
+        Node<T> node = lookup.get(unit);
         if (node == null) throw new IllegalArgumentException("the specified unit does not exist in this collection!");
         if (node.next == null) return Optional.empty();
         return Optional.of(node.next.unit);
@@ -146,7 +147,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
     @Override
     public Optional<T> previous(T unit) {
-        Node<T> node = lookup.get(unit.id());
+        Node<T> node = lookup.get(unit);
         if (node == null) throw new IllegalArgumentException("the specified unit does not exist in this collection!");
         if (node.previous == null) return Optional.empty();
         return Optional.of(node.previous.unit);
@@ -167,7 +168,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
         // create a new node
         first = new Node<>(null, first, unit);
-        lookup.put(unit.id(), first);
+        lookup.put(unit, first);
         if (last == null) {
             last = first;
         }
@@ -191,7 +192,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
         checkArgument(!unit.isDestroyed(), "cannot prepend a destroyed unit!");
 
         // find the node for the index unit
-        Node<T> node = lookup.get(index.id());
+        Node<T> node = lookup.get(index);
         if (node == null) throw new IllegalArgumentException("the specified unit does not exist in this collection!");
 
         // disassociate with old group and associate with this group
@@ -201,7 +202,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
         if (node == first || isEmpty()) return prepend(unit);
 
         // create a new node
-        lookup.put(unit.id(), new Node<>(node.previous, node, unit));
+        lookup.put(unit, new Node<>(node.previous, node, unit));
 
         // broadcast if it hasn't been already
         propagateNewUnit(unit);
@@ -219,7 +220,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
         // create a new node
         last = new Node<>(last, null, unit);
-        lookup.put(unit.id(), last);
+        lookup.put(unit, last);
         if (first == null) first = last;
 
         // broadcast if it hasn't been already
@@ -241,7 +242,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
         checkArgument(!unit.isDestroyed(), "cannot append a destroyed unit!");
 
         // find the node for the index unit
-        Node<T> node = lookup.get(index.id());
+        Node<T> node = lookup.get(index);
         if (node == null) throw new IllegalArgumentException("the specified unit does not exist in this collection!");
 
         // disassociate with old group and associate with this group
@@ -251,7 +252,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
         if (node == last || (node.previous == null && node.next == null)) return append(unit);
 
         // create a new node
-        lookup.put(unit.id(), new Node<>(node, node.next, unit));
+        lookup.put(unit, new Node<>(node, node.next, unit));
 
         // broadcast if it hasn't been already
         propagateNewUnit(unit);
@@ -261,7 +262,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
     @Override
     public SyntaxCollection<P, T> remove(T unit) {
-        Node<T> removed = lookup.remove(unit.id());
+        Node<T> removed = lookup.remove(unit);
 
         if (removed != null) {
             // update our links
@@ -304,11 +305,25 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
 
     @Override
     public void propagateBroadcast(Broadcaster broadcaster, Status status) {
+        Propagation.propagate(this, broadcaster, status);
+    }
+
+    /**
+     * Returns an iterator over the units within this collection for the purposes of propagating a broadcast with the given
+     * {@link Broadcaster}. This is used by {@link Propagation}, prefer {@link #propagateBroadcast(Broadcaster, Status)}.
+     * <p>
+     * The broadcaster will be used to broadcast any units subsequently added to this collection. The returned iterator reflects
+     * units appended or removed while iterating.
+     *
+     * @param broadcaster
+     *     The {@link Broadcaster} being propagated.
+     *
+     * @return The iterator.
+     */
+    public Iterator<T> propagatingIterator(Broadcaster broadcaster) {
         // save a reference so that subsequent appended/prepended units will be broadcasted
         this.propagatingBroadcaster = broadcaster;
-        for (T unit : this) {
-            unit.propagateBroadcast(broadcaster, status);
-        }
+        return iterator();
     }
 
     @Override
@@ -353,45 +368,45 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
         }
     }
 
-    // todo - move to regular linked list or such
+    /** lookup of unit to node, by instance identity */
     private static final class Lookup<E extends Syntax> {
         private List<Node<E>> sparse = new ArrayList<>();
-        private Map<Integer, Node<E>> dense;
+        private Map<E, Node<E>> dense;
         private int count = 0;
 
-        public void put(int id, Node<E> node) {
+        public void put(E unit, Node<E> node) {
             // for small collections use an array list, for larger use a map
             if (count < 64) {
                 sparse.add(node);
                 count++;
             } else if (count == 64) {
-                dense = new HashMap<>(128);
+                dense = new IdentityHashMap<>(128);
                 for (Node<E> n : sparse) {
-                    dense.put(n.unit.id(), n);
+                    dense.put(n.unit, n);
                 }
-                dense.put(id, node);
+                dense.put(unit, node);
                 sparse = null;
                 count++;
             } else {
-                dense.put(id, node);
+                dense.put(unit, node);
             }
         }
 
-        public Node<E> get(int id) {
+        public Node<E> get(E unit) {
             if (sparse != null) {
                 for (Node<E> n : sparse) {
-                    if (n.unit.id() == id) return n;
+                    if (n.unit == unit) return n;
                 }
                 return null;
             }
-            return dense.get(id);
+            return dense.get(unit);
         }
 
-        public Node<E> remove(int id) {
+        public Node<E> remove(E unit) {
             if (sparse != null) {
                 for (Iterator<Node<E>> it = sparse.iterator(); it.hasNext(); ) {
                     Node<E> next = it.next();
-                    if (next.unit.id() == id) {
+                    if (next.unit == unit) {
                         it.remove();
                         count--;
                         return next;
@@ -399,7 +414,7 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
                 }
                 return null;
             }
-            return dense.remove(id);
+            return dense.remove(unit);
         }
 
         public int size() {
@@ -410,14 +425,14 @@ public final class LinkedSyntaxCollection<P, T extends Groupable<P, T>> implemen
             return sparse != null ? sparse.isEmpty() : dense.isEmpty();
         }
 
-        public boolean contains(int id) {
+        public boolean contains(E unit) {
             if (sparse != null) {
                 for (Node<E> n : sparse) {
-                    if (n.unit.id() == id) return true;
+                    if (n.unit == unit) return true;
                 }
                 return false;
             }
-            return dense.containsKey(id);
+            return dense.containsKey(unit);
         }
     }
 }
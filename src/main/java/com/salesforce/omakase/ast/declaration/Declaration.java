@@ -27,6 +27,7 @@
 package com.salesforce.omakase.ast.declaration;
 
 import com.salesforce.omakase.ast.Named;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.RawSyntax;
 import com.salesforce.omakase.ast.Refinable;
 import com.salesforce.omakase.ast.Rule;
@@ -440,12 +441,9 @@ public final class Declaration extends AbstractGroupable<Rule, Declaration> impl
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            propagatingBroadcaster = broadcaster;
-            propertyValue.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagatingBroadcaster = propagation.broadcaster();
+        propagation.child(propertyValue);
     }
 
     @Override
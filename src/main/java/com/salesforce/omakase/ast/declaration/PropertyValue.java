@@ -28,11 +28,10 @@ package com.salesforce.omakase.ast.declaration;
 
 import com.google.common.collect.ImmutableList;
 import com.salesforce.omakase.ast.AbstractSyntax;
-import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.parser.declaration.PropertyValueParser;
@@ -220,13 +219,8 @@ public final class PropertyValue extends AbstractSyntax {
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            members.propagateBroadcast(broadcaster, status);
-            if (!members.isEmpty()) {
-                super.propagateBroadcast(broadcaster, status);
-            }
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(members).unlessEmpty(members);
     }
 
     @Override
@@ -27,14 +27,13 @@
 package com.salesforce.omakase.ast.extended;
 
 import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Statement;
 import com.salesforce.omakase.ast.StatementIterable;
-import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.atrule.AbstractAtRuleMember;
 import com.salesforce.omakase.ast.atrule.AtRuleBlock;
 import com.salesforce.omakase.ast.collection.LinkedSyntaxCollection;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
-import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.annotation.Description;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.plugin.conditionals.Conditionals;
@@ -181,11 +180,8 @@ public final class ConditionalAtRuleBlock extends AbstractAtRuleMember implement
     }
 
     @Override
-    public void propagateBroadcast(Broadcaster broadcaster, Status status) {
-        if (status() == status) {
-            statements.propagateBroadcast(broadcaster, status);
-            super.propagateBroadcast(broadcaster, status);
-        }
+    protected void propagateChildren(Propagation propagation) {
+        propagation.children(statements);
     }
 
     @Override
@@ -26,6 +26,8 @@
 
 package com.salesforce.omakase.broadcast;
 
+import com.salesforce.omakase.ast.AbstractSyntax;
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.collection.SyntaxCollection;
@@ -51,7 +53,8 @@ public interface Broadcastable {
     /**
      * Gets the current broadcast status of this unit.
      * <p>
-     * This primarily determines whether this unit should be broadcasted again.
+     * This primarily determines whether this unit should be broadcasted again. The status of a unit without inner units is left
+     * as is after the refine phase if nothing subscribes to its type in the current or any later phase.
      *
      * @return The current broadcast status.
      */
@@ -63,7 +66,8 @@ public interface Broadcastable {
      * The broadcast will only occur for a unit if its {@link Status} matches the given {@link Status}.
      * <p>
      * Implementers should call this on child units and {@link SyntaxCollection}s first, then use the broadcaster to broadcast
-     * itself. All of this should be wrapped in a check to ensure the {@link Status} matches.
+     * itself. All of this should be wrapped in a check to ensure the {@link Status} matches. Subclasses of {@link AbstractSyntax}
+     * should instead override {@link AbstractSyntax#propagateChildren(Propagation)}, which avoids recursing through the tree.
      *
      * @param broadcaster
      *     Use this {@link Broadcaster} to broadcast all unbroadcasted child units.
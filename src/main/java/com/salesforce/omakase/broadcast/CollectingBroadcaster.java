@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable broadcaster that collects broadcasts of one or more types, each type into its own list.
+ * <p>
+ * This is similar to {@link QueryableBroadcaster} and {@link TypeInterestBroadcaster}, except that a single instance is meant
+ * to be reused many times, e.g., once per parsed rule. Call {@link #collect(Class[])} to specify the types and clear any
+ * previously collected units, and {@link #reset()} when done. Use the collectors from {@link
+ * com.salesforce.omakase.parser.Grammar#collector(Broadcaster, Class[])} when parsing.
+ * <p>
+ * Each broadcast is collected into the list of the first specified type that it is an instance of. All broadcasts, collected or
+ * not, are still passed along the broadcast chain if applicable.
+ *
+ * @author nmcwilliams
+ */
+public final class CollectingBroadcaster extends AbstractBroadcaster {
+    private static final Class<?>[] NONE = new Class<?>[0];
+
+    private Class<?>[] types = NONE;
+    private List<?>[] lists = new List<?>[0];
+
+    /**
+     * Creates a new {@link CollectingBroadcaster} that doesn't collect anything until {@link #collect(Class[])} is called.
+     */
+    public CollectingBroadcaster() {}
+
+    /**
+     * Creates a new {@link CollectingBroadcaster} that collects broadcasts of the given types.
+     *
+     * @param types
+     *     The types to collect.
+     */
+    public CollectingBroadcaster(Class<?>... types) {
+        collect(types);
+    }
+
+    /**
+     * Clears all collected units and starts collecting broadcasts of the given types.
+     * <p>
+     * The given array is not copied and must not be modified afterwards, so usually this should be a constant.
+     *
+     * @param types
+     *     The types to collect.
+     *
+     * @return this, for chaining.
+     */
+    public CollectingBroadcaster collect(Class<?>... types) {
+        clear();
+        if (types.length > lists.length) {
+            List<?>[] grown = Arrays.copyOf(lists, types.length);
+            for (int i = lists.length; i < grown.length; i++) {
+                grown[i] = new ArrayList<>();
+            }
+            lists = grown;
+        }
+        this.types = types;
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void broadcast(Broadcastable broadcastable) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isInstance(broadcastable)) {
+                ((List<Object>)lists[i]).add(broadcastable);
+                break;
+            }
+        }
+
+        relay(broadcastable);
+    }
+
+    /**
+     * Gets the units collected for the given type. The returned list is only valid until this broadcaster is reset or reused,
+     * so usually its contents should be copied or appended somewhere right away. Do not modify the returned list.
+     *
+     * @param <T>
+     *     The type of the units.
+     * @param type
+     *     One of the types being collected.
+     *
+     * @return The collected units.
+     *
+     * @throws IllegalArgumentException
+     *     If the type isn't one of the collected types.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> collected(Class<T> type) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) return (List<T>)lists[i];
+        }
+        throw new IllegalArgumentException("not collecting " + type);
+    }
+
+    /**
+     * Gets the first unit collected for the given type, or null if there isn't one.
+     *
+     * @param <T>
+     *     The type of the unit.
+     * @param type
+     *     One of the types being collected.
+     *
+     * @return The first collected unit, or null if none.
+     *
+     * @throws IllegalArgumentException
+     *     If the type isn't one of the collected types.
+     */
+    public <T> T first(Class<T> type) {
+        List<T> list = collected(type);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Clears all collected units, stops collecting and removes any chained broadcasters, allowing this instance to be reused.
+     *
+     * @return this, for chaining.
+     */
+    public CollectingBroadcaster reset() {
+        clear();
+        types = NONE;
+        next = null;
+        return this;
+    }
+
+    private void clear() {
+        for (int i = 0; i < types.length; i++) {
+            lists[i].clear();
+        }
+    }
+}
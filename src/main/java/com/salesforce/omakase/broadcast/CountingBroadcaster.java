@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast;
+
+/**
+ * A broadcaster that counts the number of broadcasts before relaying them.
+ *
+ * @author nmcwilliams
+ */
+public final class CountingBroadcaster extends AbstractBroadcaster {
+    private int count;
+
+    /**
+     * Creates a new {@link CountingBroadcaster}.
+     */
+    public CountingBroadcaster() {}
+
+    /**
+     * Creates a new {@link CountingBroadcaster} and calls {@link #chain(Broadcaster)} on this instance, passing in the given
+     * {@link Broadcaster}.
+     *
+     * @param broadcaster
+     *     Add this broadcaster to the end of the chain.
+     */
+    public CountingBroadcaster(Broadcaster broadcaster) {
+        chain(broadcaster);
+    }
+
+    @Override
+    public void broadcast(Broadcastable broadcastable) {
+        count++;
+        relay(broadcastable);
+    }
+
+    /**
+     * Gets the number of broadcasts received.
+     *
+     * @return The number of broadcasts.
+     */
+    public int count() {
+        return count;
+    }
+}
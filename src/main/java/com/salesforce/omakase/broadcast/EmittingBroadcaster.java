@@ -26,15 +26,20 @@
 
 package com.salesforce.omakase.broadcast;
 
+import com.salesforce.omakase.ast.Propagation;
 import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.broadcast.annotation.Refine;
 import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.Emitter;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPlan;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionStats;
 import com.salesforce.omakase.error.ErrorManager;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.plugin.Plugin;
 
+import java.util.List;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -44,11 +49,22 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @see Emitter
  */
 public final class EmittingBroadcaster extends AbstractBroadcaster {
-    private final Emitter emitter = new Emitter();
+    private final Emitter emitter;
 
     private Grammar grammar;
     private Broadcaster broadcaster;
     private ErrorManager em;
+    private boolean fused;
+    private long emitted;
+
+    /** Creates a new {@link EmittingBroadcaster}. */
+    public EmittingBroadcaster() {
+        this(new Emitter());
+    }
+
+    private EmittingBroadcaster(Emitter emitter) {
+        this.emitter = emitter;
+    }
 
     /**
      * Specifies the {@link Grammar} to pass along to {@link Refine} subscription methods.
@@ -80,6 +96,35 @@ public final class EmittingBroadcaster extends AbstractBroadcaster {
         this.em = checkNotNull(em, "error manager cannot be null");
     }
 
+    /**
+     * Creates a copy of this broadcaster for emitting in the current phase from another thread, e.g., for validating parts of
+     * the tree in parallel. See {@link Emitter#fork()}.
+     * <p>
+     * The copy uses the same {@link Grammar} and root {@link Broadcaster} but the given {@link ErrorManager}, and it isn't
+     * chained to any other broadcaster.
+     *
+     * @param em
+     *     The {@link ErrorManager} to give to {@link Validate} subscription methods.
+     *
+     * @return The copy.
+     */
+    public EmittingBroadcaster fork(ErrorManager em) {
+        EmittingBroadcaster fork = new EmittingBroadcaster(emitter.fork());
+        fork.grammar = grammar;
+        fork.broadcaster = broadcaster;
+        fork.errorManager(em);
+        return fork;
+    }
+
+    /**
+     * See {@link Emitter#profile()}.
+     *
+     * @return Whether subscription invocations are being recorded.
+     */
+    public boolean profiling() {
+        return emitter.profile();
+    }
+
     /**
      * See {@link Emitter#register(Object)}.
      *
@@ -90,6 +135,18 @@ public final class EmittingBroadcaster extends AbstractBroadcaster {
         emitter.register(subscriber);
     }
 
+    /**
+     * See {@link Emitter#register(SubscriptionPlan, List)}.
+     *
+     * @param plan
+     *     The plan created for the classes of the subscribers.
+     * @param subscribers
+     *     The {@link Plugin} instances, in registration order.
+     */
+    public void register(SubscriptionPlan plan, List<?> subscribers) {
+        emitter.register(plan, subscribers);
+    }
+
     /**
      * See {@link Emitter#phase(SubscriptionPhase)}.
      *
@@ -100,24 +157,118 @@ public final class EmittingBroadcaster extends AbstractBroadcaster {
         emitter.phase(phase);
     }
 
+    /**
+     * See {@link Emitter#onlyLocalProcessing()}.
+     *
+     * @return True if all process subscriptions are local.
+     */
+    public boolean onlyLocalProcessing() {
+        return emitter.onlyLocalProcessing();
+    }
+
+    /**
+     * See {@link Emitter#hasReworks()}.
+     *
+     * @return True if there is at least one rework subscription.
+     */
+    public boolean hasReworks() {
+        return emitter.hasReworks();
+    }
+
+    /**
+     * Specifies whether each unit emitted in the {@link SubscriptionPhase#PROCESS} phase should also be emitted in the {@link
+     * SubscriptionPhase#VALIDATE} phase right away, instead of waiting for a separate validation pass over the tree.
+     * <p>
+     * This should only be enabled when there aren't any rework subscriptions (see {@link #hasReworks()}), otherwise a unit
+     * could be validated before a later rework changes it.
+     *
+     * @param fused
+     *     Whether to deliver the validation of each processed unit immediately.
+     */
+    public void fuse(boolean fused) {
+        this.fused = fused;
+    }
+
+    /**
+     * See {@link Emitter#phase()}.
+     *
+     * @return The current {@link SubscriptionPhase}.
+     */
+    public SubscriptionPhase phase() {
+        return emitter.phase();
+    }
+
+    /**
+     * See {@link Emitter#profile(boolean)}.
+     *
+     * @param profile
+     *     Whether to record subscription invocations.
+     */
+    public void profile(boolean profile) {
+        emitter.profile(profile);
+    }
+
+    /**
+     * See {@link Emitter#stats()}.
+     *
+     * @return The stats for each subscription.
+     */
+    public List<SubscriptionStats> subscriptionStats() {
+        return emitter.stats();
+    }
+
+    /**
+     * Gets the number of times a unit has been emitted to the subscribers of its type so far. Units are only counted if they were
+     * actually delivered to at least one subscription, not when there were no subscribers for the unit's type.
+     *
+     * @return The number of emits.
+     */
+    public long emitted() {
+        return emitted;
+    }
+
     @Override
     public void broadcast(Broadcastable broadcastable) {
         SubscriptionPhase phase = emitter.phase();
+        emit(broadcastable, phase);
+
+        // validate the unit right after its own processing, if fused and the unit wasn't destroyed
+        if (fused && phase == SubscriptionPhase.PROCESS && broadcastable.status() == Status.PROCESSED) {
+            emitter.phase(SubscriptionPhase.VALIDATE);
+            try {
+                emit(broadcastable, SubscriptionPhase.VALIDATE);
+            } finally {
+                emitter.phase(SubscriptionPhase.PROCESS);
+            }
+        }
+
+        relay(broadcastable);
+    }
+
+    /** emits the unit to the subscriptions of the given (current) phase, then updates the status */
+    private void emit(Broadcastable broadcastable, SubscriptionPhase phase) {
         Status status = broadcastable.status();
 
         if (status.shouldBroadcastForPhase(phase)) {
-            // set the status to broadcasting
-            broadcastable.status(Status.EMITTING);
+            if (emitter.hasSubscribers(broadcastable.getClass())) {
+                // set the status to broadcasting
+                broadcastable.status(Status.EMITTING);
 
-            // send to listeners
-            emitter.emit(broadcastable, grammar, broadcaster, em);
+                // send to listeners
+                emitted++;
+                emitter.emit(broadcastable, grammar, broadcaster, em);
 
-            // update the status
-            if (broadcastable.status() != Status.NEVER_EMIT) {
+                // update the status
+                if (broadcastable.status() != Status.NEVER_EMIT) {
+                    broadcastable.status(phase.nextStatus());
+                }
+            } else if (phase == SubscriptionPhase.REFINE || emitter.hasLaterSubscribers(broadcastable.getClass())
+                || !Propagation.isLeaf(broadcastable)) {
+                // nothing listens to this type in this phase, but the status still has to move on so that the unit is
+                // eligible for the next phase (and composite units keep propagating to their children)
                 broadcastable.status(phase.nextStatus());
             }
+            // otherwise nothing will ever observe the status of this unit, so it's left as is
         }
-
-        relay(broadcastable);
     }
 }
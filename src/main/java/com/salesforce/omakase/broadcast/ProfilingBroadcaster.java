@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A broadcaster that records, per {@link Broadcastable} class and per {@link SubscriptionPhase}, how many units were
+ * broadcasted, how many of those were actually emitted by the {@link EmittingBroadcaster}, and the time spent downstream.
+ * <p>
+ * This is intended to be placed at the top of the chain with {@link Omakase.Request#broadcaster(Broadcaster)}:
+ * <pre><code>
+ *     ProfilingBroadcaster profiler = new ProfilingBroadcaster();
+ *     Omakase.source(input).broadcaster(profiler).use(...).process();
+ *     for (ProfilingBroadcaster.Stats stats : profiler.results()) { ... }
+ * </code></pre>
+ * The current phase is read from the {@link EmittingBroadcaster} further down the chain. Timings are inclusive of any nested
+ * broadcasts (e.g., a refiner broadcasting the units it parsed), so {@link Stats#selfNanos()} is also given, which excludes the
+ * time spent in nested broadcasts.
+ * <p>
+ * When disabled via {@link #enabled(boolean)} this does nothing but relay, so it can be left in place and only turned on for a
+ * sample of requests.
+ *
+ * @author nmcwilliams
+ */
+public final class ProfilingBroadcaster extends AbstractBroadcaster {
+    private static final int PHASES = SubscriptionPhase.values().length;
+
+    private final Map<Class<?>, Stats[]> stats = new LinkedHashMap<>(64);
+
+    private boolean enabled = true;
+    private EmittingBroadcaster emitting;
+
+    /** time spent in nested broadcasts of the current broadcast */
+    private long nestedNanos;
+
+    /** number of emits by nested broadcasts of the current broadcast */
+    private long nestedEmits;
+
+    /**
+     * Creates a new {@link ProfilingBroadcaster}.
+     */
+    public ProfilingBroadcaster() {}
+
+    /**
+     * Creates a new {@link ProfilingBroadcaster} and calls {@link #chain(Broadcaster)} on this instance, passing in the given
+     * {@link Broadcaster}.
+     *
+     * @param broadcaster
+     *     Add this broadcaster to the end of the chain.
+     */
+    public ProfilingBroadcaster(Broadcaster broadcaster) {
+        chain(broadcaster);
+    }
+
+    /**
+     * Sets whether profiling is enabled. When disabled, broadcasts are simply relayed. Enabled by default.
+     *
+     * @param enabled
+     *     Whether profiling is enabled.
+     *
+     * @return this, for chaining.
+     */
+    public ProfilingBroadcaster enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * Gets whether profiling is enabled.
+     *
+     * @return True if profiling is enabled.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public void broadcast(Broadcastable broadcastable) {
+        if (!enabled) {
+            relay(broadcastable);
+            return;
+        }
+
+        SubscriptionPhase phase = phase();
+
+        long outerNested = nestedNanos;
+        long outerNestedEmits = nestedEmits;
+        nestedNanos = 0;
+        nestedEmits = 0;
+
+        long emitsBefore = emits();
+        long start = System.nanoTime();
+        relay(broadcastable);
+        long elapsed = System.nanoTime() - start;
+        long emits = emits() - emitsBefore;
+
+        // only count this unit as emitted if the emitting broadcaster delivered it, not just units broadcasted in the meantime
+        boolean emitted = emits - nestedEmits > 0;
+
+        stats(broadcastable.getClass(), phase).record(emitted, elapsed, elapsed - nestedNanos);
+        nestedNanos = outerNested + elapsed;
+        nestedEmits = outerNestedEmits + emits;
+    }
+
+    /**
+     * Gets a snapshot of the recorded results, one entry per {@link Broadcastable} class and {@link SubscriptionPhase} with at
+     * least one broadcast, ordered by descending total time.
+     *
+     * @return The recorded results.
+     */
+    public List<Stats> results() {
+        List<Stats> results = new ArrayList<>(stats.size() * 2);
+        for (Stats[] byPhase : stats.values()) {
+            for (Stats s : byPhase) {
+                if (s != null) results.add(s.copy());
+            }
+        }
+        results.sort(Comparator.comparingLong(Stats::totalNanos).reversed());
+        return ImmutableList.copyOf(results);
+    }
+
+    /**
+     * Gets a snapshot of the recorded results for the given {@link Broadcastable} class and {@link SubscriptionPhase}.
+     *
+     * @param klass
+     *     The exact class of the broadcasted units (not a super class or interface).
+     * @param phase
+     *     The phase.
+     *
+     * @return The results, or an empty {@link Optional} if nothing was recorded.
+     */
+    public Optional<Stats> result(Class<? extends Broadcastable> klass, SubscriptionPhase phase) {
+        Stats[] byPhase = stats.get(klass);
+        if (byPhase == null || byPhase[phase.ordinal()] == null) return Optional.empty();
+        return Optional.of(byPhase[phase.ordinal()].copy());
+    }
+
+    /**
+     * Clears all recorded results.
+     *
+     * @return this, for chaining.
+     */
+    public ProfilingBroadcaster reset() {
+        stats.clear();
+        nestedNanos = 0;
+        nestedEmits = 0;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append(String.format("%-30s %-9s %10s %10s %12s %12s%n", "type", "phase", "broadcast", "emitted", "total(us)",
+            "self(us)"));
+
+        for (Stats s : results()) {
+            builder.append(String.format("%-30s %-9s %10d %10d %12d %12d%n", s.type().getSimpleName(), s.phase(),
+                s.broadcasts(), s.emitted(), TimeUnit.NANOSECONDS.toMicros(s.totalNanos()),
+                TimeUnit.NANOSECONDS.toMicros(s.selfNanos())));
+        }
+
+        return builder.toString();
+    }
+
+    /** gets the current phase from the emitting broadcaster in the chain, if there is one */
+    private SubscriptionPhase phase() {
+        if (emitting == null) {
+            Broadcaster current = next;
+            while (current instanceof AbstractBroadcaster) {
+                if (current instanceof EmittingBroadcaster) {
+                    emitting = (EmittingBroadcaster)current;
+                    break;
+                }
+                current = ((AbstractBroadcaster)current).next;
+            }
+            if (emitting == null) return null;
+        }
+        return emitting.phase();
+    }
+
+    /** gets the number of emits so far by the emitting broadcaster in the chain, if there is one */
+    private long emits() {
+        return emitting == null ? 0 : emitting.emitted();
+    }
+
+    private Stats stats(Class<?> klass, SubscriptionPhase phase) {
+        Stats[] byPhase = stats.computeIfAbsent(klass, k -> new Stats[PHASES + 1]);
+        int index = phase == null ? PHASES : phase.ordinal();
+
+        Stats s = byPhase[index];
+        if (s == null) {
+            s = new Stats(klass, phase);
+            byPhase[index] = s;
+        }
+        return s;
+    }
+
+    /** Profiling results for a single {@link Broadcastable} class within a single {@link SubscriptionPhase}. */
+    public static final class Stats {
+        private final Class<?> type;
+        private final SubscriptionPhase phase;
+        private long broadcasts;
+        private long emitted;
+        private long totalNanos;
+        private long selfNanos;
+
+        private Stats(Class<?> type, SubscriptionPhase phase) {
+            this.type = type;
+            this.phase = phase;
+        }
+
+        private void record(boolean wasEmitted, long total, long self) {
+            broadcasts++;
+            if (wasEmitted) emitted++;
+            totalNanos += total;
+            selfNanos += self;
+        }
+
+        private Stats copy() {
+            Stats copy = new Stats(type, phase);
+            copy.broadcasts = broadcasts;
+            copy.emitted = emitted;
+            copy.totalNanos = totalNanos;
+            copy.selfNanos = selfNanos;
+            return copy;
+        }
+
+        /**
+         * Gets the class of the broadcasted units.
+         *
+         * @return The class.
+         */
+        public Class<?> type() {
+            return type;
+        }
+
+        /**
+         * Gets the phase during which the units were broadcasted.
+         *
+         * @return The phase, or null if there was no {@link EmittingBroadcaster} in the chain.
+         */
+        public SubscriptionPhase phase() {
+            return phase;
+        }
+
+        /**
+         * Gets the number of units that were broadcasted.
+         *
+         * @return The number of broadcasts.
+         */
+        public long broadcasts() {
+            return broadcasts;
+        }
+
+        /**
+         * Gets the number of broadcasted units that were actually emitted to subscribers, as counted by the {@link
+         * EmittingBroadcaster}. Units without any subscribers for their type, or without a status applicable to the phase, are
+         * not counted.
+         *
+         * @return The number of emitted units.
+         */
+        public long emitted() {
+            return emitted;
+        }
+
+        /**
+         * Gets the total time spent downstream of this broadcaster, including nested broadcasts.
+         *
+         * @return The total time in nanoseconds.
+         */
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Gets the time spent downstream of this broadcaster, excluding nested broadcasts.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long selfNanos() {
+            return selfNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s): broadcasts=%d, emitted=%d, totalNanos=%d, selfNanos=%d", type.getSimpleName(), phase,
+                broadcasts, emitted, totalNanos, selfNanos);
+        }
+    }
+}
@@ -28,6 +28,8 @@ package com.salesforce.omakase.broadcast;
 
 import com.salesforce.omakase.ast.Status;
 
+import java.util.Optional;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -63,6 +65,23 @@ public final class VisitingBroadcaster extends AbstractBroadcaster {
         relay(broadcastable);
     }
 
+    /**
+     * Gets the top unit, i.e., the unit that {@link #visit(Broadcaster, Status)} will propagate from.
+     *
+     * @return The top unit, or an empty {@link Optional} if nothing was broadcasted.
+     */
+    public Optional<Broadcastable> target() {
+        return Optional.ofNullable(target);
+    }
+
+    /**
+     * Locks in the current target unit, so that units broadcasted from now on don't replace it. This is done automatically by
+     * {@link #visit(Broadcaster, Status)}.
+     */
+    public void lock() {
+        locked = true;
+    }
+
     /**
      * Calls {@link Broadcastable#propagateBroadcast(Broadcaster, Status)} on the top unit using the given {@link Broadcaster}
      * and status.
@@ -79,7 +98,7 @@ public final class VisitingBroadcaster extends AbstractBroadcaster {
         checkNotNull(broadcaster, "broadcaster cannot be null");
         checkNotNull(status, "status cannot be null");
 
-        locked = true;
+        lock();
         if (target != null) {
             target.propagateBroadcast(broadcaster, status);
         }
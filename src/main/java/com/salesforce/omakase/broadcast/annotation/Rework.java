@@ -67,4 +67,17 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Rework {
+    /**
+     * Specify true if this method only ever modifies the unit given to it or the units inside of it, e.g., changing the name
+     * of a class selector or the declarations of a rule. That means not modifying its parent, its siblings or any other
+     * statement in the tree, and not adding or removing any units outside of the given unit besides destroying the given unit
+     * itself. Observe methods are always considered local.
+     * <p>
+     * When all rework methods are local, a request processed in a single pass validates each top-level statement right after
+     * it has been fully processed, before moving on to the next one (see {@code Omakase.Request#singlePass()}). Otherwise this
+     * has no effect.
+     *
+     * @return Whether the method only modifies the unit given to it and its contents.
+     */
+    boolean local() default false;
 }
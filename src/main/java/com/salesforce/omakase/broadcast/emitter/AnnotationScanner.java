@@ -27,9 +27,6 @@
 package com.salesforce.omakase.broadcast.emitter;
 
 import com.google.common.base.Strings;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
@@ -46,7 +43,7 @@ import com.salesforce.omakase.plugin.Plugin;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -58,18 +55,25 @@ final class AnnotationScanner {
     private static final Set<String> SKIP = ImmutableSet.of(
         "wait", "equals", "hashCode", "getClass", "notify", "notifyAll", "toString", "dependencies");
 
-    /** cache of which methods on a {@link Plugin} are {@link Subscription} methods */
-    private static final LoadingCache<Class<?>, Set<SubscriptionMetadata>> subscriptionCache = CacheBuilder.newBuilder()
-        .weakKeys()
-        .build(new CacheLoader<Class<?>, Set<SubscriptionMetadata>>() {
-            @Override
-            public Set<SubscriptionMetadata> load(Class<?> klass) throws Exception {
-                return readSubscriptionAnnotations(klass);
-            }
-        });
+    /** cache of which methods on a {@link Plugin} are {@link Subscription} methods (lock-free reads, doesn't pin the class) */
+    private static final ClassValue<Set<SubscriptionMetadata>> subscriptionCache = new ClassValue<Set<SubscriptionMetadata>>() {
+        @Override
+        protected Set<SubscriptionMetadata> computeValue(Class<?> klass) {
+            SubscriptionTable table = GeneratedTables.subscriptions(klass);
+            return table != null ? readSubscriptionTable(table) : readSubscriptionAnnotations(klass);
+        }
+    };
+
+    /** reads the subscriptions from a table generated at compile time, no reflection involved */
+    static Set<SubscriptionMetadata> readSubscriptionTable(SubscriptionTable table) {
+        Set<SubscriptionMetadata> set = new LinkedHashSet<>();
+        table.describe((index, phase, event, name, local, rework, method, params) -> set.add(new SubscriptionMetadata(
+            method, params, event, phase, name, local, rework, Invoker.of(table, index, params.length))));
+        return ImmutableSet.copyOf(set);
+    }
 
-    private static Set<SubscriptionMetadata> readSubscriptionAnnotations(Class<?> klass) {
-        Set<SubscriptionMetadata> set = new HashSet<>();
+    static Set<SubscriptionMetadata> readSubscriptionAnnotations(Class<?> klass) {
+        Set<SubscriptionMetadata> set = new LinkedHashSet<>();
 
         for (Method method : klass.getMethods()) {
             if (SKIP.contains(method.getName())) continue;
@@ -85,7 +89,7 @@ final class AnnotationScanner {
                 if (params.length != 1) throw new SubscriptionException(Message.ONE_PARAM, method);
 
                 // add the metadata
-                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.PROCESS, null));
+                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.PROCESS, null, true, false));
             }
 
             // the rework annotation
@@ -98,7 +102,8 @@ final class AnnotationScanner {
                 if (params.length != 1) throw new SubscriptionException(Message.ONE_PARAM, method);
 
                 // add the metadata
-                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.PROCESS, null));
+                boolean local = method.getAnnotation(Rework.class).local();
+                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.PROCESS, null, local, true));
             }
 
             // the validate annotation
@@ -115,7 +120,7 @@ final class AnnotationScanner {
                 if (!errorManager) throw new SubscriptionException(Message.MISSING_ERROR_MANAGER, method);
 
                 // add the metadata
-                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.VALIDATE, null));
+                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.VALIDATE, null, true, false));
             }
 
             // the refine annotation
@@ -142,16 +147,12 @@ final class AnnotationScanner {
                 if (!broadcaster) throw new SubscriptionException(Message.MISSING_BROADCASTER, method);
 
                 // add the metadata
-                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.REFINE, refine.value()));
+                set.add(new SubscriptionMetadata(method, params[0], SubscriptionPhase.REFINE, refine.value(), false, false));
             }
 
-            // this is required for anonymous inner classes
-            if (annotated && Modifier.isPublic(method.getModifiers())) {
-                method.setAccessible(true);
-            }
         }
 
-        return set;
+        return ImmutableSet.copyOf(set);
     }
 
     /**
@@ -166,25 +167,74 @@ final class AnnotationScanner {
         // linked multimap because we need to maintain insertion order
         Multimap<Class<?>, Subscription> subscriptions = LinkedHashMultimap.create();
 
-        for (SubscriptionMetadata sm : subscriptionCache.getUnchecked(subscriber.getClass())) {
-            subscriptions.put(sm.event, new Subscription(sm.phase, subscriber, sm.method, sm.name));
+        for (SubscriptionMetadata sm : metadata(subscriber.getClass())) {
+            subscriptions.put(sm.event, sm.subscription(subscriber));
         }
 
         return subscriptions;
     }
 
+    /** gets the (cached) metadata for each subscription method on the given class */
+    static Set<SubscriptionMetadata> metadata(Class<?> klass) {
+        return subscriptionCache.get(klass);
+    }
+
     /** data object */
-    private static final class SubscriptionMetadata {
-        final Method method;
+    static final class SubscriptionMetadata {
+        final Method method; // null when read from a generated table
+        final String methodName;
+        final Class<?>[] params;
         final Class<?> event;
         final SubscriptionPhase phase;
         final String name;
+        final boolean local;
+        final boolean rework;
+        final Invoker invoker; // generated once per method, shared by every subscriber instance
 
-        public SubscriptionMetadata(Method method, Class<?> event, SubscriptionPhase phase, String name) {
+        SubscriptionMetadata(Method method, Class<?> event, SubscriptionPhase phase, String name, boolean local, boolean rework) {
             this.method = method;
+            this.methodName = method.getName();
+            this.params = method.getParameterTypes();
+            this.event = event;
+            this.phase = phase;
+            this.name = Strings.emptyToNull(name);
+            this.local = local;
+            this.rework = rework;
+            this.invoker = invoker(method);
+        }
+
+        SubscriptionMetadata(String method, Class<?>[] params, Class<?> event, SubscriptionPhase phase, String name,
+            boolean local, boolean rework, Invoker invoker) {
+            this.method = null;
+            this.methodName = method;
+            this.params = params;
             this.event = event;
             this.phase = phase;
             this.name = Strings.emptyToNull(name);
+            this.local = local;
+            this.rework = rework;
+            this.invoker = invoker;
+        }
+
+        /** creates a subscription delivering to the given instance, or a template subscription if the instance is null */
+        Subscription subscription(Object subscriber) {
+            Subscription subscription = method != null
+                ? new Subscription(phase, subscriber, method, invoker, name)
+                : new Subscription(phase, subscriber, methodName, params, invoker, name);
+            return subscription.local(local).rework(rework);
+        }
+
+        private static Invoker invoker(Method method) {
+            // this is required for anonymous inner classes
+            if (Modifier.isPublic(method.getModifiers())) {
+                method.setAccessible(true);
+            }
+
+            try {
+                return Invoker.of(method);
+            } catch (IllegalAccessException e) {
+                return null; // the subscription will create its own and report the problem on delivery
+            }
         }
     }
 }
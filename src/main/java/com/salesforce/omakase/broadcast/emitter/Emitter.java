@@ -27,22 +27,35 @@
 package com.salesforce.omakase.broadcast.emitter;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.reflect.TypeToken;
+import com.salesforce.omakase.ast.Named;
+import com.salesforce.omakase.ast.RawFunction;
+import com.salesforce.omakase.ast.RawSyntax;
+import com.salesforce.omakase.ast.atrule.AtRule;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.broadcast.Broadcastable;
 import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.CountingBroadcaster;
+import com.salesforce.omakase.broadcast.annotation.Observe;
 import com.salesforce.omakase.broadcast.annotation.Rework;
 import com.salesforce.omakase.broadcast.annotation.Subscribable;
 import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.error.ErrorManager;
+import com.salesforce.omakase.jfr.Events;
+import com.salesforce.omakase.jfr.RefineEvent;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.plugin.Plugin;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -54,9 +67,25 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public final class Emitter {
     private static final AnnotationScanner scanner = new AnnotationScanner();
+    private static final Subscription[] NONE = new Subscription[0];
 
-    /** Cache of class -> (class + supers). Only supers marked as {@link Subscribable} are stored. */
-    private final Map<Class<?>, List<Class<?>>> hierarchyCache = new HashMap<>(32);
+    /**
+     * Cache of class -> (class + supers). Only supers marked as {@link Subscribable} are stored. Shared across all
+     * instances since the hierarchy of a class never changes.
+     */
+    private static final ClassValue<List<Class<?>>> hierarchies = new ClassValue<List<Class<?>>>() {
+        @Override
+        protected List<Class<?>> computeValue(Class<?> klass) {
+            // generated at compile time by the subscription processor, when available
+            SubscribableHierarchy table = GeneratedTables.hierarchy(klass);
+            if (table != null) {
+                Class<?>[] generated = table.hierarchy(klass.getName());
+                if (generated != null) return ImmutableList.copyOf(generated);
+            }
+
+            return scanHierarchy(klass);
+        }
+    };
 
     /*
      * Map of (syntax) class (e.g., ClassSelector) to subscription Methods.
@@ -67,7 +96,8 @@ public final class Emitter {
     private final Map<Class<?>, Set<Subscription>> directSubscriptions = new HashMap<>(16);
 
     /**
-     * Map of (syntax) class to all applicable subscription Methods.
+     * Map of (syntax) class to all applicable subscription Methods, partitioned by phase (indexed by {@link
+     * SubscriptionPhase#ordinal()}). Arrays are compact and empty when there are no subscriptions for the phase.
      * <p>
      * This map includes indirect (i.e., super classes / interfaces) of the syntax class, which is important for ordering:
      * <p>
@@ -83,10 +113,32 @@ public final class Emitter {
      * SimpleSelector, in that order. However, since Class1 is registered first, its subscription to SimpleSelector must be
      * invoked before Class2's subscription to ClassSelector.
      */
-    private final Map<Class<?>, Iterable<Subscription>> expandedSubscriptions = new HashMap<>(32);
+    private final Map<Class<?>, Expanded> expandedSubscriptions = new HashMap<>(32);
+
+    /** the last lookup in {@link #expandedSubscriptions}, units of the same type are often emitted consecutively */
+    private Class<?> lastClass;
+    private Expanded lastSubscriptions;
 
     private SubscriptionPhase phase = SubscriptionPhase.PROCESS;
 
+    /** whether to record invocation counts and timings for each subscription */
+    private boolean profile;
+
+    /** number of registered subscriptions, used for ordering */
+    private int registered;
+
+    /** number of registered process subscriptions that may modify units other than the one delivered to them */
+    private int nonLocal;
+
+    /** number of registered rework subscriptions, local or not */
+    private int reworks;
+
+    /** the plan used to register all subscribers at once, if applicable. See {@link #register(SubscriptionPlan, List)} */
+    private SubscriptionPlan plan;
+
+    /** the subscriptions bound from the plan, indexed by registration order - 1 */
+    private Subscription[] bound;
+
     /**
      * Sets the current {@link SubscriptionPhase}. This determines which registered subscribers receive broadcasts.
      *
@@ -106,6 +158,52 @@ public final class Emitter {
         return phase;
     }
 
+    /**
+     * Sets whether the invocation count and cumulative time of each subscription method should be recorded. This is disabled
+     * by default. When disabled there is no timing overhead.
+     *
+     * @param profile
+     *     Whether to record subscription invocations.
+     *
+     * @see #stats()
+     */
+    public void profile(boolean profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Gets whether subscription invocations are recorded.
+     *
+     * @return True if subscription invocations are recorded.
+     */
+    public boolean profile() {
+        return profile;
+    }
+
+    /**
+     * Gets the invocation count and cumulative time of each registered subscription method, in plugin registration order.
+     * <p>
+     * The values will all be zero unless {@link #profile(boolean)} was enabled before emitting.
+     *
+     * @return The stats for each subscription.
+     */
+    public List<SubscriptionStats> stats() {
+        unplan();
+
+        Map<Subscription, Class<?>> events = new TreeMap<>();
+        for (Entry<Class<?>, Set<Subscription>> entry : directSubscriptions.entrySet()) {
+            for (Subscription subscription : entry.getValue()) {
+                events.put(subscription, entry.getKey());
+            }
+        }
+
+        ImmutableList.Builder<SubscriptionStats> builder = ImmutableList.builder();
+        for (Entry<Subscription, Class<?>> entry : events.entrySet()) {
+            builder.add(entry.getKey().stats(entry.getValue()));
+        }
+        return builder.build();
+    }
+
     /**
      * Registers an instance of an object to receive broadcasted events (usually a {@link Plugin} instance).
      * <p>
@@ -116,10 +214,158 @@ public final class Emitter {
      *     Register this object to receive events.
      */
     public void register(Object subscriber) {
+        unplan();
+
         for (Entry<Class<?>, Subscription> entry : scanner.scanSubscriptions(subscriber).entries()) {
             Set<Subscription> set = directSubscriptions.computeIfAbsent(entry.getKey(), k -> new LinkedHashSet<>(8));
-            set.add(entry.getValue());
+            if (set.add(entry.getValue())) {
+                entry.getValue().order(++registered);
+                if (entry.getValue().phase() == SubscriptionPhase.PROCESS && !entry.getValue().local()) {
+                    nonLocal++;
+                }
+                if (entry.getValue().rework()) {
+                    reworks++;
+                }
+            }
         }
+
+        // any precomputed subscriptions are now out of date
+        expandedSubscriptions.clear();
+        lastClass = null;
+        lastSubscriptions = null;
+    }
+
+    /**
+     * Registers all of the given subscribers at once, using the precomputed subscriptions in the given {@link SubscriptionPlan}.
+     * This has the same result as calling {@link #register(Object)} for each subscriber in order, but most of the work is
+     * shared with every other emitter using the same plan.
+     * <p>
+     * If the subscribers don't match the classes of the plan, or if this emitter already has registered subscribers, then this
+     * falls back to registering each subscriber individually.
+     *
+     * @param plan
+     *     The plan created for the classes of the subscribers.
+     * @param subscribers
+     *     The subscribers, in registration order.
+     */
+    public void register(SubscriptionPlan plan, List<?> subscribers) {
+        checkNotNull(plan, "plan cannot be null");
+        checkNotNull(subscribers, "subscribers cannot be null");
+
+        if (registered > 0 || this.plan != null || !plan.matches(subscribers)) {
+            for (Object subscriber : subscribers) {
+                register(subscriber);
+            }
+            return;
+        }
+
+        this.plan = plan;
+        this.bound = plan.bind(subscribers);
+        this.registered = bound.length;
+
+        for (Subscription subscription : bound) {
+            if (subscription.phase() == SubscriptionPhase.PROCESS && !subscription.local()) {
+                nonLocal++;
+            }
+            if (subscription.rework()) {
+                reworks++;
+            }
+        }
+
+        expandedSubscriptions.clear();
+        lastClass = null;
+        lastSubscriptions = null;
+    }
+
+    /** moves the subscriptions bound from a plan into the direct subscriptions, for when the plan no longer applies */
+    private void unplan() {
+        if (plan == null) return;
+
+        for (int i = 0; i < bound.length; i++) {
+            directSubscriptions.computeIfAbsent(plan.event(i), k -> new LinkedHashSet<>(8)).add(bound[i]);
+        }
+
+        plan = null;
+        bound = null;
+        expandedSubscriptions.clear();
+        lastClass = null;
+        lastSubscriptions = null;
+    }
+
+    /**
+     * Creates a copy of this emitter with the same subscriptions and current phase, for emitting events from another thread
+     * while this emitter (or other copies) are in use. Profiling is not enabled on the copy.
+     * <p>
+     * The subscriptions are shared with this emitter, so neither this emitter nor the copy should have subscribers registered
+     * afterwards. Whether emitting from multiple threads is actually safe depends on the subscribers themselves.
+     *
+     * @return The copy.
+     */
+    public Emitter fork() {
+        Emitter fork = new Emitter();
+        fork.directSubscriptions.putAll(directSubscriptions);
+        fork.expandedSubscriptions.putAll(expandedSubscriptions);
+        fork.phase = phase;
+        fork.registered = registered;
+        fork.nonLocal = nonLocal;
+        fork.reworks = reworks;
+        fork.plan = plan;
+        fork.bound = bound;
+        return fork;
+    }
+
+    /**
+     * Gets whether every registered {@link SubscriptionPhase#PROCESS} subscription only modifies the unit delivered to it (and
+     * its contents), i.e., they are all {@link Observe} subscriptions or {@link Rework#local()} rework subscriptions.
+     * <p>
+     * When true, the {@link SubscriptionPhase#VALIDATE} phase of a top-level statement can be delivered right after the
+     * statement has been processed without changing what any subscription sees.
+     *
+     * @return True if all process subscriptions are local.
+     */
+    public boolean onlyLocalProcessing() {
+        return nonLocal == 0;
+    }
+
+    /**
+     * Gets whether any {@link Rework} subscriptions are registered, local or not. Without any, the {@link
+     * SubscriptionPhase#PROCESS} phase can't change the tree, so each unit can be validated right after it has been processed.
+     *
+     * @return True if there is at least one rework subscription.
+     */
+    public boolean hasReworks() {
+        return reworks > 0;
+    }
+
+    /**
+     * Gets whether there are any subscriptions for the given event type (i.e., class) in the current phase, including
+     * subscriptions to types within the class hierarchy.
+     * <p>
+     * When this returns false then {@link #emit} would not deliver the event to anything.
+     *
+     * @param eventType
+     *     The class of the event.
+     *
+     * @return True if there is at least one subscription for the event type in the current phase.
+     */
+    public boolean hasSubscribers(Class<?> eventType) {
+        return subscriptions(eventType).phases[phase.ordinal()].length > 0;
+    }
+
+    /**
+     * Gets whether there are any subscriptions for the given event type (i.e., class) in a phase after the current one,
+     * including subscriptions to types within the class hierarchy.
+     * <p>
+     * When this and {@link #hasSubscribers(Class)} both return false then nothing will ever be delivered an event of this type
+     * again, for the rest of the processing.
+     *
+     * @param eventType
+     *     The class of the event.
+     *
+     * @return True if there is at least one subscription for the event type in a later phase.
+     */
+    public boolean hasLaterSubscribers(Class<?> eventType) {
+        return subscriptions(eventType).lastPhase > phase.ordinal();
     }
 
     /**
@@ -139,71 +385,284 @@ public final class Emitter {
      */
     public void emit(Broadcastable event, Grammar grammar, Broadcaster broadcaster, ErrorManager em) {
         // for each subscribable type in the event's hierarchy, inform each subscription to that type
-        for (Subscription subscription : subscriptions(event)) {
-            if (subscription.phase() == phase) {
-                // checking inside the loop because any subscription method can result in a change of status
-                if (event.shouldBreakBroadcast(phase)) {
-                    return; // break out when we no longer need to emit, e.g., for a destroyed unit or already refined
-                }
+        Expanded expanded = subscriptions(event.getClass());
+        Subscription[] subscriptions = phase == SubscriptionPhase.REFINE
+            ? expanded.refiners(event) // only the refiners matching the name, if applicable
+            : expanded.phases[phase.ordinal()];
 
-                switch (phase) {
-                case REFINE:
-                    subscription.refine(event, grammar, broadcaster, em);
-                    break;
-                case PROCESS:
-                    subscription.process(event, em);
-                    break;
-                case VALIDATE:
-                    subscription.validate(event, em);
-                    break;
+        for (Subscription subscription : subscriptions) {
+            // checking inside the loop because any subscription method can result in a change of status
+            if (event.shouldBreakBroadcast(phase)) {
+                return; // break out when we no longer need to emit, e.g., for a destroyed unit or already refined
+            }
+
+            if (profile) {
+                long start = System.nanoTime();
+                if (deliver(subscription, event, grammar, broadcaster, em)) {
+                    subscription.record(System.nanoTime() - start);
                 }
+            } else {
+                deliver(subscription, event, grammar, broadcaster, em);
             }
         }
     }
 
+    /** sends the event to the subscription according to the current phase, returns false if the subscription filtered it out */
+    private boolean deliver(Subscription subscription, Broadcastable event, Grammar grammar, Broadcaster broadcaster,
+        ErrorManager em) {
+        switch (phase) {
+        case REFINE:
+            return refine(subscription, event, grammar, broadcaster, em);
+        case PROCESS:
+            subscription.process(event, em);
+            return true;
+        case VALIDATE:
+            subscription.validate(event, em);
+            return true;
+        }
+        return false;
+    }
+
+    /** delivers a refine subscription, recording a flight recorder event if enabled */
+    private boolean refine(Subscription subscription, Broadcastable event, Grammar grammar, Broadcaster broadcaster,
+        ErrorManager em) {
+        RefineEvent jfr = Events.active() ? new RefineEvent() : null;
+        if (jfr == null || !jfr.isEnabled()) {
+            return subscription.refine(event, grammar, broadcaster, em);
+        }
+
+        // measured up front since refining may discard the raw content
+        int sourceLength = rawLength(event);
+        CountingBroadcaster counter = new CountingBroadcaster(broadcaster);
+        jfr.begin();
+        boolean delivered = subscription.refine(event, grammar, counter, em);
+
+        if (delivered && jfr.shouldCommit()) {
+            jfr.type = event.getClass().getSimpleName();
+            jfr.name = event instanceof Named ? ((Named)event).name() : null;
+            jfr.sourceLength = sourceLength;
+            jfr.refiner = subscription.method().getDeclaringClass();
+            jfr.units = counter.count();
+            jfr.commit();
+        }
+        return delivered;
+    }
+
+    /** length of the raw content of a refinable unit, or -1 if it doesn't have any */
+    private static int rawLength(Broadcastable event) {
+        if (event instanceof Selector) {
+            return length(((Selector)event).raw());
+        }
+        if (event instanceof Declaration) {
+            Declaration declaration = (Declaration)event;
+            return sum(length(declaration.rawPropertyName()), length(declaration.rawPropertyValue()));
+        }
+        if (event instanceof AtRule) {
+            AtRule atRule = (AtRule)event;
+            return sum(length(atRule.rawExpression()), length(atRule.rawBlock()));
+        }
+        if (event instanceof RawFunction) {
+            return ((RawFunction)event).args().length();
+        }
+        return -1;
+    }
+
+    private static int length(Optional<RawSyntax> raw) {
+        return raw.isPresent() ? raw.get().view().length() : -1;
+    }
+
+    private static int sum(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        return a + b;
+    }
+
     /**
-     * Gets all subscriptions (including hierarchy) for the given event's class (irrespective of current phase, see
-     * notes above for more details).
+     * Gets all subscriptions (including hierarchy) for the given event class, partitioned by phase (see notes above for more
+     * details).
      */
-    private Iterable<Subscription> subscriptions(Broadcastable event) {
-        Iterable<Subscription> subscriptions = expandedSubscriptions.get(event.getClass());
+    private Expanded subscriptions(Class<?> klass) {
+        if (klass == lastClass) return lastSubscriptions;
 
+        Expanded subscriptions = expandedSubscriptions.get(klass);
         if (subscriptions == null) {
-            Set<Subscription> tree = new TreeSet<>(); // tree set important for maintaining plugin registration order
+            subscriptions = plan != null ? plan.expanded(klass).bind(bound) : expand(klass, directSubscriptions);
+            expandedSubscriptions.put(klass, subscriptions);
+        }
 
-            for (Class<?> klass : hierarchy(event.getClass())) {
-                Set<Subscription> matching = directSubscriptions.get(klass);
-                if (matching != null) {
-                    tree.addAll(matching);
+        lastClass = klass;
+        lastSubscriptions = subscriptions;
+        return subscriptions;
+    }
+
+    /**
+     * Gets the event types that the subscription methods on the given class subscribe to, in any phase. This does not include
+     * sub or super types of the subscribed events.
+     *
+     * @param subscriber
+     *     The class with the subscription methods.
+     *
+     * @return The subscribed event types, in declaration order.
+     */
+    public static Set<Class<?>> subscribedTypes(Class<?> subscriber) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (AnnotationScanner.SubscriptionMetadata sm : AnnotationScanner.metadata(subscriber)) {
+            types.add(sm.event);
+        }
+        return types;
+    }
+
+    /** builds the phase-partitioned subscriptions for the given class from the given direct subscriptions */
+    static Expanded expand(Class<?> klass, Map<Class<?>, ? extends Collection<Subscription>> direct) {
+        Set<Subscription> tree = new TreeSet<>(); // tree set important for maintaining plugin registration order
+
+        for (Class<?> type : hierarchy(klass)) {
+            Collection<Subscription> matching = direct.get(type);
+            if (matching != null) {
+                tree.addAll(matching);
+            }
+        }
+
+        SubscriptionPhase[] phases = SubscriptionPhase.values();
+        Subscription[][] partitioned = new Subscription[phases.length][];
+
+        for (SubscriptionPhase p : phases) {
+            List<Subscription> list = new ArrayList<>(tree.size());
+            for (Subscription subscription : tree) {
+                if (subscription.phase() == p) {
+                    list.add(subscription);
                 }
             }
-            subscriptions = ImmutableList.copyOf(tree);
-            expandedSubscriptions.put(event.getClass(), subscriptions);
+            partitioned[p.ordinal()] = array(list);
         }
 
-        return subscriptions;
+        // index named refiners by name, each entry including the unnamed refiners too (still in registration order)
+        Map<String, Subscription[]> named = null;
+        List<Subscription> unnamed = new ArrayList<>();
+
+        for (Subscription subscription : partitioned[SubscriptionPhase.REFINE.ordinal()]) {
+            if (subscription.name() == null) {
+                unnamed.add(subscription);
+            } else if (named == null) {
+                named = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            }
+        }
+
+        if (named != null) {
+            for (Subscription subscription : partitioned[SubscriptionPhase.REFINE.ordinal()]) {
+                String name = subscription.name();
+                if (name != null && !named.containsKey(name)) {
+                    List<Subscription> list = new ArrayList<>();
+                    for (Subscription candidate : partitioned[SubscriptionPhase.REFINE.ordinal()]) {
+                        if (candidate.name() == null || candidate.name().equalsIgnoreCase(name)) {
+                            list.add(candidate);
+                        }
+                    }
+                    named.put(name, array(list));
+                }
+            }
+        }
+
+        return new Expanded(partitioned, array(unnamed), named);
+    }
+
+    private static Subscription[] array(List<Subscription> list) {
+        return list.isEmpty() ? NONE : list.toArray(new Subscription[list.size()]);
     }
 
     /** returns class -> (class + supers) */
-    private List<Class<?>> hierarchy(Class<?> klass) {
-        List<Class<?>> hierarchy = hierarchyCache.get(klass);
+    private static List<Class<?>> hierarchy(Class<?> klass) {
+        return hierarchies.get(klass);
+    }
 
-        if (hierarchy == null) {
-            if (!klass.isAnnotationPresent(Subscribable.class)) {
-                hierarchy = ImmutableList.of();
-            } else {
-                ImmutableList.Builder<Class<?>> builder = ImmutableList.builder();
-                for (Class<?> type : TypeToken.of(klass).getTypes().rawTypes()) {
-                    if (type.isAnnotationPresent(Subscribable.class)) {
-                        builder.add(type);
-                    }
+    /** reflectively resolves class -> (class + supers) */
+    static List<Class<?>> scanHierarchy(Class<?> klass) {
+        if (!klass.isAnnotationPresent(Subscribable.class)) return ImmutableList.of();
+
+        // a hand-rolled walk instead of TypeToken, which costs a surprising amount of class loading on first use
+        Set<Class<?>> types = new LinkedHashSet<>();
+        collect(klass, types);
+
+        ImmutableList.Builder<Class<?>> builder = ImmutableList.builder();
+        for (Class<?> type : types) {
+            if (type.isAnnotationPresent(Subscribable.class)) {
+                builder.add(type);
+            }
+        }
+        return builder.build();
+    }
+
+    /** adds the given class and all of its super classes and interfaces to the given set */
+    private static void collect(Class<?> klass, Set<Class<?>> types) {
+        if (klass == null || !types.add(klass)) return;
+        collect(klass.getSuperclass(), types);
+        for (Class<?> iface : klass.getInterfaces()) {
+            collect(iface, types);
+        }
+    }
+
+    /** the subscriptions for a particular event class */
+    static final class Expanded {
+        /** all subscriptions, indexed by {@link SubscriptionPhase#ordinal()} */
+        final Subscription[][] phases;
+
+        /** refine subscriptions without a name restriction */
+        final Subscription[] unnamedRefiners;
+
+        /** name (case insensitive) -> matching and unnamed refine subscriptions, or null if there are no named refiners */
+        final Map<String, Subscription[]> namedRefiners;
+
+        /** the ordinal of the last phase with any subscriptions, or -1 if there are none */
+        final int lastPhase;
+
+        Expanded(Subscription[][] phases, Subscription[] unnamedRefiners, Map<String, Subscription[]> namedRefiners) {
+            this.phases = phases;
+            this.unnamedRefiners = unnamedRefiners;
+            this.namedRefiners = namedRefiners;
+
+            int last = -1;
+            for (int i = 0; i < phases.length; i++) {
+                if (phases[i].length > 0) last = i;
+            }
+            this.lastPhase = last;
+        }
+
+        /** gets the refine subscriptions applicable to the given event, without allocating */
+        Subscription[] refiners(Broadcastable event) {
+            if (namedRefiners == null) return phases[SubscriptionPhase.REFINE.ordinal()];
+            if (!(event instanceof Named)) return unnamedRefiners;
+
+            String name = ((Named)event).name();
+            Subscription[] matching = name != null ? namedRefiners.get(name) : null;
+            return matching != null ? matching : unnamedRefiners;
+        }
+
+        /** replaces each (template) subscription with the subscription of the same registration order in the given array */
+        Expanded bind(Subscription[] bound) {
+            Subscription[][] boundPhases = new Subscription[phases.length][];
+            for (int i = 0; i < phases.length; i++) {
+                boundPhases[i] = bind(phases[i], bound);
+            }
+
+            Map<String, Subscription[]> boundNamed = null;
+            if (namedRefiners != null) {
+                boundNamed = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (Entry<String, Subscription[]> entry : namedRefiners.entrySet()) {
+                    boundNamed.put(entry.getKey(), bind(entry.getValue(), bound));
                 }
-                hierarchy = builder.build();
             }
 
-            hierarchyCache.put(klass, hierarchy);
+            return new Expanded(boundPhases, bind(unnamedRefiners, bound), boundNamed);
         }
 
-        return hierarchy;
+        private static Subscription[] bind(Subscription[] templates, Subscription[] bound) {
+            if (templates.length == 0) return NONE;
+
+            Subscription[] result = new Subscription[templates.length];
+            for (int i = 0; i < templates.length; i++) {
+                result[i] = bound[templates[i].order() - 1];
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+/**
+ * Finds the tables generated by the subscription processor, see {@link SubscriptionTable} and {@link SubscribableHierarchy}.
+ *
+ * @author nmcwilliams
+ */
+final class GeneratedTables {
+    /** do not construct */
+    private GeneratedTables() {}
+
+    /** gets the subscription table for exactly the given plugin class, or null if there isn't one */
+    static SubscriptionTable subscriptions(Class<?> klass) {
+        return load(klass.getName() + SubscriptionTable.SUFFIX, klass.getClassLoader(), SubscriptionTable.class);
+    }
+
+    /** gets the hierarchy table for the package of the given class, or null if there isn't one */
+    static SubscribableHierarchy hierarchy(Class<?> klass) {
+        String name = klass.getName();
+        int dot = name.lastIndexOf('.');
+        String prefix = dot == -1 ? "" : name.substring(0, dot + 1);
+        return load(prefix + SubscribableHierarchy.NAME, klass.getClassLoader(), SubscribableHierarchy.class);
+    }
+
+    private static <T> T load(String name, ClassLoader loader, Class<T> type) {
+        if (loader == null) return null;
+        try {
+            Class<?> klass = Class.forName(name, true, loader);
+            return type.isAssignableFrom(klass) ? type.cast(klass.getDeclaredConstructor().newInstance()) : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new SubscriptionException("Unable to instantiate generated table " + name, e);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * Direct invoker of a subscription method, created once per method so that delivering an event doesn't go through {@link
+ * Method#invoke} (varargs array, access checks and {@code InvocationTargetException} wrapping) every time. For internal use
+ * only.
+ * <p>
+ * Where possible the invoker is a class spun by {@link LambdaMetafactory}, which calls the subscription method directly. That
+ * requires the plugin class to be accessible and visible from this library's class loader; otherwise (e.g., anonymous or
+ * private plugin classes, plugins loaded by a child class loader, static methods) the invoker falls back to an exact {@link
+ * MethodHandle} invocation, which is still considerably cheaper than reflection.
+ * <p>
+ * Plugin classes with a generated {@link SubscriptionTable} skip all of that and invoke through the table instead.
+ * <p>
+ * Exceptions thrown by the subscription method itself are propagated as-is, unwrapped.
+ *
+ * @author nmcwilliams
+ */
+abstract class Invoker {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final int arity;
+
+    private Invoker(int arity) {
+        this.arity = arity;
+    }
+
+    /**
+     * Creates an invoker for the given method.
+     *
+     * @param method
+     *     The subscription method. If the method isn't accessible then {@link Method#setAccessible(boolean)} must already have
+     *     been called, same as with {@link Method#invoke}.
+     *
+     * @return The invoker.
+     *
+     * @throws IllegalAccessException
+     *     If the method is not accessible.
+     */
+    static Invoker of(Method method) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflect(method); // honors setAccessible, same access checks as Method#invoke otherwise
+        int arity = method.getParameterCount();
+
+        if (Modifier.isStatic(method.getModifiers())) {
+            return new Exact(arity, MethodHandles.dropArguments(handle, 0, Object.class));
+        }
+
+        if (arity <= 3 && visible(method)) {
+            try {
+                return spin(arity, handle);
+            } catch (Throwable ignored) {
+                // not eligible for a spun class (e.g., not accessible from here), use the handle instead
+            }
+        }
+
+        return new Exact(arity, handle);
+    }
+
+    /**
+     * Creates an invoker for a subscription method in a generated table.
+     *
+     * @param table
+     *     The generated table.
+     * @param index
+     *     The index of the subscription method within the table.
+     * @param arity
+     *     The number of parameters of the subscription method.
+     *
+     * @return The invoker.
+     */
+    static Invoker of(SubscriptionTable table, int index, int arity) {
+        return new Generated(table, index, arity);
+    }
+
+    /** gets the number of parameters of the subscription method */
+    int arity() {
+        return arity;
+    }
+
+    /**
+     * Invokes the subscription method. Arguments beyond the arity of the method are ignored.
+     *
+     * @param subscriber
+     *     The plugin instance.
+     * @param event
+     *     The first argument, i.e., the syntax unit.
+     * @param arg1
+     *     The second argument, if applicable.
+     * @param arg2
+     *     The third argument, if applicable.
+     *
+     * @throws Throwable
+     *     Anything thrown from the subscription method.
+     */
+    abstract void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable;
+
+    /** whether the method's class and parameter types all resolve to the same classes from this library's class loader */
+    private static boolean visible(Method method) {
+        if (!visible(method.getDeclaringClass())) return false;
+        for (Class<?> param : method.getParameterTypes()) {
+            if (!param.isPrimitive() && !visible(param)) return false;
+        }
+        return true;
+    }
+
+    private static boolean visible(Class<?> klass) {
+        if (klass.getClassLoader() == Invoker.class.getClassLoader()) return true;
+        try {
+            return Class.forName(klass.getName(), false, Invoker.class.getClassLoader()) == klass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Invoker spin(int arity, MethodHandle handle) throws Throwable {
+        Class<?> iface = arity == 0 ? Zero.class : arity == 1 ? One.class : arity == 2 ? Two.class : Three.class;
+
+        Class<?>[] erased = new Class<?>[arity + 1];
+        Arrays.fill(erased, Object.class);
+        MethodType sam = MethodType.methodType(void.class, erased);
+
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", MethodType.methodType(iface), sam, handle,
+            handle.type().changeReturnType(void.class));
+        Object target = site.getTarget().invoke();
+
+        switch (arity) {
+        case 0:
+            return new Spun0((Zero)target);
+        case 1:
+            return new Spun1((One)target);
+        case 2:
+            return new Spun2((Two)target);
+        default:
+            return new Spun3((Three)target);
+        }
+    }
+
+    /** implemented by spun classes, one per arity */
+    interface Zero {
+        void invoke(Object subscriber) throws Throwable;
+    }
+
+    interface One {
+        void invoke(Object subscriber, Object event) throws Throwable;
+    }
+
+    interface Two {
+        void invoke(Object subscriber, Object event, Object arg1) throws Throwable;
+    }
+
+    interface Three {
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable;
+    }
+
+    private static final class Spun0 extends Invoker {
+        private final Zero target;
+
+        Spun0(Zero target) {
+            super(0);
+            this.target = target;
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            target.invoke(subscriber);
+        }
+    }
+
+    private static final class Spun1 extends Invoker {
+        private final One target;
+
+        Spun1(One target) {
+            super(1);
+            this.target = target;
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            target.invoke(subscriber, event);
+        }
+    }
+
+    private static final class Spun2 extends Invoker {
+        private final Two target;
+
+        Spun2(Two target) {
+            super(2);
+            this.target = target;
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            target.invoke(subscriber, event, arg1);
+        }
+    }
+
+    private static final class Spun3 extends Invoker {
+        private final Three target;
+
+        Spun3(Three target) {
+            super(3);
+            this.target = target;
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            target.invoke(subscriber, event, arg1, arg2);
+        }
+    }
+
+    /** delegates to a generated table */
+    private static final class Generated extends Invoker {
+        private final SubscriptionTable table;
+        private final int index;
+
+        Generated(SubscriptionTable table, int index, int arity) {
+            super(arity);
+            this.table = table;
+            this.index = index;
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            table.invoke(index, subscriber, event, arg1, arg2);
+        }
+    }
+
+    /** fallback when a class can't be spun, see class docs */
+    private static final class Exact extends Invoker {
+        private final MethodHandle handle;
+
+        Exact(int arity, MethodHandle handle) {
+            super(arity);
+            Class<?>[] erased = new Class<?>[arity + 1];
+            Arrays.fill(erased, Object.class);
+            this.handle = handle.asType(MethodType.methodType(void.class, erased));
+        }
+
+        @Override
+        void invoke(Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {
+            switch (arity()) {
+            case 0:
+                handle.invokeExact(subscriber);
+                break;
+            case 1:
+                handle.invokeExact(subscriber, event);
+                break;
+            case 2:
+                handle.invokeExact(subscriber, event, arg1);
+                break;
+            case 3:
+                handle.invokeExact(subscriber, event, arg1, arg2);
+                break;
+            default:
+                throw new IllegalStateException("unsupported arity " + arity());
+            }
+        }
+    }
+}
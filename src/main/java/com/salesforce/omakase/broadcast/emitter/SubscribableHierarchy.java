@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.salesforce.omakase.broadcast.annotation.Subscribable;
+import com.salesforce.omakase.broadcast.processor.SubscriptionProcessor;
+
+/**
+ * A table of the {@link Subscribable} hierarchy of each {@link Subscribable} type in a package, generated at compile time by
+ * {@link SubscriptionProcessor}.
+ * <p>
+ * Types missing from the table (or in packages without a table) have their hierarchy resolved reflectively as usual.
+ * <p>
+ * This is not intended to be implemented by hand.
+ *
+ * @author nmcwilliams
+ */
+public interface SubscribableHierarchy {
+    /** the simple name of the generated table class in each package */
+    String NAME = "Subscribable$$Hierarchy";
+
+    /**
+     * Gets the given type along with all of its {@link Subscribable} super classes and interfaces.
+     *
+     * @param type
+     *     The binary name of the type.
+     *
+     * @return The hierarchy, or null if the type isn't in this table.
+     */
+    Class<?>[] hierarchy(String type);
+}
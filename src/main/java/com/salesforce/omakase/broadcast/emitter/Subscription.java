@@ -34,10 +34,10 @@ import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.ParserException;
 import com.salesforce.omakase.util.As;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Metadata class to wrap the details around a subscription method. For internal use only.
@@ -45,68 +45,168 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @author nmcwilliams
  */
 final class Subscription implements Comparable<Subscription> {
-    private static final AtomicInteger counter = new AtomicInteger();
-
     private final SubscriptionPhase phase;
     private final Object subscriber;
-    private final Method method;
+    private final String methodName;
+    private final Class<?>[] params;
+    private Method method; // resolved lazily for subscriptions from a generated table
+    private final Invoker invoker; // null if the method isn't accessible
+    private final IllegalAccessException inaccessible;
     private final String name;
-    private final int number;
+    private int number;
+    private boolean local;
+    private boolean rework;
+
+    private long invocations;
+    private long nanos;
 
     Subscription(SubscriptionPhase phase, Object subscriber, Method method, String name) {
+        this(phase, subscriber, method, null, name);
+    }
+
+    /** the invoker is usually shared between all subscriptions to the same method, or null to create a new one */
+    Subscription(SubscriptionPhase phase, Object subscriber, Method method, Invoker invoker, String name) {
         this.phase = phase;
         this.subscriber = subscriber;
+        this.methodName = method.getName();
+        this.params = method.getParameterTypes();
         this.method = method;
-        this.name = name != null ? name.toLowerCase() : null;
-        this.number = counter.addAndGet(1);
+        this.name = name != null ? name.toLowerCase(Locale.ROOT) : null;
+
+        IllegalAccessException inaccessible = null;
+        if (invoker == null) {
+            try {
+                invoker = Invoker.of(method);
+            } catch (IllegalAccessException e) {
+                inaccessible = e; // reported on delivery, same as when invoking through reflection
+            }
+        }
+        this.invoker = invoker;
+        this.inaccessible = inaccessible;
+    }
+
+    /** a subscription from a generated {@link SubscriptionTable}, the method is only looked up when needed */
+    Subscription(SubscriptionPhase phase, Object subscriber, String method, Class<?>[] params, Invoker invoker, String name) {
+        this.phase = phase;
+        this.subscriber = subscriber;
+        this.methodName = method;
+        this.params = params;
+        this.invoker = invoker;
+        this.inaccessible = null;
+        this.name = name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /** sets the registration order of this subscription, relative to other subscriptions in the same {@link Emitter} */
+    public void order(int number) {
+        this.number = number;
+    }
+
+    /** gets the registration order of this subscription */
+    public int order() {
+        return number;
+    }
+
+    /** sets whether this subscription never modifies any unit other than the one delivered to it */
+    public Subscription local(boolean local) {
+        this.local = local;
+        return this;
+    }
+
+    /** gets whether this subscription never modifies any unit other than the one delivered to it */
+    public boolean local() {
+        return local;
+    }
+
+    /** sets whether this is a rework subscription, as opposed to an observe subscription */
+    public Subscription rework(boolean rework) {
+        this.rework = rework;
+        return this;
+    }
+
+    /** gets whether this is a rework subscription, as opposed to an observe subscription */
+    public boolean rework() {
+        return rework;
     }
 
     public SubscriptionPhase phase() {
         return phase;
     }
 
+    /** gets the (lower-cased) name restriction for refine subscriptions, or null if there isn't one */
+    public String name() {
+        return name;
+    }
+
     public Method method() {
+        if (method == null) {
+            try {
+                method = subscriber.getClass().getMethod(methodName, params);
+            } catch (NoSuchMethodException e) {
+                throw new SubscriptionException("Unable to find the CSS Parser plugin method '" + methodName + "'", e);
+            }
+        }
         return method;
     }
 
-    /** deliver a refine subscription */
-    public void refine(Broadcastable event, Grammar grammar, Broadcaster broadcaster, ErrorManager em) {
-        if (name != null && !filter(event)) return;
+    /** records a single (profiled) invocation of this subscription */
+    public void record(long elapsed) {
+        invocations++;
+        nanos += elapsed;
+    }
+
+    /** gets a snapshot of the recorded invocations for the given event type */
+    public SubscriptionStats stats(Class<?> event) {
+        return new SubscriptionStats(subscriber.getClass(), method(), event, phase, invocations, nanos);
+    }
+
+    /** deliver a refine subscription, returns false if the subscription was filtered out for the given event */
+    public boolean refine(Broadcastable event, Grammar grammar, Broadcaster broadcaster, ErrorManager em) {
+        if (name != null && !filter(event)) return false;
+
+        if (invoker == null) {
+            throw new SubscriptionException("CSS Parser plugin 'refine' method is not accessible", inaccessible);
+        }
+        if (invoker.arity() != 3) {
+            throw new SubscriptionException("CSS Parser plugin 'refine' method does not have expected parameters (3)");
+        }
 
         try {
-            method.invoke(subscriber, event, grammar, broadcaster);
-        } catch (IllegalArgumentException e) {
-            throw new SubscriptionException("CSS Parser plugin 'refine' method does not have expected parameters (3)", e);
-        } catch (IllegalAccessException e) {
-            throw new SubscriptionException("CSS Parser plugin 'refine' method is not accessible", e);
-        } catch (InvocationTargetException e) {
-            handlePluginError(e, em, "Exception thrown from a CSS Parser plugin method during 'refine'");
+            invoker.invoke(subscriber, event, grammar, broadcaster);
+        } catch (Throwable t) {
+            handlePluginError(t, em, "Exception thrown from a CSS Parser plugin method during 'refine'");
         }
+        return true;
     }
 
     /** deliver a rework/observe subscription */
     public void process(Broadcastable event, ErrorManager em) {
+        if (invoker == null) {
+            throw new SubscriptionException("CSS Parser plugin method is not accessible", inaccessible);
+        }
+        if (invoker.arity() != 1) {
+            throw new SubscriptionException("CSS Parser plugin method does not have expected parameters (1)");
+        }
+
         try {
-            method.invoke(subscriber, event);
-        } catch (IllegalArgumentException e) {
-            throw new SubscriptionException("CSS Parser plugin method does not have expected parameters (1)", e);
-        } catch (IllegalAccessException e) {
-            throw new SubscriptionException("CSS Parser plugin method is not accessible", e);
-        } catch (InvocationTargetException e) {
-            handlePluginError(e, em, "Exception thrown from a CSS Parser plugin method");
+            invoker.invoke(subscriber, event, null, null);
+        } catch (Throwable t) {
+            handlePluginError(t, em, "Exception thrown from a CSS Parser plugin method");
         }
     }
 
     /** deliver a validate subscription */
     public void validate(Broadcastable event, ErrorManager em) {
+        if (invoker == null) {
+            throw new SubscriptionException("CSS Parser plugin 'validate' method is not accessible", inaccessible);
+        }
+        if (invoker.arity() != 2) {
+            throw new SubscriptionException("CSS Parser plugin 'validate' method does not have expected parameters (2)");
+        }
+
         try {
-            method.invoke(subscriber, event, em);
-        } catch (IllegalArgumentException e) {
-            throw new SubscriptionException("CSS Parser plugin 'validate' method does not have expected parameters (2)", e);
-        } catch (IllegalAccessException e) {
-            throw new SubscriptionException("CSS Parser plugin 'validate' method is not accessible", e);
-        } catch (InvocationTargetException e) {
-            handlePluginError(e, em, "Exception thrown from a CSS Parser plugin method during 'validate'");
+            invoker.invoke(subscriber, event, em, null);
+        } catch (Throwable t) {
+            handlePluginError(t, em, "Exception thrown from a CSS Parser plugin method during 'validate'");
         }
     }
 
@@ -119,14 +219,14 @@ final class Subscription implements Comparable<Subscription> {
      * ...Otherwise returns true.
      */
     private boolean filter(Broadcastable event) {
-        return name == null || (event instanceof Named && ((Named)event).name().toLowerCase().equals(name));
+        return name == null || (event instanceof Named && name.equalsIgnoreCase(((Named)event).name()));
     }
 
     private void handlePluginError(Throwable t, ErrorManager em, String msg) {
-        if (t.getCause() instanceof ParserException) {
-            em.report((ParserException)t.getCause());
-        } else if (t.getCause() instanceof SubscriptionException) {
-            em.report((SubscriptionException)t.getCause());
+        if (t instanceof ParserException) {
+            em.report((ParserException)t);
+        } else if (t instanceof SubscriptionException) {
+            em.report((SubscriptionException)t);
         } else {
             throw new SubscriptionException(msg, t);
         }
@@ -134,7 +234,7 @@ final class Subscription implements Comparable<Subscription> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(subscriber, method);
+        return Objects.hash(subscriber, methodName, Arrays.hashCode(params));
     }
 
     @Override
@@ -143,7 +243,7 @@ final class Subscription implements Comparable<Subscription> {
             Subscription other = (Subscription)object;
             // must be same instance of the same class (identity)
             // this keeps plugins that are registered twice only stored once in the Emitter
-            return subscriber == other.subscriber && Objects.equals(this.method, other.method);
+            return subscriber == other.subscriber && methodName.equals(other.methodName) && Arrays.equals(params, other.params);
         }
         return false;
     }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.broadcast.emitter.AnnotationScanner.SubscriptionMetadata;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The precomputed subscriptions for a fixed sequence of subscriber classes.
+ * <p>
+ * An {@link Emitter} normally scans each subscriber as it is registered and then works out the ordered subscriptions for each
+ * event type the first time that type is emitted. When the same subscriber classes are registered in the same order over and
+ * over again (e.g., once per request with the same plugin configuration), a plan allows that work to be done once and shared.
+ * See {@link Emitter#register(SubscriptionPlan, List)}.
+ * <p>
+ * Plans are immutable (aside from an internal, thread-safe cache) and can be shared between threads.
+ *
+ * @author nmcwilliams
+ */
+public final class SubscriptionPlan {
+    private final List<Class<?>> subscribers;
+
+    /** the metadata for each subscription, in registration order */
+    private final SubscriptionMetadata[] metadata;
+
+    /** the index of the subscriber for each subscription, in registration order */
+    private final int[] slots;
+
+    /**
+     * event type -> template subscriptions, only direct references as in the emitter. Template subscriptions have no subscriber
+     * instance, which also means they can't be kept in a set (templates for the same method on different classes are equal).
+     */
+    private final Map<Class<?>, List<Subscription>> templates = new HashMap<>(16);
+
+    /** event type -> expanded template subscriptions, computed the first time the event type is seen by any request */
+    private final ConcurrentMap<Class<?>, Emitter.Expanded> expanded = new ConcurrentHashMap<>(32);
+
+    private SubscriptionPlan(List<Class<?>> subscribers) {
+        this.subscribers = ImmutableList.copyOf(subscribers);
+
+        List<SubscriptionMetadata> metadata = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        for (int i = 0; i < this.subscribers.size(); i++) {
+            for (SubscriptionMetadata sm : AnnotationScanner.metadata(this.subscribers.get(i))) {
+                Subscription template = sm.subscription(null);
+                template.order(metadata.size() + 1);
+                templates.computeIfAbsent(sm.event, k -> new ArrayList<>(8)).add(template);
+                metadata.add(sm);
+                slots.add(i);
+            }
+        }
+
+        this.metadata = metadata.toArray(new SubscriptionMetadata[metadata.size()]);
+        this.slots = new int[slots.size()];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = slots.get(i);
+        }
+    }
+
+    /**
+     * Creates a plan for the given subscriber classes. The subscription methods on each class are scanned (or read from the
+     * generated {@link SubscriptionTable}) immediately.
+     *
+     * @param subscribers
+     *     The classes of the subscribers, in the order they will be registered.
+     *
+     * @return The plan.
+     */
+    public static SubscriptionPlan of(List<Class<?>> subscribers) {
+        checkNotNull(subscribers, "subscribers cannot be null");
+        return new SubscriptionPlan(subscribers);
+    }
+
+    /**
+     * Gets the subscriber classes this plan was created for, in registration order.
+     *
+     * @return The subscriber classes.
+     */
+    public List<Class<?>> subscribers() {
+        return subscribers;
+    }
+
+    /**
+     * Gets whether the given subscriber instances are of exactly the classes of this plan, in the same order.
+     *
+     * @param instances
+     *     The subscriber instances.
+     *
+     * @return True if this plan can be used to register the instances.
+     */
+    public boolean matches(List<?> instances) {
+        if (instances.size() != subscribers.size()) return false;
+        for (int i = 0; i < instances.size(); i++) {
+            if (instances.get(i).getClass() != subscribers.get(i)) return false;
+        }
+        return true;
+    }
+
+    /** creates the subscriptions for the given (matching) instances, indexed by registration order - 1 */
+    Subscription[] bind(List<?> instances) {
+        Subscription[] bound = new Subscription[metadata.length];
+        for (int i = 0; i < bound.length; i++) {
+            bound[i] = metadata[i].subscription(instances.get(slots[i]));
+            bound[i].order(i + 1);
+        }
+        return bound;
+    }
+
+    /** gets the event type of the subscription at the given index (registration order - 1) */
+    Class<?> event(int index) {
+        return metadata[index].event;
+    }
+
+    /** gets the expanded template subscriptions for the given event type */
+    Emitter.Expanded expanded(Class<?> klass) {
+        Emitter.Expanded result = expanded.get(klass);
+        return result != null ? result : expanded.computeIfAbsent(klass, k -> Emitter.expand(k, templates));
+    }
+}
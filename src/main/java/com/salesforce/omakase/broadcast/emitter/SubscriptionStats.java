@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.salesforce.omakase.util.As;
+
+import java.lang.reflect.Method;
+
+/**
+ * Snapshot of the invocation count and cumulative time of a single subscription method (e.g., one {@code @Rework} method on a
+ * plugin).
+ * <p>
+ * These are only recorded when profiling is enabled on the {@link Emitter}. Note that the time for {@link SubscriptionPhase#REFINE}
+ * subscriptions is inclusive of any nested broadcasts (and therefore other subscriptions) triggered during refinement.
+ *
+ * @author nmcwilliams
+ * @see Emitter#profile(boolean)
+ */
+public final class SubscriptionStats {
+    private final Class<?> subscriber;
+    private final Method method;
+    private final Class<?> event;
+    private final SubscriptionPhase phase;
+    private final long invocations;
+    private final long nanos;
+
+    SubscriptionStats(Class<?> subscriber, Method method, Class<?> event, SubscriptionPhase phase, long invocations, long nanos) {
+        this.subscriber = subscriber;
+        this.method = method;
+        this.event = event;
+        this.phase = phase;
+        this.invocations = invocations;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Gets the class of the subscriber (usually a plugin).
+     *
+     * @return The subscriber class.
+     */
+    public Class<?> subscriber() {
+        return subscriber;
+    }
+
+    /**
+     * Gets the subscription method.
+     *
+     * @return The subscription method.
+     */
+    public Method method() {
+        return method;
+    }
+
+    /**
+     * Gets the type of event (e.g., ClassSelector) the method is subscribed to.
+     *
+     * @return The event type.
+     */
+    public Class<?> event() {
+        return event;
+    }
+
+    /**
+     * Gets the phase of the subscription.
+     *
+     * @return The {@link SubscriptionPhase}.
+     */
+    public SubscriptionPhase phase() {
+        return phase;
+    }
+
+    /**
+     * Gets the number of times the subscription method was invoked.
+     *
+     * @return The number of invocations.
+     */
+    public long invocations() {
+        return invocations;
+    }
+
+    /**
+     * Gets the cumulative time spent in the subscription method, in nanoseconds.
+     *
+     * @return The total nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return As.string(this)
+            .add("subscriber", subscriber.getName())
+            .add("method", method.getName())
+            .add("event", event.getSimpleName())
+            .add("phase", phase)
+            .add("invocations", invocations)
+            .add("nanos", nanos)
+            .toString();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.salesforce.omakase.broadcast.processor.SubscriptionProcessor;
+import com.salesforce.omakase.plugin.Plugin;
+
+/**
+ * A table of the subscription methods on a {@link Plugin} class, generated at compile time by {@link SubscriptionProcessor}.
+ * <p>
+ * When a table exists for the exact class of a registered plugin it's used instead of scanning the class for annotated methods,
+ * and subscription methods are invoked through {@link #invoke} instead of reflection. Plugins without a table (e.g., anonymous
+ * classes, private classes, subclasses that don't declare any subscription methods themselves or classes compiled without the
+ * processor) are scanned reflectively as usual.
+ * <p>
+ * This is not intended to be implemented by hand.
+ *
+ * @author nmcwilliams
+ */
+public interface SubscriptionTable {
+    /** the suffix appended to the binary name of the plugin class to get the name of the generated table class */
+    String SUFFIX = "$$Subscriptions";
+
+    /**
+     * Describes each subscription method to the given sink.
+     *
+     * @param sink
+     *     Receives each subscription.
+     */
+    void describe(Sink sink);
+
+    /**
+     * Invokes the subscription method with the given index. Arguments beyond the arity of the method are ignored.
+     *
+     * @param index
+     *     The index of the subscription, as given to the {@link Sink}.
+     * @param subscriber
+     *     The plugin instance.
+     * @param event
+     *     The syntax unit.
+     * @param arg1
+     *     The second argument, if applicable.
+     * @param arg2
+     *     The third argument, if applicable.
+     *
+     * @throws Throwable
+     *     Anything thrown from the subscription method.
+     */
+    void invoke(int index, Object subscriber, Object event, Object arg1, Object arg2) throws Throwable;
+
+    /** receives the subscriptions from a {@link SubscriptionTable} */
+    interface Sink {
+        /**
+         * Receives a single subscription method.
+         *
+         * @param index
+         *     The index of the method within the table, for {@link SubscriptionTable#invoke}.
+         * @param phase
+         *     The phase of the subscription.
+         * @param event
+         *     The subscribed syntax type.
+         * @param name
+         *     The name restriction for refine subscriptions, or null.
+         * @param local
+         *     Whether the subscription never modifies any unit other than the one given to it (true for observe and validate,
+         *     see {@link com.salesforce.omakase.broadcast.annotation.Rework#local()}).
+         * @param rework
+         *     Whether the subscription is a {@link com.salesforce.omakase.broadcast.annotation.Rework} subscription.
+         * @param method
+         *     The name of the method.
+         * @param params
+         *     The parameter types of the method.
+         */
+        void subscription(int index, SubscriptionPhase phase, Class<?> event, String name, boolean local, boolean rework,
+            String method, Class<?>... params);
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.processor;
+
+import com.salesforce.omakase.Message;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates, at compile time, the tables otherwise built reflectively when registering plugins.
+ * <p>
+ * For each concrete plugin class declaring {@code @Observe}, {@code @Rework}, {@code @Validate} or {@code @Refine} methods, a
+ * {@code SubscriptionTable} named after the plugin's binary name plus {@code $$Subscriptions} is generated. It lists every
+ * subscription method (including inherited ones) and invokes them directly, without reflection. For each package containing
+ * {@code @Subscribable} types, a {@code SubscribableHierarchy} named {@code Subscribable$$Hierarchy} is generated.
+ * <p>
+ * Malformed subscription methods are reported as compile errors, with the same messages as the {@code SubscriptionException}s
+ * otherwise thrown at registration. Annotated methods that aren't public are ignored at runtime, so they result in a warning.
+ * <p>
+ * Classes that can't be referenced from generated code (anonymous, local or private classes) don't get a table and are still
+ * handled reflectively at runtime, as are plugin subclasses that don't declare any subscription methods themselves.
+ * <p>
+ * The processor is not registered as a service, so it never runs implicitly in projects that merely depend on this library. To
+ * generate tables for your own plugins, name it explicitly, e.g., with {@code -processor} or the {@code annotationProcessors}
+ * setting of the maven compiler plugin.
+ *
+ * @author nmcwilliams
+ */
+@SupportedAnnotationTypes({
+    SubscriptionProcessor.OBSERVE,
+    SubscriptionProcessor.REWORK,
+    SubscriptionProcessor.VALIDATE,
+    SubscriptionProcessor.REFINE,
+    SubscriptionProcessor.SUBSCRIBABLE
+})
+public final class SubscriptionProcessor extends AbstractProcessor {
+    static final String OBSERVE = "com.salesforce.omakase.broadcast.annotation.Observe";
+    static final String REWORK = "com.salesforce.omakase.broadcast.annotation.Rework";
+    static final String VALIDATE = "com.salesforce.omakase.broadcast.annotation.Validate";
+    static final String REFINE = "com.salesforce.omakase.broadcast.annotation.Refine";
+    static final String SUBSCRIBABLE = "com.salesforce.omakase.broadcast.annotation.Subscribable";
+
+    private static final String REFINABLE = "com.salesforce.omakase.ast.Refinable";
+    private static final String GRAMMAR = "com.salesforce.omakase.parser.Grammar";
+    private static final String BROADCASTER = "com.salesforce.omakase.broadcast.Broadcaster";
+    private static final String ERROR_MANAGER = "com.salesforce.omakase.error.ErrorManager";
+
+    private static final String SUBSCRIPTION_TABLE = "com.salesforce.omakase.broadcast.emitter.SubscriptionTable";
+    private static final String SUBSCRIBABLE_HIERARCHY = "com.salesforce.omakase.broadcast.emitter.SubscribableHierarchy";
+    private static final String PHASE = "com.salesforce.omakase.broadcast.emitter.SubscriptionPhase";
+
+    private static final String TABLE_SUFFIX = "$$Subscriptions";
+    private static final String HIERARCHY_NAME = "Subscribable$$Hierarchy";
+
+    /** same as skipped at runtime */
+    private static final Set<String> SKIP = new HashSet<>(Arrays.asList(
+        "wait", "equals", "hashCode", "getClass", "notify", "notifyAll", "toString", "dependencies"));
+
+    private final Set<String> generated = new HashSet<>();
+    private final Set<Element> reported = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        // plugins, i.e., classes declaring subscription methods
+        Set<TypeElement> plugins = new LinkedHashSet<>();
+        for (String annotation : Arrays.asList(OBSERVE, REWORK, VALIDATE, REFINE)) {
+            TypeElement type = processingEnv.getElementUtils().getTypeElement(annotation);
+            if (type == null) continue;
+            for (Element element : round.getElementsAnnotatedWith(type)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    plugins.add((TypeElement)element.getEnclosingElement());
+                }
+            }
+        }
+
+        for (TypeElement plugin : plugins) {
+            List<Subscription> subscriptions = subscriptions(plugin);
+            if (subscriptions != null && eligible(plugin, subscriptions)) {
+                writeTable(plugin, subscriptions);
+            }
+        }
+
+        // subscribable types, grouped by package
+        TypeElement subscribable = processingEnv.getElementUtils().getTypeElement(SUBSCRIBABLE);
+        if (subscribable != null) {
+            Map<String, List<TypeElement>> packages = new LinkedHashMap<>();
+            for (Element element : round.getElementsAnnotatedWith(subscribable)) {
+                if (element.getKind().isClass() || element.getKind().isInterface()) {
+                    TypeElement type = (TypeElement)element;
+                    packages.computeIfAbsent(packageOf(type), k -> new ArrayList<>()).add(type);
+                }
+            }
+            for (Entry<String, List<TypeElement>> entry : packages.entrySet()) {
+                writeHierarchy(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return false; // don't claim the annotations
+    }
+
+    /** gets all (public) subscriptions of the given class, or null if any of them are malformed */
+    private List<Subscription> subscriptions(TypeElement plugin) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        boolean valid = true;
+
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(plugin))) {
+            if (SKIP.contains(method.getSimpleName().toString())) continue;
+
+            Set<String> found = new LinkedHashSet<>();
+            AnnotationMirror refine = null;
+            AnnotationMirror rework = null;
+            for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+                String name = ((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+                if (name.equals(OBSERVE) || name.equals(REWORK) || name.equals(VALIDATE) || name.equals(REFINE)) {
+                    found.add(name);
+                    if (name.equals(REFINE)) refine = mirror;
+                    if (name.equals(REWORK)) rework = mirror;
+                }
+            }
+            if (found.isEmpty()) continue;
+
+            if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+                if (reported.add(method)) {
+                    warn(method, "Subscription methods must be public, this method will be ignored");
+                }
+                continue;
+            }
+
+            String error = validate(method, found);
+            if (error != null) {
+                if (reported.add(method)) {
+                    error(method, String.format(error, describe(plugin, method)));
+                }
+                valid = false;
+                continue;
+            }
+
+            String annotation = found.iterator().next();
+            String phase = annotation.equals(VALIDATE) ? "VALIDATE" : annotation.equals(REFINE) ? "REFINE" : "PROCESS";
+            String name = refine != null ? (String)value(refine, "value") : null;
+            if (name != null && name.isEmpty()) name = null;
+            boolean local = rework != null ? Boolean.TRUE.equals(value(rework, "local")) : !annotation.equals(REFINE);
+            subscriptions.add(new Subscription(method, phase, name, local, rework != null));
+        }
+
+        return valid ? subscriptions : null;
+    }
+
+    /** validates the method the same as the runtime scanner, returns the error message or null */
+    private String validate(ExecutableElement method, Set<String> found) {
+        if (found.size() > 1) return Message.ANNOTATION_EXCLUSIVE;
+
+        List<? extends VariableElement> params = method.getParameters();
+        String annotation = found.iterator().next();
+
+        switch (annotation) {
+        case OBSERVE:
+        case REWORK:
+            if (params.size() != 1) return Message.ONE_PARAM;
+            break;
+        case VALIDATE:
+            if (params.size() != 2) return Message.TWO_PARAMS;
+            if (!assignable(params.get(1).asType(), ERROR_MANAGER)) return Message.MISSING_ERROR_MANAGER;
+            break;
+        default:
+            if (params.size() != 3) return Message.THREE_PARAMS;
+            if (!assignable(params.get(0).asType(), REFINABLE)) return Message.MISSING_REFINABLE;
+            if (!assignable(params.get(1).asType(), GRAMMAR)) return Message.MISSING_GRAMMAR;
+            if (!assignable(params.get(2).asType(), BROADCASTER)) return Message.MISSING_BROADCASTER;
+            break;
+        }
+        return null;
+    }
+
+    /** whether generated code in the same package can reference the plugin and all of the types in its subscriptions */
+    private boolean eligible(TypeElement plugin, List<Subscription> subscriptions) {
+        if (plugin.getKind() != ElementKind.CLASS || plugin.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if (!accessible(plugin, packageOf(plugin))) return false;
+
+        for (Subscription subscription : subscriptions) {
+            for (VariableElement param : subscription.method.getParameters()) {
+                TypeMirror type = erasure(param.asType());
+                if (type.getKind() != TypeKind.DECLARED) return false;
+                if (!accessible((TypeElement)((DeclaredType)type).asElement(), packageOf(plugin))) return false;
+            }
+        }
+        return true;
+    }
+
+    /** whether the type can be referenced by name from a top-level class in the given package */
+    private boolean accessible(TypeElement type, String pkg) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            TypeElement element = (TypeElement)current;
+            NestingKind nesting = element.getNestingKind();
+            if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) return false;
+            if (element.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (!element.getModifiers().contains(Modifier.PUBLIC) && !packageOf(element).equals(pkg)) return false;
+            current = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void writeTable(TypeElement plugin, List<Subscription> subscriptions) {
+        String pkg = packageOf(plugin);
+        String binary = processingEnv.getElementUtils().getBinaryName(plugin).toString();
+        String simple = (pkg.isEmpty() ? binary : binary.substring(pkg.length() + 1)) + TABLE_SUFFIX;
+        if (!generated.add(qualify(pkg, simple))) return;
+
+        String pluginType = erasure(plugin.asType()).toString();
+
+        StringBuilder b = new StringBuilder(1024);
+        header(b, pkg);
+        b.append("/**\n * Subscription table for {@link ").append(pluginType).append("}.\n */\n");
+        b.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        b.append("public final class ").append(simple).append(" implements ").append(SUBSCRIPTION_TABLE).append(" {\n");
+
+        b.append("    @Override\n");
+        b.append("    public void describe(Sink sink) {\n");
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Subscription s = subscriptions.get(i);
+            List<? extends VariableElement> params = s.method.getParameters();
+            b.append("        sink.subscription(").append(i).append(", ").append(PHASE).append('.').append(s.phase).append(", ");
+            b.append(typeName(params.get(0))).append(".class, ");
+            b.append(s.name == null ? "null" : quote(s.name)).append(", ");
+            b.append(s.local).append(", ").append(s.rework).append(", ");
+            b.append(quote(s.method.getSimpleName().toString()));
+            for (VariableElement param : params) {
+                b.append(", ").append(typeName(param)).append(".class");
+            }
+            b.append(");\n");
+        }
+        b.append("    }\n\n");
+
+        b.append("    @Override\n");
+        b.append("    public void invoke(int index, Object subscriber, Object event, Object arg1, Object arg2) throws Throwable {\n");
+        b.append("        switch (index) {\n");
+        String[] args = {"event", "arg1", "arg2"};
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Subscription s = subscriptions.get(i);
+            b.append("        case ").append(i).append(":\n            ");
+            if (s.method.getModifiers().contains(Modifier.STATIC)) {
+                b.append(pluginType);
+            } else {
+                b.append("((").append(pluginType).append(")subscriber)");
+            }
+            b.append('.').append(s.method.getSimpleName()).append('(');
+            List<? extends VariableElement> params = s.method.getParameters();
+            for (int p = 0; p < params.size(); p++) {
+                if (p > 0) b.append(", ");
+                b.append("(").append(typeName(params.get(p))).append(")").append(args[p]);
+            }
+            b.append(");\n            return;\n");
+        }
+        b.append("        default:\n");
+        b.append("            throw new IllegalArgumentException(\"unknown subscription \" + index);\n");
+        b.append("        }\n");
+        b.append("    }\n");
+        b.append("}\n");
+
+        write(qualify(pkg, simple), b, plugin);
+    }
+
+    private void writeHierarchy(String pkg, List<TypeElement> types) {
+        if (!generated.add(qualify(pkg, HIERARCHY_NAME))) return; // already written in an earlier round
+
+        StringBuilder b = new StringBuilder(1024);
+        header(b, pkg);
+        b.append("/**\n * The subscribable hierarchy of each subscribable type in this package.\n */\n");
+        b.append("public final class ").append(HIERARCHY_NAME).append(" implements ").append(SUBSCRIBABLE_HIERARCHY).append(" {\n");
+        b.append("    @Override\n");
+        b.append("    public Class<?>[] hierarchy(String type) {\n");
+        b.append("        switch (type) {\n");
+
+        for (TypeElement type : types) {
+            if (!accessible(type, pkg)) continue;
+
+            List<TypeElement> hierarchy = new ArrayList<>();
+            collect(type, new HashSet<>(), hierarchy);
+
+            boolean ok = true;
+            for (TypeElement t : hierarchy) {
+                ok &= accessible(t, pkg);
+            }
+            if (!ok) continue; // resolved reflectively at runtime
+
+            b.append("        case ").append(quote(processingEnv.getElementUtils().getBinaryName(type).toString())).append(":\n");
+            b.append("            return new Class<?>[]{");
+            for (int i = 0; i < hierarchy.size(); i++) {
+                if (i > 0) b.append(", ");
+                b.append(erasure(hierarchy.get(i).asType())).append(".class");
+            }
+            b.append("};\n");
+        }
+
+        b.append("        default:\n");
+        b.append("            return null;\n");
+        b.append("        }\n");
+        b.append("    }\n");
+        b.append("}\n");
+
+        write(qualify(pkg, HIERARCHY_NAME), b, types.toArray(new Element[types.size()]));
+    }
+
+    /** adds the type and its super classes and interfaces that are directly annotated with @Subscribable */
+    private void collect(TypeElement type, Set<TypeElement> seen, List<TypeElement> hierarchy) {
+        if (!seen.add(type)) return;
+        if (annotated(type, SUBSCRIBABLE)) hierarchy.add(type);
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type.asType())) {
+            Element element = processingEnv.getTypeUtils().asElement(supertype);
+            if (element instanceof TypeElement) {
+                collect((TypeElement)element, seen, hierarchy);
+            }
+        }
+    }
+
+    private void header(StringBuilder b, String pkg) {
+        b.append("// Generated by ").append(SubscriptionProcessor.class.getName()).append(", do not edit.\n");
+        if (!pkg.isEmpty()) b.append("package ").append(pkg).append(";\n");
+        b.append('\n');
+    }
+
+    private void write(String name, StringBuilder source, Element... originating) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, originating).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + name + ": " + e.getMessage());
+        }
+    }
+
+    private boolean annotated(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) return true;
+        }
+        return false;
+    }
+
+    private boolean assignable(TypeMirror type, String target) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(target);
+        return element != null && processingEnv.getTypeUtils().isAssignable(erasure(type), erasure(element.asType()));
+    }
+
+    private TypeMirror erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    private String typeName(VariableElement param) {
+        return erasure(param.asType()).toString();
+    }
+
+    private String packageOf(Element element) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    private static String describe(TypeElement plugin, ExecutableElement method) {
+        return plugin.getQualifiedName() + "." + method;
+    }
+
+    /** gets the explicitly specified value of the given annotation element, or null if the default applies */
+    private static Object value(AnnotationMirror annotation, String element) {
+        for (Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(element)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String qualify(String pkg, String simple) {
+        return pkg.isEmpty() ? simple : pkg + "." + simple;
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private void warn(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /** data object */
+    private static final class Subscription {
+        final ExecutableElement method;
+        final String phase;
+        final String name;
+        final boolean local;
+        final boolean rework;
+
+        Subscription(ExecutableElement method, String phase, String name, boolean local, boolean rework) {
+            this.method = method;
+            this.phase = phase;
+            this.name = name;
+            this.local = local;
+            this.rework = rework;
+        }
+    }
+}
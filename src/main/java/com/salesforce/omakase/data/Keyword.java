@@ -552,16 +552,6 @@ public enum Keyword {
 
     ;
 
-    /** reverse lookup map */
-    private static final Map<String, Keyword> map;
-    static {
-        Builder<String, Keyword> builder = ImmutableMap.builder();
-        for (Keyword kw : Keyword.values()) {
-            builder.put(kw.toString(), kw);
-        }
-        map = builder.build();
-    }
-
     private final String keyword;
 
     Keyword(String keyword) {
@@ -618,6 +608,18 @@ public enum Keyword {
     * @return The matching {@link Keyword}, or null if not found.
     */
     public static Keyword lookup(String name) {
-        return map.get(name);
+        return Lookup.map.get(name);
+    }
+
+    /** reverse lookup map, in a holder class so that it is only built on the first lookup */
+    private static final class Lookup {
+        private static final Map<String, Keyword> map;
+        static {
+            Builder<String, Keyword> builder = ImmutableMap.builder();
+            for (Keyword kw : Keyword.values()) {
+                builder.put(kw.toString(), kw);
+            }
+            map = builder.build();
+        }
     }
 }
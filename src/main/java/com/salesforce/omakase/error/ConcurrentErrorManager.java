@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.error;
+
+import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
+import com.salesforce.omakase.parser.ParserException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link ErrorManager} that can be reported to from multiple threads at once, while keeping the order of the reported
+ * errors deterministic.
+ * <p>
+ * Errors are reported to another {@link ErrorManager} (e.g., a {@link DefaultErrorManager}). Errors reported directly to this
+ * instance are passed along right away (one at a time). Otherwise, each part of the work done in parallel should report to its
+ * own {@link #section(int)}, numbered in source order (e.g., the index of a top-level statement). Errors reported to a section
+ * are held until {@link #merge()} is called, at which point all sections are passed along in order of their numbers. Within a
+ * section the errors are kept in the order they were reported.
+ * <p>
+ * As long as each section is only used by one thread at a time, the end result is the same as if all of the work was done
+ * sequentially in source order.
+ *
+ * @author nmcwilliams
+ */
+public final class ConcurrentErrorManager implements ErrorManager {
+    private final ErrorManager delegate;
+    private final ConcurrentNavigableMap<Integer, Section> sections = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates a new {@link ConcurrentErrorManager}.
+     *
+     * @param delegate
+     *     Pass along errors to this {@link ErrorManager}.
+     */
+    public ConcurrentErrorManager(ErrorManager delegate) {
+        this.delegate = checkNotNull(delegate, "delegate cannot be null");
+    }
+
+    /**
+     * Gets the {@link ErrorManager} for the given section. Errors reported to the returned instance are held until {@link
+     * #merge()}. The returned instance should only be used by one thread at a time.
+     *
+     * @param number
+     *     The number of the section. Sections are merged in ascending order of their numbers.
+     *
+     * @return The {@link ErrorManager} for the section.
+     */
+    public ErrorManager section(int number) {
+        return sections.computeIfAbsent(number, n -> new Section());
+    }
+
+    /**
+     * Passes along all errors reported to the sections, in order of the section numbers, and then clears the sections.
+     * <p>
+     * This should only be called once no more errors will be reported to the sections, i.e., all parallel work is finished.
+     * Note that the delegate {@link ErrorManager} might throw an exception for some errors (e.g., {@link
+     * DefaultErrorManager#rethrow(boolean)}), in which case the remaining errors are discarded.
+     */
+    public synchronized void merge() {
+        try {
+            for (Section section : sections.values()) {
+                for (Consumer<ErrorManager> report : section.reports) {
+                    report.accept(delegate);
+                }
+            }
+        } finally {
+            sections.clear();
+        }
+    }
+
+    @Override
+    public String getSourceName() {
+        return delegate.getSourceName();
+    }
+
+    @Override
+    public synchronized void report(ErrorLevel level, Syntax cause, String message) {
+        delegate.report(level, cause, message);
+    }
+
+    @Override
+    public synchronized void report(ParserException exception) {
+        delegate.report(exception);
+    }
+
+    @Override
+    public synchronized void report(SubscriptionException exception) {
+        delegate.report(exception);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Errors reported to sections are included, even if not merged yet.
+     */
+    @Override
+    public synchronized boolean hasErrors() {
+        if (delegate.hasErrors()) return true;
+        for (Section section : sections.values()) {
+            if (!section.reports.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean autoSummarize() {
+        return delegate.autoSummarize();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Errors reported to sections are only included once merged.
+     */
+    @Override
+    public synchronized String summarize() {
+        return delegate.summarize();
+    }
+
+    /** holds the errors for a section, in reported order */
+    private final class Section implements ErrorManager {
+        private final List<Consumer<ErrorManager>> reports = new ArrayList<>();
+
+        @Override
+        public String getSourceName() {
+            return delegate.getSourceName();
+        }
+
+        @Override
+        public void report(ErrorLevel level, Syntax cause, String message) {
+            reports.add(em -> em.report(level, cause, message));
+        }
+
+        @Override
+        public void report(ParserException exception) {
+            reports.add(em -> em.report(exception));
+        }
+
+        @Override
+        public void report(SubscriptionException exception) {
+            reports.add(em -> em.report(exception));
+        }
+
+        @Override
+        public boolean hasErrors() {
+            if (!reports.isEmpty()) return true;
+            synchronized (ConcurrentErrorManager.this) {
+                return delegate.hasErrors();
+            }
+        }
+
+        @Override
+        public boolean autoSummarize() {
+            return delegate.autoSummarize();
+        }
+
+        @Override
+        public String summarize() {
+            return ConcurrentErrorManager.this.summarize();
+        }
+    }
+}
@@ -31,8 +31,6 @@ import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
 import com.salesforce.omakase.parser.ParserException;
 
-import java.lang.reflect.InvocationTargetException;
-
 /**
  * Responsible for handling errors.
  * <p>
@@ -80,10 +78,10 @@ public interface ErrorManager {
      * Reports an uncaught exception from a subscription method.
      * <p>
      * This will occur when a subscription plugin method throws an exception. This usually means there is a programming error in
-     * the plugin, e.g., an NPE. It also might mean the plugin throws an unrelated (to the parser) exception which will results in
-     * an {@link InvocationTargetException} (this should be avoided).
+     * the plugin, e.g., an NPE. It also might mean the plugin throws an unrelated (to the parser) exception (this should be
+     * avoided).
      * <p>
-     * Check the cause to find the underlying {@link InvocationTargetException}.
+     * Check the cause to find the underlying exception.
      *
      * @param exception
      *     The exception.
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.jfr;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Guard for creating the flight recorder events in this package.
+ * <p>
+ * Loading the first event class registers the event metadata with the recorder, which is expensive (hundreds of milliseconds
+ * on a cold JVM) even when nothing is recording. Callers should only create events when {@link #active()} returns true, so that
+ * the event classes aren't loaded at all unless the flight recorder is in use.
+ * <p>
+ * Whether the jdk.jfr API exists at all (it doesn't on Java 8 runtimes older than 8u262, or on runtimes built without the
+ * jdk.jfr module) is checked reflectively, once. Without it {@link #active()} is always false and nothing in jdk.jfr is ever
+ * linked.
+ * <p>
+ * Whether a recording is running is tracked with a {@link FlightRecorderListener}, registered the first time {@link #active()}
+ * is called, so that the check itself is just a volatile read. The recorder stays initialized after the last recording stops,
+ * so initialization alone isn't enough.
+ *
+ * @author nmcwilliams
+ */
+public final class Events {
+    private Events() {}
+
+    /**
+     * Gets whether a flight recording is currently running (either started on the command line or programmatically).
+     *
+     * @return True if events should be created.
+     */
+    public static boolean active() {
+        return Availability.AVAILABLE && Recorder.running();
+    }
+
+    /** holder so that the check only happens once, on first use */
+    private static final class Availability {
+        static final boolean AVAILABLE = available("jdk.jfr.FlightRecorder");
+    }
+
+    /** gets whether the given class can be found, without initializing it */
+    static boolean available(String className) {
+        try {
+            Class.forName(className, false, Events.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /** the only place jdk.jfr is referenced from, only loaded once jdk.jfr is known to be available */
+    private static final class Recorder implements FlightRecorderListener {
+        private static final boolean LISTENING = listen();
+        private static volatile boolean running;
+
+        /** the listener is notified right away if the recorder is already initialized */
+        private static boolean listen() {
+            try {
+                FlightRecorder.addListener(new Recorder());
+                return true;
+            } catch (SecurityException e) {
+                return false;
+            }
+        }
+
+        static boolean running() {
+            // without permission to listen, fall back to whether a recording has ever been started
+            return LISTENING ? running : FlightRecorder.isInitialized();
+        }
+
+        @Override
+        public void recorderInitialized(FlightRecorder recorder) {
+            update(recorder);
+        }
+
+        @Override
+        public void recordingStateChanged(Recording recording) {
+            update(FlightRecorder.getFlightRecorder());
+        }
+
+        private static void update(FlightRecorder recorder) {
+            boolean any = false;
+            for (Recording recording : recorder.getRecordings()) {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    any = true;
+                    break;
+                }
+            }
+            running = any;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.jfr;
+
+import com.salesforce.omakase.broadcast.annotation.Refine;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a single {@link Refine} subscription method invocation.
+ *
+ * @author nmcwilliams
+ */
+@Name("omakase.Refine")
+@Label("Refine")
+@Category("Omakase")
+@Description("Invocation of a @Refine subscription method")
+@StackTrace(false)
+public final class RefineEvent extends jdk.jfr.Event {
+    /** type of the unit being refined */
+    @Label("Syntax Type")
+    public String type;
+
+    /** name of the unit being refined (e.g., the at-rule or function name), if applicable */
+    @Label("Name")
+    public String name;
+
+    /** length of the raw content being refined, or -1 if the unit doesn't have any */
+    @Label("Source Length")
+    @DataAmount(DataAmount.BYTES)
+    public int sourceLength;
+
+    /** the class of the refiner */
+    @Label("Refiner")
+    public Class<?> refiner;
+
+    /** number of units broadcasted directly by the refiner */
+    @Label("Units")
+    public int units;
+}
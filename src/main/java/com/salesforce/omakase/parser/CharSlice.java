@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser;
+
+import com.salesforce.omakase.ast.RawSyntax;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * A read-only view of a range of characters within the buffer of a {@link Source}, without copying them.
+ * <p>
+ * Slices are created by {@link Source#slice(int, int)}, {@link Source#untilSlice(Token)} and {@link
+ * Source#chompEnclosedSlice(Token, Token)}, and are usually held by {@link RawSyntax}. A {@link Source} created from a slice
+ * (or from a {@link RawSyntax} holding one) shares the same buffer instead of copying the characters again. A {@link String} is
+ * only created once something asks for one with {@link #toString()}.
+ * <p>
+ * Note that a slice keeps the entire original buffer reachable for as long as the slice itself is reachable.
+ *
+ * @author nmcwilliams
+ */
+public final class CharSlice implements CharSequence {
+    private final char[] chars;
+    private final int offset;
+    private final int length;
+    private final boolean positions;
+
+    /** the materialized string, created on demand (racy but idempotent) */
+    private String string;
+
+    CharSlice(char[] chars, int offset, int length, boolean positions) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        this.positions = positions;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets whether this slice has no characters.
+     *
+     * @return True if the length is zero.
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkElementIndex(index, length);
+        return chars[offset + index];
+    }
+
+    @Override
+    public CharSlice subSequence(int start, int end) {
+        checkPositionIndexes(start, end, length);
+        if (start == 0 && end == length) return this;
+        return new CharSlice(chars, offset + start, end - start, positions);
+    }
+
+    /**
+     * Gets a slice with leading and trailing whitespace removed, in the same manner as {@link String#trim()}. The characters are
+     * not copied.
+     *
+     * @return The trimmed slice, or this slice if there is no leading or trailing whitespace.
+     */
+    public CharSlice trim() {
+        int start = offset;
+        int end = offset + length;
+
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+
+        return subSequence(start - offset, end - offset);
+    }
+
+    /** the shared buffer, for {@link Source} */
+    char[] buffer() {
+        return chars;
+    }
+
+    /** the start of this slice within the shared buffer, for {@link Source} */
+    int offset() {
+        return offset;
+    }
+
+    /** whether positions were tracked in the source this slice was taken from, for {@link Source} */
+    boolean positions() {
+        return positions;
+    }
+
+    @Override
+    public String toString() {
+        String s = string;
+        if (s == null) {
+            s = new String(chars, offset, length);
+            string = s;
+        }
+        return s;
+    }
+}
@@ -26,15 +26,24 @@
 
 package com.salesforce.omakase.parser;
 
+import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
 import com.salesforce.omakase.parser.factory.ParserFactory;
 import com.salesforce.omakase.parser.factory.StandardParserFactory;
 import com.salesforce.omakase.parser.factory.StandardTokenFactory;
 import com.salesforce.omakase.parser.factory.TokenFactory;
 
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkState;
+
 /**
  * Contains factories for grammar providers.
  * <p>
  * Use instances of this class to obtain other parsers or tokens during parsing and refinement.
+ * <p>
+ * Instances also hold reusable {@link CollectingBroadcaster}s for parsers to gather inner units with (see {@link
+ * #collector(Broadcaster, Class[])}). As such, an instance should not be used by multiple threads at the same time.
  *
  * @author nmcwilliams
  * @see TokenFactory
@@ -44,6 +53,10 @@ public final class Grammar {
     private final TokenFactory tokenFactory;
     private final ParserFactory parserFactory;
 
+    /** reusable collectors, one for each level of nested parsing */
+    private CollectingBroadcaster[] collectors = new CollectingBroadcaster[4];
+    private int collecting;
+
     /**
      * Creates a new instance using standard grammar constructs.
      */
@@ -81,4 +94,50 @@ public final class Grammar {
     public ParserFactory parser() {
         return parserFactory;
     }
+
+    /**
+     * Gets a reusable {@link CollectingBroadcaster} that collects broadcasts of the given types and relays all broadcasts to the
+     * given {@link Broadcaster}. This is mainly for parsers that need to gather the inner units they parse, e.g., the selectors
+     * and declarations of a rule, without creating new broadcasters and lists for each one.
+     * <p>
+     * The collector must be given back with {@link #release(CollectingBroadcaster)} after use, preferably in a finally block.
+     * Collectors can be nested (e.g., when a refiner parses inner statements while another collector is in use), but must be
+     * released in the reverse order.
+     *
+     * @param relay
+     *     Relay all broadcasts to this broadcaster, or null to not relay.
+     * @param types
+     *     The types to collect. This should usually be a constant, as the array is not copied.
+     *
+     * @return The collector.
+     */
+    public CollectingBroadcaster collector(Broadcaster relay, Class<?>... types) {
+        if (collecting == collectors.length) {
+            collectors = Arrays.copyOf(collectors, collecting * 2);
+        }
+
+        CollectingBroadcaster collector = collectors[collecting];
+        if (collector == null) {
+            collector = new CollectingBroadcaster();
+            collectors[collecting] = collector;
+        }
+        collecting++;
+
+        collector.collect(types);
+        if (relay != null) collector.chain(relay);
+        return collector;
+    }
+
+    /**
+     * Gives back a collector obtained from {@link #collector(Broadcaster, Class[])} so that it can be reused. The collected units
+     * will be cleared.
+     *
+     * @param collector
+     *     The collector.
+     */
+    public void release(CollectingBroadcaster collector) {
+        checkState(collecting > 0 && collectors[collecting - 1] == collector, "collectors must be released in reverse order");
+        collector.reset();
+        collecting--;
+    }
 }
@@ -35,10 +35,12 @@ import com.salesforce.omakase.parser.token.TokenEnum;
 import com.salesforce.omakase.parser.token.Tokens;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkPositionIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.salesforce.omakase.parser.token.Tokens.*;
 
 /**
@@ -46,6 +48,15 @@ import static com.salesforce.omakase.parser.token.Tokens.*;
  * <p>
  * This provides methods for navigating through the source, matching against expected {@link Token}s, and keeps track of the
  * current line and column positions.
+ * <p>
+ * Line and column positions are not updated as each character is read. Instead the start of each line is indexed in a single
+ * pass over the source the first time a position is requested, and positions are then looked up from the current index. Position
+ * tracking can be turned off entirely (see {@link #Source(CharSequence, int, int, boolean, boolean)}), in which case all line
+ * and column numbers are -1.
+ * <p>
+ * A source is a view over a range of a character buffer. Sources created from a {@link CharSlice} (or a {@link RawSyntax}
+ * holding one) share the buffer of the source the slice was taken from instead of copying it. See {@link #untilSlice(Token)}
+ * and {@link #chompEnclosedSlice(Token, Token)}.
  *
  * @author nmcwilliams
  */
@@ -53,20 +64,29 @@ public final class Source {
     /** the "null" character, this is used to represent the absence of a char value */
     public static final char NULL_CHAR = '\u0000';
 
-    /** the source to process */
+    /** the buffer containing the source to process, possibly shared with other sources */
     private final char[] chars;
 
+    /** the start of the source within the buffer */
+    private final int offset;
+
     /** cached length of the source */
     private final int length;
 
     /** current position in the source */
     private int index = 0;
 
-    /** current line in the source */
-    private int line = 1;
+    /** whether line and column positions are tracked */
+    private final boolean positions;
+
+    /** the index of the first character of each line, built on first demand */
+    private int[] lineStarts;
+
+    /** the number of lines in the source */
+    private int lines;
 
-    /** current column in the source */
-    private int column = 1;
+    /** the line (0-based) of the last position lookup, positions are usually requested on the same or next line */
+    private int lastLine;
 
     /** line from the original source from which this sub-source was derived */
     private final int anchorLine;
@@ -116,7 +136,7 @@ public final class Source {
      *     The {@link RawSyntax} containing the source.
      */
     public Source(RawSyntax raw) {
-        this(raw.content(), raw.line(), raw.column(), true);
+        this(raw.view(), raw.line(), raw.column(), true);
     }
 
     /**
@@ -130,7 +150,7 @@ public final class Source {
      *     performance reasons, to avoid extra processing that we know wouldn't be relevant.
      */
     public Source(RawSyntax raw, boolean checkInString) {
-        this(raw.content(), raw.line(), raw.column(), checkInString);
+        this(raw.view(), raw.line(), raw.column(), checkInString);
     }
 
     /**
@@ -151,6 +171,8 @@ public final class Source {
     /**
      * Creates a new instance of a {@link Source}, to be used for reading one character at a time from the given source. This will
      * use the given starting line and column.
+     * <p>
+     * If the given source is a {@link CharSlice} then its buffer is shared instead of copied.
      *
      * @param source
      *     The source to read.
@@ -163,8 +185,42 @@ public final class Source {
      *     performance reasons, to avoid extra processing that we know wouldn't be relevant.
      */
     public Source(CharSequence source, int anchorLine, int anchorColumn, boolean checkInString) {
-        this.chars = source.toString().toCharArray();
-        this.length = chars.length;
+        this(source, anchorLine, anchorColumn, checkInString, true);
+    }
+
+    /**
+     * Creates a new instance of a {@link Source}, to be used for reading one character at a time from the given source. This will
+     * use the given starting line and column.
+     * <p>
+     * If the given source is a {@link CharSlice} then its buffer is shared instead of copied. If positions were not tracked in the
+     * source the slice was taken from then they won't be tracked in this source either.
+     *
+     * @param source
+     *     The source to read.
+     * @param anchorLine
+     *     The starting line.
+     * @param anchorColumn
+     *     The starting column.
+     * @param checkInString
+     *     Whether the source should keep track of whether we are in a string or not. The main reason to specify false here is for
+     *     performance reasons, to avoid extra processing that we know wouldn't be relevant.
+     * @param trackPositions
+     *     Whether line and column positions should be tracked. If false, all line and column numbers (including those of any
+     *     syntax units parsed from this source) will be -1.
+     */
+    public Source(CharSequence source, int anchorLine, int anchorColumn, boolean checkInString, boolean trackPositions) {
+        if (source instanceof CharSlice) {
+            CharSlice slice = (CharSlice)source;
+            this.chars = slice.buffer();
+            this.offset = slice.offset();
+            this.length = slice.length();
+            this.positions = trackPositions && slice.positions();
+        } else {
+            this.chars = source.toString().toCharArray();
+            this.offset = 0;
+            this.length = chars.length;
+            this.positions = trackPositions;
+        }
         this.anchorLine = anchorLine;
         this.anchorColumn = anchorColumn;
         this.checkInString = checkInString;
@@ -194,7 +250,7 @@ public final class Source {
      * @return The current line number.
      */
     public int line() {
-        return line;
+        return positions ? lineAt(index) + 1 : -1;
     }
 
     /**
@@ -206,7 +262,9 @@ public final class Source {
      * @return The current column position.
      */
     public int column() {
-        return column;
+        if (!positions) return -1;
+        int line = lineAt(index); // must come first, this indexes the lines if necessary
+        return index - lineStarts[line] + 1;
     }
 
     /**
@@ -240,7 +298,7 @@ public final class Source {
      * @return The original line number.
      */
     public int originalLine() {
-        return anchorLine + line - 1;
+        return positions ? anchorLine + lineAt(index) : -1;
     }
 
     /**
@@ -254,7 +312,10 @@ public final class Source {
      * @return The original column number.
      */
     public int originalColumn() {
-        return (line == 1) ? anchorColumn + column - 1 : column;
+        if (!positions) return -1;
+        int line = lineAt(index);
+        int column = index - lineStarts[line] + 1;
+        return (line == 0) ? anchorColumn + column - 1 : column;
     }
 
     /**
@@ -273,7 +334,7 @@ public final class Source {
      * @return The full original source.
      */
     public String fullSource() {
-        return new String(chars);
+        return new String(chars, offset, length);
     }
 
     /**
@@ -282,7 +343,7 @@ public final class Source {
      * @return A substring of the source from the current position to the end of the source.
      */
     public String remaining() {
-        return new String(chars, index, length - index);
+        return new String(chars, offset + index, length - index);
     }
 
     /**
@@ -328,11 +389,11 @@ public final class Source {
      * @return The character at the current position, or {@link #NULL_CHAR} if at the end.
      */
     public char current() {
-        return eof() ? NULL_CHAR : chars[index];
+        return eof() ? NULL_CHAR : chars[offset + index];
     }
 
     /**
-     * Advance to the next character. This will automatically update the current line and column number as well.
+     * Advance to the next character.
      * <p>
      * The spec encourages normalizing new lines to a single line feed character, however we choose not to do this preprocessing
      * as it isn't necessary for correct parsing. However by not doing this, if the source does not use LF then the line/column
@@ -346,14 +407,6 @@ public final class Source {
         // if we are at the end then return null
         if (eof()) return NULL_CHAR;
 
-        // update line and column info
-        if (NEWLINE.matches(current())) {
-            line += 1;
-            column = 1;
-        } else {
-            column += 1;
-        }
-
         // increment index position
         index += 1;
 
@@ -407,7 +460,7 @@ public final class Source {
      * @return The character, or null if the end of the source occurs first.
      */
     public char peek(int numCharacters) {
-        return ((index + numCharacters) < length) ? chars[index + numCharacters] : NULL_CHAR;
+        return ((index + numCharacters) < length) ? chars[offset + index + numCharacters] : NULL_CHAR;
     }
 
     /**
@@ -416,7 +469,7 @@ public final class Source {
      * @return The previous character, or null if we are at the beginning.
      */
     public char peekPrevious() {
-        return (index > 0) ? chars[index - 1] : NULL_CHAR;
+        return (index > 0) ? chars[offset + index - 1] : NULL_CHAR;
     }
 
     /**
@@ -562,7 +615,19 @@ public final class Source {
      * @return A string containing all characters that were matched, excluding the character that matched the given {@link Token}.
      */
     public String until(Token token) {
-        // save the current index so we can return the matched substring
+        return untilSlice(token).toString();
+    }
+
+    /**
+     * Same as {@link #until(Token)}, except this returns a {@link CharSlice} view of the matched characters instead of copying
+     * them into a new string.
+     *
+     * @param token
+     *     The token to match.
+     * @return A slice containing all characters that were matched, excluding the character that matched the given {@link Token}.
+     */
+    public CharSlice untilSlice(Token token) {
+        // save the current index so we can return the matched range
         final int start = index;
 
         // keep track whether we are inside parenthesis
@@ -570,7 +635,7 @@ public final class Source {
 
         // continually parse until we reach the token or eof
         while (!eof()) {
-            char current = chars[index];
+            char current = chars[offset + index];
 
             if (!inString) {
                 // check for closing parenthesis
@@ -580,7 +645,7 @@ public final class Source {
                     insideParens = false;
                 } else if (!insideParens && token.matches(current) && !isEscaped()) {
                     // if unescaped then this is the matching token
-                    return new String(chars, start, index - start);
+                    return slice(start, index);
                 }
             }
 
@@ -589,8 +654,8 @@ public final class Source {
 
         }
 
-        // closing token wasn't found, so return the substring from the start to the end of the source
-        return new String(chars, start, length - start);
+        // closing token wasn't found, so return the range from the start to the end of the source
+        return slice(start, length);
     }
 
     /**
@@ -611,7 +676,7 @@ public final class Source {
             next();
         }
 
-        return new String(chars, start, index - start);
+        return new String(chars, offset + start, index - start);
     }
 
     /**
@@ -631,6 +696,20 @@ public final class Source {
      * @return All content in between the opening and closing tokens (excluding the tokens themselves).
      */
     public String chompEnclosedValue(Token openingToken, Token closingToken) {
+        return chompEnclosedSlice(openingToken, closingToken).toString();
+    }
+
+    /**
+     * Same as {@link #chompEnclosedValue(Token, Token)}, except this returns a {@link CharSlice} view of the enclosed characters
+     * instead of copying them into a new string.
+     *
+     * @param openingToken
+     *     The opening token.
+     * @param closingToken
+     *     The closing token.
+     * @return A slice of all content in between the opening and closing tokens (excluding the tokens themselves).
+     */
+    public CharSlice chompEnclosedSlice(Token openingToken, Token closingToken) {
         // the opening token is required
         expect(openingToken);
 
@@ -666,7 +745,7 @@ public final class Source {
                     // once the nesting level reaches 0 then we have found the correct closing token
                     if (level == 0) {
                         next(); // move past the closing token
-                        return new String(chars, start, index - start - 1); // - 1 so that we don't include the closing token
+                        return slice(start, index - 1); // - 1 so that we don't include the closing token
                     }
                 }
 
@@ -785,7 +864,7 @@ public final class Source {
                     inComment = false;
 
                     // grab the comment contents (+2 to skip the opening /*, -1 to skip the previous *)
-                    comment = new String(chars, start + 2, index - (start + 2) - 1);
+                    comment = new String(chars, offset + start + 2, index - (start + 2) - 1);
                 } else {
                     if (eof()) throw new ParserException(this, Message.MISSING_COMMENT_CLOSE);
                     next();
@@ -830,7 +909,7 @@ public final class Source {
 
     public Snapshot snapshot() {
         if (lastSnapshot != null && lastSnapshot.index == index) return lastSnapshot;
-        return lastSnapshot = new Snapshot(this, index, line, column, inString);
+        return lastSnapshot = new Snapshot(this, index, inString, stringToken);
     }
 
     /**
@@ -852,10 +931,10 @@ public final class Source {
         if (constantLength > (length - index)) return false;
 
         // check if the next exact number of characters match the constant
-        int offset = index;
+        int at = offset + index;
         for (int i = 0; i < constantLength; i++) {
-            if (constant.charAt(i) != chars[offset]) return false;
-            offset++;
+            if (constant.charAt(i) != chars[at]) return false;
+            at++;
         }
 
         // we have a match so move the index forward
@@ -950,9 +1029,24 @@ public final class Source {
         return Optional.empty();
     }
 
+    /**
+     * Gets a {@link CharSlice} view of the characters between the given indices of this source, without copying them. The
+     * indices are 0-based like {@link #index()}. This does not change the current position.
+     *
+     * @param start
+     *     The index of the first character, inclusive.
+     * @param end
+     *     The index after the last character, exclusive.
+     * @return The slice.
+     */
+    public CharSlice slice(int start, int end) {
+        checkPositionIndexes(start, end, length);
+        return new CharSlice(chars, offset + start, end - start, positions);
+    }
+
     @Override
     public String toString() {
-        String source = new String(chars);
+        String source = fullSource();
         return String.format("%s\u00BB%s", source.substring(0, index), source.substring(index));
     }
 
@@ -986,6 +1080,57 @@ public final class Source {
         return builder.toString();
     }
 
+    /**
+     * Gets the line (0-based) containing the given index, indexing the start of each line first if necessary.
+     *
+     * @param at
+     *     Find the line containing this index.
+     * @return The line.
+     */
+    private int lineAt(int at) {
+        if (lineStarts == null) {
+            indexLines();
+        }
+
+        // usually the same or the next line as the last lookup
+        int line = lastLine;
+        if (at >= lineStarts[line]) {
+            if (line + 1 == lines || at < lineStarts[line + 1]) return line;
+            if (line + 2 == lines || at < lineStarts[line + 2]) return lastLine = line + 1;
+        }
+
+        // otherwise binary search for the last line starting at or before the index
+        int low = 0;
+        int high = lines - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStarts[mid] <= at) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return lastLine = low;
+    }
+
+    /** records the index of the first character of each line in a single pass */
+    private void indexLines() {
+        int[] starts = new int[16];
+        int count = 1; // the first line starts at 0
+
+        for (int i = 0, end = offset + length; i + offset < end; i++) {
+            if (chars[offset + i] == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+
+        lineStarts = starts;
+        lines = count;
+    }
+
     /**
      * Updates the status about whether we are in a string.
      * <p>
@@ -1039,14 +1184,27 @@ public final class Source {
         /** the original source column. See {@link Source#originalColumn()}. */
         public final int originalColumn;
 
-        private Snapshot(Source source, int index, int line, int column, boolean inString) {
+        /** the character that opened the string at the captured index, if in a string */
+        private final Token stringToken;
+
+        private Snapshot(Source source, int index, boolean inString, Token stringToken) {
             this.source = source;
             this.index = index;
-            this.line = line;
-            this.column = column;
             this.inString = inString;
-            this.originalLine = source.originalLine();
-            this.originalColumn = source.originalColumn();
+            this.stringToken = stringToken;
+
+            if (source.positions) {
+                int line = source.lineAt(index);
+                this.line = line + 1;
+                this.column = index - source.lineStarts[line] + 1;
+                this.originalLine = source.anchorLine + line;
+                this.originalColumn = (line == 0) ? source.anchorColumn + column - 1 : column;
+            } else {
+                this.line = -1;
+                this.column = -1;
+                this.originalLine = -1;
+                this.originalColumn = -1;
+            }
         }
 
         /**
@@ -1057,9 +1215,8 @@ public final class Source {
 
         public boolean rollback() {
             source.index = index;
-            source.line = line;
-            source.column = column;
             source.inString = inString;
+            source.stringToken = stringToken;
             return false;
         }
 
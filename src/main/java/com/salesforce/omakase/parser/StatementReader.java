@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads CSS from a {@link Reader} and splits it into a series of {@link Source}s, each containing one or more complete
+ * top-level statements.
+ * <p>
+ * Characters are read into a fixed-size buffer and scanned for the end of each top-level statement (a closing brace or a
+ * semicolon that isn't nested within braces or parens, and that isn't within a string or comment). Each time the buffer has
+ * been scanned, all of the complete statements within it are returned as a new {@link Source}, and any remaining partial
+ * statement is carried over to the next fill. The buffer only grows when a single statement doesn't fit. This way the entire
+ * input is never held in memory at once, only the statements currently being parsed (and whatever the parsed syntax units
+ * retain). Any trailing content without a statement terminator, including trailing comments, is returned as the last source.
+ * <p>
+ * Each source is anchored to the line and column where it starts in the overall input, so line and column numbers of parsed
+ * syntax units and error messages are the same as when parsing the whole input as a single {@link Source}.
+ * <p>
+ * The reader is not closed. {@link IOException}s from the reader are rethrown as {@link UncheckedIOException}s.
+ *
+ * @author nmcwilliams
+ * @see StylesheetParser#parse(Iterator, Grammar, com.salesforce.omakase.broadcast.Broadcaster)
+ */
+public final class StatementReader implements Iterator<Source> {
+    private static final int CAPACITY = 8192;
+
+    private final Reader reader;
+    private final boolean positions;
+
+    private char[] buffer;
+    private int end;
+    private int scanned;
+    private int boundary;
+    private boolean eof;
+    private int length;
+    private Source next;
+
+    // scanner state, kept across fills
+    private int depth;
+    private char quote;
+    private char previous;
+    private boolean comment;
+    private boolean escaped;
+
+    // positions of the scan, the last statement boundary, and the start of the buffer
+    private int line = 1;
+    private int column = 1;
+    private int boundaryLine = 1;
+    private int boundaryColumn = 1;
+    private int anchorLine = 1;
+    private int anchorColumn = 1;
+
+    /**
+     * Creates a new {@link StatementReader} for the given reader, tracking line and column positions.
+     *
+     * @param reader
+     *     Read the CSS from this reader.
+     */
+    public StatementReader(Reader reader) {
+        this(reader, true);
+    }
+
+    /**
+     * Creates a new {@link StatementReader} for the given reader.
+     *
+     * @param reader
+     *     Read the CSS from this reader.
+     * @param trackPositions
+     *     Whether line and column positions should be tracked in each {@link Source}. See {@link Source#Source(CharSequence,
+     *     int, int, boolean, boolean)}.
+     */
+    public StatementReader(Reader reader, boolean trackPositions) {
+        this(reader, trackPositions, CAPACITY);
+    }
+
+    /** allows for a custom initial capacity, mainly for testing */
+    StatementReader(Reader reader, boolean trackPositions, int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        this.reader = checkNotNull(reader, "reader cannot be null");
+        this.positions = trackPositions;
+        this.buffer = new char[capacity];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Source next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Source source = next;
+        next = null;
+        return source;
+    }
+
+    /**
+     * Gets the total number of characters in all of the {@link Source}s returned so far. Once all sources have been read this is
+     * the length of the entire input.
+     *
+     * @return The number of characters read.
+     */
+    public int length() {
+        return length;
+    }
+
+    /** reads until the buffer contains at least one complete statement, or until the end of the input */
+    private Source read() {
+        while (true) {
+            scan();
+            if (boundary > 0) return emit(boundary, boundaryLine, boundaryColumn);
+            if (eof) return end > 0 ? emit(end, line, column) : null;
+            if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            fill();
+        }
+    }
+
+    /** reads from the reader until the buffer is full or there is nothing left */
+    private void fill() {
+        try {
+            while (end < buffer.length) {
+                int count = reader.read(buffer, end, buffer.length - end);
+                if (count < 0) {
+                    eof = true;
+                    return;
+                }
+                end += count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** scans the unscanned characters in the buffer, recording the end of the last complete top-level statement */
+    private void scan() {
+        for (; scanned < end; scanned++) {
+            char c = buffer[scanned];
+
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+
+            if (escaped) {
+                escaped = false;
+                c = Source.NULL_CHAR;
+            } else if (comment) {
+                if (c == '/' && previous == '*') {
+                    comment = false;
+                    c = Source.NULL_CHAR;
+                }
+            } else if (quote != Source.NULL_CHAR) {
+                if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = Source.NULL_CHAR;
+                }
+            } else {
+                switch (c) {
+                case '\\':
+                    escaped = true;
+                    break;
+                case '"':
+                case '\'':
+                    quote = c;
+                    break;
+                case '*':
+                    if (previous == '/') {
+                        comment = true;
+                        c = Source.NULL_CHAR;
+                    }
+                    break;
+                case '{':
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case '}':
+                    if (--depth <= 0) mark();
+                    break;
+                case ';':
+                    if (depth <= 0) mark();
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            previous = c;
+        }
+    }
+
+    /** marks the character currently being scanned as the end of a top-level statement */
+    private void mark() {
+        depth = 0;
+        boundary = scanned + 1;
+        boundaryLine = line;
+        boundaryColumn = column;
+    }
+
+    /** creates a source from the given number of characters at the start of the buffer, then removes them from the buffer */
+    private Source emit(int count, int nextLine, int nextColumn) {
+        // copied to an exactly sized array, as the parsed syntax units may keep it reachable through their raw content
+        CharSlice slice = new CharSlice(Arrays.copyOf(buffer, count), 0, count, positions);
+        Source source = new Source(slice, anchorLine, anchorColumn, true, positions);
+
+        System.arraycopy(buffer, count, buffer, 0, end - count);
+        end -= count;
+        scanned -= count;
+        boundary = 0;
+
+        anchorLine = nextLine;
+        anchorColumn = nextColumn;
+        length += count;
+        return source;
+    }
+}
@@ -26,12 +26,18 @@
 
 package com.salesforce.omakase.parser;
 
+import com.google.common.collect.Iterators;
 import com.salesforce.omakase.Message;
 import com.salesforce.omakase.ast.Statement;
 import com.salesforce.omakase.ast.Stylesheet;
 import com.salesforce.omakase.broadcast.Broadcaster;
-import com.salesforce.omakase.broadcast.InterestBroadcaster;
-import com.salesforce.omakase.broadcast.TypeInterestBroadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
+import com.salesforce.omakase.jfr.Events;
+import com.salesforce.omakase.jfr.ParseEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Parses a top-level {@link Stylesheet}.
@@ -40,35 +46,76 @@ import com.salesforce.omakase.broadcast.TypeInterestBroadcaster;
  * @see Stylesheet
  */
 public final class StylesheetParser implements Parser {
+    private static final Class<?>[] COLLECT = {Statement.class};
 
     @Override
     public boolean parse(Source source, Grammar grammar, Broadcaster broadcaster) {
+        return parse(Iterators.singletonIterator(source), grammar, broadcaster);
+    }
+
+    /**
+     * Parses a {@link Stylesheet} from a series of sources, each containing zero or more complete top-level statements, such
+     * as those returned by a {@link StatementReader}. The statements from all of the sources are parsed in order into a single
+     * {@link Stylesheet}. Each source is only referenced while it is being parsed.
+     *
+     * @param sources
+     *     The sources, in order.
+     * @param grammar
+     *     The current {@link Grammar} instance.
+     * @param broadcaster
+     *     The {@link Broadcaster} to use for broadcasting any parsed syntax units.
+     *
+     * @return Always true.
+     */
+    public boolean parse(Iterator<Source> sources, Grammar grammar, Broadcaster broadcaster) {
+        ParseEvent event = Events.active() ? new ParseEvent() : null;
+        if (event != null) event.begin();
+
         // parse all statements
         Parser statement = grammar.parser().statementParser();
 
-        InterestBroadcaster<Statement> interest = TypeInterestBroadcaster.of(Statement.class);
-        interest.chain(broadcaster);
+        CollectingBroadcaster collector = grammar.collector(broadcaster, COLLECT);
+        List<String> orphaned = new ArrayList<>();
+        int length = 0;
+        Stylesheet stylesheet;
 
-        while (true) {
-            if (!statement.parse(source, grammar, interest)) break;
-        }
+        try {
+            while (sources.hasNext()) {
+                Source source = sources.next();
 
-        // collect any orphaned comments and move past trailing space
-        source.collectComments();
+                while (true) {
+                    if (!statement.parse(source, grammar, collector)) break;
+                }
 
-        // after all rules and content is parsed, there should be nothing left in the source
-        if (!source.eof()) throw new ParserException(source, Message.EXTRANEOUS, source.remaining());
+                // collect any orphaned comments and move past trailing space
+                source.collectComments();
 
-        // create the stylesheet
-        Stylesheet stylesheet = new Stylesheet();
+                // after all rules and content is parsed, there should be nothing left in the source
+                if (!source.eof()) throw new ParserException(source, Message.EXTRANEOUS, source.remaining());
 
-        // append all parsed statements
-        stylesheet.statements().appendAll(interest.gather());
+                // orphaned at end of the stylesheet comments, e.g., ".class{color:red} /*orphaned*/"
+                orphaned.addAll(source.flushComments());
+                length += source.length();
+            }
 
-        // orphaned at end of the stylesheet comments, e.g., ".class{color:red} /*orphaned*/"
-        stylesheet.orphanedComments(source.collectComments().flushComments());
+            // create the stylesheet
+            stylesheet = new Stylesheet();
+
+            // append all parsed statements
+            stylesheet.statements().appendAll(collector.collected(Statement.class));
+        } finally {
+            grammar.release(collector);
+        }
+
+        stylesheet.orphanedComments(orphaned);
 
         broadcaster.broadcast(stylesheet);
+
+        if (event != null && event.shouldCommit()) {
+            event.sourceLength = length;
+            event.statements = stylesheet.statements().size();
+            event.commit();
+        }
         return true;
     }
 
@@ -33,6 +33,7 @@ import com.salesforce.omakase.ast.atrule.AtRuleBlock;
 import com.salesforce.omakase.ast.atrule.AtRuleExpression;
 import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.ConsumingBroadcaster;
+import com.salesforce.omakase.parser.CharSlice;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
 import com.salesforce.omakase.parser.ParserException;
@@ -72,7 +73,7 @@ public final class AtRuleParser implements Parser {
         // read everything up until the end of the at-rule expression (usually a semicolon or open bracket).
         int line = source.originalLine();
         int column = source.originalColumn();
-        String content = source.until(tf.atRuleExpressionEnd()).trim();
+        CharSlice content = source.untilSlice(tf.atRuleExpressionEnd()).trim();
         RawSyntax expression = content.isEmpty() ? null : new RawSyntax(line, column, content);
 
         // skip whitespace after the expression
@@ -85,7 +86,7 @@ public final class AtRuleParser implements Parser {
         if (!source.optionallyPresent(tf.atRuleTermination()) && tf.atRuleBlockBegin().matches(source.current())) {
             line = source.originalLine();
             column = source.originalColumn();
-            content = source.chompEnclosedValue(tf.atRuleBlockBegin(), tf.atRuleBlockEnd()).trim();
+            content = source.chompEnclosedSlice(tf.atRuleBlockBegin(), tf.atRuleBlockEnd()).trim();
             block = content.isEmpty() ? null : new RawSyntax(line, column, content);
         }
 
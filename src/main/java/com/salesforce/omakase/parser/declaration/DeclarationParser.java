@@ -32,6 +32,7 @@ import com.salesforce.omakase.ast.declaration.Declaration;
 import com.salesforce.omakase.ast.declaration.PropertyValue;
 import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.ConsumingBroadcaster;
+import com.salesforce.omakase.parser.CharSlice;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
 import com.salesforce.omakase.parser.Source;
@@ -74,8 +75,8 @@ public final class DeclarationParser implements Parser {
         //read the property value
         line = source.originalLine();
         column = source.originalColumn();
-        content = source.until(grammar.token().declarationEnd());
-        RawSyntax value = new RawSyntax(line, column, content.trim());
+        CharSlice valueContent = source.untilSlice(grammar.token().declarationEnd());
+        RawSyntax value = new RawSyntax(line, column, valueContent.trim());
 
         // create the new declaration and associate comments
         Declaration declaration = new Declaration(property, value);
@@ -31,7 +31,7 @@ import com.salesforce.omakase.ast.Status;
 import com.salesforce.omakase.ast.declaration.GenericFunctionValue;
 import com.salesforce.omakase.ast.declaration.PropertyValueMember;
 import com.salesforce.omakase.broadcast.Broadcaster;
-import com.salesforce.omakase.broadcast.SingleInterestBroadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
 import com.salesforce.omakase.parser.Source;
@@ -50,6 +50,7 @@ import java.util.Optional;
  * @see GenericFunctionValue
  */
 public final class FunctionValueParser implements Parser {
+    private static final Class<?>[] MEMBERS = {PropertyValueMember.class};
 
     @Override
     public boolean parse(Source source, Grammar grammar, Broadcaster broadcaster) {
@@ -75,10 +76,17 @@ public final class FunctionValueParser implements Parser {
         raw.comments(source.flushComments());
 
         // broadcast it
-        SingleInterestBroadcaster<PropertyValueMember> interest = SingleInterestBroadcaster.of(PropertyValueMember.class);
-        broadcaster.chainBroadcast(raw, interest);
+        CollectingBroadcaster collector = grammar.collector(null, MEMBERS);
+        boolean handled;
 
-        if (interest.one().isPresent()) {
+        try {
+            broadcaster.chainBroadcast(raw, collector);
+            handled = !collector.collected(PropertyValueMember.class).isEmpty();
+        } finally {
+            grammar.release(collector);
+        }
+
+        if (handled) {
             // a refiner handled it, change status to bypass subsequent refiners
             raw.status(Status.PARSED);
         } else {
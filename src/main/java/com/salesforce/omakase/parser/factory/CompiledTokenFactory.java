@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser.factory;
+
+import com.salesforce.omakase.parser.token.TableToken;
+import com.salesforce.omakase.parser.token.Token;
+
+import java.util.Optional;
+
+/**
+ * A {@link TokenFactory} that retrieves each {@link Token} from another factory once, compiling it into a lookup table with
+ * {@link TableToken#of(Token)}.
+ * <p>
+ * Custom factories commonly combine tokens (e.g., with {@link Token#or(Token)}) every time a method is called. Wrapping a custom
+ * factory with this ensures that only happens once and that custom tokens get the same table-driven matching as the standard
+ * ones. This is opt-in: return the wrapped factory from your plugin instead of your own. Only do so if each method of the
+ * wrapped factory always returns an equivalent token, and each token's {@link Token#matches(char)} depends only on the given
+ * character, since the tokens are retrieved and compiled once. Note that parsers then get this instance from {@link
+ * com.salesforce.omakase.parser.Grammar#token()}, not the wrapped factory.
+ *
+ * @author nmcwilliams
+ */
+public final class CompiledTokenFactory implements TokenFactory {
+    private final Token atRuleExpressionEnd;
+    private final Token atRuleTermination;
+    private final Token atRuleBlockBegin;
+    private final Token atRuleBlockEnd;
+    private final Token selectorBegin;
+    private final Token selectorDelimiter;
+    private final Token selectorEnd;
+    private final Token declarationBlockBegin;
+    private final Token declarationBlockEnd;
+    private final Token declarationDelimiter;
+    private final Token declarationEnd;
+    private final Token propertyNameEnd;
+    private final Optional<Token> specialDeclarationBegin;
+
+    private CompiledTokenFactory(TokenFactory factory) {
+        this.atRuleExpressionEnd = TableToken.of(factory.atRuleExpressionEnd());
+        this.atRuleTermination = TableToken.of(factory.atRuleTermination());
+        this.atRuleBlockBegin = TableToken.of(factory.atRuleBlockBegin());
+        this.atRuleBlockEnd = TableToken.of(factory.atRuleBlockEnd());
+        this.selectorBegin = TableToken.of(factory.selectorBegin());
+        this.selectorDelimiter = TableToken.of(factory.selectorDelimiter());
+        this.selectorEnd = TableToken.of(factory.selectorEnd());
+        this.declarationBlockBegin = TableToken.of(factory.declarationBlockBegin());
+        this.declarationBlockEnd = TableToken.of(factory.declarationBlockEnd());
+        this.declarationDelimiter = TableToken.of(factory.declarationDelimiter());
+        this.declarationEnd = TableToken.of(factory.declarationEnd());
+        this.propertyNameEnd = TableToken.of(factory.propertyNameEnd());
+        this.specialDeclarationBegin = factory.specialDeclarationBegin().map(TableToken::of);
+    }
+
+    /**
+     * Compiles the tokens from the given factory, unless it is the {@link StandardTokenFactory} (which doesn't need it) or is
+     * already compiled.
+     *
+     * @param factory
+     *     The factory to compile.
+     *
+     * @return The compiled factory, or the same factory if no compilation is needed.
+     */
+    public static TokenFactory of(TokenFactory factory) {
+        if (factory instanceof StandardTokenFactory || factory instanceof CompiledTokenFactory) return factory;
+        return new CompiledTokenFactory(factory);
+    }
+
+    @Override
+    public Token atRuleExpressionEnd() {
+        return atRuleExpressionEnd;
+    }
+
+    @Override
+    public Token atRuleTermination() {
+        return atRuleTermination;
+    }
+
+    @Override
+    public Token atRuleBlockBegin() {
+        return atRuleBlockBegin;
+    }
+
+    @Override
+    public Token atRuleBlockEnd() {
+        return atRuleBlockEnd;
+    }
+
+    @Override
+    public Token selectorBegin() {
+        return selectorBegin;
+    }
+
+    @Override
+    public Token selectorDelimiter() {
+        return selectorDelimiter;
+    }
+
+    @Override
+    public Token selectorEnd() {
+        return selectorEnd;
+    }
+
+    @Override
+    public Token declarationBlockBegin() {
+        return declarationBlockBegin;
+    }
+
+    @Override
+    public Token declarationBlockEnd() {
+        return declarationBlockEnd;
+    }
+
+    @Override
+    public Token declarationDelimiter() {
+        return declarationDelimiter;
+    }
+
+    @Override
+    public Token declarationEnd() {
+        return declarationEnd;
+    }
+
+    @Override
+    public Token propertyNameEnd() {
+        return propertyNameEnd;
+    }
+
+    @Override
+    public Optional<Token> specialDeclarationBegin() {
+        return specialDeclarationBegin;
+    }
+}
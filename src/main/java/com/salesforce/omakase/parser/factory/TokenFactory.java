@@ -42,7 +42,10 @@ import java.util.Optional;
  * Implementations can dictate a highly-customized structure that allows for various grammar constructs. One example would be
  * switching from normal bracket and colon delimiters to newline and whitespace characters.
  * <p>
- * Custom token factories will usually extends from {@link BaseTokenFactory}.
+ * Custom token factories will usually extends from {@link BaseTokenFactory}. A custom factory can optionally be wrapped with
+ * {@link CompiledTokenFactory#of(TokenFactory)} before it is registered, so that its tokens are retrieved once per parsing
+ * operation and matched with lookup tables, like the standard tokens. That is only valid if each method always returns an
+ * equivalent token, and each token's {@link Token#matches(char)} depends only on the given character.
  *
  * @author nmcwilliams
  */
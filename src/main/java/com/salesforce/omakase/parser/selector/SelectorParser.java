@@ -31,6 +31,7 @@ import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.ast.selector.SelectorPart;
 import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.ConsumingBroadcaster;
+import com.salesforce.omakase.parser.CharSlice;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
 import com.salesforce.omakase.parser.Source;
@@ -54,7 +55,7 @@ public final class SelectorParser implements Parser {
         int column = source.originalColumn();
 
         // grab everything until the end of the selector
-        String content = source.until(grammar.token().selectorEnd());
+        CharSlice content = source.untilSlice(grammar.token().selectorEnd());
         RawSyntax raw = new RawSyntax(line, column, content.trim());
 
         // create selector and associate comments
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser.token;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An immutable set of ASCII characters, stored as two 64-bit words. Used to compile {@link Token}s into lookup tables.
+ * <p>
+ * Tokens store the two words in their own fields and check membership inline (see {@link Tokens#matches(char)}), this class is
+ * only used to build them.
+ *
+ * @author nmcwilliams
+ */
+final class AsciiSet {
+    /** the number of characters covered by the table */
+    static final int SIZE = 128;
+
+    private static final AsciiSet NONE = new AsciiSet(0L, 0L);
+
+    /** bits for characters 0-63 */
+    final long low;
+
+    /** bits for characters 64-127 */
+    final long high;
+
+    private AsciiSet(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /** a set of no characters */
+    static AsciiSet none() {
+        return NONE;
+    }
+
+    /** a set of the characters with the given bits */
+    static AsciiSet of(long low, long high) {
+        return new AsciiSet(low, high);
+    }
+
+    /** a set of the single given character */
+    static AsciiSet is(char c) {
+        return NONE.with(c);
+    }
+
+    /** a set of each of the given characters */
+    static AsciiSet anyOf(String chars) {
+        AsciiSet set = NONE;
+        for (int i = 0; i < chars.length(); i++) {
+            set = set.with(chars.charAt(i));
+        }
+        return set;
+    }
+
+    /** a set of the characters from the given start to the given end, both inclusive */
+    static AsciiSet inRange(char start, char end) {
+        AsciiSet set = NONE;
+        for (char c = start; c <= end; c++) {
+            set = set.with(c);
+        }
+        return set;
+    }
+
+    /** a set of the ASCII characters that the given token matches */
+    static AsciiSet of(Token token) {
+        if (token instanceof Tokens) return ((Tokens)token).ascii();
+
+        long low = 0L;
+        long high = 0L;
+        for (char c = 0; c < SIZE; c++) {
+            if (token.matches(c)) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << c;
+                }
+            }
+        }
+        return new AsciiSet(low, high);
+    }
+
+    /** whether the given token is known to never match a character outside of the ASCII range */
+    static boolean isAsciiOnly(Token token) {
+        if (token instanceof Tokens) return true;
+        if (token instanceof SimpleToken) return ((SimpleToken)token).isAscii();
+        if (token instanceof CompoundToken) return ((CompoundToken)token).isAsciiOnly();
+        if (token instanceof TableToken) return ((TableToken)token).isAsciiOnly();
+        return false;
+    }
+
+    /** a copy of this set with the given character added */
+    AsciiSet with(char c) {
+        checkArgument(c < SIZE, "not an ASCII character: %s", (int)c);
+        return c < 64 ? new AsciiSet(low | 1L << c, high) : new AsciiSet(low, high | 1L << c);
+    }
+
+    /** a copy of this set with the given character removed */
+    AsciiSet without(char c) {
+        checkArgument(c < SIZE, "not an ASCII character: %s", (int)c);
+        return c < 64 ? new AsciiSet(low & ~(1L << c), high) : new AsciiSet(low, high & ~(1L << c));
+    }
+
+    /** the union of this set and the given one */
+    AsciiSet or(AsciiSet other) {
+        return new AsciiSet(low | other.low, high | other.high);
+    }
+
+    /** whether this set contains the given character. Note that the shift distance is implicitly masked to the low 6 bits */
+    boolean contains(char c) {
+        return c < SIZE && ((c < 64 ? low : high) >>> c & 1L) != 0;
+    }
+}
@@ -31,6 +31,10 @@ import com.salesforce.omakase.util.As;
 
 /**
  * A combination matcher that does an OR comparison of two {@link Token}s.
+ * <p>
+ * The combination is compiled into a lookup table for the ASCII range when constructed, so matching doesn't have to go
+ * through each combined {@link Token} in turn. Characters outside of that range are only checked against the combined tokens
+ * if either of them might match one.
  *
  * @author nmcwilliams
  */
@@ -38,6 +42,9 @@ public final class CompoundToken implements Token {
     private final String description;
     private final Token first;
     private final Token second;
+    private final long low;
+    private final long high;
+    private final boolean asciiOnly;
 
     /**
      * Constructs a new {@link CompoundToken} for doing OR character comparisons. The descriptions of each will be combined.
@@ -51,6 +58,11 @@ public final class CompoundToken implements Token {
         this.first = first;
         this.second = second;
         this.description = first.description() + " OR " + second.description();
+
+        AsciiSet ascii = AsciiSet.of(first).or(AsciiSet.of(second)).without(Source.NULL_CHAR);
+        this.low = ascii.low;
+        this.high = ascii.high;
+        this.asciiOnly = AsciiSet.isAsciiOnly(first) && AsciiSet.isAsciiOnly(second);
     }
 
     @Override
@@ -60,8 +72,8 @@ public final class CompoundToken implements Token {
 
     @Override
     public boolean matches(char c) {
-        if (c == Source.NULL_CHAR) return false;
-        return first.matches(c) || second.matches(c);
+        if (c < AsciiSet.SIZE) return ((c < 64 ? low : high) >>> c & 1L) != 0;
+        return !asciiOnly && (first.matches(c) || second.matches(c));
     }
 
     @Override
@@ -69,6 +81,11 @@ public final class CompoundToken implements Token {
         return new CompoundToken(this, other);
     }
 
+    /** whether this token never matches a character outside of the ASCII range */
+    boolean isAsciiOnly() {
+        return asciiOnly;
+    }
+
     @Override
     public String toString() {
         return As.string(this).add("description", description).toString();
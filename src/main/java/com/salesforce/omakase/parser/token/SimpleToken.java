@@ -75,4 +75,9 @@ public final class SimpleToken implements Token {
     public Token or(Token other) {
         return new CompoundToken(this, other);
     }
+
+    /** whether the character is within the ASCII range */
+    boolean isAscii() {
+        return token < AsciiSet.SIZE;
+    }
 }
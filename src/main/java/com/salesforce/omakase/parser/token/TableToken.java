@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser.token;
+
+import com.salesforce.omakase.parser.factory.TokenFactory;
+import com.salesforce.omakase.util.As;
+
+/**
+ * A {@link Token} compiled into a lookup table for the ASCII range, delegating to the original {@link Token} only for
+ * characters outside of that range.
+ * <p>
+ * {@link Tokens}, {@link SimpleToken}s and {@link CompoundToken}s are already table-driven. This is for custom {@link Token}
+ * implementations, which are otherwise checked with a virtual call for every character scanned. Tokens from a custom {@link
+ * TokenFactory} are compiled automatically.
+ *
+ * @author nmcwilliams
+ */
+public final class TableToken implements Token {
+    private final long low;
+    private final long high;
+    private final Token original;
+    private final boolean asciiOnly;
+
+    private TableToken(Token original) {
+        AsciiSet ascii = AsciiSet.of(original);
+        this.low = ascii.low;
+        this.high = ascii.high;
+        this.original = original;
+        this.asciiOnly = AsciiSet.isAsciiOnly(original);
+    }
+
+    /**
+     * Compiles the given {@link Token} into a lookup table, unless it is already table-driven.
+     * <p>
+     * The given token must always give the same result for the same character.
+     *
+     * @param token
+     *     The token to compile.
+     *
+     * @return The compiled token, or the same token if it is already table-driven.
+     */
+    public static Token of(Token token) {
+        if (token instanceof Tokens || token instanceof SimpleToken || token instanceof CompoundToken
+            || token instanceof TableToken) {
+            return token;
+        }
+        return new TableToken(token);
+    }
+
+    @Override
+    public boolean matches(char c) {
+        if (c < AsciiSet.SIZE) return ((c < 64 ? low : high) >>> c & 1L) != 0;
+        return !asciiOnly && original.matches(c);
+    }
+
+    @Override
+    public String description() {
+        return original.description();
+    }
+
+    @Override
+    public Token or(Token other) {
+        return new CompoundToken(this, other);
+    }
+
+    /** whether this token never matches a character outside of the ASCII range */
+    boolean isAsciiOnly() {
+        return asciiOnly;
+    }
+
+    @Override
+    public String toString() {
+        return As.string(this).add("original", original).toString();
+    }
+}
@@ -26,13 +26,13 @@
 
 package com.salesforce.omakase.parser.token;
 
-import com.google.common.base.CharMatcher;
-import com.salesforce.omakase.parser.Source;
-
-import static com.google.common.base.CharMatcher.*;
+import static com.salesforce.omakase.parser.token.AsciiSet.*;
 
 /**
  * List of {@link Token}s.
+ * <p>
+ * Each token is a lookup table for the ASCII range, so matching a character is a bounds check and a bit test. None of these
+ * tokens match characters outside of the ASCII range or {@link com.salesforce.omakase.parser.Source#NULL_CHAR}.
  *
  * @author nmcwilliams
  */
@@ -136,10 +136,10 @@ public enum Tokens implements Token {
     /** hexidecimal number */
     HEXIDECIMAL(inRange('0', '9').or(inRange('a', 'f').or(inRange('A', 'F'))), "hexidecimal number [a-fA-F0-9]"),
 
-    /** first allowed character in a css ident/name (ordered based on likelihood of occurrence) */
+    /** first allowed character in a css ident/name */
     NMSTART(inRange('a', 'z').or(inRange('A', 'Z').or(is('_'))), "valid first identifier character (no digits)"),
 
-    /** subsequent allowed characters in a css ident/name (ordered based on likelihood of occurrence) */
+    /** subsequent allowed characters in a css ident/name */
     NMCHAR(inRange('a', 'z').or(is('-')).or(inRange('A', 'Z')).or(is('_')).or(inRange('0', '9')),
         "valid identifier character"),
 
@@ -147,31 +147,26 @@ public enum Tokens implements Token {
     HYPHEN_OR_DIGIT(is('-').or(inRange('0', '9')), "hyphen or digit"),
 
     /** a token that never matches */
-    NEVER_MATCH(forPredicate(c -> false), "a token that never matches");
+    NEVER_MATCH(none(), "a token that never matches");
 
-    private final char singleChar;
-    private final boolean isSingleChar;
-    private final CharMatcher matcher;
+    private final long low;
+    private final long high;
     private final String description;
 
-    Tokens(CharMatcher matcher, String description) {
-        this.isSingleChar = false;
-        this.singleChar = Source.NULL_CHAR;
-        this.matcher = matcher.precomputed();
+    Tokens(AsciiSet ascii, String description) {
+        this.low = ascii.low;
+        this.high = ascii.high;
         this.description = description;
     }
 
     Tokens(char singleChar, String description) {
-        this.isSingleChar = true;
-        this.singleChar = singleChar;
-        this.matcher = null;
-        this.description = description;
+        this(is(singleChar), description);
     }
 
     @Override
     public boolean matches(char c) {
-        if (isSingleChar) return (singleChar - c) == 0;
-        return c != Source.NULL_CHAR && matcher.matches(c);
+        // the shift distance is implicitly masked to the low 6 bits, so this picks the right bit from either word
+        return c < SIZE && ((c < 64 ? low : high) >>> c & 1L) != 0;
     }
 
     @Override
@@ -183,4 +178,9 @@ public enum Tokens implements Token {
     public Token or(Token other) {
         return new CompoundToken(this, other);
     }
+
+    /** the characters matched by this token */
+    AsciiSet ascii() {
+        return AsciiSet.of(low, high);
+    }
 }
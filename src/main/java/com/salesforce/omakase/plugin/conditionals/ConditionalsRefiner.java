@@ -33,7 +33,7 @@ import com.salesforce.omakase.ast.atrule.AtRule;
 import com.salesforce.omakase.ast.extended.Conditional;
 import com.salesforce.omakase.ast.extended.ConditionalAtRuleBlock;
 import com.salesforce.omakase.broadcast.Broadcaster;
-import com.salesforce.omakase.broadcast.QueryableBroadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
 import com.salesforce.omakase.broadcast.annotation.Refine;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
@@ -54,6 +54,8 @@ import java.util.Optional;
  * @see Conditionals
  */
 public final class ConditionalsRefiner implements Plugin {
+    private static final Class<?>[] STATEMENTS = {Statement.class};
+
     private final ConditionalsConfig config;
 
     /**
@@ -94,7 +96,7 @@ public final class ConditionalsRefiner implements Plugin {
         List<Conditional> conditionals = new ArrayList<>(3); // if changing from a list check unit tests
 
         RawSyntax rawExpression = atRule.rawExpression().get();
-        Source source = new Source(rawExpression.content(), rawExpression.line(), rawExpression.column(), false);
+        Source source = new Source(rawExpression, false);
 
         source.expect(Tokens.OPEN_PAREN);
         source.skipWhitepace();
@@ -127,23 +129,30 @@ public final class ConditionalsRefiner implements Plugin {
 
         // setup stuff for parsing inner statements
         source = new Source(atRule.rawBlock().get());
-        QueryableBroadcaster queryable = new QueryableBroadcaster(broadcaster);
-
-        // parse the inner statements
-        Parser rule = grammar.parser().ruleParser();
-        while (!source.eof()) {
-            boolean matched = rule.parse(source, grammar, queryable);
-            source.skipWhitepace();
-
-            // after parsing there should be nothing left in the source
-            if (!matched && !source.eof()) {
-                throw new ParserException(source, Message.UNPARSABLE_CONDITIONAL_CONTENT, source.remaining());
+        CollectingBroadcaster collector = grammar.collector(broadcaster, STATEMENTS);
+        ConditionalAtRuleBlock block;
+
+        try {
+            // parse the inner statements
+            Parser rule = grammar.parser().ruleParser();
+            while (!source.eof()) {
+                boolean matched = rule.parse(source, grammar, collector);
+                source.skipWhitepace();
+
+                // after parsing there should be nothing left in the source
+                if (!matched && !source.eof()) {
+                    throw new ParserException(source, Message.UNPARSABLE_CONDITIONAL_CONTENT, source.remaining());
+                }
             }
+
+            // create the new conditional node
+            block = new ConditionalAtRuleBlock(atRule.line(), atRule.column(), conditionals,
+                collector.collected(Statement.class), config);
+        } finally {
+            grammar.release(collector);
         }
 
-        // create the new conditional node and broadcast it
-        ConditionalAtRuleBlock block = new ConditionalAtRuleBlock(atRule.line(), atRule.column(), conditionals,
-            queryable.filter(Statement.class), config);
+        // broadcast the conditional node
         broadcaster.broadcast(block);
 
         // don't print out the name of the at-rule (the '@if' part. the block will print it out when it's
@@ -27,19 +27,28 @@
 package com.salesforce.omakase.plugin.core;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.salesforce.omakase.PluginRegistry;
 import com.salesforce.omakase.ast.RawFunction;
 import com.salesforce.omakase.ast.Refinable;
 import com.salesforce.omakase.ast.atrule.AtRule;
 import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.declaration.LinearGradientFunctionValue;
+import com.salesforce.omakase.ast.declaration.PropertyValue;
+import com.salesforce.omakase.ast.declaration.PropertyValueMember;
+import com.salesforce.omakase.ast.declaration.Term;
 import com.salesforce.omakase.ast.declaration.UrlFunctionValue;
 import com.salesforce.omakase.ast.selector.ClassSelector;
 import com.salesforce.omakase.ast.selector.Selector;
+import com.salesforce.omakase.ast.selector.SelectorPart;
+import com.salesforce.omakase.broadcast.emitter.Emitter;
 import com.salesforce.omakase.plugin.DependentPlugin;
 import com.salesforce.omakase.plugin.Plugin;
+import com.salesforce.omakase.plugin.PreParsingPlugin;
 import com.salesforce.omakase.plugin.syntax.*;
 
 import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Automatically refines {@link Refinable} types.
@@ -55,13 +64,17 @@ import java.util.EnumSet;
  * <pre><code>
  *     Omakase.use(AutoRefine.everything()).use(...).process();
  *     Omakase.use(AutoRefine.only(Match.FUNCTIONS).use(...).process();
+ *     Omakase.use(AutoRefine.onDemand()).use(...).process();
  * </code></pre>
+ * With {@link #onDemand()}, the types to refine are worked out right before parsing from the subscriptions of all other
+ * registered plugins. See that method for more details.
+ * <p>
  * If including this plugin as a dependency then it's preferred to refine everything, otherwise consider requiring a more
  * specific refiner plugin such as {@link DeclarationPlugin} instead.
  *
  * @author nmcwilliams
  */
-public final class AutoRefine implements DependentPlugin {
+public final class AutoRefine implements DependentPlugin, PreParsingPlugin {
     private static final Iterable<Class<? extends Plugin>> AT_RULES = ImmutableList.of(
         MediaPlugin.class, KeyframesPlugin.class, FontFacePlugin.class, SupportsPlugin.class
     );
@@ -79,26 +92,31 @@ public final class AutoRefine implements DependentPlugin {
         RULES,
 
         /** Refine {@link Selector}s */
-        SELECTORS(SelectorPlugin.class),
+        SELECTORS(SelectorPlugin.class, Selector.class, SelectorPart.class),
 
         /** Refine {@link Declaration}s */
-        DECLARATIONS(DeclarationPlugin.class),
+        DECLARATIONS(DeclarationPlugin.class,
+            Declaration.class, PropertyValue.class, PropertyValueMember.class, RawFunction.class),
 
         /** Refine {@link RawFunction}s and {@link Declaration}s */
-        FUNCTIONS(AutoRefine.FUNCTIONS);
+        FUNCTIONS(AutoRefine.FUNCTIONS, UrlFunctionValue.class, LinearGradientFunctionValue.class);
 
         private final Iterable<Class<? extends Plugin>> plugins;
 
+        /** the types of units that are only delivered (or only complete) when refined, for {@link #onDemand()} */
+        private final Class<?>[] units;
+
         Match() {
             this(ImmutableList.of());
         }
 
-        Match(Class<? extends Plugin> plugin) {
-            this.plugins = ImmutableList.of(plugin);
+        Match(Class<? extends Plugin> plugin, Class<?>... units) {
+            this(ImmutableList.of(plugin), units);
         }
 
-        Match(Iterable<Class<? extends Plugin>> plugins) {
+        Match(Iterable<Class<? extends Plugin>> plugins, Class<?>... units) {
             this.plugins = plugins;
+            this.units = units;
         }
 
         /**
@@ -109,15 +127,35 @@ public final class AutoRefine implements DependentPlugin {
         public Iterable<Class<? extends Plugin>> plugins() {
             return plugins;
         }
+
+        /** whether a subscription to the given type may receive (or inspect) units produced by this type of refinement */
+        private boolean demandedBy(Class<?> subscribed) {
+            for (Class<?> unit : units) {
+                if (unit.isAssignableFrom(subscribed) || subscribed.isAssignableFrom(unit)) return true;
+            }
+            return false;
+        }
+    }
+
+    /** the refinement plugins, which aren't considered when working out demand */
+    private static final Set<Class<?>> REFINERS;
+
+    static {
+        ImmutableSet.Builder<Class<?>> builder = ImmutableSet.builder();
+        for (Match match : Match.values()) {
+            builder.addAll(match.plugins());
+        }
+        REFINERS = builder.build();
     }
 
     private final EnumSet<Match> matches;
+    private final boolean onDemand;
 
     /**
      * Creates a new {@link AutoRefine} matching all {@link Refinable}s.
      */
     public AutoRefine() {
-        this.matches = EnumSet.allOf(Match.class);
+        this(EnumSet.allOf(Match.class));
     }
 
     /**
@@ -127,6 +165,10 @@ public final class AutoRefine implements DependentPlugin {
      *     Types of {@link Refinable}s to auto-refine.
      */
     public AutoRefine(EnumSet<Match> matches) {
+        this(matches, false);
+    }
+
+    private AutoRefine(EnumSet<Match> matches, boolean onDemand) {
         if (matches.contains(Match.FUNCTIONS)) {
             matches.add(Match.DECLARATIONS);
         }
@@ -136,10 +178,50 @@ public final class AutoRefine implements DependentPlugin {
             matches.add(Match.FUNCTIONS);
         }
         this.matches = matches;
+        this.onDemand = onDemand;
     }
 
     @Override
     public void dependencies(PluginRegistry registry) {
+        require(registry, matches);
+    }
+
+    @Override
+    public void beforeParsing(PluginRegistry registry) {
+        if (!onDemand) return;
+
+        EnumSet<Match> demanded = EnumSet.noneOf(Match.class);
+        for (Plugin plugin : registry.plugins()) {
+            if (plugin == this || REFINERS.contains(plugin.getClass())) continue;
+
+            for (Class<?> subscribed : Emitter.subscribedTypes(plugin.getClass())) {
+                for (Match match : Match.values()) {
+                    if (match.demandedBy(subscribed)) {
+                        demanded.add(match);
+                    }
+                }
+            }
+        }
+
+        if (demanded.contains(Match.FUNCTIONS)) {
+            demanded.add(Match.DECLARATIONS);
+        }
+
+        matches.addAll(demanded);
+        require(registry, demanded);
+    }
+
+    /**
+     * Gets the types of {@link Refinable}s this plugin refines. With {@link #onDemand()}, this is only complete once parsing has
+     * begun.
+     *
+     * @return The matched types.
+     */
+    public Set<Match> matches() {
+        return EnumSet.copyOf(matches);
+    }
+
+    private static void require(PluginRegistry registry, Iterable<Match> matches) {
         for (Match match : matches) {
             for (Class<? extends Plugin> plugin : match.plugins()) {
                 registry.require(plugin);
@@ -169,4 +251,28 @@ public final class AutoRefine implements DependentPlugin {
     public static AutoRefine only(Match match, Match... matches) {
         return new AutoRefine(EnumSet.of(match, matches));
     }
+
+    /**
+     * Creates an {@link AutoRefine} that only refines what the other registered plugins subscribe to.
+     * <p>
+     * Right before parsing begins, the subscription methods of all other registered plugins are inspected and the refiners are
+     * required accordingly. For example, {@link Selector}s are only refined if something subscribes to {@link Selector} or a
+     * {@link SelectorPart} type, and {@link Declaration}s are only refined if something subscribes to {@link Declaration},
+     * {@link PropertyValue} or a {@link Term} type. Subscriptions to broad types such as {@link Refinable} or {@link
+     * com.salesforce.omakase.ast.Syntax} match everything. {@link AtRule}s are always refined, as they may contain any of the
+     * other units.
+     * <p>
+     * Units that are not refined are written out as-is. Plugins that inspect the tree without subscribing to the relevant types
+     * (e.g., in {@link com.salesforce.omakase.plugin.PostProcessingPlugin#postProcess(PluginRegistry)}) should require the
+     * specific refiners they need.
+     * <p>
+     * {@link StandardValidation} adds {@link #everything()} by default, which refines everything regardless. Use {@link
+     * StandardValidation#onDemand()} instead (or register this before it). Even then {@link Selector}s are always refined,
+     * because the standard validators check selectors.
+     *
+     * @return The new {@link AutoRefine} instance.
+     */
+    public static AutoRefine onDemand() {
+        return new AutoRefine(EnumSet.of(Match.AT_RULES), true);
+    }
 }
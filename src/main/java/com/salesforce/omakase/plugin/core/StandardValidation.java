@@ -28,9 +28,13 @@ package com.salesforce.omakase.plugin.core;
 
 import com.salesforce.omakase.PluginRegistry;
 import com.salesforce.omakase.ast.Refinable;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.plugin.DependentPlugin;
 import com.salesforce.omakase.plugin.validator.PseudoElementValidator;
 
+import java.util.function.Supplier;
+
 /**
  * Enables all standard library-provided validations.
  * <p>
@@ -44,7 +48,7 @@ import com.salesforce.omakase.plugin.validator.PseudoElementValidator;
  * @author nmcwilliams
  */
 public final class StandardValidation implements DependentPlugin {
-    private final boolean autoRefine;
+    private final Supplier<AutoRefine> autoRefine;
 
     /**
      * Creates a new {@link StandardValidation} instance that will also add an {@link AutoRefine} with {@link
@@ -62,13 +66,31 @@ public final class StandardValidation implements DependentPlugin {
      *     Whether to also include auto-refinement of everything.
      */
     public StandardValidation(boolean autoRefine) {
+        this(autoRefine ? AutoRefine::everything : null);
+    }
+
+    private StandardValidation(Supplier<AutoRefine> autoRefine) {
         this.autoRefine = autoRefine;
     }
 
+    /**
+     * Creates a new {@link StandardValidation} instance that will also add an {@link AutoRefine} with {@link
+     * AutoRefine#onDemand()}, so that only the units that the registered plugins (including the validators added here) subscribe
+     * to are refined and validated.
+     * <p>
+     * Note that the bundled validators check selectors, so {@link Selector}s are always refined when using this. Other units,
+     * such as {@link Declaration}s, are only refined if another plugin subscribes to them.
+     *
+     * @return The new {@link StandardValidation} instance.
+     */
+    public static StandardValidation onDemand() {
+        return new StandardValidation(AutoRefine::onDemand);
+    }
+
     @Override
     public void dependencies(PluginRegistry registry) {
-        if (autoRefine) {
-            registry.require(AutoRefine.class, AutoRefine::everything);
+        if (autoRefine != null) {
+            registry.require(AutoRefine.class, autoRefine);
         }
 
         registry.require(PseudoElementValidator.class);
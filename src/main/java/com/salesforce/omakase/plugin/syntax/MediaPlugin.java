@@ -35,9 +35,7 @@ import com.salesforce.omakase.ast.atrule.GenericAtRuleBlock;
 import com.salesforce.omakase.ast.atrule.MediaQuery;
 import com.salesforce.omakase.ast.atrule.MediaQueryList;
 import com.salesforce.omakase.broadcast.Broadcaster;
-import com.salesforce.omakase.broadcast.InterestBroadcaster;
-import com.salesforce.omakase.broadcast.QueryableBroadcaster;
-import com.salesforce.omakase.broadcast.SingleInterestBroadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
 import com.salesforce.omakase.broadcast.annotation.Refine;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
@@ -46,8 +44,6 @@ import com.salesforce.omakase.parser.Source;
 import com.salesforce.omakase.parser.atrule.MediaQueryListParser;
 import com.salesforce.omakase.plugin.Plugin;
 
-import java.util.Optional;
-
 /**
  * Refines media query at-rules (@media).
  * <p>
@@ -60,6 +56,8 @@ import java.util.Optional;
  */
 public final class MediaPlugin implements Plugin {
     private static final MediaPlugin DELEGATE = new MediaPlugin();
+    private static final Class<?>[] LIST = {MediaQueryList.class};
+    private static final Class<?>[] STATEMENTS = {Statement.class};
 
     /**
      * Refines {@link MediaQuery}s.
@@ -84,20 +82,24 @@ public final class MediaPlugin implements Plugin {
             // parse the media query expression
             Source source = new Source(rule.rawExpression().get());
 
-            InterestBroadcaster<MediaQueryList> interest = SingleInterestBroadcaster.of(MediaQueryList.class);
-            interest.chain(broadcaster);
+            CollectingBroadcaster collector = grammar.collector(broadcaster, LIST);
+            MediaQueryList list;
 
-            grammar.parser().mediaQueryListParser().parse(source, grammar, interest);
-            Optional<MediaQueryList> list = interest.one();
+            try {
+                grammar.parser().mediaQueryListParser().parse(source, grammar, collector);
+                list = collector.first(MediaQueryList.class);
+            } finally {
+                grammar.release(collector);
+            }
 
             // must have found a media query list
-            if (!list.isPresent()) throw new ParserException(source, Message.DIDNT_FIND_MEDIA_LIST);
+            if (list == null) throw new ParserException(source, Message.DIDNT_FIND_MEDIA_LIST);
 
             // nothing should be left in the expression content
             if (!source.skipWhitepace().eof()) throw new ParserException(source, Message.UNPARSABLE_MEDIA, source.remaining());
 
             // broadcast the expression
-            broadcaster.broadcast(list.get());
+            broadcaster.broadcast(list);
         }
 
         // refine the block (unless it was already done)
@@ -107,21 +109,28 @@ public final class MediaPlugin implements Plugin {
 
             Source source = new Source(rule.rawBlock().get());
 
-            QueryableBroadcaster queryable = new QueryableBroadcaster(broadcaster);
-
-            // parse the inner statements
-            Parser ruleParser = grammar.parser().ruleParser();
-            while (!source.eof()) {
-                boolean matched = ruleParser.parse(source, grammar, queryable);
-                source.skipWhitepace();
-
-                // after parsing there should be nothing left in the source
-                if (!matched && !source.eof()) throw new ParserException(source, Message.UNPARSABLE_MEDIA, source.remaining());
+            CollectingBroadcaster collector = grammar.collector(broadcaster, STATEMENTS);
+            GenericAtRuleBlock genericBlock;
+
+            try {
+                // parse the inner statements
+                Parser ruleParser = grammar.parser().ruleParser();
+                while (!source.eof()) {
+                    boolean matched = ruleParser.parse(source, grammar, collector);
+                    source.skipWhitepace();
+
+                    // after parsing there should be nothing left in the source
+                    if (!matched && !source.eof()) {
+                        throw new ParserException(source, Message.UNPARSABLE_MEDIA, source.remaining());
+                    }
+                }
+
+                // create and add the block
+                genericBlock = new GenericAtRuleBlock(collector.collected(Statement.class));
+            } finally {
+                grammar.release(collector);
             }
 
-            // create and add the block
-            GenericAtRuleBlock genericBlock = new GenericAtRuleBlock(queryable.filter(Statement.class));
-
             // add orphaned comments
             genericBlock.orphanedComments(source.collectComments().flushComments());
 
@@ -34,7 +34,7 @@ import com.salesforce.omakase.ast.atrule.AtRuleExpression;
 import com.salesforce.omakase.ast.atrule.GenericAtRuleBlock;
 import com.salesforce.omakase.ast.atrule.GenericAtRuleExpression;
 import com.salesforce.omakase.broadcast.Broadcaster;
-import com.salesforce.omakase.broadcast.QueryableBroadcaster;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
 import com.salesforce.omakase.broadcast.annotation.Refine;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.parser.Parser;
@@ -48,6 +48,8 @@ import com.salesforce.omakase.plugin.Plugin;
  * @author nmcwilliams
  */
 public final class SupportsPlugin implements Plugin {
+    private static final Class<?>[] STATEMENTS = {Statement.class};
+
     /**
      * Refines the supports at-rule.
      * <p>
@@ -81,22 +83,27 @@ public final class SupportsPlugin implements Plugin {
             }
 
             Source source = new Source(atRule.rawBlock().get());
-            QueryableBroadcaster queryable = new QueryableBroadcaster(broadcaster);
+            CollectingBroadcaster collector = grammar.collector(broadcaster, STATEMENTS);
+            GenericAtRuleBlock block;
 
-            // parse the inner statements
-            Parser rule = grammar.parser().ruleParser();
-            while (!source.eof()) {
-                boolean matched = rule.parse(source, grammar, queryable);
-                source.skipWhitepace();
+            try {
+                // parse the inner statements
+                Parser rule = grammar.parser().ruleParser();
+                while (!source.eof()) {
+                    boolean matched = rule.parse(source, grammar, collector);
+                    source.skipWhitepace();
 
-                // after parsing there should be nothing left in the source
-                if (!matched && !source.eof()) {
-                    throw new ParserException(source, Message.UNPARSABLE_SUPPORTS, source.remaining());
+                    // after parsing there should be nothing left in the source
+                    if (!matched && !source.eof()) {
+                        throw new ParserException(source, Message.UNPARSABLE_SUPPORTS, source.remaining());
+                    }
                 }
-            }
 
-            // create and add the block
-            GenericAtRuleBlock block = new GenericAtRuleBlock(queryable.filter(Statement.class));
+                // create and add the block
+                block = new GenericAtRuleBlock(collector.collected(Statement.class));
+            } finally {
+                grammar.release(collector);
+            }
 
             // add orphaned comments
             block.orphanedComments(source.collectComments().flushComments());
@@ -31,6 +31,8 @@ import com.google.common.collect.Multimap;
 import com.salesforce.omakase.PluginRegistry;
 import com.salesforce.omakase.ast.Comment;
 import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.jfr.Events;
+import com.salesforce.omakase.jfr.WriteEvent;
 import com.salesforce.omakase.plugin.DependentPlugin;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.core.SyntaxTree;
@@ -254,13 +256,24 @@ public final class StyleWriter implements DependentPlugin {
     public String write() {
         checkState(tree != null, "syntax tree not set (did you add this writer plugin before parsing?)");
 
+        WriteEvent event = Events.active() ? new WriteEvent() : null;
+        if (event != null) event.begin();
+
         StyleAppendable appendable = new StyleAppendable();
         try {
             writeInner(tree.stylesheet(), appendable);
         } catch (IOException e) {
             throw new AssertionError("Using a StringBuilder shouldn't cause an IOException.", e);
         }
-        return appendable.toString();
+        String output = appendable.toString();
+
+        if (event != null && event.shouldCommit()) {
+            event.mode = mode.name();
+            event.outputLength = output.length();
+            event.statements = tree.stylesheet().statements().size();
+            event.commit();
+        }
+        return output;
     }
 
     /**
@@ -275,7 +288,18 @@ public final class StyleWriter implements DependentPlugin {
     public void writeTo(Appendable appendable) throws IOException {
         checkNotNull(appendable, "appendable cannot be null");
         checkState(tree != null, "syntax tree not set (did you add this writer plugin before parsing?)");
+
+        WriteEvent event = Events.active() ? new WriteEvent() : null;
+        if (event != null) event.begin();
+
         writeInner(tree.stylesheet(), new StyleAppendable(appendable));
+
+        if (event != null && event.shouldCommit()) {
+            event.mode = mode.name();
+            event.outputLength = -1;
+            event.statements = tree.stylesheet().statements().size();
+            event.commit();
+        }
     }
 
     /**
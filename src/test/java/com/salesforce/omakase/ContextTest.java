@@ -26,13 +26,26 @@
 
 package com.salesforce.omakase;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.salesforce.omakase.ast.Statement;
+import com.salesforce.omakase.ast.Status;
+import com.salesforce.omakase.ast.Stylesheet;
 import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.declaration.NumericalValue;
 import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.broadcast.AbstractBroadcaster;
+import com.salesforce.omakase.broadcast.Broadcastable;
+import com.salesforce.omakase.broadcast.NoopBroadcaster;
 import com.salesforce.omakase.broadcast.annotation.Observe;
 import com.salesforce.omakase.broadcast.annotation.Rework;
 import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionStats;
+import com.salesforce.omakase.data.Property;
+import com.salesforce.omakase.error.DefaultErrorManager;
 import com.salesforce.omakase.error.ErrorLevel;
 import com.salesforce.omakase.error.ErrorManager;
 import com.salesforce.omakase.parser.ParserException;
@@ -43,13 +56,34 @@ import com.salesforce.omakase.plugin.GrammarPlugin;
 import com.salesforce.omakase.plugin.ParserPlugin;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.PostProcessingPlugin;
+import com.salesforce.omakase.plugin.PreParsingPlugin;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import com.salesforce.omakase.plugin.core.StandardValidation;
 import com.salesforce.omakase.plugin.core.SyntaxTree;
+import com.salesforce.omakase.plugin.syntax.SelectorPlugin;
+import com.salesforce.omakase.writer.StyleWriter;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
 
 @SuppressWarnings("JavaDoc")
 public class ContextTest {
@@ -124,7 +158,7 @@ public class ContextTest {
         TestErrorManager em = new TestErrorManager();
         c.register(new FailingPlugin());
         c.broadcaster().broadcast(new ClassSelector("class"));
-        c.beforeParsing(em);
+        c.beforeParsing(em, 0);
         c.afterParsing();
         assertThat(em.reported).isTrue();
     }
@@ -152,7 +186,7 @@ public class ContextTest {
 
         c.register(Lists.newArrayList(rework, validate, observe));
 
-        c.beforeParsing(new TestErrorManager());
+        c.beforeParsing(new TestErrorManager(), 0);
         c.broadcaster().broadcast(new ClassSelector("test"));
         c.afterParsing();
 
@@ -164,13 +198,495 @@ public class ContextTest {
     public void afterMethodNotifyPostProcessor() {
         TestPostProcessingPlugin tpp = new TestPostProcessingPlugin();
         c.register(tpp);
-        c.beforeParsing(new TestErrorManager());
+        c.beforeParsing(new TestErrorManager(), 0);
         c.afterParsing();
         assertThat(tpp.postProcessCalled).isTrue();
     }
 
+    @Test
+    public void beforeParsingNotifiesPreParsingPlugins() {
+        TestPreParsingPlugin tpp = new TestPreParsingPlugin();
+        c.register(tpp);
+        c.register(new TestPlugin());
+        c.beforeParsing(new TestErrorManager(), 0);
+
+        assertThat(tpp.notified).isEqualTo(1);
+        assertThat(tpp.registered).isEqualTo(2);
+        assertThat(c.retrieve(SyntaxTree.class).isPresent()).isTrue();
+    }
+
+    @Test
+    public void preParsingPluginsOnlyNotifiedOnce() {
+        TestPreParsingPlugin tpp = new TestPreParsingPlugin();
+        c.register(tpp);
+        c.notifyPreParsing();
+        c.beforeParsing(new TestErrorManager(), 0);
+        assertThat(tpp.notified).isEqualTo(1);
+    }
+
+    @Test
+    public void subscriptionStatsWhenProfiling() {
+        PluginWithRework rework = new PluginWithRework();
+        PluginWithValidate validate = new PluginWithValidate();
+        c.register(Lists.newArrayList(rework, validate));
+        c.profile(true);
+
+        c.beforeParsing(new TestErrorManager(), 0);
+        c.broadcaster().broadcast(new ClassSelector("test"));
+        c.afterParsing();
+
+        List<SubscriptionStats> stats = c.subscriptionStats();
+        assertThat(stats).hasSize(2);
+        assertThat(stats.get(0).phase()).isSameAs(SubscriptionPhase.PROCESS);
+        assertThat(stats.get(0).invocations()).isEqualTo(1);
+        assertThat(stats.get(1).phase()).isSameAs(SubscriptionPhase.VALIDATE);
+        assertThat(stats.get(1).invocations()).isEqualTo(1);
+    }
+
+    @Test
+    public void separatePassesByDefault() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new Linter(calls)).process();
+        assertThat(calls).containsExactly("observe a", "observe b", "validate a", "validate b");
+    }
+
+    @Test
+    public void singlePassValidatesEachStatementAfterProcessing() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new Linter(calls)).singlePass().process();
+        assertThat(calls).containsExactly("observe a", "validate a", "observe b", "validate b");
+    }
+
+    @Test
+    public void singlePassVisitsEachUnitOnceWithoutReworks() {
+        Visits visits = new Visits();
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a .b{color:red} .c{}").use(new Linter(calls)).broadcaster(visits).singlePass().process();
+
+        assertThat(calls).containsExactly("observe a", "validate a", "observe b", "validate b", "observe c", "validate c");
+        assertThat(visits.counts).isNotEmpty();
+        assertThat(ImmutableSet.copyOf(visits.counts.values())).containsOnly(1);
+    }
+
+    @Test
+    public void singlePassVisitsEachUnitPerPhaseWithLocalReworks() {
+        Visits visits = new Visits();
+        Omakase.source(".a .b{color:red} .c{}").use(new LocalRework()).broadcaster(visits).singlePass().process();
+
+        assertThat(visits.counts).isNotEmpty();
+        assertThat(ImmutableSet.copyOf(visits.counts.values())).containsOnly(2);
+    }
+
+    @Test
+    public void singlePassValidatesStatementAfterItsContentsAreReworked() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{padding:0; margin:0} .b{padding:1px}").use(new LocalRuleRework()).use(new DeclarationLinter(calls))
+            .singlePass().process();
+        assertThat(calls).containsExactly("validate padding:2px", "validate margin:0", "validate padding:2px");
+    }
+
+    @Test
+    public void singlePassValidatesParentAfterChildRework() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{padding:0; margin:0}").use(new LocalDeclarationRework()).use(new RuleLinter(calls)).singlePass()
+            .process();
+        assertThat(calls).containsExactly("validate .a{padding:2px;margin:0}");
+    }
+
+    @Test
+    public void singlePassWithStandardValidation() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new Linter(calls)).use(new StandardValidation()).singlePass().process();
+        assertThat(calls).containsExactly("observe a", "validate a", "observe b", "validate b");
+    }
+
+    @Test
+    public void singlePassWithLocalRework() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new LocalRework()).use(new Linter(calls)).singlePass().process();
+        assertThat(calls).containsExactly("observe x-a", "validate x-a", "observe x-b", "validate x-b");
+    }
+
+    @Test
+    public void singlePassIgnoredWithNonLocalRework() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new PluginWithRework()).use(new Linter(calls)).singlePass().process();
+        assertThat(calls).containsExactly("observe a", "observe b", "validate a", "validate b");
+    }
+
+    @Test
+    public void singlePassSkipsDestroyedUnits() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new LocalDestroy()).use(new Linter(calls)).singlePass().process();
+        assertThat(calls).containsExactly("observe b", "validate b");
+    }
+
+    @Test
+    public void parallelValidationReportsInSourceOrder() {
+        String css = parallelSource();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DefaultErrorManager sequential = new SummaryErrorManager();
+            Omakase.source(css).use(new Reporter()).use(new StandardValidation()).use(sequential).process();
+
+            DefaultErrorManager parallel = new SummaryErrorManager();
+            Omakase.source(css).use(new Reporter()).use(new StandardValidation()).use(parallel).parallelValidation(pool)
+                .process();
+
+            assertThat(parallel.summarize()).isNotEmpty().isEqualTo(sequential.summarize());
+            assertThat(parallel.summarize()).contains("stylesheet");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelValidationValidatesEveryUnit() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SyntaxTree tree = new SyntaxTree();
+            Omakase.source(parallelSource()).use(tree).use(new StandardValidation()).parallelValidation(pool).process();
+
+            Stylesheet sheet = tree.stylesheet();
+            assertThat(sheet.status()).isSameAs(Status.VALIDATED);
+            for (Statement statement : sheet.statements()) {
+                assertThat(statement.status()).isSameAs(Status.VALIDATED);
+            }
+            assertThat(sheet.rules().get(0).selectors().first().get().status()).isSameAs(Status.VALIDATED);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelValidationIgnoredWithCustomBroadcaster() {
+        List<String> calls = Lists.newArrayList();
+        Omakase.source(".a{} .b{}").use(new Linter(calls)).broadcaster(new NoopBroadcaster()).parallelValidation().process();
+        assertThat(calls).containsExactly("observe a", "observe b", "validate a", "validate b");
+    }
+
+    @Test
+    public void parallelValidationRethrowsInOrder() {
+        exception.expect(SubscriptionException.class);
+        exception.expectMessage("IllegalStateException: a");
+        Omakase.source(".a{} .b{} .c{}").use(new ThrowingValidator()).parallelValidation().process();
+    }
+
+    @Test
+    public void parallelValidationMergesErrorsWhenThrowing() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        DefaultErrorManager em = new SummaryErrorManager();
+        try {
+            Omakase.source(".a{} .b{} .c{}").use(new ThrowingReporter()).use(em).parallelValidation(pool).process();
+            fail("expected exception");
+        } catch (SubscriptionException e) {
+            assertThat(em.summarize()).contains("a").contains("c");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** many rules, some nested, each with a few units to validate */
+    @Test
+    public void noPositions() {
+        String css = ".a {color:red}\n@media print {\n  .b {margin:0}\n}";
+        StyleWriter expected = StyleWriter.compressed();
+        Omakase.source(css).use(expected).use(new StandardValidation()).process();
+
+        PositionRecorder recorder = new PositionRecorder();
+        StyleWriter writer = StyleWriter.compressed();
+        Omakase.source(css).use(recorder).use(writer).use(new StandardValidation()).noPositions().process();
+
+        assertThat(writer.write()).isEqualTo(expected.write());
+        assertThat(recorder.withPosition).isEqualTo(0);
+        assertThat(recorder.withoutPosition).isGreaterThan(10);
+    }
+
+    @Test
+    public void positionsByDefault() {
+        PositionRecorder recorder = new PositionRecorder();
+        Omakase.source(".a {color:red}\n.b {margin:0}").use(recorder).use(new StandardValidation()).process();
+        assertThat(recorder.withPosition).isGreaterThan(10);
+    }
+
+    @Test
+    public void streamingMatchesString() {
+        String css = "/* first */\n" + parallelSource() + "@import url(a;b);\n.x[title=\"}\"] {content: '{;'}\n/* last */";
+        StyleWriter expected = StyleWriter.verbose();
+        PositionRecorder expectedPositions = new PositionRecorder();
+        Omakase.source(css).use(expected).use(expectedPositions).use(new StandardValidation()).process();
+
+        StyleWriter writer = StyleWriter.verbose();
+        PositionRecorder positions = new PositionRecorder();
+        Omakase.source(new StringReader(css)).use(writer).use(positions).use(new StandardValidation()).process();
+
+        assertThat(writer.write()).isEqualTo(expected.write());
+        assertThat(positions.withPosition).isEqualTo(expectedPositions.withPosition);
+        assertThat(positions.withoutPosition).isEqualTo(expectedPositions.withoutPosition);
+    }
+
+    @Test
+    public void streamingErrorPosition() {
+        String css = ".a {color:red}\n.b {color:red}\n  .c {color:red} $";
+
+        String expected = null;
+        try {
+            Omakase.source(css).process();
+        } catch (ParserException e) {
+            expected = e.getMessage();
+        }
+
+        exception.expect(ParserException.class);
+        exception.expectMessage("at line 3, column 18");
+        assertThat(expected).contains("at line 3, column 18");
+        Omakase.source(new StringReader(css)).process();
+    }
+
+    @Test
+    public void streamingInputStream() {
+        byte[] bytes = ".a:before {content: \"\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+        StyleWriter writer = StyleWriter.compressed();
+        Omakase.source(new ByteArrayInputStream(bytes)).use(writer).process();
+        assertThat(writer.write()).isEqualTo(".a:before{content:\"\u00e9\"}");
+    }
+
+    @Test
+    public void streamingChannel() {
+        byte[] bytes = ".a {color:red}".getBytes(StandardCharsets.UTF_16);
+        StyleWriter writer = StyleWriter.compressed();
+        Omakase.source(Channels.newChannel(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_16).use(writer).process();
+        assertThat(writer.write()).isEqualTo(".a{color:red}");
+    }
+
+    @Test
+    public void streamingIOException() {
+        exception.expect(UncheckedIOException.class);
+        Omakase.source(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("test");
+            }
+        }).process();
+    }
+
+    @Test
+    public void sourcePath() throws IOException {
+        String css = parallelSource() + ".x:before {content: \"\u00e9\"}";
+        Path path = Files.createTempFile("omakase", ".css");
+        try {
+            Files.write(path, css.getBytes(StandardCharsets.UTF_8));
+
+            StyleWriter expected = StyleWriter.compressed();
+            Omakase.source(css).use(expected).process();
+
+            StyleWriter writer = StyleWriter.compressed();
+            Omakase.source(path).use(writer).process();
+            assertThat(writer.write()).isEqualTo(expected.write());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void sourcePathMissing() {
+        exception.expect(UncheckedIOException.class);
+        Omakase.source(Paths.get("does-not-exist.css"));
+    }
+
+    private static String parallelSource() {
+        StringBuilder css = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            css.append(".a").append(i).append(" > .b").append(i).append(" {color:red; margin: ").append(i).append("px}\n");
+            if (i % 50 == 0) {
+                css.append("@media screen {.m").append(i).append(" {color:blue}}\n");
+            }
+        }
+        return css.toString();
+    }
+
     public static final class TestPlugin implements Plugin {}
 
+    public static final class PositionRecorder implements Plugin {
+        int withPosition;
+        int withoutPosition;
+
+        @Observe
+        public void observe(Syntax syntax) {
+            if (syntax instanceof Stylesheet) return;
+            if (syntax.hasSourcePosition()) {
+                withPosition++;
+            } else {
+                withoutPosition++;
+            }
+        }
+    }
+
+    /** reports everything, thread-safe */
+    public static final class Reporter implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(SelectorPlugin.class);
+        }
+
+        @Validate
+        public void validate(ClassSelector cs, ErrorManager em) {
+            em.report(ErrorLevel.WARNING, cs, cs.name());
+        }
+
+        @Validate
+        public void validate(Declaration declaration, ErrorManager em) {
+            em.report(ErrorLevel.FATAL, declaration, declaration.toString(false));
+        }
+
+        @Validate
+        public void validate(Stylesheet stylesheet, ErrorManager em) {
+            em.report(ErrorLevel.WARNING, stylesheet, "stylesheet");
+        }
+    }
+
+    /** keeps the summary instead of throwing it */
+    public static final class SummaryErrorManager extends DefaultErrorManager {
+        @Override
+        public boolean autoSummarize() {
+            return false;
+        }
+    }
+
+    public static final class ThrowingValidator implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(SelectorPlugin.class);
+        }
+
+        @Validate
+        @SuppressWarnings("UnusedParameters")
+        public void validate(ClassSelector cs, ErrorManager em) {
+            throw new IllegalStateException(cs.name());
+        }
+    }
+
+    public static final class ThrowingReporter implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(SelectorPlugin.class);
+        }
+
+        @Validate
+        public void validate(ClassSelector cs, ErrorManager em) {
+            if (cs.name().equals("b")) throw new IllegalStateException(cs.name());
+            em.report(ErrorLevel.WARNING, cs, cs.name());
+        }
+    }
+
+    public static final class Linter implements DependentPlugin {
+        private final List<String> calls;
+
+        public Linter(List<String> calls) { this.calls = calls; }
+
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(SelectorPlugin.class);
+        }
+
+        @Observe
+        public void observe(ClassSelector cs) {
+            calls.add("observe " + cs.name());
+        }
+
+        @Validate
+        @SuppressWarnings("UnusedParameters")
+        public void validate(ClassSelector cs, ErrorManager em) {
+            calls.add("validate " + cs.name());
+        }
+    }
+
+    public static final class LocalRework implements Plugin {
+        @Rework(local = true)
+        public void classSelector(ClassSelector cs) {
+            cs.name("x-" + cs.name());
+        }
+    }
+
+    /** counts how often each unit is replayed after parsing, which ends with the broadcast of the stylesheet */
+    private static final class Visits extends AbstractBroadcaster {
+        final Map<Broadcastable, Integer> counts = new IdentityHashMap<>();
+        boolean parsed;
+
+        @Override
+        public void broadcast(Broadcastable broadcastable) {
+            if (parsed) {
+                counts.merge(broadcastable, 1, Integer::sum);
+            }
+            relay(broadcastable);
+            if (broadcastable instanceof Stylesheet) {
+                parsed = true;
+            }
+        }
+    }
+
+    public static final class LocalRuleRework implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(AutoRefine.class, AutoRefine::everything);
+        }
+
+        @Rework(local = true)
+        public void rule(com.salesforce.omakase.ast.Rule rule) {
+            for (Declaration declaration : rule.declarations()) {
+                if (declaration.isProperty(Property.PADDING)) {
+                    declaration.propertyValue(NumericalValue.of(2, "px"));
+                }
+            }
+        }
+    }
+
+    public static final class LocalDeclarationRework implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(AutoRefine.class, AutoRefine::everything);
+        }
+
+        @Rework(local = true)
+        public void declaration(Declaration declaration) {
+            if (declaration.isProperty(Property.PADDING)) {
+                declaration.propertyValue(NumericalValue.of(2, "px"));
+            }
+        }
+    }
+
+    public static final class RuleLinter implements Plugin {
+        private final List<String> calls;
+
+        public RuleLinter(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Validate
+        public void rule(com.salesforce.omakase.ast.Rule rule, ErrorManager em) {
+            calls.add("validate " + StyleWriter.compressed().writeSingle(rule));
+        }
+    }
+
+    public static final class DeclarationLinter implements Plugin {
+        private final List<String> calls;
+
+        public DeclarationLinter(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Validate
+        public void declaration(Declaration declaration, ErrorManager em) {
+            calls.add("validate " + StyleWriter.compressed().writeSingle(declaration));
+        }
+    }
+
+    public static final class LocalDestroy implements Plugin {
+        @Rework(local = true)
+        public void classSelector(ClassSelector cs) {
+            if (cs.name().equals("a")) cs.destroy();
+        }
+    }
+
     public static final class FailingPlugin implements Plugin {
         @Validate
         public void classSelector(ClassSelector cs, ErrorManager em) {
@@ -203,6 +719,18 @@ public class ContextTest {
         }
     }
 
+    public static final class TestPreParsingPlugin implements PreParsingPlugin {
+        int notified;
+        int registered;
+
+        @Override
+        public void beforeParsing(PluginRegistry registry) {
+            notified++;
+            registered = registry.plugins().size();
+            registry.require(SyntaxTree.class);
+        }
+    }
+
     public static final class TestErrorManager implements ErrorManager {
         boolean reported;
 
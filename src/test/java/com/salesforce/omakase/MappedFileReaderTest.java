@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.google.common.io.CharStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappedFileReader}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class MappedFileReaderTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsAll() throws IOException {
+        assertThat(CharStreams.toString(reader(".a{color:red}"))).isEqualTo(".a{color:red}");
+    }
+
+    @Test
+    public void empty() throws IOException {
+        assertThat(reader("").read(new char[4], 0, 4)).isEqualTo(-1);
+    }
+
+    @Test
+    public void zeroLength() throws IOException {
+        assertThat(reader("abc").read(new char[4], 0, 0)).isEqualTo(0);
+    }
+
+    @Test
+    public void readsInChunks() throws IOException {
+        MappedFileReader reader = reader("abcde");
+        char[] buffer = new char[3];
+        assertThat(reader.read(buffer, 0, 3)).isEqualTo(3);
+        assertThat(new String(buffer, 0, 3)).isEqualTo("abc");
+        assertThat(reader.read(buffer, 1, 2)).isEqualTo(2);
+        assertThat(new String(buffer, 1, 2)).isEqualTo("de");
+        assertThat(reader.read(buffer, 0, 3)).isEqualTo(-1);
+    }
+
+    @Test
+    public void multiByte() throws IOException {
+        String css = ".é中{content:'😀'}";
+        assertThat(CharStreams.toString(reader(css))).isEqualTo(css);
+    }
+
+    @Test
+    public void surrogatePairOneCharAtATime() throws IOException {
+        String css = "a😀b";
+        MappedFileReader reader = reader(css);
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[1];
+        int count;
+        while ((count = reader.read(buffer, 0, 1)) != -1) {
+            assertThat(count).isEqualTo(1);
+            builder.append(buffer[0]);
+        }
+        assertThat(builder.toString()).isEqualTo(css);
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        exception.expect(CharacterCodingException.class);
+        CharStreams.toString(new MappedFileReader(ByteBuffer.wrap(new byte[]{'a', (byte)0xff, 'b'}), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void open() throws IOException {
+        File file = folder.newFile("test.css");
+        Files.write(file.toPath(), ".a{content:'é'}".getBytes(StandardCharsets.UTF_8));
+        assertThat(CharStreams.toString(MappedFileReader.open(file.toPath(), StandardCharsets.UTF_8)))
+            .isEqualTo(".a{content:'é'}");
+    }
+
+    @Test
+    public void openStreamsWhenTooLargeToMap() throws IOException {
+        File file = folder.newFile("test.css");
+        Files.write(file.toPath(), ".a{content:'é'}".getBytes(StandardCharsets.UTF_8));
+
+        Reader reader = MappedFileReader.open(file.toPath(), StandardCharsets.UTF_8, 4);
+        assertThat(reader).isNotInstanceOf(MappedFileReader.class);
+        assertThat(CharStreams.toString(reader)).isEqualTo(".a{content:'é'}");
+        assertThat(reader.read(new char[4], 0, 4)).isEqualTo(-1);
+    }
+
+    @Test
+    public void openMapsUpToLimit() throws IOException {
+        File file = folder.newFile("test.css");
+        Files.write(file.toPath(), "abcd".getBytes(StandardCharsets.UTF_8));
+        assertThat(MappedFileReader.open(file.toPath(), StandardCharsets.UTF_8, 4)).isInstanceOf(MappedFileReader.class);
+    }
+
+    private static MappedFileReader reader(String css) {
+        return new MappedFileReader(ByteBuffer.wrap(css.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.broadcast.annotation.Observe;
+import com.salesforce.omakase.broadcast.annotation.Rework;
+import com.salesforce.omakase.error.ProblemSummaryException;
+import com.salesforce.omakase.plugin.DependentPlugin;
+import com.salesforce.omakase.plugin.Plugin;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import com.salesforce.omakase.plugin.core.StandardValidation;
+import com.salesforce.omakase.plugin.core.SyntaxTree;
+import com.salesforce.omakase.plugin.syntax.DeclarationPlugin;
+import com.salesforce.omakase.plugin.syntax.SelectorPlugin;
+import com.salesforce.omakase.writer.StyleWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link Pipeline}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class PipelineTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void resolvesDependenciesWhenBuilt() {
+        Pipeline pipeline = Omakase.pipeline().use(StyleWriter::compressed).build();
+        assertThat(pipeline.plugins()).containsExactly(SyntaxTree.class, StyleWriter.class);
+    }
+
+    @Test
+    public void resolvesPreParsingDependenciesWhenBuilt() {
+        Pipeline pipeline = Omakase.pipeline().use(AutoRefine::onDemand).use(ClassNameCounter::new).build();
+        assertThat(pipeline.plugins()).contains(SelectorPlugin.class);
+        assertThat(pipeline.plugins()).doesNotContain(DeclarationPlugin.class);
+
+        PluginRegistry registry = pipeline.source(".a .b{color:red}").process();
+        assertThat(registry.retrieve(ClassNameCounter.class).get().count).isEqualTo(2);
+        assertThat(registry.retrieve(DeclarationPlugin.class).isPresent()).isFalse();
+    }
+
+    @Test
+    public void errorIfDuplicatePluginWhenBuilt() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Only one plugin instance");
+        Omakase.pipeline().use(StyleWriter::compressed).use(StyleWriter::inline).build();
+    }
+
+    @Test
+    public void errorIfSupplierReturnsNull() {
+        exception.expect(NullPointerException.class);
+        Omakase.pipeline().use(() -> null).build();
+    }
+
+    @Test
+    public void freshPluginsForEachRequest() {
+        Pipeline pipeline = Omakase.pipeline()
+            .use(StyleWriter::compressed)
+            .use(PrefixClassNames::new)
+            .build();
+
+        PluginRegistry first = pipeline.source(".a{color:red}").process();
+        PluginRegistry second = pipeline.source(".b{margin:0}").process();
+
+        StyleWriter writer1 = first.retrieve(StyleWriter.class).get();
+        StyleWriter writer2 = second.retrieve(StyleWriter.class).get();
+
+        assertThat(writer1).isNotSameAs(writer2);
+        assertThat(writer1.write()).isEqualTo(".x-a{color:red}");
+        assertThat(writer2.write()).isEqualTo(".x-b{margin:0}");
+    }
+
+    @Test
+    public void sameOutputAsRequest() {
+        String css = ".a .b > p:hover, #c::after {color:red; border: 1px solid #fff; margin:0 auto}\n@media print {.d{top:0}}";
+
+        StyleWriter expected = StyleWriter.compressed();
+        Omakase.source(css).use(expected).use(new PrefixClassNames()).use(new StandardValidation()).process();
+
+        Pipeline pipeline = Omakase.pipeline()
+            .use(StyleWriter::compressed)
+            .use(PrefixClassNames::new)
+            .use(StandardValidation::new)
+            .build();
+
+        for (int i = 0; i < 3; i++) {
+            PluginRegistry registry = pipeline.source(css).process();
+            assertThat(registry.retrieve(StyleWriter.class).get().write()).isEqualTo(expected.write());
+        }
+    }
+
+    @Test
+    public void validationErrorsPerRequest() {
+        Pipeline pipeline = Omakase.pipeline().use(StandardValidation::new).build();
+
+        pipeline.source(".a{color:red}").process();
+
+        exception.expect(ProblemSummaryException.class);
+        pipeline.source(".a::after.b{color:red}").process();
+    }
+
+    @Test
+    public void additionalPluginsInRequest() {
+        Pipeline pipeline = Omakase.pipeline().use(StyleWriter::compressed).build();
+
+        PrefixClassNames prefixer = new PrefixClassNames();
+        PluginRegistry registry = pipeline.source(".a{color:red}").use(prefixer).process();
+
+        assertThat(registry.retrieve(StyleWriter.class).get().write()).isEqualTo(".x-a{color:red}");
+        assertThat(registry.retrieve(PrefixClassNames.class).get()).isSameAs(prefixer);
+    }
+
+    public static final class PrefixClassNames implements DependentPlugin {
+        @Override
+        public void dependencies(PluginRegistry registry) {
+            registry.require(SelectorPlugin.class);
+        }
+
+        @Rework
+        public void rework(ClassSelector selector) {
+            selector.name("x-" + selector.name());
+        }
+    }
+
+    public static final class ClassNameCounter implements Plugin {
+        int count;
+
+        @Observe
+        public void observe(ClassSelector selector) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase;
+
+import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.broadcast.annotation.Rework;
+import com.salesforce.omakase.broadcast.annotation.Validate;
+import com.salesforce.omakase.error.DefaultErrorManager;
+import com.salesforce.omakase.error.ErrorLevel;
+import com.salesforce.omakase.error.ErrorManager;
+import com.salesforce.omakase.plugin.Plugin;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RequestStats}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class RequestStatsTest {
+    private static final String CSS = ".a {color:red} @media (max-width:800px) {.b {color:blue} .c {margin:0}}";
+
+    @Test
+    public void absentWhenNotEnabled() {
+        assertThat(Omakase.source(CSS).process().stats().isPresent()).isFalse();
+    }
+
+    @Test
+    public void inputLength() {
+        RequestStats stats = Omakase.source(CSS).stats().process().stats().get();
+        assertThat(stats.inputLength()).isEqualTo(CSS.length());
+    }
+
+    @Test
+    public void inputLengthWhenStreaming() {
+        RequestStats stats = Omakase.source(new StringReader(CSS)).stats().process().stats().get();
+        assertThat(stats.inputLength()).isEqualTo(CSS.length());
+    }
+
+    @Test
+    public void countsStatements() {
+        RequestStats stats = Omakase.source(CSS).stats().use(AutoRefine.everything()).process().stats().get();
+        assertThat(stats.statements()).isEqualTo(4);
+    }
+
+    @Test
+    public void countsUnitsOnce() {
+        RequestStats unrefined = Omakase.source(CSS).stats().process().stats().get();
+        RequestStats refined = Omakase.source(CSS).stats().use(AutoRefine.everything()).process().stats().get();
+        assertThat(unrefined.units()).isGreaterThan(0);
+        assertThat(refined.units()).isGreaterThan(unrefined.units());
+    }
+
+    @Test
+    public void doesNotCountUnitsCreatedDuringProcess() {
+        RequestStats base = Omakase.source(".a {}").stats().use(AutoRefine.everything()).process().stats().get();
+        RequestStats added = Omakase.source(".a {}").stats().use(AutoRefine.everything()).use(new Appender()).process()
+            .stats().get();
+        assertThat(added.units()).isEqualTo(base.units());
+    }
+
+    @Test
+    public void times() {
+        RequestStats stats = Omakase.source(CSS).stats().use(AutoRefine.everything()).process().stats().get();
+        assertThat(stats.parseNanos()).isGreaterThan(0);
+        assertThat(stats.processNanos()).isGreaterThan(0);
+        assertThat(stats.validateNanos()).isGreaterThan(0);
+        assertThat(stats.postProcessNanos()).isGreaterThan(0);
+        assertThat(stats.totalNanos()).isEqualTo(
+            stats.parseNanos() + stats.processNanos() + stats.validateNanos() + stats.postProcessNanos());
+    }
+
+    @Test
+    public void countsErrors() {
+        QuietErrorManager em = new QuietErrorManager();
+        RequestStats stats = Omakase.source(CSS).stats().use(em).use(AutoRefine.everything()).use(new Reporter())
+            .process().stats().get();
+
+        assertThat(stats.errors()).isEqualTo(3);
+        assertThat(stats.warnings()).isEqualTo(3);
+        assertThat(stats.exceptions()).isEqualTo(0);
+        assertThat(em.reported).isEqualTo(6);
+    }
+
+    @Test
+    public void countsParserErrors() {
+        RequestStats stats = Omakase.source(".a {color:red").stats().use(new QuietErrorManager().rethrow(false))
+            .process().stats().get();
+        assertThat(stats.errors()).isEqualTo(1);
+        assertThat(stats.parseNanos()).isEqualTo(0);
+    }
+
+    @Test
+    public void toStringTest() {
+        assertThat(Omakase.source(CSS).stats().process().stats().get().toString()).contains("inputLength");
+    }
+
+    public static final class QuietErrorManager extends DefaultErrorManager {
+        int reported;
+
+        @Override
+        public void report(ErrorLevel level, Syntax cause, String message) {
+            reported++;
+            super.report(level, cause, message);
+        }
+
+        @Override
+        public boolean autoSummarize() {
+            return false;
+        }
+    }
+
+    public static final class Appender implements Plugin {
+        @Rework
+        public void rework(ClassSelector selector) {
+            if (selector.name().equals("a")) {
+                selector.append(new ClassSelector("appended"));
+            }
+        }
+    }
+
+    public static final class Reporter implements Plugin {
+        @Validate
+        public void validate(ClassSelector selector, ErrorManager em) {
+            em.report(ErrorLevel.FATAL, (Syntax)selector, "error");
+            em.report(ErrorLevel.WARNING, (Syntax)selector, "warning");
+        }
+    }
+}
@@ -35,6 +35,11 @@ import com.salesforce.omakase.writer.StyleWriter;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -336,6 +341,38 @@ public class AbstractSyntaxTest {
         assertThat(t1.id()).isNotEqualTo(t2.id());
     }
 
+    @Test
+    public void idIsStable() {
+        TestSyntax t = new TestSyntax();
+        int id = t.id();
+        assertThat(t.id()).isEqualTo(id);
+    }
+
+    @Test
+    public void idIsStableAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                TestSyntax t = new TestSyntax();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> ids = Lists.newArrayList();
+                for (int j = 0; j < 4; j++) {
+                    ids.add(executor.submit(() -> {
+                        start.await();
+                        return t.id();
+                    }));
+                }
+                start.countDown();
+
+                for (Future<Integer> id : ids) {
+                    assertThat(id.get()).isEqualTo(t.id());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     public static final class TestSyntax extends AbstractSyntax {
         private String name;
 
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.ast;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.ast.atrule.AtRule;
+import com.salesforce.omakase.ast.atrule.GenericAtRuleBlock;
+import com.salesforce.omakase.ast.atrule.GenericAtRuleExpression;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.declaration.KeywordValue;
+import com.salesforce.omakase.ast.declaration.PropertyValue;
+import com.salesforce.omakase.ast.collection.SyntaxCollection;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.ast.selector.Selector;
+import com.salesforce.omakase.ast.selector.SelectorPart;
+import com.salesforce.omakase.broadcast.AbstractBroadcaster;
+import com.salesforce.omakase.broadcast.Broadcastable;
+import com.salesforce.omakase.broadcast.Broadcaster;
+import com.salesforce.omakase.broadcast.QueryableBroadcaster;
+import com.salesforce.omakase.data.Keyword;
+import com.salesforce.omakase.data.Property;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/** Unit tests for {@link Propagation}. */
+@SuppressWarnings("JavaDoc")
+public class PropagationTest {
+    @Test
+    public void childrenBeforeParents() {
+        ClassSelector a = new ClassSelector("a");
+        ClassSelector b = new ClassSelector("b");
+        Selector selector = new Selector(a, b);
+        KeywordValue value = KeywordValue.of(Keyword.NONE);
+        Declaration declaration = new Declaration(Property.DISPLAY, value);
+        Rule rule = new Rule();
+        rule.selectors().append(selector);
+        rule.declarations().append(declaration);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        rule.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.all()).containsExactly(a, b, selector, value, declaration.propertyValue(), declaration, rule);
+    }
+
+    @Test
+    public void onlyMatchingStatus() {
+        ClassSelector a = new ClassSelector("a");
+        ClassSelector b = new ClassSelector("b");
+        Selector selector1 = new Selector(a);
+        Selector selector2 = new Selector(b);
+        Rule rule = new Rule();
+        rule.selectors().append(selector1).append(selector2);
+        selector1.status(Status.PROCESSED);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        rule.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.all()).containsExactly(b, selector2, rule);
+    }
+
+    @Test
+    public void nothingWhenTopStatusDoesNotMatch() {
+        Selector selector = new Selector(new ClassSelector("a"));
+        selector.status(Status.PROCESSED);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        selector.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.hasAny()).isFalse();
+    }
+
+    @Test
+    public void collection() {
+        Selector selector1 = new Selector(new ClassSelector("a"));
+        Selector selector2 = new Selector(new ClassSelector("b"));
+        Rule rule = new Rule();
+        rule.selectors().append(selector1).append(selector2);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        rule.selectors().propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.filter(Selector.class)).containsExactly(selector1, selector2);
+        assertThat(qb.find(Rule.class).isPresent()).isFalse();
+    }
+
+    @Test
+    public void skipsEmptyPropertyValue() {
+        PropertyValue value = new PropertyValue();
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        value.propagateBroadcast(qb, Status.PARSED);
+        assertThat(qb.hasAny()).isFalse();
+    }
+
+    @Test
+    public void deeplyNested() {
+        AtRule innermost = new AtRule("x", new GenericAtRuleExpression("y"), null);
+        AtRule outermost = innermost;
+        for (int i = 0; i < 50000; i++) {
+            outermost = new AtRule("x", null, new GenericAtRuleBlock(ImmutableList.of(outermost)));
+        }
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        outermost.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.filter(AtRule.class)).hasSize(50001);
+        assertThat(qb.filter(GenericAtRuleBlock.class)).hasSize(50000);
+        assertThat(qb.all().get(0)).isInstanceOf(GenericAtRuleExpression.class);
+        assertThat(qb.all().get(1)).isSameAs(innermost);
+        assertThat(qb.all().get(qb.count() - 1)).isSameAs(outermost);
+    }
+
+    @Test
+    public void unitAppendedDuringPropagation() {
+        ClassSelector a = new ClassSelector("a");
+        ClassSelector b = new ClassSelector("b");
+        ClassSelector c = new ClassSelector("c");
+        Selector selector = new Selector(a, b);
+
+        Processing processing = new Processing(unit -> {
+            if (unit == a) b.append(c);
+        });
+        selector.propagateBroadcast(processing, Status.PARSED);
+
+        assertThat(processing.broadcasted).containsExactly(a, c, b, selector);
+    }
+
+    @Test
+    public void unitDestroyedDuringPropagation() {
+        ClassSelector a = new ClassSelector("a");
+        ClassSelector b = new ClassSelector("b");
+        ClassSelector c = new ClassSelector("c");
+        Selector selector = new Selector(a, b, c);
+
+        Processing processing = new Processing(unit -> {
+            if (unit == a) b.destroy();
+        });
+        selector.propagateBroadcast(processing, Status.PARSED);
+
+        assertThat(processing.broadcasted).containsExactly(a, c, selector);
+    }
+
+    @Test
+    public void blockReplacedDuringPropagation() {
+        GenericAtRuleExpression expression = new GenericAtRuleExpression("y");
+        GenericAtRuleBlock block = new GenericAtRuleBlock();
+        GenericAtRuleBlock replacement = new GenericAtRuleBlock();
+        AtRule atRule = new AtRule("x", expression, block);
+
+        Processing processing = new Processing(unit -> {
+            if (unit == expression) atRule.block(replacement);
+        });
+        atRule.propagateBroadcast(processing, Status.PARSED);
+
+        assertThat(processing.broadcasted).containsExactly(expression, replacement, atRule);
+    }
+
+    @Test
+    public void blockAddedDuringPropagation() {
+        GenericAtRuleExpression expression = new GenericAtRuleExpression("y");
+        GenericAtRuleBlock block = new GenericAtRuleBlock();
+        AtRule atRule = new AtRule("x", expression, null);
+
+        Processing processing = new Processing(unit -> {
+            if (unit == expression) atRule.block(block);
+        });
+        atRule.propagateBroadcast(processing, Status.PARSED);
+
+        assertThat(processing.broadcasted).containsExactly(expression, block, atRule);
+    }
+
+    @Test
+    public void leaf() {
+        ClassSelector a = new ClassSelector("a");
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        a.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.all()).containsExactly(a);
+    }
+
+    @Test
+    public void subclassOfLeafWithChildren() {
+        KeywordValue value = KeywordValue.of(Keyword.NONE);
+        GenericAtRuleExpression expression = new GenericAtRuleExpression("y") {
+            @Override
+            protected void propagateChildren(Propagation propagation) {
+                propagation.child(value);
+            }
+        };
+        AtRule atRule = new AtRule("x", expression, null);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        atRule.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(qb.all()).containsExactly(value, expression, atRule);
+    }
+
+    @Test
+    public void customPropagation() {
+        List<Broadcastable> custom = new ArrayList<>();
+        GenericAtRuleExpression expression = new GenericAtRuleExpression("y") {
+            @Override
+            public void propagateBroadcast(Broadcaster broadcaster, Status status) {
+                custom.add(this);
+                super.propagateBroadcast(broadcaster, status);
+            }
+        };
+        AtRule atRule = new AtRule("x", expression, null);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        atRule.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(custom).containsExactly(expression);
+        assertThat(qb.all()).containsExactly(expression, atRule);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void customCollection() {
+        ClassSelector a = new ClassSelector("a");
+        ClassSelector b = new ClassSelector("b");
+        SyntaxCollection<Selector, SelectorPart> parts = new Selector(a, b).parts();
+
+        // any other implementation of the interface, delegating to a standard collection
+        List<Status> propagated = new ArrayList<>();
+        SyntaxCollection<Selector, SelectorPart> custom = (SyntaxCollection<Selector, SelectorPart>)Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{SyntaxCollection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("propagateBroadcast")) propagated.add((Status)args[1]);
+                return method.invoke(parts, args);
+            });
+
+        GenericAtRuleExpression expression = new GenericAtRuleExpression("y") {
+            @Override
+            protected void propagateChildren(Propagation propagation) {
+                propagation.children(custom);
+            }
+        };
+        AtRule atRule = new AtRule("x", expression, null);
+
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        atRule.propagateBroadcast(qb, Status.PARSED);
+
+        assertThat(propagated).containsExactly(Status.PARSED);
+        assertThat(qb.all()).containsExactly(a, b, expression, atRule);
+    }
+
+    /** records and marks each unit as processed, similar to the emitting broadcaster */
+    private static final class Processing extends AbstractBroadcaster {
+        final List<Broadcastable> broadcasted = new ArrayList<>();
+        final Consumer<Broadcastable> action;
+
+        Processing(Consumer<Broadcastable> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void broadcast(Broadcastable broadcastable) {
+            if (broadcastable.status() == Status.PARSED) {
+                broadcastable.status(Status.PROCESSED);
+                broadcasted.add(broadcastable);
+                action.accept(broadcastable);
+            }
+        }
+    }
+}
@@ -26,6 +26,9 @@
 
 package com.salesforce.omakase.ast;
 
+import com.salesforce.omakase.parser.CharSlice;
+import com.salesforce.omakase.parser.Source;
+import com.salesforce.omakase.parser.token.Tokens;
 import com.salesforce.omakase.writer.StyleWriter;
 import org.junit.Test;
 
@@ -63,4 +66,24 @@ public class RawSyntaxTest {
         RawSyntax r = new RawSyntax(5, 5, ".class > #id");
         assertThat(StyleWriter.verbose().writeSingle(r)).isEqualTo(".class > #id");
     }
+
+    @Test
+    public void sliceContent() {
+        RawSyntax raw = new RawSyntax(1, 1, new Source("abc;def").untilSlice(Tokens.SEMICOLON));
+        assertThat(raw.view()).isInstanceOf(CharSlice.class);
+        assertThat(raw.content()).isEqualTo("abc");
+        assertThat(raw.content()).isSameAs(raw.content());
+    }
+
+    @Test
+    public void writeSlice() throws IOException {
+        RawSyntax r = new RawSyntax(5, 5, new Source("a{.class > #id}").skip().skip().untilSlice(Tokens.CLOSE_BRACE));
+        assertThat(StyleWriter.verbose().writeSingle(r)).isEqualTo(".class > #id");
+    }
+
+    @Test
+    public void copySlice() {
+        RawSyntax raw = new RawSyntax(1, 1, new Source("abc;def").untilSlice(Tokens.SEMICOLON));
+        assertThat(raw.copy().view()).isSameAs(raw.view());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast;
+
+import com.salesforce.omakase.ast.declaration.KeywordValue;
+import com.salesforce.omakase.ast.declaration.NumericalValue;
+import com.salesforce.omakase.ast.declaration.PropertyValue;
+import com.salesforce.omakase.ast.declaration.Term;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.ast.selector.SelectorPart;
+import com.salesforce.omakase.data.Keyword;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CollectingBroadcaster}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class CollectingBroadcasterTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void collectsEachTypeSeparately() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class, SelectorPart.class);
+        NumericalValue nv = NumericalValue.of(12, "px");
+        ClassSelector cs = new ClassSelector("test");
+        KeywordValue kv = KeywordValue.of(Keyword.NONE);
+
+        b.broadcast(nv);
+        b.broadcast(cs);
+        b.broadcast(kv);
+
+        assertThat(b.collected(Term.class)).containsExactly(nv, kv);
+        assertThat(b.collected(SelectorPart.class)).containsExactly(cs);
+        assertThat(b.first(Term.class)).isSameAs(nv);
+    }
+
+    @Test
+    public void ignoresBroadcastsOfWrongType() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class);
+        b.broadcast(new PropertyValue());
+        b.broadcast(new ClassSelector("test"));
+
+        assertThat(b.collected(Term.class)).isEmpty();
+        assertThat(b.first(Term.class)).isNull();
+    }
+
+    @Test
+    public void errorsIfTypeNotCollected() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class);
+        exception.expect(IllegalArgumentException.class);
+        b.collected(SelectorPart.class);
+    }
+
+    @Test
+    public void relaysAll() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class);
+        QueryableBroadcaster qb = b.chain(new QueryableBroadcaster());
+
+        NumericalValue nv = NumericalValue.of(12, "px");
+        ClassSelector cs = new ClassSelector("test");
+        b.broadcast(nv);
+        b.broadcast(cs);
+
+        assertThat(qb.all()).containsExactly(nv, cs);
+    }
+
+    @Test
+    public void collectClearsPrevious() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class);
+        b.broadcast(NumericalValue.of(12, "px"));
+
+        KeywordValue kv = KeywordValue.of(Keyword.NONE);
+        ClassSelector cs = new ClassSelector("test");
+        b.collect(SelectorPart.class, Term.class);
+        b.broadcast(kv);
+        b.broadcast(cs);
+
+        assertThat(b.collected(Term.class)).containsExactly(kv);
+        assertThat(b.collected(SelectorPart.class)).containsExactly(cs);
+    }
+
+    @Test
+    public void resetClearsAndCuts() {
+        CollectingBroadcaster b = new CollectingBroadcaster(Term.class);
+        QueryableBroadcaster qb = b.chain(new QueryableBroadcaster());
+        b.broadcast(NumericalValue.of(12, "px"));
+
+        b.reset();
+        b.collect(Term.class);
+        b.broadcast(KeywordValue.of(Keyword.NONE));
+
+        assertThat(b.collected(Term.class)).hasSize(1);
+        assertThat(qb.count()).isEqualTo(1);
+    }
+}
@@ -32,7 +32,9 @@ import com.salesforce.omakase.ast.selector.ClassSelector;
 import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.broadcast.annotation.Refine;
 import com.salesforce.omakase.broadcast.annotation.Rework;
+import com.salesforce.omakase.broadcast.annotation.Validate;
 import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.error.ErrorManager;
 import com.salesforce.omakase.parser.Grammar;
 import com.salesforce.omakase.plugin.Plugin;
 import org.junit.Test;
@@ -68,6 +70,67 @@ public class EmittingBroadcasterTest {
         assertThat(ip.called).isFalse();
     }
 
+    @Test
+    public void advancesStatusWithoutSubscribers() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        eb.register(new InnerPlugin());
+        eb.phase(SubscriptionPhase.PROCESS);
+        Selector selector = new Selector(new ClassSelector("test"));
+        selector.status(Status.PARSED);
+        eb.broadcast(selector);
+        assertThat(selector.status()).isSameAs(Status.PROCESSED);
+    }
+
+    @Test
+    public void countsOnlyActualEmits() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        eb.register(new InnerPlugin());
+        eb.phase(SubscriptionPhase.PROCESS);
+
+        eb.broadcast(new ClassSelector(1, 1, "test"));
+        assertThat(eb.emitted()).isEqualTo(1);
+
+        Selector selector = new Selector(new ClassSelector("test"));
+        selector.status(Status.PARSED);
+        eb.broadcast(selector);
+        assertThat(eb.emitted()).isEqualTo(1);
+    }
+
+    @Test
+    public void relaysWithoutSubscribers() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        InnerBroadcaster ib = eb.chain(new InnerBroadcaster());
+        eb.phase(SubscriptionPhase.VALIDATE);
+
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+        cs.status(Status.PROCESSED);
+        eb.broadcast(cs);
+        assertThat(ib.called).isTrue();
+    }
+
+    @Test
+    public void skipsStatusWhenNothingObservesIt() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        eb.register(new InnerPlugin());
+        eb.phase(SubscriptionPhase.VALIDATE);
+
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+        cs.status(Status.PROCESSED);
+        eb.broadcast(cs);
+        assertThat(cs.status()).isSameAs(Status.PROCESSED);
+    }
+
+    @Test
+    public void advancesStatusForLaterSubscribers() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        eb.register(new ValidatingPlugin());
+        eb.phase(SubscriptionPhase.PROCESS);
+
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+        eb.broadcast(cs);
+        assertThat(cs.status()).isSameAs(Status.PROCESSED);
+    }
+
     @Test
     public void relaysToInner() {
         EmittingBroadcaster eb = new EmittingBroadcaster();
@@ -112,6 +175,12 @@ public class EmittingBroadcasterTest {
         }
     }
 
+    @SuppressWarnings("UnusedParameters")
+    public static final class ValidatingPlugin implements Plugin {
+        @Validate
+        public void validate(ClassSelector selector, ErrorManager em) {}
+    }
+
     public static final class InnerBroadcaster extends AbstractBroadcaster {
         boolean called = false;
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast;
+
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.ast.Rule;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.ast.selector.Selector;
+import com.salesforce.omakase.broadcast.annotation.Rework;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.plugin.Plugin;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ProfilingBroadcaster}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class ProfilingBroadcasterTest {
+    @Test
+    public void relaysToInner() {
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(qb);
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+        pb.broadcast(cs);
+        assertThat(qb.all()).containsExactly(cs);
+    }
+
+    @Test
+    public void relaysWhenDisabled() {
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(qb).enabled(false);
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+        pb.broadcast(cs);
+        assertThat(qb.all()).containsExactly(cs);
+        assertThat(pb.results()).isEmpty();
+    }
+
+    @Test
+    public void countsWithoutEmittingBroadcaster() {
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(new NoopBroadcaster());
+        pb.broadcast(new ClassSelector(1, 1, "test"));
+        pb.broadcast(new ClassSelector(1, 1, "test"));
+
+        assertThat(pb.results()).hasSize(1);
+        ProfilingBroadcaster.Stats stats = pb.results().get(0);
+        assertThat(stats.type() == ClassSelector.class).isTrue();
+        assertThat(stats.phase()).isNull();
+        assertThat(stats.broadcasts()).isEqualTo(2);
+        assertThat(stats.emitted()).isEqualTo(0);
+    }
+
+    @Test
+    public void countsEmittedPerPhase() {
+        EmittingBroadcaster eb = new EmittingBroadcaster();
+        eb.register(new ReworkPlugin());
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(eb);
+
+        ClassSelector cs = new ClassSelector(1, 1, "test");
+
+        eb.phase(SubscriptionPhase.REFINE);
+        pb.broadcast(cs);
+        eb.phase(SubscriptionPhase.PROCESS);
+        pb.broadcast(cs);
+        pb.broadcast(cs); // already processed
+
+        ProfilingBroadcaster.Stats refine = pb.result(ClassSelector.class, SubscriptionPhase.REFINE).get();
+        assertThat(refine.broadcasts()).isEqualTo(1);
+        assertThat(refine.emitted()).isEqualTo(0);
+
+        ProfilingBroadcaster.Stats process = pb.result(ClassSelector.class, SubscriptionPhase.PROCESS).get();
+        assertThat(process.broadcasts()).isEqualTo(2);
+        assertThat(process.emitted()).isEqualTo(1);
+        assertThat(process.totalNanos()).isGreaterThanOrEqualTo(process.selfNanos());
+
+        assertThat(pb.result(ClassSelector.class, SubscriptionPhase.VALIDATE).isPresent()).isFalse();
+    }
+
+    @Test
+    public void resultsAreSnapshots() {
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(new NoopBroadcaster());
+        pb.broadcast(new ClassSelector(1, 1, "test"));
+        ProfilingBroadcaster.Stats stats = pb.results().get(0);
+        pb.broadcast(new ClassSelector(1, 1, "test"));
+        assertThat(stats.broadcasts()).isEqualTo(1);
+    }
+
+    @Test
+    public void reset() {
+        ProfilingBroadcaster pb = new ProfilingBroadcaster(new NoopBroadcaster());
+        pb.broadcast(new ClassSelector(1, 1, "test"));
+        pb.reset();
+        assertThat(pb.results()).isEmpty();
+    }
+
+    @Test
+    public void profilesFullRequest() {
+        ProfilingBroadcaster pb = new ProfilingBroadcaster();
+        Omakase.source(".a, .b {color:red; margin:0} .c {color:blue}")
+            .broadcaster(pb)
+            .use(AutoRefine.everything())
+            .use(new ReworkPlugin())
+            .process();
+
+        // nothing subscribes to rules, so they are broadcasted but not emitted
+        Optional<ProfilingBroadcaster.Stats> rules = pb.result(Rule.class, SubscriptionPhase.PROCESS);
+        assertThat(rules.get().broadcasts()).isEqualTo(2);
+        assertThat(rules.get().emitted()).isEqualTo(0);
+
+        Optional<ProfilingBroadcaster.Stats> classSelectors = pb.result(ClassSelector.class, SubscriptionPhase.PROCESS);
+        assertThat(classSelectors.get().broadcasts()).isEqualTo(3);
+        assertThat(classSelectors.get().emitted()).isEqualTo(3);
+
+        Optional<ProfilingBroadcaster.Stats> selectors = pb.result(Selector.class, SubscriptionPhase.REFINE);
+        assertThat(selectors.get().emitted()).isEqualTo(3);
+
+        Optional<ProfilingBroadcaster.Stats> declarations = pb.result(Declaration.class, SubscriptionPhase.VALIDATE);
+        assertThat(declarations.get().broadcasts()).isEqualTo(3);
+        assertThat(declarations.get().emitted()).isEqualTo(0);
+
+        assertThat(pb.toString()).contains("ClassSelector");
+    }
+
+    public static final class ReworkPlugin implements Plugin {
+        @Rework
+        public void rework(ClassSelector selector) {}
+    }
+}
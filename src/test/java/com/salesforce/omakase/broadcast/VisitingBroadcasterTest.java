@@ -73,4 +73,16 @@ public class VisitingBroadcasterTest {
         assertThat(qb.all().get(0)).isSameAs(cs);
         assertThat(qb.all().get(1)).isSameAs(selector);
     }
+
+    @Test
+    public void lockKeepsTarget() {
+        VisitingBroadcaster vb = new VisitingBroadcaster();
+
+        ClassSelector cs = new ClassSelector("class");
+        vb.broadcast(cs);
+        vb.lock();
+        vb.broadcast(new ClassSelector("other"));
+
+        assertThat(vb.target().get()).isSameAs(cs);
+    }
 }
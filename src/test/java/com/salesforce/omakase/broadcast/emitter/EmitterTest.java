@@ -28,9 +28,12 @@ package com.salesforce.omakase.broadcast.emitter;
 
 import com.google.common.collect.Lists;
 import com.salesforce.omakase.ast.AbstractSyntax;
+import com.salesforce.omakase.ast.RawFunction;
 import com.salesforce.omakase.ast.Refinable;
 import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.ast.selector.IdSelector;
+import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.ast.selector.SimpleSelector;
 import com.salesforce.omakase.broadcast.Broadcaster;
 import com.salesforce.omakase.broadcast.NoopBroadcaster;
@@ -97,6 +100,43 @@ public class EmitterTest {
         assertThat(plugin.calledSimpleSelector).isTrue();
     }
 
+    @Test
+    public void hasSubscribers() {
+        Emitter emitter = new Emitter();
+        emitter.register(new EmitterPlugin());
+
+        emitter.phase(SubscriptionPhase.PROCESS);
+        assertThat(emitter.hasSubscribers(ClassSelector.class)).isTrue();
+        assertThat(emitter.hasSubscribers(IdSelector.class)).isTrue(); // via SimpleSelector
+        assertThat(emitter.hasSubscribers(Selector.class)).isFalse();
+
+        emitter.phase(SubscriptionPhase.VALIDATE);
+        assertThat(emitter.hasSubscribers(ClassSelector.class)).isFalse();
+    }
+
+    @Test
+    public void hasLaterSubscribers() {
+        Emitter emitter = new Emitter();
+        emitter.register(new EmitterPlugin());
+
+        emitter.phase(SubscriptionPhase.REFINE);
+        assertThat(emitter.hasLaterSubscribers(ClassSelector.class)).isTrue();
+        assertThat(emitter.hasLaterSubscribers(Selector.class)).isFalse();
+
+        emitter.phase(SubscriptionPhase.PROCESS);
+        assertThat(emitter.hasLaterSubscribers(ClassSelector.class)).isFalse();
+    }
+
+    @Test
+    public void hasSubscribersAfterLateRegistration() {
+        Emitter emitter = new Emitter();
+        emitter.phase(SubscriptionPhase.PROCESS);
+        assertThat(emitter.hasSubscribers(ClassSelector.class)).isFalse();
+
+        emitter.register(new EmitterPlugin2());
+        assertThat(emitter.hasSubscribers(ClassSelector.class)).isTrue();
+    }
+
     @Test
     public void samePluginTwice() {
         Emitter emitter = new Emitter();
@@ -173,6 +213,259 @@ public class EmitterTest {
         assertThat(second.validateCalled).isFalse();
     }
 
+    @Test
+    public void profileDisabledByDefault() {
+        Emitter emitter = new Emitter();
+        emitter.register(new EmitterPlugin2());
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+
+        assertThat(emitter.profile()).isFalse();
+        assertThat(emitter.stats()).hasSize(1);
+        assertThat(emitter.stats().get(0).invocations()).isEqualTo(0);
+    }
+
+    @Test
+    public void profileRecordsInvocations() {
+        Emitter emitter = new Emitter();
+        EmitterPlugin plugin = new EmitterPlugin();
+        EmitterPlugin2 plugin2 = new EmitterPlugin2();
+        emitter.register(plugin2);
+        emitter.register(plugin);
+        emitter.profile(true);
+
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        emitter.emit(new IdSelector("test"), grammar, broadcaster, em);
+
+        List<SubscriptionStats> stats = emitter.stats();
+        assertThat(stats).hasSize(3);
+
+        assertThat(stats.get(0).subscriber() == EmitterPlugin2.class).isTrue();
+        assertThat(stats.get(0).event() == ClassSelector.class).isTrue();
+        assertThat(stats.get(0).phase()).isSameAs(SubscriptionPhase.PROCESS);
+        assertThat(stats.get(0).invocations()).isEqualTo(2);
+
+        int simple = stats.get(1).event() == SimpleSelector.class ? 1 : 2;
+        assertThat(stats.get(simple).method().getName()).isEqualTo("simpleSelector");
+        assertThat(stats.get(simple).invocations()).isEqualTo(3);
+        assertThat(stats.get(3 - simple).invocations()).isEqualTo(2);
+    }
+
+    @Test
+    public void profileSkipsFilteredRefine() {
+        Emitter emitter = new Emitter();
+        NamedRefiner refiner = new NamedRefiner();
+        emitter.register(refiner);
+        emitter.profile(true);
+        emitter.phase(SubscriptionPhase.REFINE);
+
+        emitter.emit(new RawFunction(1, 1, "foo", "1"), grammar, broadcaster, em);
+        emitter.emit(new RawFunction(1, 1, "bar", "1"), grammar, broadcaster, em);
+
+        assertThat(refiner.count).isEqualTo(1);
+        assertThat(emitter.stats().get(0).invocations()).isEqualTo(1);
+    }
+
+    @Test
+    public void namedRefinersOnlyReceiveMatchingNames() {
+        List<String> calls = Lists.newArrayList();
+        Emitter emitter = new Emitter();
+        emitter.register(new OrderedRefiner("first", calls));
+        emitter.register(new NamedRefiner());
+        emitter.register(new NamedRefiner2(calls));
+        emitter.register(new OrderedRefiner("last", calls));
+        emitter.phase(SubscriptionPhase.REFINE);
+
+        emitter.emit(new RawFunction(1, 1, "BAR", "1"), grammar, broadcaster, em);
+        assertThat(calls).containsExactly("first", "bar", "last");
+
+        calls.clear();
+        emitter.emit(new RawFunction(1, 1, "baz", "1"), grammar, broadcaster, em);
+        assertThat(calls).containsExactly("first", "last");
+    }
+
+    @Test
+    public void planMaintainsRegistrationOrder() {
+        List<Plugin> list = Lists.newArrayList();
+        TestOrder1 t1 = new TestOrder1(list);
+        TestIntfOrder1 t2 = new TestIntfOrder1(list);
+        TestOrder3 t3 = new TestOrder3(list);
+
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(TestOrder1.class, TestIntfOrder1.class, TestOrder3.class));
+        Emitter emitter = new Emitter();
+        emitter.register(plan, Lists.newArrayList(t1, t2, t3));
+
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        assertThat(list).containsExactly(t1, t2, t2, t3);
+    }
+
+    @Test
+    public void planSharedBetweenEmitters() {
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(EmitterPlugin.class));
+
+        EmitterPlugin first = new EmitterPlugin();
+        Emitter emitter1 = new Emitter();
+        emitter1.register(plan, Lists.newArrayList(first));
+        emitter1.emit(new ClassSelector("test"), grammar, broadcaster, em);
+
+        EmitterPlugin second = new EmitterPlugin();
+        Emitter emitter2 = new Emitter();
+        emitter2.register(plan, Lists.newArrayList(second));
+        emitter2.emit(new IdSelector("test"), grammar, broadcaster, em);
+
+        assertThat(first.calledClassSelector).isTrue();
+        assertThat(first.calledSimpleSelector).isTrue();
+        assertThat(second.calledClassSelector).isFalse();
+        assertThat(second.calledSimpleSelector).isTrue();
+    }
+
+    @Test
+    public void planWithNamedRefiners() {
+        List<String> calls = Lists.newArrayList();
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(OrderedRefiner.class, NamedRefiner2.class));
+        Emitter emitter = new Emitter();
+        emitter.register(plan, Lists.newArrayList(new OrderedRefiner("first", calls), new NamedRefiner2(calls)));
+        emitter.phase(SubscriptionPhase.REFINE);
+
+        emitter.emit(new RawFunction(1, 1, "bar", "1"), grammar, broadcaster, em);
+        assertThat(calls).containsExactly("first", "bar");
+    }
+
+    @Test
+    public void planNotMatchingFallsBack() {
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(EmitterPlugin.class));
+        EmitterPlugin2 plugin = new EmitterPlugin2();
+
+        Emitter emitter = new Emitter();
+        emitter.register(plan, Lists.newArrayList(plugin));
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+
+        assertThat(plugin.count).isEqualTo(1);
+    }
+
+    @Test
+    public void registerAfterPlan() {
+        List<Plugin> list = Lists.newArrayList();
+        TestOrder1 t1 = new TestOrder1(list);
+        TestOrder2 t2 = new TestOrder2(list);
+
+        Emitter emitter = new Emitter();
+        emitter.register(SubscriptionPlan.of(Lists.newArrayList(TestOrder1.class)), Lists.newArrayList(t1));
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        emitter.register(t2);
+        emitter.emit(new ClassSelector("test"), grammar, broadcaster, em);
+
+        assertThat(list).containsExactly(t1, t1, t2);
+        assertThat(emitter.stats()).hasSize(2);
+    }
+
+    @Test
+    public void onlyLocalProcessing() {
+        Emitter emitter = new Emitter();
+        emitter.register(new EmitterPlugin());
+        assertThat(emitter.onlyLocalProcessing()).isTrue();
+
+        emitter.register(new EmitterPlugin2()); // rework
+        assertThat(emitter.onlyLocalProcessing()).isFalse();
+    }
+
+    @Test
+    public void onlyLocalProcessingWithPlan() {
+        Emitter emitter = new Emitter();
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(EmitterPlugin.class, EmitterPlugin2.class));
+        emitter.register(plan, Lists.newArrayList(new EmitterPlugin(), new EmitterPlugin2()));
+        assertThat(emitter.onlyLocalProcessing()).isFalse();
+    }
+
+    @Test
+    public void hasReworks() {
+        Emitter emitter = new Emitter();
+        emitter.register(new EmitterPlugin());
+        assertThat(emitter.hasReworks()).isFalse();
+
+        emitter.register(new LocalReworkPlugin());
+        assertThat(emitter.hasReworks()).isTrue();
+        assertThat(emitter.onlyLocalProcessing()).isTrue();
+    }
+
+    @Test
+    public void hasReworksWithPlan() {
+        Emitter emitter = new Emitter();
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(EmitterPlugin.class, LocalReworkPlugin.class));
+        emitter.register(plan, Lists.newArrayList(new EmitterPlugin(), new LocalReworkPlugin()));
+        assertThat(emitter.hasReworks()).isTrue();
+        assertThat(emitter.fork().hasReworks()).isTrue();
+    }
+
+    @Test
+    public void forkSharesSubscriptions() {
+        List<Plugin> list = Lists.newArrayList();
+        TestOrder1 t1 = new TestOrder1(list);
+        TestOrder2 t2 = new TestOrder2(list);
+
+        Emitter emitter = new Emitter();
+        emitter.register(t1);
+        emitter.register(t2);
+        emitter.profile(true);
+
+        Emitter fork = emitter.fork();
+        assertThat(fork.phase()).isSameAs(emitter.phase());
+        assertThat(fork.profile()).isFalse();
+
+        fork.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        assertThat(list).containsExactly(t1, t2);
+    }
+
+    @Test
+    public void forkWithPlan() {
+        Emitter emitter = new Emitter();
+        SubscriptionPlan plan = SubscriptionPlan.of(Lists.newArrayList(EmitterPlugin.class, EmitterPlugin2.class));
+        EmitterPlugin2 plugin = new EmitterPlugin2();
+        emitter.register(plan, Lists.newArrayList(new EmitterPlugin(), plugin));
+
+        Emitter fork = emitter.fork();
+        fork.emit(new ClassSelector("test"), grammar, broadcaster, em);
+        assertThat(plugin.count).isEqualTo(1);
+        assertThat(fork.onlyLocalProcessing()).isFalse();
+    }
+
+    public static final class OrderedRefiner implements Plugin {
+        private final String id;
+        private final List<String> calls;
+
+        OrderedRefiner(String id, List<String> calls) {
+            this.id = id;
+            this.calls = calls;
+        }
+
+        @Refine
+        public void refine(RawFunction function, Grammar grammar, Broadcaster broadcaster) {
+            calls.add(id);
+        }
+    }
+
+    public static final class NamedRefiner2 implements Plugin {
+        private final List<String> calls;
+
+        NamedRefiner2(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Refine("bar")
+        public void refine(RawFunction function, Grammar grammar, Broadcaster broadcaster) {
+            calls.add("bar");
+        }
+    }
+
+    public static final class NamedRefiner implements Plugin {
+        int count;
+
+        @Refine("foo")
+        public void refine(RawFunction function, Grammar grammar, Broadcaster broadcaster) {
+            count++;
+        }
+    }
+
     public static final class EmitterPlugin implements Plugin {
         boolean calledSimpleSelector;
         boolean calledClassSelector;
@@ -197,6 +490,11 @@ public class EmitterTest {
         }
     }
 
+    public static final class LocalReworkPlugin implements Plugin {
+        @Rework(local = true)
+        public void classSelector(ClassSelector cs) {}
+    }
+
     public static final class TestOrder1 implements Plugin {
         private final List<Plugin> list;
 
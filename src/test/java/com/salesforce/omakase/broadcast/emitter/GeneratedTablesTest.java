@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.salesforce.omakase.ast.RawFunction;
+import com.salesforce.omakase.ast.Rule;
+import com.salesforce.omakase.ast.Stylesheet;
+import com.salesforce.omakase.ast.atrule.AtRule;
+import com.salesforce.omakase.ast.atrule.MediaQueryList;
+import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.declaration.KeywordValue;
+import com.salesforce.omakase.ast.declaration.LinearGradientFunctionValue;
+import com.salesforce.omakase.ast.declaration.UrlFunctionValue;
+import com.salesforce.omakase.ast.extended.Conditional;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.ast.selector.PseudoElementSelector;
+import com.salesforce.omakase.ast.selector.Selector;
+import com.salesforce.omakase.broadcast.emitter.AnnotationScanner.SubscriptionMetadata;
+import com.salesforce.omakase.plugin.conditionals.ConditionalsCollector;
+import com.salesforce.omakase.plugin.conditionals.ConditionalsRefiner;
+import com.salesforce.omakase.plugin.conditionals.ConditionalsValidator;
+import com.salesforce.omakase.plugin.core.SyntaxTree;
+import com.salesforce.omakase.plugin.misc.DirectionFlipPlugin;
+import com.salesforce.omakase.plugin.prefixer.PrefixCleaner;
+import com.salesforce.omakase.plugin.prefixer.Prefixer;
+import com.salesforce.omakase.plugin.syntax.DeclarationPlugin;
+import com.salesforce.omakase.plugin.syntax.FontFacePlugin;
+import com.salesforce.omakase.plugin.syntax.KeyframesPlugin;
+import com.salesforce.omakase.plugin.syntax.LinearGradientPlugin;
+import com.salesforce.omakase.plugin.syntax.MediaPlugin;
+import com.salesforce.omakase.plugin.syntax.SelectorPlugin;
+import com.salesforce.omakase.plugin.syntax.SupportsPlugin;
+import com.salesforce.omakase.plugin.syntax.UnquotedIEFilterPlugin;
+import com.salesforce.omakase.plugin.syntax.UrlPlugin;
+import com.salesforce.omakase.plugin.validator.PseudoElementValidator;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link GeneratedTables}, checking the tables generated for the library itself against reflection.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class GeneratedTablesTest {
+    private static final List<Class<?>> PLUGINS = ImmutableList.of(
+        SyntaxTree.class, Prefixer.class, PrefixCleaner.class, ConditionalsCollector.class, ConditionalsRefiner.class,
+        ConditionalsValidator.class, SelectorPlugin.class, DeclarationPlugin.class, MediaPlugin.class, KeyframesPlugin.class,
+        FontFacePlugin.class, SupportsPlugin.class, UrlPlugin.class, LinearGradientPlugin.class, UnquotedIEFilterPlugin.class,
+        DirectionFlipPlugin.class, PseudoElementValidator.class);
+
+    private static final List<Class<?>> SYNTAX = ImmutableList.of(
+        ClassSelector.class, PseudoElementSelector.class, Selector.class, Declaration.class, KeywordValue.class,
+        UrlFunctionValue.class, LinearGradientFunctionValue.class, AtRule.class, MediaQueryList.class, Conditional.class,
+        RawFunction.class, Rule.class, Stylesheet.class);
+
+    @Test
+    public void subscriptionTablesMatchReflection() {
+        for (Class<?> plugin : PLUGINS) {
+            SubscriptionTable table = GeneratedTables.subscriptions(plugin);
+            assertThat(table).describedAs("table for " + plugin).isNotNull();
+            assertThat(describe(AnnotationScanner.readSubscriptionTable(table)))
+                .describedAs(plugin.getName())
+                .isEqualTo(describe(AnnotationScanner.readSubscriptionAnnotations(plugin)));
+        }
+    }
+
+    @Test
+    public void noSubscriptionTableWithoutProcessor() {
+        // test sources are compiled without the processor
+        assertThat(GeneratedTables.subscriptions(AnnotationScannerTest.class)).isNull();
+    }
+
+    @Test
+    public void hierarchyTablesMatchReflection() {
+        for (Class<?> syntax : SYNTAX) {
+            SubscribableHierarchy table = GeneratedTables.hierarchy(syntax);
+            assertThat(table).describedAs("table for " + syntax).isNotNull();
+
+            Class<?>[] generated = table.hierarchy(syntax.getName());
+            List<Class<?>> expected = Emitter.scanHierarchy(syntax);
+            if (expected.isEmpty()) {
+                assertThat(generated).describedAs(syntax.getName()).isNull();
+            } else {
+                assertThat(ImmutableSet.copyOf(generated)).describedAs(syntax.getName()).isEqualTo(ImmutableSet.copyOf(expected));
+            }
+        }
+    }
+
+    @Test
+    public void tableSubscriptionResolvesMethod() throws Exception {
+        SyntaxTree subscriber = new SyntaxTree();
+        for (SubscriptionMetadata sm : AnnotationScanner.readSubscriptionTable(GeneratedTables.subscriptions(SyntaxTree.class))) {
+            Subscription subscription = new Subscription(sm.phase, subscriber, sm.methodName, sm.params, sm.invoker, sm.name);
+            assertThat(subscription.method()).isEqualTo(SyntaxTree.class.getMethod(sm.methodName, sm.params));
+        }
+    }
+
+    private static Set<String> describe(Set<SubscriptionMetadata> metadata) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (SubscriptionMetadata sm : metadata) {
+            builder.add(sm.phase + " " + sm.event.getName() + " " + sm.name + " " + sm.local + " " + sm.rework + " " +
+                sm.methodName + Arrays.toString(sm.params));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.emitter;
+
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.error.ErrorManager;
+import com.salesforce.omakase.plugin.Plugin;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link Invoker}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class InvokerTest {
+    public static final class PublicPlugin implements Plugin {
+        ClassSelector observed;
+        ErrorManager em;
+
+        public void observe(ClassSelector selector) {
+            observed = selector;
+        }
+
+        public void validate(ClassSelector selector, ErrorManager em) {
+            observed = selector;
+            this.em = em;
+        }
+
+        public void fail(ClassSelector selector) {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    private static final class PrivatePlugin implements Plugin {
+        ClassSelector observed;
+
+        public void observe(ClassSelector selector) {
+            observed = selector;
+        }
+
+        private void hidden(ClassSelector selector) {
+            observed = selector;
+        }
+    }
+
+    @Test
+    public void invokesSpunOneArg() throws Throwable {
+        PublicPlugin plugin = new PublicPlugin();
+        Invoker invoker = Invoker.of(PublicPlugin.class.getMethod("observe", ClassSelector.class));
+        ClassSelector selector = new ClassSelector("test");
+
+        invoker.invoke(plugin, selector, null, null);
+        assertThat(invoker.arity()).isEqualTo(1);
+        assertThat(plugin.observed).isSameAs(selector);
+    }
+
+    @Test
+    public void invokesSpunTwoArgs() throws Throwable {
+        PublicPlugin plugin = new PublicPlugin();
+        Invoker invoker = Invoker.of(PublicPlugin.class.getMethod("validate", ClassSelector.class, ErrorManager.class));
+        ClassSelector selector = new ClassSelector("test");
+        ErrorManager em = new SubscriptionTest.TestErrorManager();
+
+        invoker.invoke(plugin, selector, em, null);
+        assertThat(invoker.arity()).isEqualTo(2);
+        assertThat(plugin.observed).isSameAs(selector);
+        assertThat(plugin.em).isSameAs(em);
+    }
+
+    @Test
+    public void invokesPrivateClassWhenAccessibleSet() throws Throwable {
+        PrivatePlugin plugin = new PrivatePlugin();
+        Method method = PrivatePlugin.class.getMethod("observe", ClassSelector.class);
+        method.setAccessible(true);
+        Invoker invoker = Invoker.of(method);
+        ClassSelector selector = new ClassSelector("test");
+
+        invoker.invoke(plugin, selector, null, null);
+        assertThat(plugin.observed).isSameAs(selector);
+    }
+
+    @Test(expected = IllegalAccessException.class)
+    public void throwsWhenNotAccessible() throws Throwable {
+        Invoker.of(PrivatePlugin.class.getDeclaredMethod("hidden", ClassSelector.class));
+    }
+
+    @Test
+    public void exceptionsAreNotWrapped() throws Throwable {
+        Invoker invoker = Invoker.of(PublicPlugin.class.getMethod("fail", ClassSelector.class));
+        try {
+            invoker.invoke(new PublicPlugin(), new ClassSelector("test"), null, null);
+            fail("expected exception");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("boom");
+        }
+    }
+}
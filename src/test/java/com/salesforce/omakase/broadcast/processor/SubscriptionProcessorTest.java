@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.broadcast.processor;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.omakase.broadcast.annotation.Subscribable;
+import com.salesforce.omakase.broadcast.emitter.SubscribableHierarchy;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionPhase;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionTable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SubscriptionProcessor}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class SubscriptionProcessorTest {
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String IMPORTS = "package test;\n" +
+        "import com.salesforce.omakase.ast.*;\n" +
+        "import com.salesforce.omakase.ast.selector.*;\n" +
+        "import com.salesforce.omakase.broadcast.*;\n" +
+        "import com.salesforce.omakase.broadcast.annotation.*;\n" +
+        "import com.salesforce.omakase.error.*;\n" +
+        "import com.salesforce.omakase.parser.*;\n" +
+        "import com.salesforce.omakase.plugin.*;\n";
+
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Test
+    public void generatesSubscriptionTable() throws Throwable {
+        String source = IMPORTS +
+            "public class Valid implements Plugin {\n" +
+            "    public static ClassSelector observed;\n" +
+            "    @Observe public void observe(ClassSelector s) { observed = s; }\n" +
+            "    @Validate public void validate(Selector s, ErrorManager em) {}\n" +
+            "    @Refine(\"foo\") public void refine(RawFunction f, Grammar g, Broadcaster b) {}\n" +
+            "}\n";
+
+        ClassLoader loader = compile("test.Valid", source);
+        assertThat(errors()).isEmpty();
+
+        SubscriptionTable table = (SubscriptionTable)loader.loadClass("test.Valid" + SubscriptionTable.SUFFIX).newInstance();
+        List<String> described = new ArrayList<>();
+        table.describe((index, phase, event, name, local, rework, method, params) -> described.add(
+            index + " " + phase + " " + event.getSimpleName() + " " + name + " " + local + " " + rework + " " + method + " " +
+                params.length));
+
+        assertThat(described).containsOnly(
+            "0 PROCESS ClassSelector null true false observe 1",
+            "1 VALIDATE Selector null true false validate 2",
+            "2 REFINE RawFunction foo false false refine 3");
+
+        Object plugin = loader.loadClass("test.Valid").newInstance();
+        com.salesforce.omakase.ast.selector.ClassSelector selector = new com.salesforce.omakase.ast.selector.ClassSelector("a");
+        table.invoke(0, plugin, selector, null, null);
+        assertThat(loader.loadClass("test.Valid").getField("observed").get(null)).isSameAs(selector);
+    }
+
+    @Test
+    public void includesInheritedSubscriptions() throws Exception {
+        String base = IMPORTS +
+            "public abstract class Base implements Plugin {\n" +
+            "    @Rework public void rework(ClassSelector s) {}\n" +
+            "}\n";
+        String sub = IMPORTS +
+            "public class Sub extends Base {\n" +
+            "    @Observe public void observe(Selector s) {}\n" +
+            "}\n";
+
+        ClassLoader loader = compile("test.Base", base, "test.Sub", sub);
+        assertThat(errors()).isEmpty();
+        assertThat(generated("test/Base$$Subscriptions.java")).isFalse(); // abstract
+
+        SubscriptionTable table = (SubscriptionTable)loader.loadClass("test.Sub" + SubscriptionTable.SUFFIX).newInstance();
+        List<String> methods = new ArrayList<>();
+        table.describe((index, phase, event, name, local, rework, method, params) -> methods.add(method));
+        assertThat(methods).containsOnly("observe", "rework");
+    }
+
+    @Test
+    public void localRework() throws Exception {
+        String source = IMPORTS +
+            "public class Local implements Plugin {\n" +
+            "    @Rework(local = true) public void local(ClassSelector s) {}\n" +
+            "    @Rework public void structural(Selector s) {}\n" +
+            "}\n";
+
+        ClassLoader loader = compile("test.Local", source);
+        assertThat(errors()).isEmpty();
+
+        SubscriptionTable table = (SubscriptionTable)loader.loadClass("test.Local" + SubscriptionTable.SUFFIX).newInstance();
+        List<String> described = new ArrayList<>();
+        table.describe((index, phase, event, name, local, rework, method, params) ->
+            described.add(method + " " + local + " " + rework));
+        assertThat(described).containsOnly("local true true", "structural false true");
+    }
+
+    @Test
+    public void skipsPrivateClasses() throws Exception {
+        String source = IMPORTS +
+            "public class Outer {\n" +
+            "    private static class Hidden implements Plugin {\n" +
+            "        @Observe public void observe(ClassSelector s) {}\n" +
+            "    }\n" +
+            "    Plugin anonymous = new Plugin() {\n" +
+            "        @Observe public void observe(ClassSelector s) {}\n" +
+            "    };\n" +
+            "}\n";
+
+        compile("test.Outer", source);
+        assertThat(errors()).isEmpty();
+        assertThat(folder.getRoot().toPath().resolve("test").toFile().list((dir, name) -> name.contains("$$"))).isEmpty();
+    }
+
+    @Test
+    public void errorWhenWrongNumberOfParams() throws Exception {
+        compile("test.Invalid", IMPORTS +
+            "public class Invalid implements Plugin {\n" +
+            "    @Observe public void observe(ClassSelector s, Selector t) {}\n" +
+            "}\n");
+        assertThat(errors()).hasSize(1);
+        assertThat(errors().get(0)).contains("must have exactly one parameter").contains("observe");
+    }
+
+    @Test
+    public void errorWhenAnnotationsNotExclusive() throws Exception {
+        compile("test.Invalid", IMPORTS +
+            "public class Invalid implements Plugin {\n" +
+            "    @Observe @Rework public void observe(ClassSelector s) {}\n" +
+            "}\n");
+        assertThat(errors()).hasSize(1);
+        assertThat(errors().get(0)).contains("mutually exclusive");
+    }
+
+    @Test
+    public void errorWhenValidateMissingErrorManager() throws Exception {
+        compile("test.Invalid", IMPORTS +
+            "public class Invalid implements Plugin {\n" +
+            "    @Validate public void validate(ClassSelector s, Grammar g) {}\n" +
+            "}\n");
+        assertThat(errors()).hasSize(1);
+        assertThat(errors().get(0)).contains("must be of type ErrorManager");
+    }
+
+    @Test
+    public void errorWhenRefineNotRefinable() throws Exception {
+        compile("test.Invalid", IMPORTS +
+            "public class Invalid implements Plugin {\n" +
+            "    @Refine public void refine(ClassSelector s, Grammar g, Broadcaster b) {}\n" +
+            "}\n");
+        assertThat(errors()).hasSize(1);
+        assertThat(errors().get(0)).contains("must implement the Refinable interface");
+    }
+
+    @Test
+    public void warnsWhenNotPublic() throws Exception {
+        compile("test.Hidden", IMPORTS +
+            "public class Hidden implements Plugin {\n" +
+            "    @Observe void observe(ClassSelector s) {}\n" +
+            "}\n");
+        assertThat(errors()).isEmpty();
+        assertThat(warnings()).hasSize(1);
+        assertThat(warnings().get(0)).contains("must be public");
+    }
+
+    @Test
+    public void generatesHierarchy() throws Exception {
+        String source = IMPORTS +
+            "@Subscribable public interface Custom extends Syntax {}\n";
+        String impl = IMPORTS +
+            "@Subscribable public abstract class CustomImpl extends AbstractSyntax implements Custom {}\n";
+
+        ClassLoader loader = compile("test.Custom", source, "test.CustomImpl", impl);
+        assertThat(errors()).isEmpty();
+
+        SubscribableHierarchy table = (SubscribableHierarchy)loader.loadClass("test." + SubscribableHierarchy.NAME).newInstance();
+        Class<?>[] hierarchy = table.hierarchy("test.CustomImpl");
+        assertThat(hierarchy).containsOnly(loader.loadClass("test.CustomImpl"), loader.loadClass("test.Custom"),
+            com.salesforce.omakase.ast.Syntax.class);
+        assertThat(table.hierarchy("test.Other")).isNull();
+    }
+
+    @Test
+    public void phaseNamesMatch() {
+        // the processor refers to the phases by name
+        assertThat(SubscriptionPhase.valueOf("PROCESS")).isNotNull();
+        assertThat(SubscriptionPhase.valueOf("VALIDATE")).isNotNull();
+        assertThat(SubscriptionPhase.valueOf("REFINE")).isNotNull();
+    }
+
+    /** compiles the given (name, source) pairs with the processor, returns a loader for the output */
+    private ClassLoader compile(String... namesAndSources) throws Exception {
+        List<JavaFileObject> units = new ArrayList<>();
+        for (int i = 0; i < namesAndSources.length; i += 2) {
+            units.add(new Source(namesAndSources[i], namesAndSources[i + 1]));
+        }
+
+        File out = folder.getRoot();
+        String classpath = location(Subscribable.class) + File.pathSeparator + location(ImmutableList.class);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = Arrays.asList("-classpath", classpath, "-d", out.getPath(), "-s", out.getPath(),
+                "-processor", SubscriptionProcessor.class.getName());
+            compiler.getTask(null, files, diagnostics, options, null, units).call();
+        }
+
+        return new URLClassLoader(new URL[]{out.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private static String location(Class<?> klass) throws Exception {
+        return new File(klass.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private boolean generated(String path) {
+        return new File(folder.getRoot(), path).exists();
+    }
+
+    private List<String> errors() {
+        return messages(Diagnostic.Kind.ERROR);
+    }
+
+    private List<String> warnings() {
+        return messages(Diagnostic.Kind.WARNING);
+    }
+
+    private List<String> messages(Diagnostic.Kind kind) {
+        List<String> messages = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == kind) {
+                messages.add(diagnostic.getMessage(null));
+            }
+        }
+        return messages;
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
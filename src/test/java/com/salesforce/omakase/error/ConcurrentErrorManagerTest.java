@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.error;
+
+import com.salesforce.omakase.ast.Syntax;
+import com.salesforce.omakase.ast.selector.ClassSelector;
+import com.salesforce.omakase.broadcast.emitter.SubscriptionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ConcurrentErrorManager}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class ConcurrentErrorManagerTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void directReportsPassedAlong() {
+        DefaultErrorManager delegate = new DefaultErrorManager();
+        ConcurrentErrorManager em = new ConcurrentErrorManager(delegate);
+
+        em.report(ErrorLevel.FATAL, new ClassSelector("a"), "direct");
+        assertThat(delegate.hasErrors()).isTrue();
+        assertThat(em.summarize()).contains("direct");
+    }
+
+    @Test
+    public void sectionsHeldUntilMerged() {
+        DefaultErrorManager delegate = new DefaultErrorManager();
+        ConcurrentErrorManager em = new ConcurrentErrorManager(delegate);
+
+        em.section(0).report(ErrorLevel.FATAL, new ClassSelector("a"), "held");
+        assertThat(delegate.hasErrors()).isFalse();
+        assertThat(em.hasErrors()).isTrue();
+
+        em.merge();
+        assertThat(delegate.hasErrors()).isTrue();
+        assertThat(em.summarize()).contains("held");
+    }
+
+    @Test
+    public void mergedInSectionOrder() {
+        DefaultErrorManager delegate = new DefaultErrorManager();
+        ConcurrentErrorManager em = new ConcurrentErrorManager(delegate);
+
+        em.section(2).report(ErrorLevel.FATAL, new ClassSelector("a"), "fourth");
+        em.section(0).report(ErrorLevel.FATAL, new ClassSelector("a"), "first");
+        em.section(1).report(ErrorLevel.FATAL, new ClassSelector("a"), "third");
+        em.section(0).report(ErrorLevel.FATAL, new ClassSelector("a"), "second");
+        em.merge();
+
+        String summary = em.summarize();
+        assertThat(summary.indexOf("first")).isLessThan(summary.indexOf("second"));
+        assertThat(summary.indexOf("second")).isLessThan(summary.indexOf("third"));
+        assertThat(summary.indexOf("third")).isLessThan(summary.indexOf("fourth"));
+    }
+
+    @Test
+    public void mergeClearsSections() {
+        RecordingErrorManager delegate = new RecordingErrorManager();
+        ConcurrentErrorManager em = new ConcurrentErrorManager(delegate);
+
+        em.section(0).report(ErrorLevel.WARNING, new ClassSelector("a"), "once");
+        em.merge();
+        em.merge();
+
+        assertThat(delegate.messages).containsExactly("once");
+    }
+
+    @Test
+    public void deterministicWithManyThreads() throws Exception {
+        RecordingErrorManager delegate = new RecordingErrorManager();
+        ConcurrentErrorManager em = new ConcurrentErrorManager(delegate);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 199; i >= 0; i--) {
+                int section = i;
+                futures.add(executor.submit(() -> {
+                    ErrorManager sectionEm = em.section(section);
+                    sectionEm.report(ErrorLevel.WARNING, new ClassSelector("a"), section + "-1");
+                    sectionEm.report(ErrorLevel.FATAL, new ClassSelector("a"), section + "-2");
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        em.merge();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(i + "-1");
+            expected.add(i + "-2");
+        }
+        assertThat(delegate.messages).isEqualTo(expected);
+    }
+
+    @Test
+    public void rethrownOnMerge() {
+        ConcurrentErrorManager em = new ConcurrentErrorManager(new DefaultErrorManager());
+        em.section(1).report(new SubscriptionException("second"));
+        em.section(0).report(new SubscriptionException("first"));
+
+        exception.expect(SubscriptionException.class);
+        exception.expectMessage("first");
+        em.merge();
+    }
+
+    private static final class RecordingErrorManager extends DefaultErrorManager {
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void report(ErrorLevel level, Syntax cause, String message) {
+            messages.add(message);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.jfr;
+
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import com.salesforce.omakase.writer.StyleWriter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Functional tests for the flight recorder events.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class EventsTest {
+    private static final String CSS = ".a {color:red} @media (max-width:800px) {.b {color:blue}}";
+
+    @Test
+    public void recordsEvents() throws IOException {
+        List<RecordedEvent> events;
+        StyleWriter writer = StyleWriter.compressed();
+
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(RefineEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(PhaseEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(WriteEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            Omakase.source(CSS).use(AutoRefine.everything()).use(writer).process();
+            writer.write();
+            writer.writeTo(new StringWriter());
+
+            recording.stop();
+            Path file = Files.createTempFile("omakase", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        List<RecordedEvent> parse = named(events, "omakase.Parse");
+        assertThat(parse).hasSize(1);
+        assertThat(parse.get(0).getInt("sourceLength")).isEqualTo(CSS.length());
+        assertThat(parse.get(0).getInt("statements")).isEqualTo(2);
+
+        List<RecordedEvent> refine = named(events, "omakase.Refine");
+        assertThat(refine.stream().anyMatch(e -> "AtRule".equals(e.getString("type")) && "media".equals(e.getString("name"))))
+            .isTrue();
+        assertThat(refine.stream().anyMatch(e -> "Selector".equals(e.getString("type")) && e.getInt("units") > 0)).isTrue();
+        assertThat(refine.stream().anyMatch(e -> "Selector".equals(e.getString("type")) && e.getInt("sourceLength") == 2))
+            .isTrue();
+        assertThat(refine.stream().filter(e -> "AtRule".equals(e.getString("type"))).allMatch(e -> e.getInt("sourceLength") > 0))
+            .isTrue();
+
+        List<RecordedEvent> phases = named(events, "omakase.Phase");
+        assertThat(phases).hasSize(2);
+        assertThat(phases.get(0).getString("phase")).isEqualTo("PROCESS");
+        assertThat(phases.get(1).getString("phase")).isEqualTo("VALIDATE");
+        assertThat(phases.get(0).getInt("sourceLength")).isEqualTo(CSS.length());
+        assertThat(phases.get(0).getInt("units")).isGreaterThan(2);
+
+        List<RecordedEvent> writes = named(events, "omakase.Write");
+        assertThat(writes).hasSize(2);
+        assertThat(writes.get(0).getString("mode")).isEqualTo("COMPRESSED");
+        assertThat(writes.get(0).getInt("outputLength")).isEqualTo(writer.write().length());
+        assertThat(writes.get(1).getInt("outputLength")).isEqualTo(-1);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(e -> e.getEventType().getName().equals(name))
+            .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void activeOnlyWhileRecording() {
+        try (Recording recording = new Recording()) {
+            recording.start();
+            assertThat(Events.active()).isTrue();
+            recording.stop();
+        }
+        assertThat(Events.active()).isFalse();
+    }
+
+    @Test
+    public void availableWhenPresent() {
+        assertThat(Events.available("jdk.jfr.FlightRecorder")).isTrue();
+    }
+
+    @Test
+    public void notAvailableWhenMissing() {
+        assertThat(Events.available("jdk.jfr.DoesNotExist")).isFalse();
+    }
+}
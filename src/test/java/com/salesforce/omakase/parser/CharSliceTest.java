@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser;
+
+import com.salesforce.omakase.parser.token.Tokens;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CharSlice}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class CharSliceTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void lengthAndCharAt() {
+        CharSlice slice = new Source("abcdef").slice(1, 4);
+        assertThat(slice.length()).isEqualTo(3);
+        assertThat(slice.charAt(0)).isEqualTo('b');
+        assertThat(slice.charAt(2)).isEqualTo('d');
+        assertThat(slice.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void charAtOutOfBounds() {
+        exception.expect(IndexOutOfBoundsException.class);
+        new Source("abcdef").slice(1, 4).charAt(3);
+    }
+
+    @Test
+    public void empty() {
+        assertThat(new Source("abc").slice(1, 1).isEmpty()).isTrue();
+        assertThat(new Source("abc").slice(1, 1).toString()).isEmpty();
+    }
+
+    @Test
+    public void subSequence() {
+        CharSlice slice = new Source("abcdef").slice(1, 5);
+        assertThat(slice.subSequence(1, 3).toString()).isEqualTo("cd");
+        assertThat(slice.subSequence(0, 4)).isSameAs(slice);
+    }
+
+    @Test
+    public void toStringCached() {
+        CharSlice slice = new Source("abcdef").slice(1, 5);
+        assertThat(slice.toString()).isEqualTo("bcde");
+        assertThat(slice.toString()).isSameAs(slice.toString());
+    }
+
+    @Test
+    public void trim() {
+        Source source = new Source("a{ \n  color:red \t}");
+        source.next();
+        CharSlice slice = source.chompEnclosedSlice(Tokens.OPEN_BRACE, Tokens.CLOSE_BRACE);
+        assertThat(slice.toString()).isEqualTo(" \n  color:red \t");
+        assertThat(slice.trim().toString()).isEqualTo("color:red");
+    }
+
+    @Test
+    public void trimAllWhitespace() {
+        assertThat(new Source("a   b").slice(1, 4).trim().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void trimNothingToTrim() {
+        CharSlice slice = new Source("abc").slice(0, 3);
+        assertThat(slice.trim()).isSameAs(slice);
+    }
+
+    @Test
+    public void sliceOfSlice() {
+        Source sub = new Source(new Source("xx(abc)yy").slice(2, 7));
+        assertThat(sub.chompEnclosedSlice(Tokens.OPEN_PAREN, Tokens.CLOSE_PAREN).toString()).isEqualTo("abc");
+        assertThat(sub.eof()).isTrue();
+    }
+}
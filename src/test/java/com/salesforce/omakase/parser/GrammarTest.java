@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser;
+
+import com.salesforce.omakase.ast.declaration.NumericalValue;
+import com.salesforce.omakase.ast.declaration.Term;
+import com.salesforce.omakase.broadcast.CollectingBroadcaster;
+import com.salesforce.omakase.broadcast.QueryableBroadcaster;
+import com.salesforce.omakase.parser.factory.BaseTokenFactory;
+import com.salesforce.omakase.parser.factory.CompiledTokenFactory;
+import com.salesforce.omakase.parser.factory.TokenFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link Grammar}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class GrammarTest {
+    private static final Class<?>[] TERMS = {Term.class};
+
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void collectorRelays() {
+        Grammar grammar = new Grammar();
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        CollectingBroadcaster collector = grammar.collector(qb, TERMS);
+
+        NumericalValue nv = NumericalValue.of(1);
+        collector.broadcast(nv);
+
+        assertThat(collector.collected(Term.class)).containsExactly(nv);
+        assertThat(qb.all()).containsExactly(nv);
+    }
+
+    @Test
+    public void collectorReusedAfterRelease() {
+        Grammar grammar = new Grammar();
+        CollectingBroadcaster collector = grammar.collector(null, TERMS);
+        collector.broadcast(NumericalValue.of(1));
+        grammar.release(collector);
+
+        CollectingBroadcaster again = grammar.collector(null, TERMS);
+        assertThat(again).isSameAs(collector);
+        assertThat(again.collected(Term.class)).isEmpty();
+    }
+
+    @Test
+    public void nestedCollectors() {
+        Grammar grammar = new Grammar();
+        CollectingBroadcaster outer = grammar.collector(null, TERMS);
+
+        for (int i = 0; i < 10; i++) {
+            CollectingBroadcaster inner = grammar.collector(outer, TERMS);
+            assertThat(inner).isNotSameAs(outer);
+            inner.broadcast(NumericalValue.of(i));
+            assertThat(inner.collected(Term.class)).hasSize(1);
+            grammar.release(inner);
+        }
+
+        assertThat(outer.collected(Term.class)).hasSize(10);
+        grammar.release(outer);
+    }
+
+    @Test
+    public void releaseOutOfOrder() {
+        Grammar grammar = new Grammar();
+        CollectingBroadcaster outer = grammar.collector(null, TERMS);
+        grammar.collector(null, TERMS);
+
+        exception.expect(IllegalStateException.class);
+        grammar.release(outer);
+    }
+
+    @Test
+    public void customTokenFactoryReturnedAsIs() {
+        TokenFactory custom = new BaseTokenFactory();
+        assertThat(new Grammar(custom, null).token()).isSameAs(custom);
+    }
+
+    @Test
+    public void compiledTokenFactoryOptIn() {
+        TokenFactory compiled = CompiledTokenFactory.of(new BaseTokenFactory());
+        assertThat(new Grammar(compiled, null).token()).isSameAs(compiled);
+    }
+}
@@ -701,6 +701,25 @@ public class SourceTest {
         assertThat(source.column()).isEqualTo(2);
     }
 
+    @Test
+    public void rollbackIntoString() {
+        Source source = new Source("a'b'c");
+        source.next();
+        source.next();
+        Source.Snapshot snapshot = source.snapshot();
+        source.next();
+        source.next();
+        assertThat(source.inString()).isFalse();
+
+        snapshot.rollback();
+        assertThat(source.inString()).isTrue();
+
+        source.next();
+        source.next();
+        assertThat(source.inString()).isFalse();
+        assertThat(source.current()).isEqualTo('c');
+    }
+
     @Test
     public void rollbackWithMessage() {
         Source source = new Source("abc");
@@ -1134,6 +1153,136 @@ public class SourceTest {
         assertThat(source.inString()).isFalse();
     }
 
+    @Test
+    public void positionsAfterJumpingForwardAndBack() {
+        Source source = new Source("a\nbb\nccc\n\ndddd");
+        Source.Snapshot start = source.snapshot();
+
+        source.forward(10);
+        assertThat(source.current()).isEqualTo('d');
+        assertThat(source.line()).isEqualTo(5);
+        assertThat(source.column()).isEqualTo(1);
+
+        source.forward(12);
+        assertThat(source.column()).isEqualTo(3);
+
+        start.rollback();
+        assertThat(source.line()).isEqualTo(1);
+        assertThat(source.column()).isEqualTo(1);
+
+        source.forward(5);
+        assertThat(source.current()).isEqualTo('c');
+        assertThat(source.line()).isEqualTo(3);
+        assertThat(source.column()).isEqualTo(1);
+    }
+
+    @Test
+    public void positionAtEndAfterTrailingNewline() {
+        Source source = new Source("a\n");
+        source.forward(2);
+        assertThat(source.eof()).isTrue();
+        assertThat(source.line()).isEqualTo(2);
+        assertThat(source.column()).isEqualTo(1);
+    }
+
+    @Test
+    public void snapshotPositions() {
+        Source source = new Source("a\nbcd", 5, 7);
+        source.forward(3);
+        Source.Snapshot snapshot = source.snapshot();
+        assertThat(snapshot.line).isEqualTo(2);
+        assertThat(snapshot.column).isEqualTo(2);
+        assertThat(snapshot.originalLine).isEqualTo(6);
+        assertThat(snapshot.originalColumn).isEqualTo(2);
+    }
+
+    @Test
+    public void noPositions() {
+        Source source = new Source("a\nbcd", 5, 7, true, false);
+        source.forward(3);
+        assertThat(source.line()).isEqualTo(-1);
+        assertThat(source.column()).isEqualTo(-1);
+        assertThat(source.originalLine()).isEqualTo(-1);
+        assertThat(source.originalColumn()).isEqualTo(-1);
+        assertThat(source.snapshot().originalLine).isEqualTo(-1);
+        assertThat(source.snapshot().originalColumn).isEqualTo(-1);
+    }
+
+    @Test
+    public void noPositionsInheritedBySlices() {
+        Source source = new Source("a{b:c}", 1, 1, true, false);
+        Source sub = new Source(source.slice(2, 5), 1, 3);
+        assertThat(sub.originalLine()).isEqualTo(-1);
+        assertThat(new Source(source.slice(2, 5).subSequence(1, 2)).line()).isEqualTo(-1);
+        assertThat(new Source(new Source("a{b:c}").slice(2, 5), 1, 3).originalColumn()).isEqualTo(3);
+    }
+
+    @Test
+    public void untilSlice() {
+        Source source = new Source("abc;def");
+        CharSlice slice = source.untilSlice(Tokens.SEMICOLON);
+        assertThat(slice.toString()).isEqualTo("abc");
+        assertThat(source.current()).isEqualTo(';');
+    }
+
+    @Test
+    public void untilSliceToEnd() {
+        Source source = new Source("abc");
+        assertThat(source.untilSlice(Tokens.SEMICOLON).toString()).isEqualTo("abc");
+        assertThat(source.eof()).isTrue();
+    }
+
+    @Test
+    public void chompEnclosedSlice() {
+        Source source = new Source("(a(b)c)d");
+        assertThat(source.chompEnclosedSlice(Tokens.OPEN_PAREN, Tokens.CLOSE_PAREN).toString()).isEqualTo("a(b)c");
+        assertThat(source.current()).isEqualTo('d');
+    }
+
+    @Test
+    public void sliceDoesNotMoveIndex() {
+        Source source = new Source("abcdef");
+        source.next();
+        assertThat(source.slice(2, 4).toString()).isEqualTo("cd");
+        assertThat(source.index()).isEqualTo(1);
+    }
+
+    @Test
+    public void sourceFromSlice() {
+        Source source = new Source("a{color:red} b{margin:0}");
+        source.forward(2);
+        CharSlice slice = source.untilSlice(Tokens.CLOSE_BRACE);
+
+        Source sub = new Source(slice, 1, 3);
+        assertThat(sub.length()).isEqualTo(9);
+        assertThat(sub.fullSource()).isEqualTo("color:red");
+        assertThat(sub.current()).isEqualTo('c');
+        assertThat(sub.peekPrevious()).isEqualTo(Source.NULL_CHAR);
+        assertThat(sub.until(Tokens.COLON)).isEqualTo("color");
+        assertThat(sub.originalColumn()).isEqualTo(8);
+        assertThat(sub.skip().remaining()).isEqualTo("red");
+        assertThat(sub.readConstant("red")).isTrue();
+        assertThat(sub.eof()).isTrue();
+        assertThat(sub.peek()).isEqualTo(Source.NULL_CHAR);
+    }
+
+    @Test
+    public void sourceFromRawSyntaxSlice() {
+        Source source = new Source(".a, .b {}");
+        CharSlice slice = source.untilSlice(Tokens.OPEN_BRACE).trim();
+        Source sub = new Source(new RawSyntax(1, 1, slice));
+        assertThat(sub.until(Tokens.COMMA)).isEqualTo(".a");
+        assertThat(sub.skip().skipWhitepace().remaining()).isEqualTo(".b");
+        assertThat(sub.toString()).isEqualTo(".a, \u00BB.b");
+    }
+
+    @Test
+    public void commentsInSlice() {
+        Source sub = new Source(new Source("x /*a*/ /*b*/y").slice(1, 13));
+        assertThat(sub.collectComments().flushComments()).containsExactly("a", "b");
+        assertThat(sub.eof()).isTrue();
+    }
+
     @Test
     public void nestedStringsSingleQuotes() {
         Source source = new Source("a'b\"c\"d'e");
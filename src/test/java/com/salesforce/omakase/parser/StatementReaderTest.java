@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StatementReader}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class StatementReaderTest {
+    @Rule public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void emptyInput() {
+        StatementReader reader = new StatementReader(new StringReader(""));
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.length()).isEqualTo(0);
+    }
+
+    @Test
+    public void nextWhenEmpty() {
+        exception.expect(NoSuchElementException.class);
+        new StatementReader(new StringReader("")).next();
+    }
+
+    @Test
+    public void smallInputIsOneSource() {
+        List<String> chunks = chunks(".a{color:red}\n.b{color:blue}", 8192);
+        assertThat(chunks).containsExactly(".a{color:red}\n.b{color:blue}");
+    }
+
+    @Test
+    public void splitsAtRules() {
+        List<String> chunks = chunks(".a{color:red} .b{color:blue} .c{}", 4);
+        assertThat(chunks).containsExactly(".a{color:red}", " .b{color:blue}", " .c{}");
+    }
+
+    @Test
+    public void splitsAtSemicolonAtTopLevel() {
+        List<String> chunks = chunks("@import 'a.css';.a{b:c;d:e}", 4);
+        assertThat(chunks).containsExactly("@import 'a.css';", ".a{b:c;d:e}");
+    }
+
+    @Test
+    public void includesAllCompleteStatementsInBuffer() {
+        List<String> chunks = chunks(".a{} .b{} .cccccc{}", 12);
+        assertThat(chunks).containsExactly(".a{} .b{}", " .cccccc{}");
+    }
+
+    @Test
+    public void nestedBlocks() {
+        List<String> chunks = chunks("@media print{.a{b:c}.d{e:f}}.g{h:i}", 2);
+        assertThat(chunks).containsExactly("@media print{.a{b:c}.d{e:f}}", ".g{h:i}");
+    }
+
+    @Test
+    public void ignoresTerminatorsInStrings() {
+        List<String> chunks = chunks(".a{content:'};{'}.b{content:\"\\\";}\"}", 2);
+        assertThat(chunks).containsExactly(".a{content:'};{'}", ".b{content:\"\\\";}\"}");
+    }
+
+    @Test
+    public void ignoresTerminatorsInComments() {
+        List<String> chunks = chunks("/*}*/.a{/*;}*/b:c}", 2);
+        assertThat(chunks).containsExactly("/*}*/.a{/*;}*/b:c}");
+    }
+
+    @Test
+    public void ignoresTerminatorsInParens() {
+        List<String> chunks = chunks("@import url(a;b);", 2);
+        assertThat(chunks).containsExactly("@import url(a;b);");
+    }
+
+    @Test
+    public void ignoresEscapedTerminators() {
+        List<String> chunks = chunks(".a\\}\\;b{}", 2);
+        assertThat(chunks).containsExactly(".a\\}\\;b{}");
+    }
+
+    @Test
+    public void trailingContentIsLastSource() {
+        List<String> chunks = chunks(".a{} /* trailing */ ", 2);
+        assertThat(chunks).containsExactly(".a{}", " /* trailing */ ");
+    }
+
+    @Test
+    public void unbalancedCloseBrace() {
+        List<String> chunks = chunks(".a{}}.b{}", 2);
+        assertThat(chunks).containsExactly(".a{}", "}", ".b{}");
+    }
+
+    @Test
+    public void statementLargerThanCapacity() {
+        String big = ".a{" + Strings.repeat("color:red;", 100) + "}";
+        List<String> chunks = chunks(big, 3);
+        assertThat(chunks).containsExactly(big);
+    }
+
+    @Test
+    public void length() {
+        StatementReader reader = new StatementReader(new StringReader(".a{} .b{}"), true, 2);
+        reader.next();
+        assertThat(reader.length()).isEqualTo(4);
+        reader.next();
+        assertThat(reader.length()).isEqualTo(9);
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void anchorsPositions() {
+        StatementReader reader = new StatementReader(new StringReader(".a{}\n  .b{\n}  .c{}"), true, 2);
+        Source first = reader.next();
+        assertThat(first.originalLine()).isEqualTo(1);
+        assertThat(first.originalColumn()).isEqualTo(1);
+
+        Source second = reader.next();
+        assertThat(second.originalLine()).isEqualTo(1);
+        assertThat(second.originalColumn()).isEqualTo(5);
+        second.skipWhitepace();
+        assertThat(second.originalLine()).isEqualTo(2);
+        assertThat(second.originalColumn()).isEqualTo(3);
+
+        Source third = reader.next();
+        assertThat(third.originalLine()).isEqualTo(3);
+        assertThat(third.originalColumn()).isEqualTo(2);
+        third.skipWhitepace();
+        assertThat(third.originalColumn()).isEqualTo(4);
+    }
+
+    @Test
+    public void noPositions() {
+        StatementReader reader = new StatementReader(new StringReader(".a{}\n.b{}"), false, 2);
+        reader.next();
+        assertThat(reader.next().originalLine()).isEqualTo(-1);
+    }
+
+    @Test
+    public void ioException() {
+        exception.expect(UncheckedIOException.class);
+        new StatementReader(new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("test");
+            }
+
+            @Override
+            public void close() {}
+        }).hasNext();
+    }
+
+    private static List<String> chunks(String css, int capacity) {
+        StatementReader reader = new StatementReader(new StringReader(css), true, capacity);
+        List<String> chunks = Lists.newArrayList();
+        while (reader.hasNext()) {
+            Source source = reader.next();
+            chunks.add(source.remaining());
+        }
+        return chunks;
+    }
+}
@@ -79,4 +79,24 @@ public class StylesheetParserTest {
         new StylesheetParser().parse(new Source(".abc{color:red} /*comment*/"), new Grammar(), qb);
         assertThat(qb.find(Stylesheet.class).get().orphanedComments()).hasSize(1);
     }
+
+    @Test
+    public void multipleSources() {
+        QueryableBroadcaster qb = new QueryableBroadcaster();
+        List<Source> sources = Lists.newArrayList(new Source(".abc{color:red}"), new Source(" .xyz{color:blue}"),
+            new Source(" /*comment*/"));
+        new StylesheetParser().parse(sources.iterator(), new Grammar(), qb);
+
+        Stylesheet stylesheet = qb.find(Stylesheet.class).get();
+        assertThat(stylesheet.statements()).hasSize(2);
+        assertThat(stylesheet.orphanedComments()).hasSize(1);
+    }
+
+    @Test
+    public void multipleSourcesEof() {
+        exception.expect(ParserException.class);
+        exception.expectMessage("Unparsable text found at the end of the source");
+        List<Source> sources = Lists.newArrayList(new Source(".abc{color:red}"), new Source("`"), new Source(".xyz{}"));
+        new StylesheetParser().parse(sources.iterator(), new Grammar(), new QueryableBroadcaster());
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser.factory;
+
+import com.salesforce.omakase.parser.token.SimpleToken;
+import com.salesforce.omakase.parser.token.TableToken;
+import com.salesforce.omakase.parser.token.Token;
+import com.salesforce.omakase.parser.token.Tokens;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CompiledTokenFactory}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class CompiledTokenFactoryTest {
+    @Test
+    public void standardNotCompiled() {
+        assertThat(CompiledTokenFactory.of(StandardTokenFactory.instance())).isSameAs(StandardTokenFactory.instance());
+    }
+
+    @Test
+    public void compiledNotCompiledAgain() {
+        TokenFactory compiled = CompiledTokenFactory.of(new CustomFactory());
+        assertThat(CompiledTokenFactory.of(compiled)).isSameAs(compiled);
+    }
+
+    @Test
+    public void tokensRetrievedOnce() {
+        CustomFactory custom = new CustomFactory();
+        TokenFactory compiled = CompiledTokenFactory.of(custom);
+
+        Token first = compiled.selectorBegin();
+        Token second = compiled.selectorBegin();
+        assertThat(first).isSameAs(second);
+        assertThat(custom.selectorBeginCalls).isEqualTo(1);
+        assertThat(first.matches('%')).isTrue();
+        assertThat(first.matches('.')).isTrue();
+    }
+
+    @Test
+    public void customTokensCompiled() {
+        TokenFactory compiled = CompiledTokenFactory.of(new CustomFactory());
+        assertThat(compiled.declarationEnd()).isInstanceOf(TableToken.class);
+        assertThat(compiled.declarationEnd().matches('\n')).isTrue();
+        assertThat(compiled.declarationEnd().matches(';')).isFalse();
+    }
+
+    @Test
+    public void specialDeclarationBegin() {
+        TokenFactory compiled = CompiledTokenFactory.of(new CustomFactory());
+        assertThat(compiled.specialDeclarationBegin().get()).isSameAs(Tokens.PLUS);
+    }
+
+    private static final class CustomFactory extends BaseTokenFactory {
+        int selectorBeginCalls;
+
+        @Override
+        public Token selectorBegin() {
+            selectorBeginCalls++;
+            return super.selectorBegin().or(new SimpleToken('%'));
+        }
+
+        @Override
+        public Token declarationEnd() {
+            return new Newline();
+        }
+
+        @Override
+        public Optional<Token> specialDeclarationBegin() {
+            return Optional.of(Tokens.PLUS);
+        }
+    }
+
+    private static final class Newline implements Token {
+        @Override
+        public boolean matches(char c) {
+            return c == '\n';
+        }
+
+        @Override
+        public String description() {
+            return "newline";
+        }
+
+        @Override
+        public Token or(Token other) {
+            return other;
+        }
+    }
+}
@@ -63,4 +63,21 @@ public class CompoundTokenTest {
         CompoundToken compound = new CompoundToken(Tokens.ALPHA, Tokens.DIGIT);
         assertThat(compound.matches('\u0000')).isFalse();
     }
+
+    @Test
+    public void matchesNonAscii() {
+        CompoundToken compound = new CompoundToken(Tokens.ALPHA, new SimpleToken('\u00e9'));
+        assertThat(compound.matches('\u00e9')).isTrue();
+        assertThat(compound.matches('\u00e8')).isFalse();
+        assertThat(compound.matches('a')).isTrue();
+        assertThat(compound.isAsciiOnly()).isFalse();
+    }
+
+    @Test
+    public void asciiOnly() {
+        CompoundToken compound = new CompoundToken(Tokens.ALPHA, new CompoundToken(Tokens.DIGIT, new SimpleToken('$')));
+        assertThat(compound.isAsciiOnly()).isTrue();
+        assertThat(compound.matches('$')).isTrue();
+        assertThat(compound.matches('\u00e9')).isFalse();
+    }
 }
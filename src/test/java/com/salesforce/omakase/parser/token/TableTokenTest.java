@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.parser.token;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TableToken}.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public class TableTokenTest {
+    @Test
+    public void tableDrivenTokensUnchanged() {
+        Token compound = Tokens.ALPHA.or(Tokens.DIGIT);
+        Token simple = new SimpleToken('x');
+        assertThat(TableToken.of(Tokens.ALPHA)).isSameAs(Tokens.ALPHA);
+        assertThat(TableToken.of(compound)).isSameAs(compound);
+        assertThat(TableToken.of(simple)).isSameAs(simple);
+    }
+
+    @Test
+    public void compilesCustomToken() {
+        Counting custom = new Counting();
+        Token compiled = TableToken.of(custom);
+        assertThat(compiled).isInstanceOf(TableToken.class);
+        assertThat(TableToken.of(compiled)).isSameAs(compiled);
+
+        int compileCalls = custom.calls;
+        assertThat(compiled.matches('a')).isTrue();
+        assertThat(compiled.matches('z')).isTrue();
+        assertThat(compiled.matches('A')).isFalse();
+        assertThat(compiled.matches('~')).isFalse();
+        assertThat(custom.calls).isEqualTo(compileCalls);
+    }
+
+    @Test
+    public void delegatesNonAscii() {
+        Counting custom = new Counting();
+        Token compiled = TableToken.of(custom);
+
+        int compileCalls = custom.calls;
+        assertThat(compiled.matches('\u00e9')).isTrue();
+        assertThat(compiled.matches('\u00d9')).isFalse();
+        assertThat(custom.calls).isEqualTo(compileCalls + 2);
+    }
+
+    @Test
+    public void sameDescription() {
+        assertThat(TableToken.of(new Counting()).description()).isEqualTo("lowercase");
+    }
+
+    @Test
+    public void or() {
+        Token compiled = TableToken.of(new Counting()).or(Tokens.DIGIT);
+        assertThat(compiled.matches('a')).isTrue();
+        assertThat(compiled.matches('1')).isTrue();
+        assertThat(compiled.matches('\u00e9')).isTrue();
+        assertThat(compiled.matches('#')).isFalse();
+    }
+
+    private static final class Counting implements Token {
+        int calls;
+
+        @Override
+        public boolean matches(char c) {
+            calls++;
+            return Character.isLowerCase(c);
+        }
+
+        @Override
+        public String description() {
+            return "lowercase";
+        }
+
+        @Override
+        public Token or(Token other) {
+            return new CompoundToken(this, other);
+        }
+    }
+}
@@ -56,4 +56,28 @@ public class TokensTest {
             assertThat(tokens.matches('\u0000')).isFalse();
         }
     }
+
+    @Test
+    public void matchesSameAsDefinition() {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            boolean digit = c >= '0' && c <= '9';
+            assertThat(Tokens.ALPHA.matches(c)).isEqualTo(alpha);
+            assertThat(Tokens.DIGIT.matches(c)).isEqualTo(digit);
+            assertThat(Tokens.NMSTART.matches(c)).isEqualTo(alpha || c == '_');
+            assertThat(Tokens.NMCHAR.matches(c)).isEqualTo(alpha || digit || c == '_' || c == '-');
+            assertThat(Tokens.WHITESPACE.matches(c)).isEqualTo(c == ' ' || c == '\n' || c == '\t' || c == '\r');
+            assertThat(Tokens.TILDE.matches(c)).isEqualTo(c == '~');
+            assertThat(Tokens.ESCAPE.matches(c)).isEqualTo(c == '\\');
+        }
+    }
+
+    @Test
+    public void doesntMatchNonAscii() {
+        for (Tokens tokens : Tokens.values()) {
+            assertThat(tokens.matches('\u0080')).isFalse();
+            assertThat(tokens.matches('\u00e9')).isFalse();
+            assertThat(tokens.matches('\uffff')).isFalse();
+        }
+    }
 }
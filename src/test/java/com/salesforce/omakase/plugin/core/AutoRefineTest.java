@@ -28,11 +28,17 @@ package com.salesforce.omakase.plugin.core;
 
 import com.salesforce.omakase.Omakase;
 import com.salesforce.omakase.PluginRegistry;
+import com.salesforce.omakase.ast.Syntax;
 import com.salesforce.omakase.ast.atrule.AtRule;
 import com.salesforce.omakase.ast.declaration.Declaration;
+import com.salesforce.omakase.ast.declaration.Term;
 import com.salesforce.omakase.ast.declaration.UrlFunctionValue;
+import com.salesforce.omakase.ast.selector.ClassSelector;
 import com.salesforce.omakase.ast.selector.Selector;
 import com.salesforce.omakase.broadcast.QueryableBroadcaster;
+import com.salesforce.omakase.broadcast.annotation.Observe;
+import com.salesforce.omakase.broadcast.annotation.Validate;
+import com.salesforce.omakase.error.ErrorManager;
 import com.salesforce.omakase.plugin.Plugin;
 import com.salesforce.omakase.plugin.core.AutoRefine.Match;
 import com.salesforce.omakase.plugin.syntax.DeclarationPlugin;
@@ -155,8 +161,138 @@ public class AutoRefineTest {
         assertThat(queryable.find(UrlFunctionValue.class).isPresent()).isTrue();
     }
 
+    @Test
+    public void onDemandOnlyAtRulesUntilParsing() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        plugin.dependencies(registry);
+
+        assertThat(registry.registered).contains(MediaPlugin.class);
+        assertThat(registry.registered).doesNotContain(SelectorPlugin.class, DeclarationPlugin.class);
+    }
+
+    @Test
+    public void onDemandNothingSubscribed() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        registry.plugins.add(plugin);
+        registry.plugins.add(new SelectorPlugin());
+        registry.plugins.add(new UrlPlugin());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).isEmpty();
+        assertThat(plugin.matches()).containsOnly(Match.AT_RULES);
+    }
+
+    @Test
+    public void onDemandDeclarations() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        registry.plugins.add(new DeclarationObserver());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).containsOnly(DeclarationPlugin.class);
+        assertThat(plugin.matches()).containsOnly(Match.AT_RULES, Match.DECLARATIONS);
+    }
+
+    @Test
+    public void onDemandTerms() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        registry.plugins.add(new TermObserver());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).contains(DeclarationPlugin.class, UrlPlugin.class);
+        assertThat(registry.registered).doesNotContain(SelectorPlugin.class);
+    }
+
+    @Test
+    public void onDemandSelectorParts() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        registry.plugins.add(new ClassSelectorObserver());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).containsOnly(SelectorPlugin.class);
+    }
+
+    @Test
+    public void onDemandBroadSubscription() {
+        AutoRefine plugin = AutoRefine.onDemand();
+        registry.plugins.add(new SyntaxObserver());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).contains(SelectorPlugin.class, DeclarationPlugin.class, UrlPlugin.class);
+    }
+
+    @Test
+    public void notOnDemandIgnoresSubscriptions() {
+        AutoRefine plugin = AutoRefine.only(Match.SELECTORS);
+        registry.plugins.add(new DeclarationObserver());
+        plugin.beforeParsing(registry);
+
+        assertThat(registry.registered).isEmpty();
+    }
+
+    @Test
+    public void functionalTestOnDemand() {
+        QueryableBroadcaster queryable = new QueryableBroadcaster();
+        DeclarationObserver observer = new DeclarationObserver();
+
+        String source = "@media all { .test{color:red} } .test2{background: url(foo.png)}";
+        Omakase.source(source).use(AutoRefine.onDemand()).use(observer).broadcaster(queryable).process();
+
+        assertThat(queryable.find(AtRule.class).get().isRefined()).isTrue();
+        assertThat(queryable.find(Selector.class).get().isRefined()).isFalse();
+        assertThat(queryable.find(Declaration.class).get().isRefined()).isTrue();
+        assertThat(queryable.find(UrlFunctionValue.class).isPresent()).isFalse();
+        assertThat(observer.count).isEqualTo(2);
+    }
+
+    @Test
+    public void functionalTestStandardValidationOnDemand() {
+        QueryableBroadcaster queryable = new QueryableBroadcaster();
+
+        String source = ".test{color:red} .test2::before{background: url(foo.png)}";
+        Omakase.source(source).use(StandardValidation.onDemand()).broadcaster(queryable).process();
+
+        assertThat(queryable.find(Selector.class).get().isRefined()).isTrue();
+        assertThat(queryable.find(Declaration.class).get().isRefined()).isFalse();
+    }
+
+    @Test
+    public void functionalTestStandardValidationRefinesEverything() {
+        QueryableBroadcaster queryable = new QueryableBroadcaster();
+
+        String source = ".test{color:red}";
+        Omakase.source(source).use(new StandardValidation()).broadcaster(queryable).process();
+
+        assertThat(queryable.find(Selector.class).get().isRefined()).isTrue();
+        assertThat(queryable.find(Declaration.class).get().isRefined()).isTrue();
+    }
+
+    public static final class DeclarationObserver implements Plugin {
+        int count;
+
+        @Observe
+        public void observe(Declaration declaration) {
+            count++;
+        }
+    }
+
+    public static final class TermObserver implements Plugin {
+        @Observe
+        public void observe(Term term) {}
+    }
+
+    public static final class ClassSelectorObserver implements Plugin {
+        @Validate
+        public void validate(ClassSelector selector, ErrorManager em) {}
+    }
+
+    public static final class SyntaxObserver implements Plugin {
+        @Observe
+        public void observe(Syntax syntax) {}
+    }
+
     private static final class Registry implements PluginRegistry {
         public final List<Class<?>> registered = new ArrayList<>();
+        public final List<Plugin> plugins = new ArrayList<>();
 
         @Override
         public <T extends Plugin> T require(Class<T> klass) {
@@ -179,5 +315,10 @@ public class AutoRefineTest {
         public <T extends Plugin> Optional<T> retrieve(Class<T> klass) {
             return null;
         }
+
+        @Override
+        public List<Plugin> plugins() {
+            return plugins;
+        }
     }
 }
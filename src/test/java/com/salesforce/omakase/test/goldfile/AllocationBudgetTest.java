@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.test.goldfile;
+
+import com.google.common.collect.Lists;
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.plugin.core.AutoRefine;
+import com.salesforce.omakase.plugin.core.StandardValidation;
+import com.salesforce.omakase.plugin.syntax.UnquotedIEFilterPlugin;
+import com.salesforce.omakase.writer.StyleWriter;
+import com.sun.management.ThreadMXBean;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Properties;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.junit.runners.Parameterized.Parameter;
+import static org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Guards against allocation regressions in the parse, process and write pipeline.
+ * <p>
+ * Each goldfile source is processed with full refinement and then written, and the bytes allocated by the current thread for
+ * each of the two steps are checked against the baseline configured for that file in {@code
+ * /goldfile/allocation-budgets.properties}. Every goldfile source must have a baseline. The budget is the baseline plus a fixed
+ * margin, so that only real regressions trip it and not JIT noise.
+ * <p>
+ * Allocations depend on the JDK, so the baselines are only checked on the Java version they were recorded with (the {@code
+ * jdk} entry), and the test is skipped otherwise. A step allocating far less than its baseline means the baseline is stale
+ * and would let the improvement regress unnoticed. This is logged as a warning, or fails the test when running with {@code
+ * -Domakase.allocation.strict=true}. When a change moves the numbers, update the properties file to the measured values.
+ *
+ * @author nmcwilliams
+ */
+@RunWith(Parameterized.class)
+@SuppressWarnings("JavaDoc")
+public class AllocationBudgetTest {
+    private static final Logger logger = LoggerFactory.getLogger(AllocationBudgetTest.class);
+
+    private static final String BUDGETS = "/goldfile/allocation-budgets.properties";
+
+    /** the system property to fail on stale baselines instead of only logging them */
+    private static final String STRICT = "omakase.allocation.strict";
+
+    /** runs before measuring, so that class initialization and interpreter allocations aren't counted */
+    private static final int WARMUP = 5;
+
+    /** measured runs, the minimum is used */
+    private static final int RUNS = 5;
+
+    /** allowed allocations over the baseline, in percent of the baseline */
+    private static final long MARGIN_PERCENT = 10;
+
+    /** allowed allocations over the baseline, in bytes, for small files */
+    private static final long MARGIN_BYTES = 4096;
+
+    /** baselines higher than the measured value by this percentage (plus the margin in bytes) are considered stale */
+    private static final long STALE_PERCENT = 25;
+
+    private static final Properties baselines = new Properties();
+    private static ThreadMXBean threads;
+
+    @Parameters(name = "{0}")
+    public static Iterable<Object[]> data() {
+        List<Object[]> data = Lists.newArrayList();
+        File[] files = Goldfile.sourcesFolder().listFiles((dir, name) -> name.endsWith(".css"));
+        if (files != null) {
+            for (File file : files) {
+                data.add(new Object[]{file.getName().replace(".css", "")});
+            }
+        }
+        return data;
+    }
+
+    @Parameter(0) public String name;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        try (InputStream stream = AllocationBudgetTest.class.getResourceAsStream(BUDGETS)) {
+            baselines.load(stream);
+        }
+
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean) {
+            threads = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        }
+    }
+
+    @Test
+    public void withinBudget() throws IOException {
+        long processBaseline = baseline("process");
+        long writeBaseline = baseline("write");
+
+        String jdk = baselines.getProperty("jdk");
+        assertThat(jdk).describedAs("missing 'jdk' entry in " + BUDGETS).isNotNull();
+        assumeTrue(jdk.trim().equals(System.getProperty("java.specification.version")));
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        String source = Goldfile.fileContents(Goldfile.sourceFile(name));
+
+        for (int i = 0; i < WARMUP; i++) {
+            run(source);
+        }
+
+        long process = Long.MAX_VALUE;
+        long write = Long.MAX_VALUE;
+
+        for (int i = 0; i < RUNS; i++) {
+            long[] allocated = run(source);
+            process = Math.min(process, allocated[0]);
+            write = Math.min(write, allocated[1]);
+        }
+
+        check("process", process, processBaseline);
+        check("write", write, writeBaseline);
+    }
+
+    /** checks the measured bytes against the budget derived from the baseline, and reports if the baseline is stale */
+    private void check(String step, long measured, long baseline) {
+        long budget = baseline + baseline * MARGIN_PERCENT / 100 + MARGIN_BYTES;
+
+        assertThat(measured)
+            .describedAs(String.format("bytes allocated by %s() for %s (baseline %d, budget %d)", step, name, baseline, budget))
+            .isLessThanOrEqualTo(budget);
+
+        if (measured + measured * STALE_PERCENT / 100 + MARGIN_BYTES < baseline) {
+            String message = String.format("stale allocation baseline '%s.%s' (%d), lower it to %d", name, step, baseline,
+                measured);
+            assertThat(Boolean.getBoolean(STRICT)).describedAs(message).isFalse();
+            logger.warn(message);
+        }
+    }
+
+    /** processes and writes the source, returning the bytes allocated by each step */
+    private static long[] run(String source) throws IOException {
+        StyleWriter writer = StyleWriter.inline();
+
+        Omakase.Request request = Omakase.source(source)
+            .use(writer)
+            .use(new StandardValidation(false))
+            .use(new UnquotedIEFilterPlugin())
+            .use(AutoRefine.everything());
+
+        long start = allocated();
+        request.process();
+        long processed = allocated();
+        writer.write();
+        long written = allocated();
+
+        return new long[]{processed - start, written - processed};
+    }
+
+    private static long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long baseline(String step) {
+        String key = name + "." + step;
+        String value = baselines.getProperty(key);
+        assertThat(value).describedAs("missing allocation baseline '" + key + "' in " + BUDGETS).isNotNull();
+        return Long.parseLong(value.trim());
+    }
+}
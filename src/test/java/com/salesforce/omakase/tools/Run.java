@@ -26,7 +26,10 @@
 
 package com.salesforce.omakase.tools;
 
+import com.salesforce.omakase.tools.perf.RunBenchmarks;
+import com.salesforce.omakase.tools.perf.RunContentionTest;
 import com.salesforce.omakase.tools.perf.RunPerfTest;
+import com.salesforce.omakase.tools.perf.RunScalingTest;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -37,6 +40,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -54,6 +58,15 @@ public class Run {
     @Option(name = "-p", aliases = "--perf", usage = "performance test", metaVar = "<args>")
     private boolean perf;
 
+    @Option(name = "-m", aliases = "--bench", usage = "jmh benchmarks (remaining args are passed to jmh)", metaVar = "<args>")
+    private boolean bench;
+
+    @Option(name = "-x", aliases = "--scaling", usage = "scaling test over generated stylesheets", metaVar = "<args>")
+    private boolean scaling;
+
+    @Option(name = "-c", aliases = "--contention", usage = "multi-threaded throughput scaling test", metaVar = "<args>")
+    private boolean contention;
+
     @Option(name = "-u", aliases = "--update", usage = "regenerate data enum, data class and prefixes source files")
     private boolean update;
 
@@ -89,6 +102,16 @@ public class Run {
         try {
             if (args.length == 0) throw new CmdLineException(parser, USAGE);
 
+            // jmh has its own options (e.g., -p, -f) so these args need to bypass our own parsing
+            if (args[0].equals("-m") || args[0].equals("--bench")) {
+                if (args.length == 1) {
+                    RunBenchmarks.printUsage();
+                } else {
+                    RunBenchmarks.run(Arrays.asList(args).subList(1, args.length));
+                }
+                return;
+            }
+
             parser.parseArgument(args);
 
             if (build) {
@@ -101,6 +124,18 @@ public class Run {
                 } else {
                     RunPerfTest.run(arguments);
                 }
+            } else if (scaling) {
+                if (arguments.isEmpty()) {
+                    RunScalingTest.printUsage();
+                } else {
+                    RunScalingTest.run(arguments);
+                }
+            } else if (contention) {
+                if (arguments.isEmpty()) {
+                    RunContentionTest.printUsage();
+                } else {
+                    RunContentionTest.run(arguments);
+                }
             } else if (update) {
                 new GeneratePrefixEnum().run();
                 new GenerateKeywordEnum().run();
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.tools.Tools;
+import com.salesforce.omakase.writer.StyleWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the very first {@code Omakase.source(...).process()} call in a fresh JVM, i.e., including class loading,
+ * static initialization and interpretation. This is the cost paid by short-lived tools and serverless handlers.
+ * <p>
+ * Each fork measures exactly one invocation without any warmup, so the reported score is the distribution over the forks. The
+ * setup only reads the input; it deliberately doesn't touch {@link Mode}, which processes its sources when initialized.
+ * <p>
+ * Run with {@code omakase -m ColdStartBenchmark}, see {@link RunBenchmarks}.
+ *
+ * @author nmcwilliams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@SuppressWarnings("JavaDoc")
+public class ColdStartBenchmark {
+    @Param({"LIGHT", "NORMAL", "PREFIX_HEAVY"})
+    public String mode;
+
+    @Param({"perftest/light.css"})
+    public String input;
+
+    private final OmakasePerf parser = new OmakasePerf();
+    private String source;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Tools.readFile("/" + input);
+    }
+
+    @Benchmark
+    public void process() {
+        switch (mode) {
+        case "LIGHT":
+            parser.parseLight(source);
+            break;
+        case "NORMAL":
+            parser.parseNormal(source);
+            break;
+        case "PREFIX_HEAVY":
+            parser.parsePrefixHeavy(source);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown mode " + mode);
+        }
+    }
+
+    @Benchmark
+    public String processAndWrite() {
+        StyleWriter writer = StyleWriter.compressed();
+        Omakase.source(source).use(PluginSet.normal()).use(writer).process();
+        return writer.write();
+    }
+}
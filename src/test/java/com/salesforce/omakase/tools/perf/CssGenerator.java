@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import java.util.Random;
+
+/**
+ * Generates synthetic stylesheets of a configurable size and {@link Shape}, for scaling tests.
+ * <p>
+ * Output is deterministic for a given seed, shape and size, so that runs are comparable.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("JavaDoc")
+public final class CssGenerator {
+    private static final String[] PROPERTIES = {
+        "color", "margin", "padding", "border-radius", "display", "transition", "box-shadow", "font-size", "width", "flex",
+        "background", "user-select", "transform", "opacity"
+    };
+
+    private static final String[] VALUES = {
+        "red", "0 auto", "1px 2px 3px 4px", "5px", "flex", "opacity 0.3s ease-in", "0 0 2px #ccc", "12px", "50%", "1 1 auto",
+        "url(image.png) no-repeat", "none", "rotate(45deg)", "0.5"
+    };
+
+    private static final String[] CONDITIONS = {"ie7", "ie8", "ie9", "chrome", "firefox", "safari"};
+
+    /** The general structure of the generated stylesheet. */
+    public enum Shape {
+        /**
+         * rules inside of {@code @media} and {@code @supports} blocks, the latter with deeply nested conditions (at-rule blocks
+         * can only contain rules, so the blocks themselves aren't nested)
+         */
+        DEEP_NESTING,
+
+        /** a single rule with a huge number of declarations */
+        HUGE_BLOCK,
+
+        /** a single rule with a huge selector list */
+        LONG_SELECTOR_LIST,
+
+        /** rules with lots of comments around and inside of them */
+        COMMENT_HEAVY,
+
+        /** declarations with lots of quoted content and urls */
+        STRING_HEAVY,
+
+        /** rules inside of many {@code @if} conditional blocks */
+        CONDITIONALS,
+
+        /** a random mix of all of the above */
+        MIXED
+    }
+
+    private final Random random;
+
+    /**
+     * Creates a new generator with the given seed.
+     *
+     * @param seed
+     *     The random seed.
+     */
+    public CssGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a stylesheet.
+     *
+     * @param shape
+     *     The shape of the stylesheet.
+     * @param size
+     *     The number of units to generate. For most shapes this is the number of rules or blocks, but for {@link
+     *     Shape#HUGE_BLOCK} it's the number of declarations and for {@link Shape#LONG_SELECTOR_LIST} it's the number of
+     *     selectors.
+     *
+     * @return The generated CSS.
+     */
+    public String generate(Shape shape, int size) {
+        StringBuilder css = new StringBuilder(size * 64);
+
+        switch (shape) {
+        case DEEP_NESTING:
+            for (int i = 0; i < size; i++) nested(css, 1 + random.nextInt(8));
+            break;
+        case HUGE_BLOCK:
+            css.append(".huge {\n");
+            for (int i = 0; i < size; i++) declaration(css);
+            css.append("}\n");
+            break;
+        case LONG_SELECTOR_LIST:
+            for (int i = 0; i < size; i++) {
+                if (i > 0) css.append(",\n");
+                selector(css);
+            }
+            css.append(" {\n");
+            declaration(css);
+            css.append("}\n");
+            break;
+        case COMMENT_HEAVY:
+            for (int i = 0; i < size; i++) commented(css);
+            break;
+        case STRING_HEAVY:
+            for (int i = 0; i < size; i++) strings(css);
+            break;
+        case CONDITIONALS:
+            for (int i = 0; i < size; i++) conditional(css);
+            break;
+        case MIXED:
+            for (int i = 0; i < size; i++) {
+                switch (random.nextInt(5)) {
+                case 0:
+                    nested(css, 1 + random.nextInt(3));
+                    break;
+                case 1:
+                    commented(css);
+                    break;
+                case 2:
+                    strings(css);
+                    break;
+                case 3:
+                    conditional(css);
+                    break;
+                default:
+                    rule(css, 1 + random.nextInt(8));
+                    break;
+                }
+            }
+            break;
+        }
+
+        return css.toString();
+    }
+
+    private void nested(StringBuilder css, int depth) {
+        // at-rule blocks can only contain rules, so the nesting is in the @supports condition instead
+        if (random.nextBoolean()) {
+            css.append("@media screen and (min-width: ").append(100 + random.nextInt(900)).append("px) {\n");
+        } else {
+            css.append("@supports ");
+            for (int i = 0; i < depth; i++) css.append("(not ");
+            css.append("(display: grid)");
+            for (int i = 0; i < depth; i++) css.append(')');
+            css.append(" {\n");
+        }
+        for (int i = 0; i < depth; i++) rule(css, 2);
+        css.append("}\n");
+    }
+
+    private void commented(StringBuilder css) {
+        css.append("/* ").append(word()).append(" comment for the rule below, with * and / and \"quotes\" */\n");
+        selector(css);
+        css.append(" /* after the selector */ {\n");
+        css.append("  /* before */ ");
+        declaration(css);
+        css.append("  /* orphaned comment at the end of the block */\n}\n");
+    }
+
+    private void strings(StringBuilder css) {
+        selector(css);
+        css.append(" {\n");
+        css.append("  content: \"").append(word()).append(" \\\"quoted\\\" ").append(word()).append("\";\n");
+        css.append("  font-family: 'Helvetica Neue', \"").append(word()).append(" Sans\", sans-serif;\n");
+        css.append("  background-image: url('/img/").append(word()).append(".png'), url(\"data:image/svg+xml;charset=utf8,")
+            .append("%3Csvg xmlns='http://www.w3.org/2000/svg'%3E%3C/svg%3E\");\n");
+        css.append("}\n");
+    }
+
+    private void conditional(StringBuilder css) {
+        css.append("@if (").append(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+        if (random.nextBoolean()) {
+            css.append(" || ").append(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+        }
+        css.append(") {\n");
+        rule(css, 1 + random.nextInt(3));
+        css.append("}\n");
+    }
+
+    private void rule(StringBuilder css, int declarations) {
+        selector(css);
+        css.append(" {\n");
+        for (int i = 0; i < declarations; i++) declaration(css);
+        css.append("}\n");
+    }
+
+    private void selector(StringBuilder css) {
+        switch (random.nextInt(4)) {
+        case 0:
+            css.append('.').append(word());
+            break;
+        case 1:
+            css.append('#').append(word()).append(" > .").append(word());
+            break;
+        case 2:
+            css.append("div.").append(word()).append(":hover ").append(word()).append("::before");
+            break;
+        default:
+            css.append('.').append(word()).append(" [data-").append(word()).append("=\"x\"] + a:not(.").append(word()).append(')');
+            break;
+        }
+    }
+
+    private void declaration(StringBuilder css) {
+        int index = random.nextInt(PROPERTIES.length);
+        css.append("  ").append(PROPERTIES[index]).append(": ").append(VALUES[index]).append(";\n");
+    }
+
+    private String word() {
+        int length = 3 + random.nextInt(8);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char)('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.Pipeline;
+import com.salesforce.omakase.plugin.core.StandardValidation;
+import com.salesforce.omakase.plugin.prefixer.Prefixer;
+import com.salesforce.omakase.tools.Tools;
+import com.salesforce.omakase.writer.StyleWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing a new {@code Omakase.source(...)} request against a request from a reusable {@link Pipeline}, with
+ * the same plugins. Small inputs are used since that's where the per-request setup is most noticeable.
+ *
+ * @author nmcwilliams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@SuppressWarnings("JavaDoc")
+public class PipelineBenchmark {
+    @Param({
+        "goldfile/sources/empty.css",
+        "goldfile/sources/simple.css",
+        "goldfile/sources/button.css"
+    })
+    public String input;
+
+    private String source;
+    private Pipeline pipeline;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Tools.readFile("/" + input);
+        pipeline = Omakase.pipeline()
+            .use(Prefixer::defaultBrowserSupport)
+            .use(StandardValidation::new)
+            .use(StyleWriter::compressed)
+            .build();
+    }
+
+    @Benchmark
+    public String request() {
+        StyleWriter writer = StyleWriter.compressed();
+        Omakase.source(source).use(Prefixer.defaultBrowserSupport()).use(new StandardValidation()).use(writer).process();
+        return writer.write();
+    }
+
+    @Benchmark
+    public String pipeline() {
+        return pipeline.source(source).process().retrieve(StyleWriter.class).get().write();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.salesforce.omakase.tools.Tools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a full {@code Omakase.source(...).process()} call, for each {@link Mode} over every goldfile source and
+ * perftest input.
+ * <p>
+ * Run with {@code omakase -m ProcessBenchmark}, see {@link RunBenchmarks}.
+ *
+ * @author nmcwilliams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@SuppressWarnings("JavaDoc")
+public class ProcessBenchmark {
+    @Param({"LIGHT", "NORMAL", "HEAVY", "PREFIX_HEAVY"})
+    public String mode;
+
+    @Param({
+        "goldfile/sources/button.css",
+        "goldfile/sources/chatter.css",
+        "goldfile/sources/commented.css",
+        "goldfile/sources/customprops.css",
+        "goldfile/sources/empty.css",
+        "goldfile/sources/flexbox.css",
+        "goldfile/sources/media.css",
+        "goldfile/sources/simple.css",
+        "goldfile/sources/zen.css",
+        "perftest/light.css",
+        "perftest/heavy.css"
+    })
+    public String input;
+
+    private final PerfTest parser = new OmakasePerf();
+    private Mode resolvedMode;
+    private String source;
+
+    @Setup
+    public void setup() throws IOException {
+        resolvedMode = Mode.valueOf(mode);
+        source = Tools.readFile("/" + input);
+    }
+
+    @Benchmark
+    public void process() {
+        parser.parse(resolvedMode, source);
+    }
+}
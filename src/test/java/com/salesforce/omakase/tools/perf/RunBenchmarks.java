@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks in this package (as opposed to {@link RunPerfTest}, which is a simple wall-clock test).
+ * <p>
+ * The arguments are regular JMH command line options, e.g., {@code ProcessBenchmark -p mode=HEAVY -f 1}. The GC profiler is
+ * always added so that allocation rates are reported alongside timings.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("ALL")
+public final class RunBenchmarks {
+    private RunBenchmarks() {}
+
+    public static void printUsage() {
+        System.out.println("Help With Running Benchmarks:\n");
+
+        System.out.println("The benchmark args take the format of regular JMH options, e.g., <benchmark regex> [-p param=value] [-f forks]");
+
+        System.out.println("\nAvailable benchmarks:");
+        System.out.println(ProcessBenchmark.class.getSimpleName());
+        System.out.println(ColdStartBenchmark.class.getSimpleName());
+        System.out.println(ConcurrentProcessBenchmark.class.getSimpleName());
+        System.out.println(SourceBenchmark.class.getSimpleName());
+        System.out.println(PipelineBenchmark.class.getSimpleName());
+
+        System.out.println("\nExamples:");
+        System.out.println("omakase -m .");
+        System.out.println("omakase -m ProcessBenchmark -p mode=HEAVY");
+        System.out.println("omakase -m ProcessBenchmark -p input=goldfile/sources/chatter.css -f 1");
+        System.out.println("omakase -m SourceBenchmark.until -p checkInString=false");
+        System.out.println("omakase -m ConcurrentProcessBenchmark -t 16");
+        System.out.println("omakase -m ColdStartBenchmark -p mode=NORMAL -f 20");
+    }
+
+    public static void run(List<String> args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cli = new CommandLineOptions(args.toArray(new String[0]));
+
+        Options options = new OptionsBuilder()
+            .parent(cli)
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(options).run();
+    }
+}
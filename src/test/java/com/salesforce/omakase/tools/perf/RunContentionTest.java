@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.google.common.collect.Lists;
+import com.salesforce.omakase.tools.Colors;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+
+/**
+ * Runs the {@link ConcurrentProcessBenchmark} with 1, 2, 4, ... threads (up to the given max) and reports the total throughput,
+ * the speedup over a single thread and the scaling efficiency (speedup divided by the thread count).
+ * <p>
+ * Ideally the efficiency stays close to 1.0 up to the number of physical cores. A sharp drop usually means requests are
+ * contending on some state shared across threads (e.g., a static counter or cache).
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("ALL")
+public final class RunContentionTest {
+    /** efficiency below this is flagged */
+    private static final double THRESHOLD = 0.7;
+
+    private RunContentionTest() {}
+
+    public static void printUsage() {
+        System.out.println("Help With Running Contention Tests:\n");
+
+        System.out.println("The contention test args take the format of <max threads|max> [mode] [input]");
+
+        System.out.println("\nAvailable modes (default is normal):");
+        for (Mode m : Mode.values()) {
+            System.out.println(m.name().toLowerCase());
+        }
+
+        System.out.println("\nExamples:");
+        System.out.println("omakase -c max");
+        System.out.println("omakase -c 64 heavy");
+        System.out.println("omakase -c 8 normal perftest/heavy.css");
+    }
+
+    public static void run(List<String> args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int max = args.get(0).equals("max") ? cores : Integer.parseInt(args.get(0));
+        String mode = args.size() > 1 ? args.get(1).toUpperCase() : "NORMAL";
+        String input = args.size() > 2 ? args.get(2) : "perftest/light.css";
+
+        System.out.printf("\n%d available processors, mode %s, input %s\n", cores, mode, input);
+
+        List<Integer> counts = Lists.newArrayList();
+        for (int threads = 1; threads < max; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(max);
+
+        List<String> rows = Lists.newArrayList();
+        double single = 0;
+
+        for (int threads : counts) {
+            Options options = new OptionsBuilder()
+                .include(ConcurrentProcessBenchmark.class.getSimpleName())
+                .param("mode", mode)
+                .param("input", input)
+                .threads(threads)
+                .verbosity(VerboseMode.SILENT)
+                .build();
+
+            RunResult result = new Runner(options).runSingle();
+            double score = result.getPrimaryResult().getScore();
+            if (threads == 1) {
+                single = score;
+            }
+
+            double speedup = score / single;
+            double efficiency = speedup / threads;
+
+            String row = String.format("%-10d %-14.1f %-10.2f %.2f", threads, score, speedup, efficiency);
+            rows.add(efficiency < THRESHOLD ? Colors.red(row) : row);
+            System.out.println(rows.get(rows.size() - 1));
+        }
+
+        System.out.printf("\n%-10s %-14s %-10s %s\n", "threads", "ops/s", "speedup", "efficiency");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+        System.out.println("\ndone");
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.salesforce.omakase.Omakase;
+import com.salesforce.omakase.plugin.conditionals.Conditionals;
+import com.salesforce.omakase.plugin.prefixer.Prefixer;
+import com.salesforce.omakase.tools.Colors;
+import com.salesforce.omakase.tools.perf.CssGenerator.Shape;
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Checks that processing time and allocation scale linearly with the input size.
+ * <p>
+ * For each {@link Shape}, stylesheets of increasing size are generated with {@link CssGenerator}, then processed with the
+ * {@link PluginSet#normal()} plugins (plus conditionals, and optionally the prefixer). A power law is fit to the time and the
+ * allocated bytes against the input size (the slope of a least-squares line in log-log space), and any exponent above {@link
+ * #THRESHOLD} is flagged as superlinear.
+ *
+ * @author nmcwilliams
+ */
+@SuppressWarnings("ALL")
+public final class RunScalingTest {
+    /** seed for the generator, so that runs are comparable */
+    private static final long SEED = 20150101L;
+
+    /** number of units generated at factor 1 */
+    private static final int BASE = 250;
+
+    /** size variations (multiplication) */
+    private static final List<Integer> FACTORS = ImmutableList.of(1, 2, 4, 8, 16);
+
+    /** exponents above this are flagged */
+    private static final double THRESHOLD = 1.2;
+
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private RunScalingTest() {}
+
+    public static void printUsage() {
+        System.out.println("Help With Running Scaling Tests:\n");
+
+        System.out.println("The scaling test args take the format of [shape...] [options...]");
+
+        System.out.println("\nAvailable shapes (default is all):");
+        for (Shape s : Shape.values()) {
+            System.out.println(CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_HYPHEN, s.name()));
+        }
+
+        System.out.println("\nAvailable options:");
+        System.out.println("prefix (also run the prefixer, which exercises the Equivalents sibling walks)");
+
+        System.out.println("\nExamples:");
+        System.out.println("omakase -x all");
+        System.out.println("omakase -x huge-block long-selector-list");
+        System.out.println("omakase -x deep-nesting prefix");
+    }
+
+    public static void run(List<String> args) {
+        boolean prefix = args.contains("prefix");
+
+        List<Shape> shapes = Lists.newArrayList();
+        for (String arg : args) {
+            if (arg.equals("prefix") || arg.equals("all")) continue;
+            shapes.add(Shape.valueOf(CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_UNDERSCORE, arg.toLowerCase())));
+        }
+        if (shapes.isEmpty()) {
+            shapes.addAll(ImmutableList.copyOf(Shape.values()));
+        }
+
+        System.out.printf("\n%-20s %-10s %-12s %-14s %s\n", "shape", "size", "time (us)", "allocated (kb)", "");
+
+        List<String> flagged = Lists.newArrayList();
+        for (Shape shape : shapes) {
+            if (!test(shape, prefix)) {
+                flagged.add(shape.name());
+            }
+        }
+
+        if (flagged.isEmpty()) {
+            System.out.println("\n" + Colors.lightGreen("all shapes scaled linearly"));
+        } else {
+            System.out.println("\n" + Colors.red("superlinear: " + flagged));
+        }
+        System.out.println("\ndone");
+    }
+
+    /** runs each factor for the given shape and prints the fit, returning false if superlinear */
+    private static boolean test(Shape shape, boolean prefix) {
+        int size = FACTORS.size();
+        double[] sizes = new double[size];
+        double[] times = new double[size];
+        double[] bytes = new double[size];
+
+        // prime with the largest input
+        String largest = new CssGenerator(SEED).generate(shape, BASE * FACTORS.get(size - 1));
+        for (int i = 0; i < WARMUP; i++) process(largest, prefix);
+
+        for (int i = 0; i < size; i++) {
+            int units = BASE * FACTORS.get(i);
+            String input = new CssGenerator(SEED).generate(shape, units);
+
+            long minTime = Long.MAX_VALUE;
+            long minBytes = Long.MAX_VALUE;
+
+            for (int run = 0; run < RUNS; run++) {
+                long startBytes = allocated();
+                long start = System.nanoTime();
+                process(input, prefix);
+                long end = System.nanoTime();
+                long endBytes = allocated();
+
+                minTime = Math.min(minTime, end - start);
+                minBytes = Math.min(minBytes, endBytes - startBytes);
+            }
+
+            // measure against the input length rather than the unit count, since that's what the parser actually scans
+            sizes[i] = input.length();
+            times[i] = minTime;
+            bytes[i] = minBytes;
+
+            System.out.printf("%-20s %-10d %-12d %-14d\n", shape.name().toLowerCase(), units, minTime / 1000, minBytes / 1024);
+        }
+
+        double timeExponent = exponent(sizes, times);
+        double bytesExponent = exponent(sizes, bytes);
+        boolean linear = timeExponent <= THRESHOLD && bytesExponent <= THRESHOLD;
+
+        String fit = String.format("time ~ n^%.2f, allocation ~ n^%.2f", timeExponent, bytesExponent);
+        System.out.printf("%-20s %s\n\n", "", linear ? Colors.lightGreen(fit) : Colors.red(fit + "  SUPERLINEAR"));
+
+        return linear;
+    }
+
+    private static void process(String input, boolean prefix) {
+        Omakase.Request request = Omakase.source(input).use(PluginSet.normal()).use(new Conditionals("ie7"));
+        if (prefix) {
+            request.use(Prefixer.defaultBrowserSupport().rearrange(true));
+        }
+        request.process();
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** slope of the least-squares line through (log x, log y) */
+    private static double exponent(double[] x, double[] y) {
+        int n = x.length;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = 0; i < n; i++) {
+            double lx = Math.log(x[i]);
+            double ly = Math.log(Math.max(1, y[i]));
+            sumX += lx;
+            sumY += ly;
+            sumXY += lx * ly;
+            sumXX += lx * lx;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2015, salesforce.com, inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ *    Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *    following disclaimer.
+ *
+ *    Redistributions in binary form must reproduce the above copyright notice, this list of conditions and
+ *    the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ *    Neither the name of salesforce.com, inc. nor the names of its contributors may be used to endorse or
+ *    promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.salesforce.omakase.tools.perf;
+
+import com.salesforce.omakase.parser.Source;
+import com.salesforce.omakase.parser.token.Tokens;
+import com.salesforce.omakase.tools.Tools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH microbenchmarks of the hot scanning methods of {@link Source}, each in isolation.
+ * <p>
+ * Each benchmark scans a synthetic input of roughly {@link #SIZE} characters that is tuned for the method under test (long
+ * comments, heavily quoted values, deeply nested parens, escape-dense content, etc...). A new {@link Source} is created per
+ * invocation since sources are stateful; the {@link #construct} benchmark measures that cost on its own so it can be subtracted.
+ * Every benchmark is run with both values of the {@code checkInString} constructor argument.
+ *
+ * @author nmcwilliams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@SuppressWarnings("JavaDoc")
+public class SourceBenchmark {
+    /** approximate number of characters in each generated input */
+    private static final int SIZE = 64 * 1024;
+
+    /** depth of the nested parens input */
+    private static final int NESTING = 256;
+
+    @Param({"true", "false"})
+    public boolean checkInString;
+
+    private String css;
+    private String whitespace;
+    private String declarations;
+    private String comments;
+    private String quoted;
+    private String nested;
+    private String escaped;
+    private String idents;
+
+    @Setup
+    public void setup() throws IOException {
+        css = repeat(Tools.readFile("/perftest/heavy.css"));
+        whitespace = repeat("  \n\t  \r\n    a");
+        declarations = repeat("color:red;background:url(data:image/png;base64,iVBORw0K);content:'a;b';font:12px \"x;y\";");
+        comments = repeat("/* " + repeat("a long comment with a * and a / inside of it ", 20) + "*/\n");
+        quoted = repeat("'single \\' quoted' \"double \\\" quoted\" 'a' \"b\" ");
+        nested = repeat(repeat("(", NESTING) + "a" + repeat(")", NESTING) + " ");
+        escaped = repeat(".a\\:b\\.c\\(d\\)\\;e\\'f\\\"g;");
+        idents = repeat("color --custom-prop -webkit-box-shadow _under ident123 ");
+    }
+
+    @Benchmark
+    public Source construct() {
+        return source(css);
+    }
+
+    @Benchmark
+    public void next(Blackhole bh) {
+        Source source = source(css);
+        while (!source.eof()) {
+            bh.consume(source.next());
+        }
+    }
+
+    @Benchmark
+    public Source skipWhitespace() {
+        Source source = source(whitespace);
+        while (!source.eof()) {
+            source.skipWhitepace().next();
+        }
+        return source;
+    }
+
+    @Benchmark
+    public void until(Blackhole bh) {
+        Source source = source(declarations);
+        while (!source.eof()) {
+            bh.consume(source.until(Tokens.SEMICOLON));
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public void untilEscaped(Blackhole bh) {
+        Source source = source(escaped);
+        while (!source.eof()) {
+            bh.consume(source.until(Tokens.SEMICOLON));
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public void chompEnclosedValue(Blackhole bh) {
+        Source source = source(nested);
+        while (!source.eof()) {
+            bh.consume(source.chompEnclosedValue(Tokens.OPEN_PAREN, Tokens.CLOSE_PAREN));
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public Object collectComments() {
+        return source(comments).collectComments().flushComments();
+    }
+
+    @Benchmark
+    public void readIdent(Blackhole bh) {
+        Source source = source(idents);
+        while (!source.eof()) {
+            bh.consume(source.readIdent());
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public void readIdentLevel3(Blackhole bh) {
+        Source source = source(idents);
+        while (!source.eof()) {
+            bh.consume(source.readIdentLevel3());
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public void readString(Blackhole bh) {
+        Source source = source(quoted);
+        while (!source.eof()) {
+            bh.consume(source.readString());
+            source.next();
+        }
+    }
+
+    @Benchmark
+    public Source snapshotRollback() {
+        Source source = source(css);
+        while (!source.eof()) {
+            Source.Snapshot snapshot = source.snapshot();
+            source.next();
+            snapshot.rollback();
+            source.next();
+        }
+        return source;
+    }
+
+    private Source source(String input) {
+        return new Source(input, 1, 1, checkInString);
+    }
+
+    /** repeats the given string until the result is at least {@link #SIZE} characters */
+    private static String repeat(String s) {
+        return repeat(s, (SIZE / s.length()) + 1);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder builder = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(s);
+        }
+        return builder.toString();
+    }
+}
@@ -46,16 +46,6 @@ public enum Property {
     </#list>
     ;
 
-    /** reverse lookup map */
-    private static final Map<String, Property> map;
-    static {
-        Builder<String, Property> builder = ImmutableMap.builder();
-        for (Property pn : Property.values()) {
-            builder.put(pn.toString(), pn);
-        }
-        map = builder.build();
-    }
-
     private final String name;
 
     Property(String name) {
@@ -76,6 +66,18 @@ public enum Property {
      * @return The matching {@link Property}, or null if not found.
      */
     public static Property lookup(String name) {
-        return map.get(name);
+        return Lookup.map.get(name);
+    }
+
+    /** reverse lookup map, in a holder class so that it is only built on the first lookup */
+    private static final class Lookup {
+        private static final Map<String, Property> map;
+        static {
+            Builder<String, Property> builder = ImmutableMap.builder();
+            for (Property pn : Property.values()) {
+                builder.put(pn.toString(), pn);
+            }
+            map = builder.build();
+        }
     }
 }